@@ -1,40 +1,101 @@
-package main.java.com.universite.courses;
+package com.universite.courses;
 
+import com.universite.courses.catalog.CatalogReplica;
+import com.universite.courses.events.CacheInvalidationChannel;
+import com.universite.courses.events.CourseChangeFeed;
+import com.universite.courses.export.CatalogSnapshotServlet;
+import com.universite.courses.export.RosterExportServlet;
+import com.universite.courses.events.EnrollmentEventPipeline;
+import com.universite.courses.jobs.AcademicSummaryRecomputer;
+import com.universite.courses.jobs.EnrollmentCounterReconciler;
+import com.universite.courses.jobs.LotteryCloser;
+import com.universite.courses.jobs.RegistrationPrewarmer;
+import com.universite.courses.service.CatalogReplicaService;
 import com.universite.courses.service.CourseServiceImpl;
+import com.universite.courses.service.SoapResponseCache;
 import com.universite.courses.util.DatabaseManager;
-import jakarta.persistence.EntityManager;
+import com.universite.courses.util.StartupTimer;
+import com.universite.courses.util.StartupTraining;
+import com.sun.net.httpserver.HttpContext;
 import jakarta.xml.ws.Endpoint;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jetty.http.spi.JettyHttpServer;
+import org.eclipse.jetty.server.HttpChannel;
+import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.ContextHandlerCollection;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
 
-import com.sun.xml.ws.transport.http.servlet.WSServlet;
-import com.sun.xml.ws.transport.http.servlet.WSServletContextListener;
-
 @Slf4j
 public class CoursesServiceApplication {
     
     private static final int PORT = getPort();
     private static final String SERVICE_PATH = "/CourseService";
+    private static final String EXPORT_PATH = "/export";
     
     public static void main(String[] args) {
         try {
+            StartupTimer.phase("jvm");
             log.info("========================================");
             log.info("Starting Courses Service");
             log.info("========================================");
             
+            // A catalog replica serves reads from a snapshot of the primary and needs no database
+            CatalogReplica replica = CatalogReplica.fromConfig();
+            if (replica != null) {
+                startCatalogReplica(replica);
+                return;
+            }
+            
             // Initialize database
             DatabaseManager.initialize();
             
-            // Create entity manager
-            EntityManager entityManager = DatabaseManager.getEntityManager();
+            // Start the outbox relay and the enrollment event log
+            EnrollmentEventPipeline events = EnrollmentEventPipeline.fromConfig();
+            StartupTimer.phase("event pipeline");
+            
+            // Recent course changes for incremental catalog sync
+            CourseChangeFeed changeFeed = new CourseChangeFeed();
+            
+            // Cache invalidations to and from the other nodes
+            CacheInvalidationChannel invalidations = CacheInvalidationChannel.fromConfig();
+            
+            // Schedule the enrollment counter reconciliation
+            EnrollmentCounterReconciler reconciler = EnrollmentCounterReconciler.fromConfig(changeFeed, invalidations);
+            if (reconciler != null) {
+                reconciler.start();
+            }
+            
+            // Recompute the academic summaries every night
+            AcademicSummaryRecomputer recomputer = AcademicSummaryRecomputer.fromConfig();
+            if (recomputer != null) {
+                recomputer.start();
+            }
             
             // Create service implementation
-            CourseServiceImpl courseService = new CourseServiceImpl(entityManager);
+            CourseServiceImpl courseService = new CourseServiceImpl(events, reconciler, changeFeed, invalidations);
+            if (invalidations != null) {
+                invalidations.start(courseService::applyInvalidations);
+            }
+            
+            // Draw lottery windows when they close
+            LotteryCloser lotteryCloser = LotteryCloser.fromConfig(courseService::closeLottery);
+            if (lotteryCloser != null) {
+                lotteryCloser.start();
+            }
+            
+            // Warm up shortly before the registration period opens
+            RegistrationPrewarmer prewarmer = RegistrationPrewarmer.fromConfig(
+                courseService.getRegistrationOpensAt(), courseService::prewarmRegistration);
+            if (prewarmer != null) {
+                prewarmer.start();
+            }
             
             // Start embedded server
-            startJettyServer(courseService);
+            startJettyServer(courseService, changeFeed, events, reconciler, recomputer, lotteryCloser, prewarmer,
+                invalidations);
             
         } catch (Exception e) {
             log.error("Failed to start Courses Service: {}", e.getMessage(), e);
@@ -42,32 +103,40 @@ public class CoursesServiceApplication {
         }
     }
     
-    private static void startJettyServer(CourseServiceImpl courseService) throws Exception {
-        Server server = new Server(PORT);
-        
-        ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
-        context.setContextPath("/");
-        server.setHandler(context);
+    private static void startJettyServer(CourseServiceImpl courseService,
+                                         CourseChangeFeed changeFeed,
+                                         EnrollmentEventPipeline events,
+                                         EnrollmentCounterReconciler reconciler,
+                                         AcademicSummaryRecomputer recomputer,
+                                         LotteryCloser lotteryCloser,
+                                         RegistrationPrewarmer prewarmer,
+                                         CacheInvalidationChannel invalidations) throws Exception {
+        Server server = createServer();
+        ContextHandlerCollection contexts = (ContextHandlerCollection) server.getHandler();
         
-        // Add WSServletContextListener
-        context.addEventListener(new WSServletContextListener());
+        // Streamed exports that do not fit a SOAP response
+        ServletContextHandler exports = new ServletContextHandler();
+        exports.setContextPath(EXPORT_PATH);
+        exports.addServlet(new ServletHolder(new RosterExportServlet()), "/roster");
+        exports.addServlet(new ServletHolder(new CatalogSnapshotServlet(changeFeed)), "/catalog");
+        contexts.addHandler(exports);
         
-        // Add WSServlet
-        ServletHolder servletHolder = new ServletHolder(new WSServlet());
-        context.addServlet(servletHolder, SERVICE_PATH);
-        
-        // Publish SOAP endpoint
         String address = "http://0.0.0.0:" + PORT + SERVICE_PATH;
-        Endpoint endpoint = Endpoint.publish(address, courseService);
+        Endpoint endpoint = publishEndpoint(server, courseService, courseService.getResponseCache());
+        StartupTimer.phase("soap endpoint");
         
         server.start();
+        StartupTimer.phase("http server");
         
         log.info("========================================");
         log.info("✓ Courses Service started successfully");
         log.info("Port: {}", PORT);
         log.info("SOAP Endpoint: {}", address);
         log.info("WSDL: {}?wsdl", address);
+        log.info("Roster export: http://0.0.0.0:{}{}/roster?courseId=...", PORT, EXPORT_PATH);
+        log.info("Catalog snapshot: http://0.0.0.0:{}{}/catalog", PORT, EXPORT_PATH);
         log.info("========================================");
+        StartupTimer.report();
         
         // Add shutdown hook
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -75,6 +144,24 @@ public class CoursesServiceApplication {
             try {
                 endpoint.stop();
                 server.stop();
+                if (lotteryCloser != null) {
+                    lotteryCloser.close();
+                }
+                if (prewarmer != null) {
+                    prewarmer.close();
+                }
+                if (reconciler != null) {
+                    reconciler.close();
+                }
+                if (recomputer != null) {
+                    recomputer.close();
+                }
+                if (invalidations != null) {
+                    invalidations.close();
+                }
+                if (events != null) {
+                    events.close();
+                }
                 DatabaseManager.close();
                 log.info("Courses Service stopped successfully");
             } catch (Exception e) {
@@ -82,9 +169,86 @@ public class CoursesServiceApplication {
             }
         }));
         
+        if (StartupTraining.isEnabled()) {
+            StartupTraining.run(PORT, SERVICE_PATH);
+            System.exit(0);
+        }
+        
         server.join();
     }
     
+    /**
+     * Serves the catalog reads from a snapshot of the primary's catalog kept
+     * current from its change feed; nothing else runs on a replica node.
+     */
+    private static void startCatalogReplica(CatalogReplica replica) throws Exception {
+        replica.start();
+        StartupTimer.phase("catalog snapshot");
+        CatalogReplicaService replicaService = new CatalogReplicaService(replica);
+        
+        Server server = createServer();
+        String address = "http://0.0.0.0:" + PORT + SERVICE_PATH;
+        Endpoint endpoint = publishEndpoint(server, replicaService, replicaService.getResponseCache());
+        StartupTimer.phase("soap endpoint");
+        
+        server.start();
+        StartupTimer.phase("http server");
+        
+        log.info("========================================");
+        log.info("✓ Courses Service started as a catalog replica of {}", replica.getPrimaryUrl());
+        log.info("Port: {}", PORT);
+        log.info("SOAP Endpoint: {}", address);
+        log.info("========================================");
+        StartupTimer.report();
+        
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            log.info("Shutting down Courses Service...");
+            try {
+                endpoint.stop();
+                server.stop();
+                replica.close();
+                log.info("Courses Service stopped successfully");
+            } catch (Exception e) {
+                log.error("Error during shutdown: {}", e.getMessage());
+            }
+        }));
+        
+        server.join();
+    }
+    
+    private static Server createServer() {
+        Server server = new Server();
+        ServerConnector connector = new ServerConnector(server);
+        connector.setPort(PORT);
+        connector.addBean(new FirstRequestListener());
+        server.addConnector(connector);
+        server.setHandler(new ContextHandlerCollection());
+        return server;
+    }
+    
+    /** Publishes the SOAP endpoint on the Jetty server through the JDK HTTP server SPI, behind the response cache. */
+    private static Endpoint publishEndpoint(Server server, Object implementor, SoapResponseCache responseCache) {
+        JettyHttpServer httpServer = new JettyHttpServer(server, true);
+        Endpoint endpoint = Endpoint.create(implementor);
+        HttpContext soapContext = httpServer.createContext(SERVICE_PATH);
+        endpoint.publish(soapContext);
+        if (responseCache.isEnabled()) {
+            soapContext.setHandler(responseCache.wrap(soapContext.getHandler()));
+        }
+        return endpoint;
+    }
+    
+    /** Reports the first request answered with a 2xx status to the startup timer. */
+    private static class FirstRequestListener implements HttpChannel.Listener {
+        @Override
+        public void onComplete(Request request) {
+            int status = request.getResponse().getStatus();
+            if (status >= 200 && status < 300) {
+                StartupTimer.requestSucceeded(request.getMethod() + " " + request.getRequestURI());
+            }
+        }
+    }
+    
     private static int getPort() {
         String portStr = System.getenv("PORT");
         if (portStr != null && !portStr.trim().isEmpty()) {
@@ -0,0 +1,290 @@
+package com.universite.courses.analytics;
+
+import com.universite.courses.repository.CoEnrollmentRepository;
+import com.universite.courses.util.AppConfig;
+import com.universite.courses.util.DatabaseManager;
+import com.universite.courses.util.StudentRows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * "Students who took X also took Y": for every course code, the codes most
+ * often taken by the same students, built from the enrolled and completed
+ * rows of {@code student_courses} in the background and swapped in whole.
+ *
+ * <p>Offerings of a code in different semesters count as one course, and a
+ * student counts once per code. The build never boxes a student or a pair:
+ * the enrollments stream in student order into a CSR matrix of students by
+ * code (an offsets array and a column array of dense code indexes), which is
+ * transposed into codes by student with a counting sort. Each code's
+ * co-occurrence counts are then one pass over its students' rows into a dense
+ * counter array owned by the worker, {@code related-courses.parallelism}
+ * codes at a time, keeping the {@code related-courses.top-k} largest. The
+ * served table is a handful of primitive arrays of about {@code top-k}
+ * entries per code.
+ */
+@Slf4j
+public class CoEnrollmentIndex implements Closeable {
+
+    /** A related code, with how many students took both and the latest offering of it. */
+    public record Related(long courseId, String code, String name, int students, double share) {
+    }
+
+    /**
+     * The built table. Course IDs are sorted and map to a dense code index;
+     * the related codes of code {@code c} are {@code related[relatedStart[c]]}
+     * up to {@code relatedStart[c + 1]}, most co-enrolled first.
+     */
+    private record Table(long[] courseIds, int[] codeOfCourse, String[] codes, String[] names, long[] latestCourse,
+                         int[] students, int[] relatedStart, int[] related, int[] relatedStudents) {
+    }
+
+    private final boolean enabled;
+    private final int topK;
+    private final int minStudents;
+    private final int parallelism;
+    private final int fetchSize;
+    private final long initialDelayMillis;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService workers;
+
+    private volatile Table table;
+
+    public CoEnrollmentIndex() {
+        this.enabled = AppConfig.getBoolean("related-courses.enabled", true);
+        this.topK = Math.max(1, AppConfig.getInt("related-courses.top-k", 10));
+        this.minStudents = Math.max(1, AppConfig.getInt("related-courses.min-students", 3));
+        this.parallelism = Math.max(1, AppConfig.getInt("related-courses.parallelism", 4));
+        this.fetchSize = Math.max(1, AppConfig.getInt("related-courses.fetch-size", 10_000));
+        this.initialDelayMillis = AppConfig.getLong("related-courses.initial-delay-ms", 60_000);
+        this.intervalMillis = AppConfig.getLong("related-courses.rebuild-interval-ms", 21_600_000);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "co-enrollment-builder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "co-enrollment-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Schedules the first build and the rebuilds; does nothing when disabled. */
+    public void start() {
+        if (!enabled) {
+            log.info("Related courses disabled");
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::buildQuietly, initialDelayMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The codes most often taken by students of the course's code, most
+     * co-enrolled first; empty until the first build, and for courses created
+     * since the last one.
+     */
+    public List<Related> related(long courseId) {
+        Table current = table;
+        if (current == null) {
+            return List.of();
+        }
+        int course = Arrays.binarySearch(current.courseIds(), courseId);
+        if (course < 0) {
+            return List.of();
+        }
+        int code = current.codeOfCourse()[course];
+        List<Related> related = new ArrayList<>(current.relatedStart()[code + 1] - current.relatedStart()[code]);
+        for (int i = current.relatedStart()[code]; i < current.relatedStart()[code + 1]; i++) {
+            int other = current.related()[i];
+            int students = current.relatedStudents()[i];
+            related.add(new Related(current.latestCourse()[other], current.codes()[other], current.names()[other],
+                students, Math.round(students * 1000.0 / current.students()[code]) / 10.0));
+        }
+        return related;
+    }
+
+    /** Builds the table from the primary and swaps it in. */
+    public void build() {
+        long start = System.nanoTime();
+
+        // Courses by ID, each mapped to the dense index of its code
+        List<Object[]> courses = DatabaseManager.withEntityManager(em -> new CoEnrollmentRepository(em).findCourseCodes());
+        long[] courseIds = new long[courses.size()];
+        int[] codeOfCourse = new int[courses.size()];
+        Map<String, Integer> codeIndex = new HashMap<>();
+        List<String> codes = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Long> latest = new ArrayList<>();
+        for (int i = 0; i < courses.size(); i++) {
+            Object[] row = courses.get(i);
+            courseIds[i] = ((Number) row[0]).longValue();
+            String code = (String) row[1];
+            Integer index = codeIndex.get(code);
+            if (index == null) {
+                index = codes.size();
+                codeIndex.put(code, index);
+                codes.add(code);
+                names.add(null);
+                latest.add(null);
+            }
+            codeOfCourse[i] = index;
+            // By ID, so the last offering seen is the latest one
+            names.set(index, (String) row[2]);
+            latest.set(index, courseIds[i]);
+        }
+        int codeCount = codes.size();
+
+        // Students by code, as CSR: one row of distinct code indexes per student
+        StudentRows rows = new StudentRows(courseIds, course -> codeOfCourse[course], codeCount);
+        long enrollments = DatabaseManager.withEntityManager(em ->
+            new CoEnrollmentRepository(em).streamSeatHoldersByStudent(fetchSize, rows::accept));
+        rows.endStudent();
+
+        int[] rowStart = rows.rowStart();
+        int[] rowColumns = rows.columns();
+
+        // Codes by student: the transpose, by counting sort
+        int[] students = rows.columnStudents();
+        int[] columnStart = new int[codeCount + 1];
+        for (int i = 0; i < rows.size(); i++) {
+            columnStart[rowColumns[i] + 1]++;
+        }
+        for (int c = 0; c < codeCount; c++) {
+            columnStart[c + 1] += columnStart[c];
+        }
+        int[] columnRows = new int[rows.size()];
+        int[] fill = Arrays.copyOf(columnStart, codeCount);
+        for (int r = 0; r < rows.rowCount(); r++) {
+            for (int i = rowStart[r]; i < rowStart[r + 1]; i++) {
+                columnRows[fill[rowColumns[i]]++] = r;
+            }
+        }
+
+        // Top K co-enrolled codes of every code, in parallel
+        int[][] topCodes = new int[codeCount][];
+        int[][] topStudents = new int[codeCount][];
+        AtomicInteger next = new AtomicInteger();
+        List<Future<?>> tasks = new ArrayList<>(parallelism);
+        for (int w = 0; w < parallelism; w++) {
+            tasks.add(workers.submit(() -> {
+                int[] counts = new int[codeCount];
+                int[] touched = new int[codeCount];
+                for (int c = next.getAndIncrement(); c < codeCount; c = next.getAndIncrement()) {
+                    int touchedCount = 0;
+                    for (int i = columnStart[c]; i < columnStart[c + 1]; i++) {
+                        int r = columnRows[i];
+                        for (int j = rowStart[r]; j < rowStart[r + 1]; j++) {
+                            int other = rowColumns[j];
+                            if (other != c && counts[other]++ == 0) {
+                                touched[touchedCount++] = other;
+                            }
+                        }
+                    }
+                    int[][] top = selectTop(counts, touched, touchedCount, topK, minStudents);
+                    topCodes[c] = top[0];
+                    topStudents[c] = top[1];
+                    for (int i = 0; i < touchedCount; i++) {
+                        counts[touched[i]] = 0;
+                    }
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            join(task);
+        }
+
+        int[] relatedStart = new int[codeCount + 1];
+        for (int c = 0; c < codeCount; c++) {
+            relatedStart[c + 1] = relatedStart[c] + topCodes[c].length;
+        }
+        int[] related = new int[relatedStart[codeCount]];
+        int[] relatedStudents = new int[relatedStart[codeCount]];
+        for (int c = 0; c < codeCount; c++) {
+            System.arraycopy(topCodes[c], 0, related, relatedStart[c], topCodes[c].length);
+            System.arraycopy(topStudents[c], 0, relatedStudents, relatedStart[c], topStudents[c].length);
+        }
+        table = new Table(courseIds, codeOfCourse, codes.toArray(String[]::new), names.toArray(String[]::new),
+            latest.stream().mapToLong(Long::longValue).toArray(), students, relatedStart, related, relatedStudents);
+
+        log.info("Related courses built from {} enrollments of {} students over {} codes in {} ms ({} pairs kept)",
+            enrollments, rows.studentCount(), codeCount, (System.nanoTime() - start) / 1_000_000, related.length);
+    }
+
+    /**
+     * The {@code topK} most co-enrolled of the touched codes that reach
+     * {@code minStudents}, largest count first and lowest code index on ties,
+     * by insertion into a sorted array of at most {@code topK}. Returns the
+     * codes and their counts.
+     */
+    static int[][] selectTop(int[] counts, int[] touched, int touchedCount, int topK, int minStudents) {
+        int[] best = new int[Math.min(topK, touchedCount)];
+        int[] bestCounts = new int[best.length];
+        int kept = 0;
+        for (int i = 0; i < touchedCount; i++) {
+            int other = touched[i];
+            int count = counts[other];
+            if (count < minStudents) {
+                continue;
+            }
+            int at = kept;
+            while (at > 0 && (bestCounts[at - 1] < count || (bestCounts[at - 1] == count && best[at - 1] > other))) {
+                at--;
+            }
+            if (at >= best.length) {
+                continue;
+            }
+            int moved = Math.min(kept, best.length - 1) - at;
+            System.arraycopy(best, at, best, at + 1, moved);
+            System.arraycopy(bestCounts, at, bestCounts, at + 1, moved);
+            best[at] = other;
+            bestCounts[at] = count;
+            kept = Math.min(kept + 1, best.length);
+        }
+        return new int[][]{Arrays.copyOf(best, kept), Arrays.copyOf(bestCounts, kept)};
+    }
+
+    private static void join(Future<?> task) {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building related courses", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Building related courses failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void buildQuietly() {
+        try {
+            build();
+        } catch (RuntimeException e) {
+            log.error("Building related courses failed, keeping the previous table: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,424 @@
+package com.universite.courses.analytics;
+
+import com.universite.courses.events.EnrollmentEvent;
+import com.universite.courses.events.SegmentedLog;
+import com.universite.courses.util.AppConfig;
+import com.universite.courses.util.DatabaseManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seats, enrolled, drops and waitlist demand per department, level and
+ * semester, maintained by tailing the enrollment event log.
+ *
+ * <p>Every course contributes to the eight roll-ups of its
+ * (department, level, semester) key, where each dimension is either the
+ * course's value or {@link #ALL}, so any combination of filters is one map
+ * lookup. A single thread applies events and writes checkpoints; readers see
+ * immutable {@link Totals} and never block it. Without a checkpoint the state
+ * is recomputed once from the database.
+ */
+@Slf4j
+public class EnrollmentStatsAggregator implements Closeable {
+
+    public static final String ALL = "*";
+
+    private static final int CHECKPOINT_VERSION = 2;
+    private static final int RECENT_EVENT_IDS = 10_000;
+    private static final int BATCH = 1000;
+
+    public record Totals(int courses, long seats, long enrolled, long drops, long waitlist) {
+        static final Totals ZERO = new Totals(0, 0, 0, 0, 0);
+
+        Totals plus(Totals other, int sign) {
+            return new Totals(courses + sign * other.courses, seats + sign * other.seats,
+                enrolled + sign * other.enrolled, drops + sign * other.drops, waitlist + sign * other.waitlist);
+        }
+    }
+
+    /** Per-course counters; only touched by the aggregator thread. */
+    private static final class CourseCounters {
+        String department;
+        String level;
+        String semester;
+        int capacity;
+        boolean active;
+        long enrolled;
+        long drops;
+        long waitlist;
+
+        Totals totals() {
+            return new Totals(active ? 1 : 0, active ? capacity : 0, enrolled, drops, waitlist);
+        }
+    }
+
+    private final SegmentedLog eventLog;
+    private final Path checkpointFile;
+    private final ScheduledExecutorService worker;
+
+    private final Map<Long, CourseCounters> courses = new HashMap<>();
+    private final ConcurrentHashMap<String, Totals> rollups = new ConcurrentHashMap<>();
+    private final LinkedHashSet<Long> recentEventIds = new LinkedHashSet<>();
+    // Outbox events the recomputed counters already reflect, dropped as they arrive
+    private final Set<Long> reflectedEventIds = new HashSet<>();
+    private long maxReflectedEventId;
+    private long nextOffset;
+    private volatile long appliedOffset;
+    private volatile long checkpointedOffset;
+    // Runs once a recompute's snapshot is taken, before its rows are read; for tests
+    Runnable afterSnapshot = () -> {
+    };
+
+    public EnrollmentStatsAggregator(SegmentedLog eventLog, Path checkpointFile) {
+        this.eventLog = eventLog;
+        this.checkpointFile = checkpointFile;
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "enrollment-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads the checkpoint or, when there is none, recomputes from the
+     * database; call after the relay has drained the outbox once.
+     */
+    public void start() {
+        if (!loadCheckpoint()) {
+            recompute();
+        }
+        appliedOffset = nextOffset;
+        long pollMillis = AppConfig.getLong("stats.poll-interval-ms", 200);
+        long checkpointMillis = AppConfig.getLong("stats.checkpoint.interval-ms", 30000);
+        worker.scheduleWithFixedDelay(this::tail, 0, pollMillis, TimeUnit.MILLISECONDS);
+        worker.scheduleWithFixedDelay(this::checkpoint, checkpointMillis, checkpointMillis, TimeUnit.MILLISECONDS);
+        log.info("Enrollment stats tracking {} courses from offset {}", courses.size(), nextOffset);
+    }
+
+    /** Totals for the filters; null or blank means any value. */
+    public Totals get(String department, String level, String semester) {
+        return rollups.getOrDefault(key(dimension(department), dimension(level), dimension(semester)), Totals.ZERO);
+    }
+
+    /** Offset of the next event to apply, i.e. how far the totals are current. */
+    public long getAppliedOffset() {
+        return appliedOffset;
+    }
+
+    /**
+     * Offset the saved checkpoint resumes from, so the log must keep every
+     * event from here on; 0 until a checkpoint is loaded or written.
+     */
+    public long getCheckpointedOffset() {
+        return checkpointedOffset;
+    }
+
+    /** Outbox events the counters reflect that have not reached the log yet; for tests, after close. */
+    int getPendingReflectedEvents() {
+        return reflectedEventIds.size();
+    }
+
+    @Override
+    public void close() {
+        worker.shutdown();
+        try {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkpoint();
+    }
+
+    private void tail() {
+        try {
+            List<SegmentedLog.Entry> entries;
+            do {
+                entries = eventLog.read(nextOffset, BATCH);
+                for (SegmentedLog.Entry entry : entries) {
+                    apply(EnrollmentEvent.decode(entry.payload()));
+                    nextOffset = entry.offset() + 1;
+                }
+                appliedOffset = nextOffset;
+            } while (entries.size() == BATCH);
+        } catch (RuntimeException e) {
+            log.error("Enrollment stats stopped at offset {}, will retry: {}", nextOffset, e.getMessage());
+        }
+    }
+
+    private void apply(EnrollmentEvent event) {
+        boolean reflected = reflectedEventIds.remove(event.getEventId());
+        // The relay publishes the outbox in id order, so once a later event
+        // arrives the listed ones still missing never will, e.g. dead letters
+        if (event.getEventId() > maxReflectedEventId && !reflectedEventIds.isEmpty()) {
+            log.info("Enrollment stats stopped waiting for {} outbox events that never reached the log",
+                reflectedEventIds.size());
+            reflectedEventIds.clear();
+        }
+        if (!remember(event.getEventId()) || reflected) {
+            return;
+        }
+        CourseCounters course = courses.computeIfAbsent(event.getCourseId(), id -> new CourseCounters());
+        String oldKey = keyOf(course);
+        Totals before = course.totals();
+
+        // Events snapshot the course, so the latest one carries its current key
+        course.department = event.getDepartment();
+        course.level = event.getLevel();
+        course.semester = event.getSemester();
+        switch (event.getEventType()) {
+            case "ENROLLED" -> course.enrolled++;
+            case "DROPPED" -> {
+                course.enrolled = Math.max(0, course.enrolled - 1);
+                course.drops++;
+            }
+            case "WAITLISTED" -> course.waitlist++;
+            case "COURSE_UPSERTED" -> {
+                course.active = true;
+                course.capacity = event.getCapacity() == null ? course.capacity : event.getCapacity();
+            }
+            case "COURSE_REMOVED" -> course.active = false;
+            case "COUNTER_REPAIRED" -> course.enrolled = event.getEnrolled() == null ? course.enrolled : event.getEnrolled();
+            default -> {
+                // COMPLETED and unknown types leave the counters alone
+            }
+        }
+
+        addToRollups(oldKey, before, -1);
+        addToRollups(keyOf(course), course.totals(), 1);
+    }
+
+    private boolean remember(long eventId) {
+        if (!recentEventIds.add(eventId)) {
+            return false;
+        }
+        if (recentEventIds.size() > RECENT_EVENT_IDS) {
+            recentEventIds.remove(recentEventIds.iterator().next());
+        }
+        return true;
+    }
+
+    private void addToRollups(String courseKey, Totals totals, int sign) {
+        String[] parts = courseKey.split("\u0000", -1);
+        for (int mask = 0; mask < 8; mask++) {
+            String key = key(
+                (mask & 1) == 0 ? parts[0] : ALL,
+                (mask & 2) == 0 ? parts[1] : ALL,
+                (mask & 4) == 0 ? parts[2] : ALL);
+            rollups.merge(key, Totals.ZERO.plus(totals, sign), (current, delta) -> current.plus(delta, 1));
+        }
+    }
+
+    private void rebuildRollups() {
+        rollups.clear();
+        for (CourseCounters course : courses.values()) {
+            addToRollups(keyOf(course), course.totals(), 1);
+        }
+    }
+
+    private static String keyOf(CourseCounters course) {
+        return key(dimension(course.department), dimension(course.level), dimension(course.semester));
+    }
+
+    private static String key(String department, String level, String semester) {
+        return department + "\u0000" + level + "\u0000" + semester;
+    }
+
+    private static String dimension(String value) {
+        return value == null || value.trim().isEmpty() ? ALL : value.trim();
+    }
+
+    /**
+     * Builds the counters from the courses, enrollments and waitlist requests,
+     * and lists the events still in the outbox, in one statement and so one
+     * snapshot. The statement starts while the log takes no appends, so an
+     * event the snapshot reflects was either logged before the offset tailing
+     * starts from or is one of those listed, which are skipped when they reach
+     * the log; every other event committed after the snapshot and is applied.
+     * Outbox IDs do not follow commit order, so the listed IDs are kept
+     * rather than a high-water mark.
+     */
+    private void recompute() {
+        DatabaseManager.withEntityManager(em -> em.unwrap(Session.class).doReturningWork(connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT 'C', c.id, c.department, c.level, c.semester, c.capacity, c.active, c.enrolled, " +
+                    "(SELECT COUNT(*) FROM student_courses sc WHERE sc.course_id = c.id AND sc.enrollment_status = 'DROPPED'), " +
+                    "(SELECT COUNT(*) FROM waitlist_requests w WHERE w.course_id = c.id) " +
+                    "FROM courses c " +
+                    "UNION ALL SELECT 'O', o.id, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL FROM outbox_events o",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                select.setFetchSize(BATCH);
+                ResultSet[] snapshot = new ResultSet[1];
+                nextOffset = eventLog.withNextOffset(offset -> {
+                    try {
+                        snapshot[0] = select.executeQuery();
+                    } catch (SQLException e) {
+                        throw new IllegalStateException("Could not read enrollment counters: " + e.getMessage(), e);
+                    }
+                    return offset;
+                });
+                afterSnapshot.run();
+                try (ResultSet row = snapshot[0]) {
+                    while (row.next()) {
+                        if ("O".equals(row.getString(1))) {
+                            reflectedEventIds.add(row.getLong(2));
+                            maxReflectedEventId = Math.max(maxReflectedEventId, row.getLong(2));
+                            continue;
+                        }
+                        CourseCounters course = new CourseCounters();
+                        course.department = row.getString(3);
+                        course.level = row.getString(4);
+                        course.semester = row.getString(5);
+                        course.capacity = row.getInt(6);
+                        boolean active = row.getBoolean(7);
+                        course.active = active || row.wasNull();
+                        course.enrolled = row.getLong(8);
+                        course.drops = row.getLong(9);
+                        course.waitlist = row.getLong(10);
+                        courses.put(row.getLong(2), course);
+                    }
+                }
+                return courses.size();
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        }));
+        rebuildRollups();
+        log.info("Recomputed enrollment stats for {} courses from the database, {} events pending in the outbox",
+            courses.size(), reflectedEventIds.size());
+    }
+
+    private boolean loadCheckpoint() {
+        if (!Files.exists(checkpointFile)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpointFile)))) {
+            if (in.readInt() != CHECKPOINT_VERSION) {
+                log.warn("Ignoring enrollment stats checkpoint {} with an unknown version", checkpointFile);
+                return false;
+            }
+            long offset = in.readLong();
+            if (offset > eventLog.nextOffset()) {
+                log.warn("Enrollment stats checkpoint is ahead of the event log, recomputing");
+                return false;
+            }
+            if (offset < eventLog.firstOffset()) {
+                log.warn("Enrollment stats checkpoint is older than the event log's retention, recomputing");
+                return false;
+            }
+            int reflected = in.readInt();
+            for (int i = 0; i < reflected; i++) {
+                long eventId = in.readLong();
+                reflectedEventIds.add(eventId);
+                maxReflectedEventId = Math.max(maxReflectedEventId, eventId);
+            }
+            int recent = in.readInt();
+            for (int i = 0; i < recent; i++) {
+                recentEventIds.add(in.readLong());
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long courseId = in.readLong();
+                CourseCounters course = new CourseCounters();
+                course.department = readNullable(in);
+                course.level = readNullable(in);
+                course.semester = readNullable(in);
+                course.capacity = in.readInt();
+                course.active = in.readBoolean();
+                course.enrolled = in.readLong();
+                course.drops = in.readLong();
+                course.waitlist = in.readLong();
+                courses.put(courseId, course);
+            }
+            nextOffset = offset;
+            checkpointedOffset = offset;
+            rebuildRollups();
+            log.info("Loaded enrollment stats checkpoint at offset {}", offset);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read enrollment stats checkpoint {}, recomputing: {}", checkpointFile, e.getMessage());
+            courses.clear();
+            reflectedEventIds.clear();
+            maxReflectedEventId = 0;
+            recentEventIds.clear();
+            return false;
+        }
+    }
+
+    /** Writes to a temporary file and renames it, so a crash keeps the previous checkpoint. */
+    private void checkpoint() {
+        Path temporary = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        long offset = nextOffset;
+        try {
+            if (checkpointFile.getParent() != null) {
+                Files.createDirectories(checkpointFile.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(CHECKPOINT_VERSION);
+                out.writeLong(offset);
+                out.writeInt(reflectedEventIds.size());
+                for (Long eventId : reflectedEventIds) {
+                    out.writeLong(eventId);
+                }
+                out.writeInt(recentEventIds.size());
+                for (Long eventId : recentEventIds) {
+                    out.writeLong(eventId);
+                }
+                out.writeInt(courses.size());
+                for (Map.Entry<Long, CourseCounters> entry : courses.entrySet()) {
+                    CourseCounters course = entry.getValue();
+                    out.writeLong(entry.getKey());
+                    writeNullable(out, course.department);
+                    writeNullable(out, course.level);
+                    writeNullable(out, course.semester);
+                    out.writeInt(course.capacity);
+                    out.writeBoolean(course.active);
+                    out.writeLong(course.enrolled);
+                    out.writeLong(course.drops);
+                    out.writeLong(course.waitlist);
+                }
+            }
+            Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            checkpointedOffset = offset;
+            log.debug("Checkpointed enrollment stats at offset {}", offset);
+        } catch (IOException e) {
+            log.error("Could not write enrollment stats checkpoint {}: {}", checkpointFile, e.getMessage());
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,428 @@
+package com.universite.courses.catalog;
+
+import com.universite.courses.dto.CourseChangeDTO;
+import com.universite.courses.dto.CourseChangesDTO;
+import com.universite.courses.dto.CourseDTO;
+import com.universite.courses.events.CourseChangeFeed;
+import com.universite.courses.service.ICourseService;
+import com.universite.courses.util.AppConfig;
+import jakarta.xml.ws.BindingProvider;
+import jakarta.xml.ws.Service;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * A read-only copy of the course catalog, for nodes that serve catalog reads
+ * without a database ({@code catalog-replica.primary-url}).
+ *
+ * <p>It starts from the snapshot file, memory-mapped, or downloads one from
+ * the primary's {@code /export/catalog} when there is none. It then tails
+ * the primary's change feed from the snapshot's version every
+ * {@code catalog-replica.poll-interval-ms}. Seat changes are applied from the
+ * feed itself; a course whose fields or schedules changed, or that the
+ * replica has not seen, is fetched again from the export, a batch per poll.
+ * Both are kept beside the snapshot, which is never written to. When the
+ * feed asks for a resync (the primary restarted, the replica fell behind the
+ * feed, or a bulk change) a fresh snapshot is downloaded, saved over the file
+ * for the next start and swapped in; the previous state is served meanwhile.
+ *
+ * <p>Each primary node numbers its own feed versions, so the primary URL must
+ * name one node, not a load balancer.
+ */
+@Slf4j
+public class CatalogReplica {
+
+    private static final QName SERVICE_NAME = new QName("http://courses.universite.com/", "CourseService");
+    private static final QName PORT_NAME = new QName("http://courses.universite.com/", "CourseServicePort");
+    private static final int MAX_FETCH = 1000;
+
+    /** The seats of a course and its update time as of its latest change, over what the snapshot says. */
+    private record Seats(int capacity, int enrolled, boolean active, LocalDateTime updatedAt) {
+        boolean available() {
+            return active && enrolled < capacity;
+        }
+    }
+
+    /** A snapshot and the changes since; replaced as a whole on a resync, changed in place by the poller only. */
+    private static final class View {
+        final CatalogSnapshot snapshot;
+        final Map<Long, CourseDTO> fetched = new ConcurrentHashMap<>();
+        final Map<Long, Seats> seats = new ConcurrentHashMap<>();
+        final Set<Long> removed = ConcurrentHashMap.newKeySet();
+        volatile long version;
+
+        View(CatalogSnapshot snapshot) {
+            this.snapshot = snapshot;
+            this.version = snapshot.feedVersion();
+        }
+    }
+
+    private final String primaryUrl;
+    private final Path snapshotFile;
+    private final long pollIntervalMillis;
+    private final int timeoutMillis;
+    private final List<CourseChangeFeed.Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-replica");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile View view;
+    private ICourseService primary;     // created on the poller thread, used only there
+
+    private CatalogReplica(String primaryUrl) {
+        this.primaryUrl = primaryUrl.endsWith("/") ? primaryUrl.substring(0, primaryUrl.length() - 1) : primaryUrl;
+        this.snapshotFile = Path.of(AppConfig.get("catalog-replica.snapshot-file", "data/catalog.snapshot"));
+        this.pollIntervalMillis = Math.max(10, AppConfig.getLong("catalog-replica.poll-interval-ms", 500));
+        this.timeoutMillis = Math.max(1, AppConfig.getInt("catalog-replica.timeout-ms", 10_000));
+    }
+
+    /** The replica configured for this node, or null when the node is not a catalog replica. */
+    public static CatalogReplica fromConfig() {
+        String primaryUrl = AppConfig.get("catalog-replica.primary-url", "");
+        return primaryUrl.isBlank() ? null : new CatalogReplica(primaryUrl.trim());
+    }
+
+    /** Loads the snapshot, downloading it first when there is no file, and starts following the primary. */
+    public void start() throws IOException {
+        long start = System.nanoTime();
+        if (!Files.exists(snapshotFile)) {
+            log.info("No catalog snapshot at {}, downloading it from {}", snapshotFile, primaryUrl);
+            download();
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.open(snapshotFile);
+        view = new View(snapshot);
+        log.info("Catalog replica loaded {} courses at feed version {} from {} in {} ms", snapshot.size(),
+            snapshot.feedVersion(), snapshotFile, (System.nanoTime() - start) / 1_000_000);
+        poller.scheduleWithFixedDelay(this::poll, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Told of every change applied and of every resync, after the replica serves it. */
+    public void addListener(CourseChangeFeed.Listener listener) {
+        listeners.add(listener);
+    }
+
+    /** The primary's feed version the replica is current at. */
+    public long getVersion() {
+        return view.version;
+    }
+
+    public String getPrimaryUrl() {
+        return primaryUrl;
+    }
+
+    public Optional<CourseDTO> getCourse(long courseId) {
+        return find(view, courseId);
+    }
+
+    /** The most recently created offering of the code, as the primary answers it. */
+    public Optional<CourseDTO> getCourseByCode(String code) {
+        if (code == null) {
+            return Optional.empty();
+        }
+        View current = view;
+        CatalogSnapshot snapshot = current.snapshot;
+        long latest = -1;
+        Set<Long> fetchedIds = new HashSet<>();
+        for (CourseDTO fetched : current.fetched.values()) {
+            fetchedIds.add(fetched.getId());
+            if (fetched.getCode().equals(code) && fetched.getId() > latest
+                    && !current.removed.contains(fetched.getId())) {
+                latest = fetched.getId();
+            }
+        }
+        // Equal codes are in ID order, so the last one not removed is the latest;
+        // a course fetched since has its current code, compared above
+        int end = snapshot.firstRankOf(code);
+        while (end < snapshot.size() && snapshot.code(snapshot.byCode(end)).equals(code)) {
+            end++;
+        }
+        for (int rank = end - 1; rank >= 0 && snapshot.code(snapshot.byCode(rank)).equals(code); rank--) {
+            long id = snapshot.id(snapshot.byCode(rank));
+            if (!current.removed.contains(id) && !fetchedIds.contains(id)) {
+                latest = Math.max(latest, id);
+                break;
+            }
+        }
+        return latest < 0 ? Optional.empty() : find(current, latest);
+    }
+
+    public List<CourseDTO> listCourses() {
+        return list(view, index -> true, course -> true);
+    }
+
+    public List<CourseDTO> listCoursesBySemester(String semester) {
+        if (semester == null) {
+            return List.of();
+        }
+        View current = view;
+        int ref = current.snapshot.ref(semester);
+        return list(current, index -> ref >= 0 && current.snapshot.semesterRef(index) == ref,
+            course -> semester.equals(course.getSemester()));
+    }
+
+    public List<CourseDTO> listCoursesByDepartment(String department) {
+        if (department == null) {
+            return List.of();
+        }
+        View current = view;
+        int ref = current.snapshot.ref(department);
+        return list(current, index -> ref >= 0 && current.snapshot.departmentRef(index) == ref,
+            course -> department.equals(course.getDepartment()));
+    }
+
+    public List<CourseDTO> listAvailableCourses() {
+        View current = view;
+        return list(current, index -> seats(current, index).available(),
+            course -> Boolean.TRUE.equals(course.getActive()) && course.getEnrolled() < course.getCapacity());
+    }
+
+    public void close() {
+        poller.shutdownNow();
+    }
+
+    private static Optional<CourseDTO> find(View current, long courseId) {
+        if (current.removed.contains(courseId)) {
+            return Optional.empty();
+        }
+        CourseDTO fetched = current.fetched.get(courseId);
+        if (fetched != null) {
+            return Optional.of(withSeats(fetched, current.seats.get(courseId)));
+        }
+        int index = current.snapshot.indexOf(courseId);
+        return index < 0 ? Optional.empty() : Optional.of(course(current, index));
+    }
+
+    /**
+     * The matching courses by code, then ID, as the primary lists them: the
+     * snapshot's in code order, checked without decoding them, merged with
+     * the courses fetched since. A fetched course, created or changed since
+     * the snapshot, is matched and placed by its current fields only.
+     */
+    private List<CourseDTO> list(View current, IntPredicate inSnapshot, Predicate<CourseDTO> matches) {
+        CatalogSnapshot snapshot = current.snapshot;
+        List<CourseDTO> fetched = new ArrayList<>();
+        Set<Long> fetchedIds = new HashSet<>();
+        for (CourseDTO copy : current.fetched.values()) {
+            fetchedIds.add(copy.getId());
+            if (!current.removed.contains(copy.getId())) {
+                CourseDTO course = withSeats(copy, current.seats.get(copy.getId()));
+                if (matches.test(course)) {
+                    fetched.add(course);
+                }
+            }
+        }
+        fetched.sort(Comparator.comparing(CourseDTO::getCode).thenComparing(CourseDTO::getId));
+
+        List<CourseDTO> courses = new ArrayList<>();
+        int next = 0;
+        for (int rank = 0; rank < snapshot.size(); rank++) {
+            int index = snapshot.byCode(rank);
+            long id = snapshot.id(index);
+            if (current.removed.contains(id) || fetchedIds.contains(id) || !inSnapshot.test(index)) {
+                continue;
+            }
+            CourseDTO course = course(current, index);
+            while (next < fetched.size() && precedes(fetched.get(next), course)) {
+                courses.add(fetched.get(next++));
+            }
+            courses.add(course);
+        }
+        courses.addAll(fetched.subList(next, fetched.size()));
+        return courses;
+    }
+
+    private static boolean precedes(CourseDTO fetched, CourseDTO course) {
+        int byCode = fetched.getCode().compareTo(course.getCode());
+        return byCode < 0 || byCode == 0 && fetched.getId() < course.getId();
+    }
+
+    /** The course at the snapshot index as it is now: fetched again since, or as in the snapshot. */
+    private static CourseDTO course(View current, int index) {
+        long id = current.snapshot.id(index);
+        CourseDTO fetched = current.fetched.get(id);
+        Seats seats = current.seats.get(id);
+        if (fetched != null) {
+            return withSeats(fetched, seats);
+        }
+        CourseDTO course = current.snapshot.course(index);
+        if (seats != null) {
+            applySeats(course, seats);
+        }
+        return course;
+    }
+
+    private static Seats seats(View current, int index) {
+        Seats seats = current.seats.get(current.snapshot.id(index));
+        return seats != null ? seats : new Seats(current.snapshot.capacity(index), current.snapshot.enrolled(index),
+            current.snapshot.active(index), null);
+    }
+
+    /** A copy with the seats, leaving the shared fetched course untouched. */
+    private static CourseDTO withSeats(CourseDTO fetched, Seats seats) {
+        CourseDTO course = new CourseDTO(fetched.getId(), fetched.getCode(), fetched.getName(),
+            fetched.getDescription(), fetched.getCredits(), fetched.getSemester(), fetched.getCapacity(),
+            fetched.getEnrolled(), fetched.getDepartment(), fetched.getLevel(), fetched.getPrerequisiteCourseIds(),
+            fetched.getActive(), fetched.getCreatedAt(), fetched.getUpdatedAt(), fetched.getSchedules(),
+            fetched.getAvailableSeats());
+        if (seats != null) {
+            applySeats(course, seats);
+        }
+        return course;
+    }
+
+    private static void applySeats(CourseDTO course, Seats seats) {
+        course.setCapacity(seats.capacity());
+        course.setEnrolled(seats.enrolled());
+        course.setActive(seats.active());
+        course.setAvailableSeats(seats.capacity() - seats.enrolled());
+        course.setUpdatedAt(seats.updatedAt());
+    }
+
+    private void poll() {
+        try {
+            if (primary == null) {
+                primary = connect();
+            }
+            CourseChangesDTO page;
+            do {
+                View current = view;
+                page = primary.getCourseChangesSince(current.version);
+                if (page.isResync()) {
+                    resync(page.getLatestVersion());
+                    return;
+                }
+                apply(current, page.getChanges());
+                current.version = page.getNextVersion();
+            } while (page.isHasMore());
+        } catch (Exception e) {
+            log.warn("Catalog replica could not follow {}, retrying: {}", primaryUrl, e.getMessage());
+        }
+    }
+
+    private void apply(View current, List<CourseChangeDTO> changes) throws IOException {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<Long> refetch = new ArrayList<>();
+        for (CourseChangeDTO change : changes) {
+            long id = change.getCourseId();
+            if (change.isRemoved()) {
+                current.removed.add(id);
+                current.fetched.remove(id);
+                current.seats.remove(id);
+                continue;
+            }
+            current.seats.put(id, new Seats(change.getCapacity(), change.getEnrolled(), change.isActive(),
+                change.getUpdatedAt()));
+            if (change.isDetails() || current.snapshot.indexOf(id) < 0 && !current.fetched.containsKey(id)) {
+                refetch.add(id);
+            }
+        }
+        for (int from = 0; from < refetch.size(); from += MAX_FETCH) {
+            CatalogSnapshot courses = fetch(refetch.subList(from, Math.min(refetch.size(), from + MAX_FETCH)));
+            for (int index = 0; index < courses.size(); index++) {
+                CourseDTO course = courses.course(index);
+                current.fetched.put(course.getId(), course);
+                current.seats.put(course.getId(),
+                    new Seats(course.getCapacity(), course.getEnrolled(), course.getActive(), course.getUpdatedAt()));
+            }
+        }
+        for (CourseChangeDTO change : changes) {
+            CourseChangeFeed.CourseChange applied = new CourseChangeFeed.CourseChange(change.getVersion(),
+                change.getCourseId(), change.getCode(), change.getSemester(), change.getDepartment(),
+                change.getCapacity(), change.getEnrolled(), change.isActive(), change.isRemoved(),
+                change.getUpdatedAt(), change.getChangedAt(), change.isDetails());
+            listeners.forEach(listener -> listener.changed(applied));
+        }
+    }
+
+    private void resync(long primaryVersion) throws IOException {
+        long start = System.nanoTime();
+        log.info("Catalog replica at feed version {} must resync with {} (at {}), downloading a snapshot",
+            view.version, primaryUrl, primaryVersion);
+        download();
+        CatalogSnapshot snapshot = CatalogSnapshot.open(snapshotFile);
+        view = new View(snapshot);
+        listeners.forEach(CourseChangeFeed.Listener::resyncRequired);
+        log.info("Catalog replica resynced: {} courses at feed version {} in {} ms", snapshot.size(),
+            snapshot.feedVersion(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Replaces the snapshot file with a fresh export; a view mapping the old file keeps reading it. */
+    private void download() throws IOException {
+        Path directory = snapshotFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path partial = Files.createTempFile(directory, snapshotFile.getFileName().toString(), ".partial");
+        try {
+            HttpURLConnection connection = open(primaryUrl + "/export/catalog");
+            try (InputStream body = connection.getInputStream()) {
+                Files.copy(body, partial, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                connection.disconnect();
+            }
+            CatalogSnapshot.open(partial);     // rejects a truncated export before it replaces anything
+            Files.move(partial, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    private CatalogSnapshot fetch(List<Long> ids) throws IOException {
+        StringJoiner joined = new StringJoiner(",");
+        ids.forEach(id -> joined.add(Long.toString(id)));
+        HttpURLConnection connection = open(primaryUrl + "/export/catalog?ids=" + joined);
+        try (InputStream body = connection.getInputStream()) {
+            return CatalogSnapshot.read(body.readAllBytes());
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(String address) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(address).openConnection();
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+            connection.disconnect();
+            throw new IOException(address + " answered " + connection.getResponseCode());
+        }
+        return connection;
+    }
+
+    /** A client of the primary's SOAP endpoint, built from this build's WSDL so it needs no round trip. */
+    private ICourseService connect() {
+        URL wsdl = CatalogReplica.class.getResource("/META-INF/wsdl/CourseService.wsdl");
+        ICourseService port = Service.create(wsdl, SERVICE_NAME).getPort(PORT_NAME, ICourseService.class);
+        Map<String, Object> context = ((BindingProvider) port).getRequestContext();
+        context.put(BindingProvider.ENDPOINT_ADDRESS_PROPERTY, primaryUrl + "/CourseService");
+        context.put("com.sun.xml.ws.connect.timeout", timeoutMillis);
+        context.put("com.sun.xml.ws.request.timeout", timeoutMillis);
+        return port;
+    }
+}
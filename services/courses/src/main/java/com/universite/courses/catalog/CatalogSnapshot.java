@@ -0,0 +1,432 @@
+package com.universite.courses.catalog;
+
+import com.universite.courses.dto.CourseDTO;
+import com.universite.courses.dto.ScheduleDTO;
+import com.universite.courses.entity.Course;
+import com.universite.courses.entity.Schedule;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The course catalog as one binary file: every course with its schedules and
+ * seat counts, for replicas that serve the catalog without a database.
+ *
+ * <p>The file is big-endian: a header (magic, format, the change feed version
+ * the snapshot is current at, export time), then the courses in ID order,
+ * then a footer written once they are all out, so an export streams. The
+ * footer holds the table of repeated strings (semesters, departments, levels,
+ * rooms, buildings, schedule types), the course IDs, each course's offset
+ * and the courses' positions in code order; the file ends with the footer's
+ * offset. A course starts with its ID, semester, department and seats at
+ * fixed offsets, followed by the rest.
+ *
+ * <p>An opened file is memory-mapped and read in place: finding a course is a
+ * binary search over the mapped IDs, listing walks the code order and reads
+ * a course's semester, department and seats without decoding it, and only
+ * the courses returned are decoded. Opening reads the header and the string
+ * table, not the courses, so it takes milliseconds whatever the catalog size.
+ */
+public final class CatalogSnapshot {
+
+    private static final int MAGIC = 0x554D5343;     // "UMSC"
+    private static final int FORMAT = 1;
+    private static final int TRAILER_BYTES = 12;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    // Fixed part of a course
+    private static final int SEMESTER = 8;
+    private static final int DEPARTMENT = 12;
+    private static final int CAPACITY = 16;
+    private static final int ENROLLED = 20;
+    private static final int ACTIVE = 24;
+    private static final int LEVEL = 25;
+    private static final int CREDITS = 29;
+    private static final int CREATED_AT = 33;
+    private static final int UPDATED_AT = 41;
+    private static final int VARIABLE = 49;
+
+    private final ByteBuffer data;
+    private final long feedVersion;
+    private final long exportedAt;
+    private final String[] strings;
+    private final Map<String, Integer> refs;
+    private final int size;
+    private final int ids;
+    private final int offsets;
+    private final int codeOrder;
+
+    private CatalogSnapshot(ByteBuffer data) throws IOException {
+        this.data = data;
+        int limit = data.limit();
+        if (limit < 24 + TRAILER_BYTES || data.getInt(0) != MAGIC || data.getInt(limit - 4) != MAGIC) {
+            throw new IOException("Not a catalog snapshot");
+        }
+        if (data.getInt(4) != FORMAT) {
+            throw new IOException("Unsupported catalog snapshot format " + data.getInt(4));
+        }
+        this.feedVersion = data.getLong(8);
+        this.exportedAt = data.getLong(16);
+
+        int position = (int) data.getLong(limit - TRAILER_BYTES);
+        this.strings = new String[data.getInt(position)];
+        this.refs = new HashMap<>(strings.length * 2);
+        position += 4;
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = string(position);
+            refs.put(strings[i], i);
+            position += 2 + Math.max(0, data.getShort(position));
+        }
+        this.size = data.getInt(position);
+        this.ids = position + 4;
+        this.offsets = ids + 8 * size;
+        this.codeOrder = offsets + 4 * size;
+        if (codeOrder + 4 * size != limit - TRAILER_BYTES) {
+            throw new IOException("Truncated catalog snapshot");
+        }
+    }
+
+    /** Maps the file; it must not be changed while the snapshot is in use, only replaced. */
+    public static CatalogSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new CatalogSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static CatalogSnapshot read(byte[] bytes) throws IOException {
+        return new CatalogSnapshot(ByteBuffer.wrap(bytes));
+    }
+
+    /** The change feed version of the node that exported it, at the start of the export. */
+    public long feedVersion() {
+        return feedVersion;
+    }
+
+    /** When the export started, in epoch milliseconds. */
+    public long exportedAt() {
+        return exportedAt;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** The course's position in ID order, or -1 when it is not in the snapshot. */
+    public int indexOf(long courseId) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long id = id(middle);
+            if (id < courseId) {
+                low = middle + 1;
+            } else if (id > courseId) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    public long id(int index) {
+        return data.getLong(ids + 8 * index);
+    }
+
+    /** The position in ID order of the {@code rank}-th course by code, then ID. */
+    public int byCode(int rank) {
+        return data.getInt(codeOrder + 4 * rank);
+    }
+
+    /** The rank of the first course whose code is not before {@code code}. */
+    public int firstRankOf(String code) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (code(byCode(middle)).compareTo(code) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public String code(int index) {
+        return string(offset(index) + VARIABLE);
+    }
+
+    /** The reference of a repeated string such as a semester, or -1 when no course uses it. */
+    public int ref(String value) {
+        Integer ref = value == null ? null : refs.get(value);
+        return ref != null ? ref : -1;
+    }
+
+    public int semesterRef(int index) {
+        return data.getInt(offset(index) + SEMESTER);
+    }
+
+    public int departmentRef(int index) {
+        return data.getInt(offset(index) + DEPARTMENT);
+    }
+
+    public int capacity(int index) {
+        return data.getInt(offset(index) + CAPACITY);
+    }
+
+    public int enrolled(int index) {
+        return data.getInt(offset(index) + ENROLLED);
+    }
+
+    public boolean active(int index) {
+        return data.get(offset(index) + ACTIVE) != 0;
+    }
+
+    /** Decodes the course as the service returns it. */
+    public CourseDTO course(int index) {
+        int offset = offset(index);
+        CourseDTO course = new CourseDTO();
+        course.setId(data.getLong(offset));
+        course.setSemester(ref(data.getInt(offset + SEMESTER)));
+        course.setDepartment(ref(data.getInt(offset + DEPARTMENT)));
+        course.setCapacity(data.getInt(offset + CAPACITY));
+        course.setEnrolled(data.getInt(offset + ENROLLED));
+        course.setActive(data.get(offset + ACTIVE) != 0);
+        course.setLevel(ref(data.getInt(offset + LEVEL)));
+        course.setCredits(data.getInt(offset + CREDITS));
+        course.setCreatedAt(dateTime(data.getLong(offset + CREATED_AT)));
+        course.setUpdatedAt(dateTime(data.getLong(offset + UPDATED_AT)));
+        course.setAvailableSeats(course.getCapacity() - course.getEnrolled());
+
+        int position = offset + VARIABLE;
+        course.setCode(string(position));
+        position = skipString(position);
+        course.setName(string(position));
+        position = skipString(position);
+        course.setDescription(string(position));
+        position = skipString(position);
+        course.setPrerequisiteCourseIds(string(position));
+        position = skipString(position);
+
+        int schedules = data.getShort(position);
+        position += 2;
+        for (int i = 0; i < schedules; i++) {
+            ScheduleDTO schedule = new ScheduleDTO();
+            schedule.setId(data.getLong(position));
+            schedule.setCourseId(course.getId());
+            schedule.setCourseCode(course.getCode());
+            schedule.setDayOfWeek(DayOfWeek.of(data.get(position + 8)));
+            schedule.setStartTime(LocalTime.ofNanoOfDay(data.getLong(position + 9)));
+            schedule.setEndTime(LocalTime.ofNanoOfDay(data.getLong(position + 17)));
+            schedule.setRoom(ref(data.getInt(position + 25)));
+            schedule.setBuilding(ref(data.getInt(position + 29)));
+            schedule.setScheduleType(ref(data.getInt(position + 33)));
+            course.getSchedules().add(schedule);
+            position += 37;
+        }
+        return course;
+    }
+
+    private int offset(int index) {
+        return data.getInt(offsets + 4 * index);
+    }
+
+    private String ref(int ref) {
+        return ref < 0 ? null : strings[ref];
+    }
+
+    private String string(int position) {
+        int length = data.getShort(position);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int skipString(int position) {
+        return position + 2 + Math.max(0, data.getShort(position));
+    }
+
+    private static LocalDateTime dateTime(long nanos) {
+        return nanos == NO_TIME ? null : LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L),
+            (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    /**
+     * Writes a snapshot to a stream, course by course in ascending ID order;
+     * the footer goes out on {@link #finish}.
+     */
+    public static final class Writer {
+
+        private final Counting written;
+        private final DataOutputStream out;
+        private final Map<String, Integer> refs = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private final List<String> codes = new ArrayList<>();
+        private long[] ids = new long[1024];
+        private int[] offsets = new int[1024];
+        private int size;
+
+        public Writer(OutputStream out, long feedVersion) throws IOException {
+            this.written = new Counting(new BufferedOutputStream(out, 64 * 1024));
+            this.out = new DataOutputStream(written);
+            this.out.writeInt(MAGIC);
+            this.out.writeInt(FORMAT);
+            this.out.writeLong(feedVersion);
+            this.out.writeLong(System.currentTimeMillis());
+        }
+
+        public void add(Course course) throws IOException {
+            if (size > 0 && course.getId() <= ids[size - 1]) {
+                throw new IllegalArgumentException("Courses must be added in ascending ID order");
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            ids[size] = course.getId();
+            offsets[size++] = position();
+            codes.add(course.getCode());
+
+            out.writeLong(course.getId());
+            out.writeInt(ref(course.getSemester()));
+            out.writeInt(ref(course.getDepartment()));
+            out.writeInt(course.getCapacity());
+            out.writeInt(course.getEnrolled());
+            out.writeBoolean(Boolean.TRUE.equals(course.getActive()));
+            out.writeInt(ref(course.getLevel()));
+            out.writeInt(course.getCredits());
+            out.writeLong(nanos(course.getCreatedAt()));
+            out.writeLong(nanos(course.getUpdatedAt()));
+            writeString(course.getCode());
+            writeString(course.getName());
+            writeString(course.getDescription());
+            writeString(course.getPrerequisiteCourseIds());
+
+            List<Schedule> schedules = new ArrayList<>(course.getSchedules());
+            schedules.sort(Comparator.comparing(Schedule::getId));
+            out.writeShort(schedules.size());
+            for (Schedule schedule : schedules) {
+                out.writeLong(schedule.getId());
+                out.writeByte(schedule.getDayOfWeek().getValue());
+                out.writeLong(schedule.getStartTime().toNanoOfDay());
+                out.writeLong(schedule.getEndTime().toNanoOfDay());
+                out.writeInt(ref(schedule.getRoom()));
+                out.writeInt(ref(schedule.getBuilding()));
+                out.writeInt(ref(schedule.getScheduleType()));
+            }
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /** Writes the footer and flushes; the stream stays open. */
+        public void finish() throws IOException {
+            long footer = position();
+            out.writeInt(strings.size());
+            for (String value : strings) {
+                writeString(value);
+            }
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(ids[i]);
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeInt(offsets[i]);
+            }
+            // IDs ascend, so a stable sort by code leaves equal codes in ID order
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing(codes::get));
+            for (Integer index : order) {
+                out.writeInt(index);
+            }
+            out.writeLong(footer);
+            out.writeInt(MAGIC);
+            position();     // the whole file is mapped as one buffer
+            out.flush();
+        }
+
+        /** Bytes written so far; offsets are ints, so a snapshot stops at 2 GB. */
+        private int position() throws IOException {
+            if (written.count > Integer.MAX_VALUE) {
+                throw new IOException("Catalog snapshot over 2 GB");
+            }
+            return (int) written.count;
+        }
+
+        private int ref(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return refs.computeIfAbsent(value, added -> {
+                strings.add(added);
+                return strings.size() - 1;
+            });
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeShort(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > Short.MAX_VALUE) {
+                throw new IOException("String of " + bytes.length + " bytes does not fit a catalog snapshot");
+            }
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+
+        private static long nanos(LocalDateTime time) {
+            return time == null ? NO_TIME
+                : time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+        }
+
+        /** Counts in a long what {@link DataOutputStream#size} would cap at {@code Integer.MAX_VALUE}. */
+        private static final class Counting extends FilterOutputStream {
+
+            private long count;
+
+            Counting(OutputStream out) {
+                super(out);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                count++;
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+                count += length;
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.universite.courses.catalog;
+
+import com.universite.courses.entity.Course;
+import com.universite.courses.repository.CourseRepository;
+import com.universite.courses.util.DatabaseManager;
+import lombok.extern.slf4j.Slf4j;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Type-ahead suggestions over every course's code and name, answered from
+ * memory without touching the database.
+ *
+ * <p>Codes and names are normalized (accents dropped, lower case). A code is
+ * one token with its punctuation and spaces removed, so {@code cs 1}, {@code CS-1}
+ * and {@code cs1} all find {@code CS101}; a name is one token per word. The
+ * tokens are kept in two sorted arrays, codes and name words, each with the
+ * course of every entry alongside; the entries starting with a prefix are a
+ * binary search away and follow each other. Code matches come first. A query
+ * of several words looks up its longest word and keeps the courses whose name
+ * has a word starting with each of the others.
+ *
+ * <p>The arrays are immutable and replaced as a whole. A course change merges
+ * the course's new entries into copies of them, linear in the catalog; a
+ * change that leaves the code, name and semester as they were, such as a
+ * seat count, only records the version. Changes older than the version
+ * already indexed are ignored, so late callbacks cannot undo newer ones.
+ */
+@Slf4j
+public class CourseSuggestionIndex {
+
+    /** A suggested course; {@code matchedCode} when the query matched its code rather than its name. */
+    public record Suggestion(long courseId, String code, String name, String semester, boolean matchedCode) {
+    }
+
+    private record Entry(long courseId, String code, String name, String semester, long version, String codeToken,
+                         String[] nameTokens) {
+        boolean sameText(Course course) {
+            return code.equals(course.getCode()) && Objects.equals(name, course.getName())
+                && Objects.equals(semester, course.getSemester());
+        }
+
+        Entry withVersion(long newVersion) {
+            return new Entry(courseId, code, name, semester, newVersion, codeToken, nameTokens);
+        }
+    }
+
+    /** Tokens in order, the entry of each alongside; among equal tokens, the latest course first. */
+    private record Tokens(String[] tokens, Entry[] entries) {
+    }
+
+    private record Snapshot(Tokens codes, Tokens names, boolean loaded) {
+    }
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Tokens NO_TOKENS = new Tokens(new String[0], new Entry[0]);
+
+    private final Map<Long, Entry> courses = new HashMap<>();     // guarded by this
+    private volatile Snapshot snapshot = new Snapshot(NO_TOKENS, NO_TOKENS, false);
+
+    /** Loads every course from the primary, replacing whatever was indexed. */
+    public synchronized void reload() {
+        try {
+            long start = System.nanoTime();
+            List<Object[]> rows = DatabaseManager.withEntityManager(em -> new CourseRepository(em).findCodesAndNames());
+            courses.clear();
+            for (Object[] row : rows) {
+                Entry entry = entry((Long) row[0], (String) row[1], (String) row[2], (String) row[3], (Long) row[4]);
+                courses.put(entry.courseId(), entry);
+            }
+            List<Entry> all = new ArrayList<>(courses.values());
+            snapshot = new Snapshot(merge(NO_TOKENS, -1, all, true), merge(NO_TOKENS, -1, all, false), true);
+            log.info("Course suggestions loaded: {} courses, {} name words in {} ms", courses.size(),
+                snapshot.names().tokens().length, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Loading course suggestions failed, will retry on the next lookup: {}", e.getMessage());
+        }
+    }
+
+    /** Indexes the course's committed state. */
+    public synchronized void put(Course course) {
+        long version = course.getVersion() != null ? course.getVersion() : 0L;
+        Entry indexed = courses.get(course.getId());
+        if (indexed != null && indexed.version() > version) {
+            return;
+        }
+        if (indexed != null && indexed.sameText(course)) {
+            courses.put(course.getId(), indexed.withVersion(version));
+            return;
+        }
+        Entry entry = entry(course.getId(), course.getCode(), course.getName(), course.getSemester(), version);
+        courses.put(entry.courseId(), entry);
+        Snapshot current = snapshot;
+        List<Entry> added = List.of(entry);
+        snapshot = new Snapshot(merge(current.codes(), entry.courseId(), added, true),
+            merge(current.names(), entry.courseId(), added, false), current.loaded());
+    }
+
+    /** Drops a deleted course. */
+    public synchronized void remove(long courseId) {
+        if (courses.remove(courseId) == null) {
+            return;
+        }
+        Snapshot current = snapshot;
+        snapshot = new Snapshot(merge(current.codes(), courseId, List.of(), true),
+            merge(current.names(), courseId, List.of(), false), current.loaded());
+    }
+
+    /**
+     * Up to {@code limit} courses whose code starts with the query, then whose
+     * name has a word starting with each of its words.
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        if (!snapshot.loaded()) {
+            reload();
+        }
+        Snapshot current = snapshot;
+        List<Suggestion> suggestions = new ArrayList<>(Math.min(limit, 16));
+        String normalized = normalize(query);
+
+        String compact = NON_ALPHANUMERIC.matcher(normalized).replaceAll("");
+        if (!compact.isEmpty()) {
+            Tokens codes = current.codes();
+            for (int i = firstStartingWith(codes.tokens(), compact);
+                 i < codes.tokens().length && suggestions.size() < limit && codes.tokens()[i].startsWith(compact); i++) {
+                Entry entry = codes.entries()[i];
+                suggestions.add(new Suggestion(entry.courseId(), entry.code(), entry.name(), entry.semester(), true));
+            }
+        }
+
+        String[] words = words(normalized);
+        if (words.length == 0 || suggestions.size() >= limit) {
+            return suggestions;
+        }
+        String longest = words[0];
+        for (String word : words) {
+            if (word.length() > longest.length()) {
+                longest = word;
+            }
+        }
+        Tokens names = current.names();
+        for (int i = firstStartingWith(names.tokens(), longest);
+             i < names.tokens().length && suggestions.size() < limit && names.tokens()[i].startsWith(longest); i++) {
+            Entry entry = names.entries()[i];
+            if (matchesAll(entry, words) && !contains(suggestions, entry.courseId())) {
+                suggestions.add(new Suggestion(entry.courseId(), entry.code(), entry.name(), entry.semester(), false));
+            }
+        }
+        return suggestions;
+    }
+
+    private static Entry entry(long courseId, String code, String name, String semester, long version) {
+        String normalizedCode = NON_ALPHANUMERIC.matcher(normalize(code)).replaceAll("");
+        String[] nameTokens = Arrays.stream(words(normalize(name))).distinct().toArray(String[]::new);
+        return new Entry(courseId, code, name, semester, version, normalizedCode, nameTokens);
+    }
+
+    /**
+     * The tokens without those of {@code removed}, merged with those of the
+     * added entries; both sides are in order, so this is one pass.
+     */
+    private static Tokens merge(Tokens from, long removed, List<Entry> added, boolean codes) {
+        List<String> addedTokens = new ArrayList<>();
+        List<Entry> addedEntries = new ArrayList<>();
+        for (Entry entry : added) {
+            if (codes) {
+                addedTokens.add(entry.codeToken());
+                addedEntries.add(entry);
+            } else {
+                for (String token : entry.nameTokens()) {
+                    addedTokens.add(token);
+                    addedEntries.add(entry);
+                }
+            }
+        }
+        Integer[] order = new Integer[addedTokens.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> compare(addedTokens.get(a), addedEntries.get(a), addedTokens.get(b),
+            addedEntries.get(b)));
+
+        String[] tokens = new String[from.tokens().length + order.length];
+        Entry[] entries = new Entry[tokens.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < from.tokens().length || j < order.length) {
+            if (i < from.tokens().length && from.entries()[i].courseId() == removed) {
+                i++;
+                continue;
+            }
+            boolean takeOld = j == order.length || i < from.tokens().length
+                && compare(from.tokens()[i], from.entries()[i], addedTokens.get(order[j]),
+                    addedEntries.get(order[j])) <= 0;
+            if (takeOld) {
+                tokens[size] = from.tokens()[i];
+                entries[size++] = from.entries()[i++];
+            } else {
+                tokens[size] = addedTokens.get(order[j]);
+                entries[size++] = addedEntries.get(order[j++]);
+            }
+        }
+        return new Tokens(Arrays.copyOf(tokens, size), Arrays.copyOf(entries, size));
+    }
+
+    private static int compare(String token, Entry entry, String otherToken, Entry otherEntry) {
+        int byToken = token.compareTo(otherToken);
+        return byToken != 0 ? byToken : Long.compare(otherEntry.courseId(), entry.courseId());
+    }
+
+    /** The first token not before the prefix; the matches, if any, start there. */
+    private static int firstStartingWith(String[] tokens, String prefix) {
+        int low = 0;
+        int high = tokens.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tokens[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean matchesAll(Entry entry, String[] words) {
+        for (String word : words) {
+            boolean found = false;
+            for (String token : entry.nameTokens()) {
+                if (token.startsWith(word)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(List<Suggestion> suggestions, long courseId) {
+        for (Suggestion suggestion : suggestions) {
+            if (suggestion.courseId() == courseId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Lower case without accents. */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static String[] words(String normalized) {
+        return Arrays.stream(NON_ALPHANUMERIC.split(normalized)).filter(word -> !word.isEmpty()).toArray(String[]::new);
+    }
+}
@@ -0,0 +1,23 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AcademicSummaryDTO implements Serializable {
+    private Long studentId;
+    private int coursesCompleted;
+    private int coursesIncomplete;          // closed without a grade
+    private int creditsAttempted;           // graded courses, failed ones included
+    private int creditsEarned;              // passed courses
+    private Double gpa;                     // on the 4.0 scale; null before the first graded course
+    private int degreeCredits;              // academic.degree-credits
+    private double degreeProgress;          // percentage of degreeCredits earned, at most 100
+    private LocalDateTime updatedAt;        // null before the first completed course
+}
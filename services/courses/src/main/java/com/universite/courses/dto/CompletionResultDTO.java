@@ -0,0 +1,24 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompletionResultDTO implements Serializable {
+    private Long courseId;                  // completeCourse only
+    private String semester;
+    private int courses;
+    private int enrollmentsCompleted;
+    private int incomplete;                 // closed without a grade (closeSemester)
+    private int stillEnrolled;              // enrolled students left without a grade (completeCourse)
+    private Double averageGrade;            // over every graded enrollment in scope
+    private List<GradeCountDTO> gradeDistribution = new ArrayList<>();
+    private long elapsedMs;
+}
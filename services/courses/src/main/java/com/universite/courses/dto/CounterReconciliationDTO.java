@@ -0,0 +1,25 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CounterReconciliationDTO implements Serializable {
+    private LocalDateTime startedAt;        // null until the first run
+    private long elapsedMs;
+    private int departments;
+    private int coursesChecked;
+    private int coursesDrifted;
+    private int coursesRepaired;
+    private int coursesSkipped;             // changed while being checked, left for the next run
+    private long totalDrift;                // sum of |counter - actual| over drifted courses
+    private List<String> largestDrifts = new ArrayList<>();   // first 20, largest first
+}
@@ -0,0 +1,27 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseChangeDTO implements Serializable {
+    private long version;         // feed version of this change
+    private long courseId;
+    private String code;
+    private String semester;
+    private String department;
+    private int capacity;
+    private int enrolled;
+    private int availableSeats;
+    private boolean active;
+    private boolean removed;      // deleted; drop it from the local copy
+    private LocalDateTime updatedAt;   // the course's own update time
+    private LocalDateTime changedAt;
+    private boolean details;      // its own fields or schedules changed too, not only its seats
+}
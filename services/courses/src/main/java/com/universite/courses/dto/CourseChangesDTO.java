@@ -0,0 +1,21 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseChangesDTO implements Serializable {
+    private Long fromVersion;               // the version asked for
+    private long nextVersion;               // pass this on the next call
+    private long latestVersion;
+    private boolean resync;                 // changes are gone: list the catalog again, then continue from nextVersion
+    private boolean hasMore;                // more changes after nextVersion, call again right away
+    private List<CourseChangeDTO> changes = new ArrayList<>();   // latest state per course, oldest first
+}
@@ -1,4 +1,4 @@
-package main.java.com.universite.courses.dto;
+package com.universite.courses.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -0,0 +1,18 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseSuggestionDTO implements Serializable {
+    private Long courseId;
+    private String code;
+    private String name;
+    private String semester;
+    private boolean matchedCode;            // false when a word of the name matched
+}
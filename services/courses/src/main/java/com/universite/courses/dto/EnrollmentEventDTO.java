@@ -0,0 +1,27 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentEventDTO implements Serializable {
+    private long offset;      // position in the log; pass offset + 1 to continue
+    private long eventId;     // stable across re-delivery, use it to de-duplicate
+    private String eventType; // ENROLLED, DROPPED, COMPLETED, WAITLISTED, COURSE_UPSERTED, COURSE_REMOVED, COUNTER_REPAIRED
+    private Long studentId;   // null for course events
+    private Long courseId;
+    private String courseCode;
+    private String department;
+    private String level;
+    private String semester;
+    private Integer capacity; // course events only
+    private Integer enrolled; // COUNTER_REPAIRED only: the repaired counter
+    private Double grade;
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,23 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentStatsDTO implements Serializable {
+    private String department;  // null when not filtered
+    private String level;
+    private String semester;
+    private int courses;        // active courses
+    private long seats;         // total capacity of active courses
+    private long enrolled;
+    private long drops;
+    private long waitlist;      // enrollment attempts rejected because the course was full
+    private double fillRate;    // enrolled / seats
+    private long asOfOffset;    // event log offset the figures include
+}
@@ -0,0 +1,20 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExamDTO implements Serializable {
+    private Long courseId;
+    private String code;
+    private int students;
+    private int slot;                                   // from 1; 0 when no rooms can seat it
+    private List<String> rooms = new ArrayList<>();     // "building room"
+}
@@ -0,0 +1,21 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExamTimetableDTO implements Serializable {
+    private String semester;
+    private int slots;
+    private int students;                               // with at least one exam
+    private int unplaced;
+    private long elapsedMs;
+    private List<ExamDTO> exams = new ArrayList<>();    // by slot and code
+}
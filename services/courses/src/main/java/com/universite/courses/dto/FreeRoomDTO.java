@@ -0,0 +1,16 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FreeRoomDTO implements Serializable {
+    private String building;
+    private String room;
+    private int largestCourseCapacity;  // rooms have no recorded size; the largest course scheduled there
+}
@@ -0,0 +1,15 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradeCountDTO implements Serializable {
+    private String gradeLetter;
+    private long count;
+}
@@ -0,0 +1,21 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LotterySubmissionDTO implements Serializable {
+    private Long submissionId;
+    private Long studentId;
+    private String semester;
+    private List<Long> courseIds = new ArrayList<>();   // most wanted first; replaces earlier submissions
+    private LocalDateTime submittedAt;
+}
@@ -0,0 +1,27 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LotteryWindowDTO implements Serializable {
+    private String semester;
+    private String status;                  // OPEN or ALLOCATED
+    private LocalDateTime openedAt;
+    private LocalDateTime closesAt;         // null when closed by hand
+    private LocalDateTime closedAt;
+    private Long seed;                      // published once drawn, to reproduce the draw
+    private int students;                   // submitted so far while OPEN
+    private int requests;
+    private int seatsAssigned;
+    private int rejectedFull;
+    private int rejectedPrerequisites;
+    private int alreadyEnrolled;
+    private long elapsedMs;
+}
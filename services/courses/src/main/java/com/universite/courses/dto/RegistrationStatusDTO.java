@@ -0,0 +1,24 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegistrationStatusDTO implements Serializable {
+    private boolean open;
+    private LocalDateTime opensAt;          // null when the period has no start
+    private LocalDateTime closesAt;         // null when the period has no end
+    private int maxConcurrent;
+    private int inFlight;
+    private int queued;
+    private int maxQueue;
+    private long retryAfterSeconds;         // estimated wait for a request joining the queue now
+    private long admitted;
+    private long turnedAway;                // busy, or the student already had a request in the gate
+}
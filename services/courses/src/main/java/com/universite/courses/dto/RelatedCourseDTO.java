@@ -0,0 +1,18 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelatedCourseDTO implements Serializable {
+    private Long courseId;                  // latest offering of the code
+    private String code;
+    private String name;
+    private int students;                   // took both courses
+    private double share;                   // percentage of the given course's students
+}
@@ -0,0 +1,18 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RolloverOptionsDTO implements Serializable {
+    private String department;           // only this department's courses, null for all
+    private boolean includeSchedules = true;
+    private boolean includeTeachers = true;
+    private boolean skipExisting;       // leave codes already offered in the target alone instead of failing
+    private boolean dryRun;             // report what would be copied and the conflicts, change nothing
+}
@@ -0,0 +1,24 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RolloverResultDTO implements Serializable {
+    private String fromSemester;
+    private String toSemester;
+    private boolean dryRun;
+    private int coursesCopied;
+    private int schedulesCopied;
+    private int teacherAssignmentsCopied;
+    private List<String> skippedCodes = new ArrayList<>();   // already offered in the target semester
+    private List<String> conflicts = new ArrayList<>();      // room conflicts with target schedules (first 100)
+    private long elapsedMs;
+}
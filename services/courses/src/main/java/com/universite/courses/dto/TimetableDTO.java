@@ -0,0 +1,20 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableDTO implements Serializable {
+    private Long studentId;
+    private String semester;
+    private int courses;
+    private int totalCredits;
+    private List<TimetableSlotDTO> slots = new ArrayList<>();   // by day and start time
+}
@@ -0,0 +1,25 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimetableSlotDTO implements Serializable {
+    private Long courseId;
+    private String courseCode;
+    private String courseName;
+    private Integer credits;
+    private DayOfWeek dayOfWeek;    // null, with the times, for a course without schedules
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private String room;
+    private String building;
+    private String scheduleType;
+}
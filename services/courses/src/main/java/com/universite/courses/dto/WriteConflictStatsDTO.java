@@ -0,0 +1,16 @@
+package com.universite.courses.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WriteConflictStatsDTO implements Serializable {
+    private long conflicts;   // optimistic lock failures seen
+    private long retries;     // attempts re-run after a conflict
+    private long exhausted;   // writes that gave up after the last attempt
+}
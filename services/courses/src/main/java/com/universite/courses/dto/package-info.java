@@ -0,0 +1,17 @@
+/**
+ * SOAP data transfer objects. java.time values travel as ISO-8601 strings,
+ * JAXB has no built-in binding for them.
+ */
+@XmlJavaTypeAdapters({
+    @XmlJavaTypeAdapter(type = LocalDateTime.class, value = LocalDateTimeAdapter.class),
+    @XmlJavaTypeAdapter(type = LocalTime.class, value = LocalTimeAdapter.class)
+})
+package com.universite.courses.dto;
+
+import com.universite.courses.util.LocalDateTimeAdapter;
+import com.universite.courses.util.LocalTimeAdapter;
+import jakarta.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import jakarta.xml.bind.annotation.adapters.XmlJavaTypeAdapters;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
@@ -1,17 +1,22 @@
-package main.java.com.universite.courses.entity;
+package com.universite.courses.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "courses")
+@Table(name = "courses", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_courses_code_semester", columnNames = {"code", "semester"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,7 +26,7 @@ public class Course {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(unique = true, nullable = false, length = 20)
+    @Column(nullable = false, length = 20)
     @NotBlank(message = "Course code is required")
     @Pattern(regexp = "^[A-Z]{2,4}\\d{3,4}$", message = "Invalid course code format")
     private String code;
@@ -65,6 +70,10 @@ public class Course {
     @Column(nullable = false)
     private Boolean active = true;
     
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version = 0L;
+    
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
@@ -73,18 +82,24 @@ public class Course {
     
     // Relationships
     @OneToMany(mappedBy = "course", cascade = CascadeType.ALL, orphanRemoval = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<Schedule> schedules = new HashSet<>();
     
     @OneToMany(mappedBy = "course", cascade = CascadeType.ALL, orphanRemoval = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<TeacherCourse> teacherCourses = new HashSet<>();
     
     @OneToMany(mappedBy = "course", cascade = CascadeType.ALL, orphanRemoval = true)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Set<StudentCourse> studentCourses = new HashSet<>();
     
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
-        updatedAt = LocalDateTime.now();
+        createdAt = now();
+        updatedAt = createdAt;
         if (enrolled == null) {
             enrolled = 0;
         }
@@ -98,7 +113,12 @@ public class Course {
     
     @PreUpdate
     protected void onUpdate() {
-        updatedAt = LocalDateTime.now();
+        updatedAt = now();
+    }
+    
+    /** At the columns' precision, so the entity in memory and its row agree, as do copies made from each. */
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     }
     
     // Business methods
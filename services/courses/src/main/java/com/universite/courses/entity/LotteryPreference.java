@@ -0,0 +1,31 @@
+package com.universite.courses.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A course of a submission with its rank, 1 being the most wanted. Written
+ * with JDBC batches; mapped so the test schema has the table.
+ */
+@Entity
+@Table(name = "lottery_preferences")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LotteryPreference {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "submission_id", nullable = false)
+    private Long submissionId;
+    
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+    
+    @Column(name = "preference_rank", nullable = false)
+    private Integer preferenceRank;
+}
@@ -0,0 +1,30 @@
+package com.universite.courses.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/** One submission of a student's ranked preferences; a later one replaces it. */
+@Entity
+@Table(name = "lottery_submissions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LotterySubmission {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, length = 50)
+    private String semester;
+    
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+    
+    @Column(name = "submitted_at", nullable = false)
+    private LocalDateTime submittedAt;
+}
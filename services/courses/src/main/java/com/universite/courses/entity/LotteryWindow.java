@@ -0,0 +1,69 @@
+package com.universite.courses.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A semester registered by lottery. While OPEN, students submit ranked
+ * preferences instead of enrolling; the draw assigns the seats once, stores
+ * its counts here and moves the window to ALLOCATED.
+ */
+@Entity
+@Table(name = "lottery_windows")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LotteryWindow {
+    
+    public static final String OPEN = "OPEN";
+    public static final String ALLOCATED = "ALLOCATED";
+    
+    @Id
+    @Column(length = 50)
+    private String semester;
+    
+    @Column(nullable = false, length = 20)
+    private String status;
+    
+    @Column(nullable = false)
+    private long seed; // the draw is reproducible from the same preferences and seed
+    
+    @Column(name = "opened_at", nullable = false)
+    private LocalDateTime openedAt;
+    
+    @Column(name = "closes_at")
+    private LocalDateTime closesAt; // drawn automatically from then on; null for a manual close
+    
+    @Column(name = "closed_at")
+    private LocalDateTime closedAt;
+    
+    // Results of the draw
+    @Column(nullable = false)
+    private int students;
+    
+    @Column(nullable = false)
+    private int requests;
+    
+    @Column(name = "seats_assigned", nullable = false)
+    private int seatsAssigned;
+    
+    @Column(name = "rejected_full", nullable = false)
+    private int rejectedFull;
+    
+    @Column(name = "rejected_prerequisites", nullable = false)
+    private int rejectedPrerequisites;
+    
+    @Column(name = "already_enrolled", nullable = false)
+    private int alreadyEnrolled;
+    
+    @Column(name = "elapsed_ms", nullable = false)
+    private long elapsedMs;
+    
+    public boolean isOpen() {
+        return OPEN.equals(status);
+    }
+}
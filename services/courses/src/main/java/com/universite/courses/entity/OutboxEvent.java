@@ -0,0 +1,89 @@
+package com.universite.courses.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Enrollment or course change written in the same transaction as the change
+ * itself. The outbox relay moves rows to the enrollment event log and deletes
+ * them.
+ */
+@Entity
+@Table(name = "outbox_events")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "event_type", nullable = false, length = 30)
+    private String eventType; // ENROLLED, DROPPED, COMPLETED, WAITLISTED, COURSE_UPSERTED, COURSE_REMOVED, COUNTER_REPAIRED
+    
+    @Column(name = "student_id")
+    private Long studentId; // null for course events
+    
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+    
+    @Column(name = "course_code", length = 20)
+    private String courseCode;
+    
+    @Column(length = 50)
+    private String department;
+    
+    @Column(length = 20)
+    private String level;
+    
+    @Column(length = 50)
+    private String semester;
+    
+    @Column
+    private Integer capacity; // course events only
+    
+    @Column
+    private Integer enrolled; // COUNTER_REPAIRED only: the repaired counter
+    
+    @Column
+    private Double grade;
+    
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+    
+    /**
+     * Snapshots the enrollment and its course, so consumers never need to look
+     * the course up again (it may have been deleted by then).
+     */
+    public static OutboxEvent of(String eventType, StudentCourse studentCourse) {
+        OutboxEvent event = of(eventType, studentCourse.getStudentId(), studentCourse.getCourse());
+        event.setGrade(studentCourse.getGrade());
+        return event;
+    }
+    
+    /** A student-level event without an enrollment row, e.g. WAITLISTED. */
+    public static OutboxEvent of(String eventType, Long studentId, Course course) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        event.setStudentId(studentId);
+        event.setCourseId(course.getId());
+        event.setCourseCode(course.getCode());
+        event.setDepartment(course.getDepartment());
+        event.setLevel(course.getLevel());
+        event.setSemester(course.getSemester());
+        event.setOccurredAt(LocalDateTime.now());
+        return event;
+    }
+    
+    /** COURSE_UPSERTED or COURSE_REMOVED, carrying the seat count. */
+    public static OutboxEvent forCourse(String eventType, Course course) {
+        OutboxEvent event = of(eventType, null, course);
+        event.setCapacity(course.getCapacity());
+        return event;
+    }
+}
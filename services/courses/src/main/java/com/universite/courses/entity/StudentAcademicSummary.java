@@ -0,0 +1,51 @@
+package com.universite.courses.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A student's completed enrollments, credits and grade points. Written only
+ * by {@code AcademicSummaryRepository}: completions add to it, and the
+ * nightly recomputation corrects it when it no longer matches the enrollments.
+ */
+@Entity
+@Table(name = "student_academic_summaries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentAcademicSummary {
+    
+    @Id
+    @Column(name = "student_id")
+    private Long studentId;
+    
+    @Column(name = "courses_completed", nullable = false)
+    private int coursesCompleted;
+    
+    @Column(name = "courses_incomplete", nullable = false)
+    private int coursesIncomplete;
+    
+    @Column(name = "credits_attempted", nullable = false)
+    private int creditsAttempted; // credits of graded courses, failed ones included
+    
+    @Column(name = "credits_earned", nullable = false)
+    private int creditsEarned;
+    
+    @Column(name = "grade_points", nullable = false)
+    private double gradePoints; // sum of credits times the letter's points
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version = 0L;
+    
+    public Double getGpa() {
+        return creditsAttempted == 0 ? null : gradePoints / creditsAttempted;
+    }
+}
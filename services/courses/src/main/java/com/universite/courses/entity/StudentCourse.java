@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
@@ -28,6 +30,8 @@ public class StudentCourse {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "course_id", nullable = false)
     @NotNull(message = "Course is required")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Course course;
     
     @Column(name = "enrollment_status", nullable = false, length = 20)
@@ -39,12 +43,16 @@ public class StudentCourse {
     @Column(name = "dropped_at")
     private LocalDateTime droppedAt;
     
-    @Column(precision = 5, scale = 2)
+    @Column
     private Double grade;
     
     @Column(name = "grade_letter", length = 2)
     private String gradeLetter; // A+, A, A-, B+, etc.
     
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version = 0L;
+    
     @PrePersist
     protected void onCreate() {
         enrolledAt = LocalDateTime.now();
@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
@@ -28,6 +30,8 @@ public class TeacherCourse {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "course_id", nullable = false)
     @NotNull(message = "Course is required")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Course course;
     
     @Column(length = 50)
@@ -39,6 +43,10 @@ public class TeacherCourse {
     @Column(nullable = false)
     private Boolean active = true;
     
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version = 0L;
+    
     @PrePersist
     protected void onCreate() {
         assignedAt = LocalDateTime.now();
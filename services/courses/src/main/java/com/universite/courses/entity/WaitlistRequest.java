@@ -0,0 +1,34 @@
+package com.universite.courses.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An enrollment attempt rejected because the course was full. Not tied to the
+ * course row, so the request outlives a deleted course and recording one never
+ * locks the course.
+ */
+@Entity
+@Table(name = "waitlist_requests")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistRequest {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "course_id", nullable = false)
+    private Long courseId;
+    
+    @Column(name = "student_id", nullable = false)
+    private Long studentId;
+    
+    @Column(name = "requested_at", nullable = false)
+    private LocalDateTime requestedAt;
+}
@@ -0,0 +1,285 @@
+package com.universite.courses.events;
+
+import com.universite.courses.util.AppConfig;
+import com.universite.courses.util.DatabaseManager;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tells the other nodes of the service what their local caches (timetables,
+ * room occupancy, the course change feed) should drop or reload, over
+ * PostgreSQL {@code LISTEN/NOTIFY} on the channel {@code invalidation.channel}.
+ *
+ * <p>Writes publish their messages once they commit. A sender thread takes
+ * whatever has queued up, drops duplicates and packs it into as few
+ * notifications as fit the 8000-byte payload limit, so a registration burst
+ * costs a handful of notifications rather than one per enrollment. Each node
+ * listens on its own connection outside the pool and hands the messages of
+ * other nodes to its handler as they arrive, typically within milliseconds
+ * of the write returning. When the listening connection is lost, messages
+ * may have been missed: the handler gets an {@link Kind#ALL} message once it
+ * is back. A node that dies between commit and send loses its last messages;
+ * the caches' own expiry bounds how long those go unseen.
+ */
+@Slf4j
+public class CacheInvalidationChannel implements Closeable {
+
+    /** What changed; the key is a course or student ID, a semester, or a reason. */
+    public enum Kind {
+        /** A course's details or schedules changed, or it was removed. */
+        COURSE,
+        /** Only a course's seat counts changed. */
+        SEATS,
+        /** A student enrolled or dropped. */
+        STUDENT,
+        /** A student enrolled in a course; the key is {@code courseId:studentId}. */
+        ENROLLMENT,
+        /** The semester's schedules changed. */
+        ROOMS,
+        /** Courses changed in bulk; the change feed must resync. */
+        RESYNC,
+        /** Enrollments were written in bulk; timetables and membership filters are stale. */
+        BULK_ENROLLMENTS,
+        /** Messages may have been lost; everything cached is stale. */
+        ALL
+    }
+
+    public record Message(Kind kind, String key) {
+        public long id() {
+            return Long.parseLong(key);
+        }
+    }
+
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final long keepaliveMillis;
+    private final long reconnectMillis;
+    private final BlockingQueue<Message> outgoing = new LinkedBlockingQueue<>();
+    private final Thread sender;
+    private final Thread listener;
+
+    private volatile Consumer<List<Message>> handler;
+    private volatile boolean running = true;
+
+    public CacheInvalidationChannel() {
+        this.channel = AppConfig.get("invalidation.channel", "courses_cache");
+        this.keepaliveMillis = AppConfig.getLong("invalidation.keepalive-ms", 10_000);
+        this.reconnectMillis = AppConfig.getLong("invalidation.reconnect-ms", 1_000);
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid invalidation.channel: " + channel);
+        }
+        this.sender = new Thread(this::send, "invalidation-sender");
+        this.sender.setDaemon(true);
+        this.listener = new Thread(this::listen, "invalidation-listener");
+        this.listener.setDaemon(true);
+    }
+
+    /** Returns null when disabled, or when the database is not PostgreSQL and a single node is assumed. */
+    public static CacheInvalidationChannel fromConfig() {
+        if (!AppConfig.getBoolean("invalidation.enabled", true)) {
+            log.info("Cross-node cache invalidation disabled");
+            return null;
+        }
+        if (!DatabaseManager.isPostgreSQL()) {
+            log.info("Cross-node cache invalidation needs PostgreSQL, caches stay local");
+            return null;
+        }
+        return new CacheInvalidationChannel();
+    }
+
+    /** @param handler applies other nodes' messages to this node's caches, on the listener thread */
+    public void start(Consumer<List<Message>> handler) {
+        this.handler = handler;
+        sender.start();
+        listener.start();
+        log.info("Cache invalidations sent and received on channel {} as node {}", channel, nodeId);
+    }
+
+    /** Queues a message for the other nodes; call it once the change has committed. */
+    public void publish(Kind kind, Object key) {
+        outgoing.add(new Message(kind, String.valueOf(key)));
+    }
+
+    private void send() {
+        Connection connection = null;
+        List<Message> batch = new ArrayList<>();
+        while (true) {
+            try {
+                if (batch.isEmpty()) {
+                    // Once closing, send what is left without waiting for more
+                    Message first = running ? outgoing.poll(500, TimeUnit.MILLISECONDS) : outgoing.poll();
+                    if (first == null) {
+                        if (running) {
+                            continue;
+                        }
+                        break;
+                    }
+                    batch.add(first);
+                    outgoing.drainTo(batch);
+                }
+                if (connection == null) {
+                    connection = DatabaseManager.openUnpooledConnection();
+                    connection.setAutoCommit(true);
+                }
+                try (PreparedStatement notify = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+                    for (String payload : payloads(batch)) {
+                        notify.setString(1, channel);
+                        notify.setString(2, payload);
+                        notify.execute();
+                    }
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (SQLException e) {
+                log.warn("Sending {} cache invalidations failed, retrying: {}", batch.size(), e.getMessage());
+                connection = closeQuietly(connection);
+                if (!running) {
+                    break;
+                }
+                pause();
+            }
+        }
+        closeQuietly(connection);
+    }
+
+    /** The distinct messages, one per line after the node ID, split to fit the payload limit. */
+    List<String> payloads(List<Message> batch) {
+        Set<String> lines = new LinkedHashSet<>();
+        for (Message message : batch) {
+            lines.add(message.kind() + " " + message.key());
+        }
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder(nodeId);
+        int bytes = nodeId.length();
+        for (String line : lines) {
+            int lineBytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (bytes + lineBytes > MAX_PAYLOAD_BYTES) {
+                payloads.add(payload.toString());
+                payload = new StringBuilder(nodeId);
+                bytes = nodeId.length();
+            }
+            payload.append('\n').append(line);
+            bytes += lineBytes;
+        }
+        payloads.add(payload.toString());
+        return payloads;
+    }
+
+    private void listen() {
+        Connection connection = null;
+        boolean missed = false;
+        long lastCheck = System.currentTimeMillis();
+        while (running) {
+            try {
+                if (connection == null) {
+                    connection = DatabaseManager.openUnpooledConnection();
+                    connection.setAutoCommit(true);
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("LISTEN " + channel);
+                    }
+                    if (missed) {
+                        log.info("Listening for cache invalidations again, dropping every cached entry");
+                        handler.accept(List.of(new Message(Kind.ALL, "reconnected")));
+                        missed = false;
+                    }
+                }
+
+                PGNotification[] notifications = connection.unwrap(PGConnection.class)
+                    .getNotifications((int) Math.min(keepaliveMillis, 500));
+                if (notifications != null && notifications.length > 0) {
+                    List<Message> messages = new ArrayList<>();
+                    for (PGNotification notification : notifications) {
+                        parse(notification.getParameter(), messages);
+                    }
+                    if (!messages.isEmpty()) {
+                        handler.accept(messages);
+                    }
+                } else if (System.currentTimeMillis() - lastCheck >= keepaliveMillis) {
+                    // A dropped connection is only noticed on a round trip
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("SELECT 1");
+                    }
+                    lastCheck = System.currentTimeMillis();
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Listening for cache invalidations failed, reconnecting: {}", e.getMessage());
+                }
+                connection = closeQuietly(connection);
+                missed = true;
+                pause();
+            } catch (RuntimeException e) {
+                log.error("Applying cache invalidations failed: {}", e.getMessage());
+            }
+        }
+        closeQuietly(connection);
+    }
+
+    /** Adds the messages of another node's payload; this node's own are skipped. */
+    void parse(String payload, List<Message> messages) {
+        String[] lines = payload.split("\n");
+        if (lines[0].equals(nodeId)) {
+            return;
+        }
+        for (int i = 1; i < lines.length; i++) {
+            int space = lines[i].indexOf(' ');
+            try {
+                messages.add(new Message(Kind.valueOf(lines[i].substring(0, space)), lines[i].substring(space + 1)));
+            } catch (RuntimeException e) {
+                log.warn("Ignoring unknown cache invalidation: {}", lines[i]);
+            }
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(reconnectMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Connection closeQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // Already broken
+            }
+        }
+        return null;
+    }
+
+    /** Sends what is still queued, then stops both threads. */
+    @Override
+    public void close() {
+        running = false;
+        listener.interrupt();
+        try {
+            sender.join(2_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
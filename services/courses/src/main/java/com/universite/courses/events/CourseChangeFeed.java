@@ -0,0 +1,161 @@
+package com.universite.courses.events;
+
+import com.universite.courses.entity.Course;
+import com.universite.courses.util.AppConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Recent course and seat changes made on this node, for clients that keep a
+ * copy of the catalog and poll for what changed instead of listing it again.
+ *
+ * <p>Every committed change gets the next version and goes into a bounded
+ * ring. A client that has seen everything up to version {@code v} gets the
+ * changes after it, or a resync when they are no longer all in the ring.
+ * Versions start at the process start time in microseconds, so they keep
+ * growing across restarts and a version from before a restart always asks
+ * for a resync. Bulk writes that bypass the entities do not list their
+ * courses; they call {@link #requireResync} instead.
+ *
+ * <p>A change is marked {@code details} when more than the seats may have
+ * changed: the course's own fields or its schedules. Clients that keep whole
+ * courses only need to fetch those again.
+ */
+@Slf4j
+public class CourseChangeFeed {
+
+    /** One course's state after a change; each change carries the full seat state, not a difference. */
+    public record CourseChange(long version, long courseId, String code, String semester, String department,
+                               int capacity, int enrolled, boolean active, boolean removed,
+                               LocalDateTime updatedAt, LocalDateTime changedAt, boolean details) {
+        CourseChange withDetails() {
+            return new CourseChange(version, courseId, code, semester, department, capacity, enrolled, active,
+                removed, updatedAt, changedAt, true);
+        }
+    }
+
+    /** What a client gets for its version: the changes after it, or a resync. */
+    public record Page(boolean resync, long latestVersion, long nextVersion, boolean hasMore,
+                       List<CourseChange> changes) {
+    }
+
+    /** Told of every change and resync as the feed records it, under the feed's lock, so it must be quick. */
+    public interface Listener {
+        void changed(CourseChange change);
+
+        void resyncRequired();
+    }
+
+    private final CourseChange[] ring;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<Long, Long> publishedCourseVersions = new HashMap<>();
+
+    private long latestVersion;
+    private long resyncBefore;    // clients behind this must resync
+    private int size;
+
+    public CourseChangeFeed() {
+        this(AppConfig.getInt("changes.feed.capacity", 10_000));
+    }
+
+    public CourseChangeFeed(int capacity) {
+        this.ring = new CourseChange[Math.max(1, capacity)];
+        this.latestVersion = System.currentTimeMillis() * 1000;
+        this.resyncBefore = latestVersion;
+    }
+
+    /**
+     * Records the committed state of the course. Concurrent transactions can
+     * finish their after-commit work in any order, so a state older than the
+     * one already published for the course (by entity version) is dropped.
+     * Schedules change without bumping the course's version, so a
+     * {@code details} change of the version already published is recorded.
+     */
+    public synchronized void publish(Course course, boolean details) {
+        long courseVersion = course.getVersion() == null ? 0 : course.getVersion();
+        Long published = publishedCourseVersions.get(course.getId());
+        if (published != null && (published > courseVersion || published == courseVersion && !details)) {
+            return;
+        }
+        publishedCourseVersions.put(course.getId(), courseVersion);
+        append(course, false, details);
+    }
+
+    public synchronized void publishRemoval(Course course) {
+        publishedCourseVersions.put(course.getId(), Long.MAX_VALUE);
+        append(course, true, true);
+    }
+
+    /** Sends every client back to a full listing, after a bulk change the feed cannot list. */
+    public synchronized void requireResync(String reason) {
+        latestVersion++;
+        resyncBefore = latestVersion;
+        // Nothing before the resync is served again, and the ring holds no change at its version
+        size = 0;
+        log.info("Course change feed asks clients to resync at version {}: {}", latestVersion, reason);
+        listeners.forEach(Listener::resyncRequired);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * The changes after {@code version}, at most {@code max} of them before
+     * repeated changes of a course are collapsed into its latest state.
+     * A null version, one from before the oldest change still held, one from
+     * before a required resync or one the feed never issued gets a resync.
+     */
+    public synchronized Page since(Long version, int max) {
+        long oldest = size == 0 ? latestVersion + 1 : ring[index(latestVersion - size + 1)].version();
+        long floor = Math.max(resyncBefore, oldest - 1);
+        if (version == null || version < floor || version > latestVersion) {
+            return new Page(true, latestVersion, latestVersion, false, List.of());
+        }
+
+        long until = Math.min(latestVersion, version + max);
+        List<CourseChange> changes = new ArrayList<>();
+        Map<Long, Integer> seen = new HashMap<>();
+        // Newest first, so only the latest state of each course is kept, marked
+        // with details when any of the changes it stands for was
+        for (long v = until; v > version; v--) {
+            CourseChange change = ring[index(v)];
+            Integer kept = seen.putIfAbsent(change.courseId(), changes.size());
+            if (kept == null) {
+                changes.add(change);
+            } else if (change.details() && !changes.get(kept).details()) {
+                changes.set(kept, changes.get(kept).withDetails());
+            }
+        }
+        Collections.reverse(changes);
+        return new Page(false, latestVersion, until, until < latestVersion, changes);
+    }
+
+    public synchronized long getLatestVersion() {
+        return latestVersion;
+    }
+
+    private void append(Course course, boolean removed, boolean details) {
+        latestVersion++;
+        CourseChange change = new CourseChange(latestVersion, course.getId(), course.getCode(),
+            course.getSemester(), course.getDepartment(), course.getCapacity(), course.getEnrolled(),
+            !removed && Boolean.TRUE.equals(course.getActive()), removed, course.getUpdatedAt(), LocalDateTime.now(),
+            details);
+        ring[index(latestVersion)] = change;
+        size = Math.min(size + 1, ring.length);
+        for (Listener listener : listeners) {
+            listener.changed(change);
+        }
+    }
+
+    private int index(long version) {
+        return (int) Math.floorMod(version, (long) ring.length);
+    }
+}
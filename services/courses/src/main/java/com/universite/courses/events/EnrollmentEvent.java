@@ -0,0 +1,121 @@
+package com.universite.courses.events;
+
+import com.universite.courses.entity.OutboxEvent;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * One record of the enrollment event log. {@code eventId} is the outbox row
+ * id and is stable across re-publication, so consumers can de-duplicate on it.
+ * Course events have no student ({@code studentId} 0) and carry the capacity;
+ * COUNTER_REPAIRED carries the course's repaired {@code enrolled} counter.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EnrollmentEvent {
+    
+    private static final byte FORMAT_VERSION = 3;
+    
+    private long eventId;
+    private String eventType;
+    private long studentId;
+    private long courseId;
+    private String courseCode;
+    private String department;
+    private String level;
+    private String semester;
+    private Integer capacity;
+    private Integer enrolled;
+    private Double grade;
+    private long occurredAtEpochMillis;
+    
+    public static EnrollmentEvent from(OutboxEvent outbox) {
+        return new EnrollmentEvent(
+            outbox.getId(),
+            outbox.getEventType(),
+            outbox.getStudentId() == null ? 0 : outbox.getStudentId(),
+            outbox.getCourseId(),
+            outbox.getCourseCode(),
+            outbox.getDepartment(),
+            outbox.getLevel(),
+            outbox.getSemester(),
+            outbox.getCapacity(),
+            outbox.getEnrolled(),
+            outbox.getGrade(),
+            outbox.getOccurredAt().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+    
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(eventId);
+            out.writeUTF(eventType);
+            out.writeLong(studentId);
+            out.writeLong(courseId);
+            writeNullable(out, courseCode);
+            writeNullable(out, department);
+            writeNullable(out, level);
+            writeNullable(out, semester);
+            out.writeInt(capacity == null ? -1 : capacity);
+            out.writeInt(enrolled == null ? -1 : enrolled);
+            out.writeDouble(grade == null ? Double.NaN : grade);
+            out.writeLong(occurredAtEpochMillis);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    public static EnrollmentEvent decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte version = in.readByte();
+            if (version < 1 || version > FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported event format version " + version);
+            }
+            EnrollmentEvent event = new EnrollmentEvent();
+            event.setEventId(in.readLong());
+            event.setEventType(in.readUTF());
+            event.setStudentId(in.readLong());
+            event.setCourseId(in.readLong());
+            event.setCourseCode(readNullable(in));
+            event.setDepartment(readNullable(in));
+            event.setLevel(readNullable(in));
+            event.setSemester(readNullable(in));
+            if (version >= 2) {
+                int capacity = in.readInt();
+                event.setCapacity(capacity < 0 ? null : capacity);
+            }
+            if (version >= 3) {
+                int enrolled = in.readInt();
+                event.setEnrolled(enrolled < 0 ? null : enrolled);
+            }
+            double grade = in.readDouble();
+            event.setGrade(Double.isNaN(grade) ? null : grade);
+            event.setOccurredAtEpochMillis(in.readLong());
+            return event;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+    
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
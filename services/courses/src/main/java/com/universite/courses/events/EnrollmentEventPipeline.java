@@ -0,0 +1,97 @@
+package com.universite.courses.events;
+
+import com.universite.courses.analytics.EnrollmentStatsAggregator;
+import com.universite.courses.util.AppConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The enrollment event log together with the relay that feeds it from the
+ * outbox and the consumers that tail it. Only one node should run the relay;
+ * set {@code outbox.relay.enabled=false} on the others.
+ *
+ * <p>Sealed log segments are deleted once the consumers' checkpoints have
+ * passed them and they exceed {@code events.log.retention.segments} or
+ * {@code events.log.retention.max-age-ms}.
+ */
+@Slf4j
+public class EnrollmentEventPipeline implements Closeable {
+
+    private final SegmentedLog eventLog;
+    private final OutboxRelay relay;
+    private final EnrollmentStatsAggregator stats;
+    private final ScheduledExecutorService retention;
+    private final int retainedSegments;
+    private final long retainedMillis;
+
+    public EnrollmentEventPipeline(Path directory) {
+        int segmentBytes = AppConfig.getInt("events.log.segment-bytes", 64 * 1024 * 1024);
+        this.eventLog = new SegmentedLog(directory, segmentBytes);
+        this.relay = new OutboxRelay(eventLog);
+        // Publish what is already committed before consumers take their starting point
+        relay.drain();
+        relay.start();
+        this.stats = new EnrollmentStatsAggregator(eventLog, directory.resolve("enrollment-stats.ckpt"));
+        stats.start();
+
+        this.retainedSegments = AppConfig.getInt("events.log.retention.segments", 16);
+        this.retainedMillis = AppConfig.getLong("events.log.retention.max-age-ms", 0);
+        long checkMillis = AppConfig.getLong("events.log.retention.check-interval-ms", 60000);
+        this.retention = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "event-log-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retention.scheduleWithFixedDelay(this::deleteConsumedSegments, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Returns null when the relay is disabled on this node. */
+    public static EnrollmentEventPipeline fromConfig() {
+        if (!AppConfig.getBoolean("outbox.relay.enabled", true)) {
+            log.info("Outbox relay disabled, enrollment events stay in the outbox table");
+            return null;
+        }
+        return new EnrollmentEventPipeline(Paths.get(AppConfig.get("events.log.dir", "data/enrollment-events")));
+    }
+
+    public SegmentedLog getEventLog() {
+        return eventLog;
+    }
+
+    public EnrollmentStatsAggregator getStats() {
+        return stats;
+    }
+
+    /** Relays whatever is pending in the outbox right now. */
+    public void flush() {
+        relay.drain();
+    }
+
+    /**
+     * Deletes the segments outside retention that every consumer's checkpoint
+     * has passed. Clients of getEnrollmentEventsSince keep no checkpoint; one
+     * that falls behind retention continues from the oldest retained event.
+     */
+    private void deleteConsumedSegments() {
+        try {
+            eventLog.deleteSegments(stats.getCheckpointedOffset(), retainedSegments, retainedMillis);
+        } catch (RuntimeException e) {
+            log.error("Event log retention failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /** Stops the relay after a last drain; call before closing the database. */
+    @Override
+    public void close() {
+        retention.shutdownNow();
+        relay.close();
+        stats.close();
+        eventLog.close();
+    }
+}
@@ -0,0 +1,125 @@
+package com.universite.courses.events;
+
+import com.universite.courses.entity.OutboxEvent;
+import com.universite.courses.repository.OutboxRepository;
+import com.universite.courses.util.AppConfig;
+import com.universite.courses.util.DatabaseManager;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves committed outbox rows into the enrollment event log. Each batch is
+ * appended and forced to the log before its rows are deleted, in the same
+ * transaction that locked them. A crash between the two re-publishes the
+ * batch on the next run, so delivery is at-least-once and consumers
+ * de-duplicate on the event id.
+ *
+ * <p>An event too large for a log record would fail every batch it is in and
+ * hold up all the events behind it. It is written to its own file under
+ * {@code dead-letters} in the log directory instead, named after its id and
+ * holding what would have been the record's payload, and deleted from the
+ * outbox with the batch.
+ */
+@Slf4j
+public class OutboxRelay implements Closeable {
+
+    private final SegmentedLog eventLog;
+    private final Path deadLetters;
+    private final int batchSize;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+
+    public OutboxRelay(SegmentedLog eventLog) {
+        this.eventLog = eventLog;
+        this.deadLetters = eventLog.getDirectory().resolve("dead-letters");
+        this.batchSize = AppConfig.getInt("outbox.relay.batch-size", 500);
+        this.intervalMillis = AppConfig.getLong("outbox.relay.interval-ms", 200);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::drain, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Outbox relay started (batch {}, interval {} ms)", batchSize, intervalMillis);
+    }
+
+    /** Relays batches until the outbox has fewer pending rows than a batch. */
+    public void drain() {
+        try {
+            while (relayBatch() == batchSize) {
+                // keep going while there is a backlog
+            }
+        } catch (RuntimeException e) {
+            log.error("Outbox relay failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        return DatabaseManager.inTransaction(em -> {
+            OutboxRepository outboxRepository = new OutboxRepository(em);
+            List<OutboxEvent> pending = outboxRepository.lockPending(batchSize);
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            List<byte[]> payloads = new ArrayList<>(pending.size());
+            List<Long> ids = new ArrayList<>(pending.size());
+            for (OutboxEvent event : pending) {
+                byte[] payload = EnrollmentEvent.from(event).encode();
+                if (payload.length > eventLog.maxRecordBytes()) {
+                    deadLetter(event, payload);
+                } else {
+                    payloads.add(payload);
+                }
+                ids.add(event.getId());
+            }
+            eventLog.append(payloads);
+            outboxRepository.deleteByIds(ids);
+            return pending.size();
+        });
+    }
+
+    /** Forced to disk before the batch deletes the row, so a crash keeps one or the other. */
+    private void deadLetter(OutboxEvent event, byte[] payload) {
+        Path file = deadLetters.resolve(event.getId() + ".event");
+        try {
+            Files.createDirectories(deadLetters);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(payload));
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not dead-letter outbox event " + event.getId(), e);
+        }
+        log.error("Outbox event {} ({} for course {}) is {} bytes, over the event log's {} byte records; " +
+                "moved to {}", event.getId(), event.getEventType(), event.getCourseId(), payload.length,
+            eventLog.maxRecordBytes(), file);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+}
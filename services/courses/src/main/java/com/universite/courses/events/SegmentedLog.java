@@ -0,0 +1,319 @@
+package com.universite.courses.events;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only record log split into fixed-size, memory-mapped segment files
+ * named after the offset of their first record. Offsets are dense, so each
+ * segment keeps an in-memory array from relative offset to file position.
+ *
+ * <p>Record layout: {@code int length | long offset | int crc32 | payload}.
+ * The length is written last, and a zero length marks the end of a
+ * segment, so a torn write is ignored on reopen. One writer appends under the
+ * log's lock; readers never lock and only see records up to the last forced
+ * batch.
+ *
+ * <p>Sealed segments that every consumer has read past are deleted by
+ * {@link #deleteSegments} once they fall outside retention.
+ */
+@Slf4j
+public class SegmentedLog implements Closeable {
+
+    private static final int HEADER_BYTES = 4 + 8 + 4;
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private Segment active;
+    private volatile long nextOffset;
+
+    public record Entry(long offset, byte[] payload) {
+    }
+
+    public SegmentedLog(Path directory, int segmentBytes) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+            }
+            long expected = -1;
+            for (Path file : files) {
+                Segment segment = Segment.open(file, segmentBytes);
+                if (expected >= 0 && segment.baseOffset != expected) {
+                    log.warn("Segment {} does not continue at offset {}, ignoring it and later segments", file, expected);
+                    break;
+                }
+                segment.recover();
+                segments.put(segment.baseOffset, segment);
+                expected = segment.baseOffset + segment.count;
+            }
+            if (segments.isEmpty()) {
+                active = Segment.create(directory, 0, segmentBytes);
+                segments.put(0L, active);
+            } else {
+                active = segments.lastEntry().getValue();
+            }
+            nextOffset = active.baseOffset + active.count;
+            log.info("Opened event log {} with {} segments, next offset {}", directory, segments.size(), nextOffset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open event log " + directory, e);
+        }
+    }
+
+    /**
+     * Appends the records in order and forces them to disk before they become
+     * visible to readers. Returns the offset of the first appended record.
+     * A record over {@link #maxRecordBytes} rejects the whole batch before
+     * any of it is written.
+     */
+    public synchronized long append(List<byte[]> payloads) {
+        for (byte[] payload : payloads) {
+            if (payload.length > maxRecordBytes()) {
+                throw new IllegalArgumentException("Record of " + payload.length + " bytes exceeds segment size");
+            }
+        }
+        long first = active.baseOffset + active.count;
+        try {
+            for (byte[] payload : payloads) {
+                int needed = HEADER_BYTES + payload.length;
+                if (active.writePosition + needed + 4 > segmentBytes) {
+                    active.buffer.force();
+                    active = Segment.create(directory, active.baseOffset + active.count, segmentBytes);
+                    segments.put(active.baseOffset, active);
+                }
+                active.write(active.baseOffset + active.count, payload);
+            }
+            active.buffer.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to event log " + directory, e);
+        }
+        nextOffset = active.baseOffset + active.count;
+        return first;
+    }
+
+    /** Up to {@code max} records starting at {@code fromOffset}. */
+    public List<Entry> read(long fromOffset, int max) {
+        long end = nextOffset;
+        List<Entry> entries = new ArrayList<>(Math.min(max, 256));
+        long offset = Math.max(fromOffset, firstOffset());
+        while (offset < end && entries.size() < max) {
+            Map.Entry<Long, Segment> floor = segments.floorEntry(offset);
+            if (floor == null) {
+                // Deleted since firstOffset() was read
+                offset = firstOffset();
+                continue;
+            }
+            Segment segment = floor.getValue();
+            int relative = (int) (offset - segment.baseOffset);
+            int count = segment.count;
+            if (relative >= count) {
+                Map.Entry<Long, Segment> next = segments.higherEntry(segment.baseOffset);
+                if (next == null) {
+                    break;
+                }
+                offset = next.getKey();
+                continue;
+            }
+            int[] positions = segment.positions;
+            while (relative < count && offset < end && entries.size() < max) {
+                entries.add(new Entry(offset, segment.payloadAt(positions[relative])));
+                relative++;
+                offset++;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Deletes the oldest sealed segments whose records all lie before
+     * {@code consumedOffset} and that are outside retention: beyond the
+     * newest {@code maxSegments} segments, or last written more than
+     * {@code maxAgeMillis} ago. Zero disables either limit. Readers holding
+     * a deleted segment finish on its mapping. Returns the segments deleted.
+     */
+    public synchronized int deleteSegments(long consumedOffset, int maxSegments, long maxAgeMillis) {
+        long now = System.currentTimeMillis();
+        int deleted = 0;
+        for (Segment segment : segments.values()) {
+            if (segment == active || segment.baseOffset + segment.count > consumedOffset) {
+                break;
+            }
+            boolean overCount = maxSegments > 0 && segments.size() > maxSegments;
+            boolean expired = maxAgeMillis > 0 && now - segment.lastModifiedMillis() > maxAgeMillis;
+            if (!overCount && !expired) {
+                break;
+            }
+            segments.remove(segment.baseOffset);
+            try {
+                segment.channel.close();
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                log.warn("Could not delete segment {}: {}", segment.path, e.getMessage());
+            }
+            deleted++;
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} event log segments, log now starts at offset {}", deleted, firstOffset());
+        }
+        return deleted;
+    }
+
+    /**
+     * Runs the work with the next offset while nothing can be appended, for a
+     * consumer that pairs its starting point with a read of the outbox.
+     */
+    public synchronized <T> T withNextOffset(LongFunction<T> work) {
+        return work.apply(nextOffset);
+    }
+
+    /** The largest payload a record can hold: a segment less its header and end marker. */
+    public int maxRecordBytes() {
+        return segmentBytes - HEADER_BYTES - 4;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long firstOffset() {
+        return segments.firstKey();
+    }
+
+    public long nextOffset() {
+        return nextOffset;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments.values()) {
+            try {
+                segment.buffer.force();
+                segment.channel.close();
+            } catch (IOException e) {
+                log.warn("Error closing segment {}: {}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    private static final class Segment {
+        final long baseOffset;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        // Published before count, so a reader that saw count sees a large enough array
+        volatile int[] positions = new int[1024];
+        volatile int count;
+        int writePosition;
+
+        private Segment(long baseOffset, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.baseOffset = baseOffset;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path directory, long baseOffset, int segmentBytes) throws IOException {
+            return open(directory.resolve(String.format("%020d%s", baseOffset, SUFFIX)), segmentBytes);
+        }
+
+        static Segment open(Path path, int segmentBytes) throws IOException {
+            String name = path.getFileName().toString();
+            long baseOffset = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+            FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = Math.max(segmentBytes, channel.size());
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return new Segment(baseOffset, path, channel, buffer);
+        }
+
+        /** Rebuilds the position index and drops anything after the last valid record. */
+        void recover() {
+            int position = 0;
+            long expected = baseOffset;
+            int limit = buffer.capacity();
+            while (position + HEADER_BYTES <= limit) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + HEADER_BYTES + length > limit
+                        || buffer.getLong(position + 4) != expected
+                        || buffer.getInt(position + 12) != crc(position + HEADER_BYTES, length)) {
+                    break;
+                }
+                index(position);
+                position += HEADER_BYTES + length;
+                expected++;
+            }
+            writePosition = position;
+            if (position + 4 <= limit && buffer.getInt(position) != 0) {
+                log.warn("Truncating torn or corrupt data in {} at position {}", path, position);
+                for (int i = position; i < limit && i < position + (1 << 20); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+            }
+        }
+
+        void write(long offset, byte[] payload) {
+            int position = writePosition;
+            buffer.put(position + HEADER_BYTES, payload);
+            buffer.putLong(position + 4, offset);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            buffer.putInt(position + 12, (int) crc.getValue());
+            buffer.putInt(position, payload.length);
+            writePosition = position + HEADER_BYTES + payload.length;
+            index(position);
+        }
+
+        long lastModifiedMillis() {
+            try {
+                return Files.getLastModifiedTime(path).toMillis();
+            } catch (IOException e) {
+                return Long.MAX_VALUE;
+            }
+        }
+
+        byte[] payloadAt(int position) {
+            byte[] payload = new byte[buffer.getInt(position)];
+            buffer.get(position + HEADER_BYTES, payload);
+            return payload;
+        }
+
+        private void index(int position) {
+            int[] current = positions;
+            if (count == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[count] = position;
+            positions = current;
+            count = count + 1;
+        }
+
+        private int crc(int position, int length) {
+            byte[] bytes = new byte[length];
+            buffer.get(position, bytes);
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            return (int) crc.getValue();
+        }
+    }
+}
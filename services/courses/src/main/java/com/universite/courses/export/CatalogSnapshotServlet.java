@@ -0,0 +1,92 @@
+package com.universite.courses.export;
+
+import com.universite.courses.catalog.CatalogSnapshot;
+import com.universite.courses.events.CourseChangeFeed;
+import com.universite.courses.repository.CatalogSnapshotRepository;
+import com.universite.courses.util.AppConfig;
+import com.universite.courses.util.DatabaseManager;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Streams the course catalog as a binary snapshot for catalog replicas:
+ * {@code GET /export/catalog[?ids=1,2,3]}, every course or only the listed
+ * ones (at most {@value #MAX_IDS}), which replicas fetch again after a change.
+ *
+ * <p>The snapshot records this node's change feed version as it was before
+ * the courses were read, so a replica that continues the feed from there
+ * replays every change the snapshot may have missed. Courses are read from
+ * the primary database, not the read replica, which may be behind the feed.
+ * Like the roster export, a failure once bytes are flowing cuts the response
+ * short; a replica sees a truncated snapshot and rejects it.
+ */
+@Slf4j
+public class CatalogSnapshotServlet extends HttpServlet {
+
+    private static final int MAX_IDS = 1000;
+
+    private final CourseChangeFeed changeFeed;
+    private final int fetchSize = Math.max(1, AppConfig.getInt("export.fetch-size", 1000));
+
+    public CatalogSnapshotServlet(CourseChangeFeed changeFeed) {
+        this.changeFeed = changeFeed;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Set<Long> ids = null;
+        String listed = request.getParameter("ids");
+        if (listed != null) {
+            ids = parseIds(listed);
+            if (ids == null || ids.isEmpty() || ids.size() > MAX_IDS) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                    "Expected ids as 1 to " + MAX_IDS + " comma-separated course IDs");
+                return;
+            }
+        }
+
+        response.setContentType("application/octet-stream");
+        response.setHeader("Content-Disposition", "attachment; filename=\"catalog.snapshot\"");
+
+        long start = System.nanoTime();
+        long feedVersion = changeFeed.getLatestVersion();
+        try {
+            CatalogSnapshot.Writer writer = new CatalogSnapshot.Writer(response.getOutputStream(), feedVersion);
+            Set<Long> selected = ids;
+            DatabaseManager.withEntityManager(em -> new CatalogSnapshotRepository(em)
+                .streamCourses(selected, fetchSize, course -> {
+                    try {
+                        writer.add(course);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            writer.finish();
+            if (ids == null) {
+                log.info("Exported a catalog snapshot of {} courses at feed version {} in {} ms",
+                    writer.size(), feedVersion, (System.nanoTime() - start) / 1_000_000);
+            }
+        } catch (UncheckedIOException e) {
+            log.warn("Catalog snapshot export aborted, the client went away: {}", e.getMessage());
+        }
+    }
+
+    private static Set<Long> parseIds(String value) {
+        Set<Long> ids = new LinkedHashSet<>();
+        try {
+            for (String id : value.split(",")) {
+                ids.add(Long.valueOf(id.trim()));
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return ids;
+    }
+}
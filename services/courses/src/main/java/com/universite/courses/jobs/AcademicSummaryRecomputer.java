@@ -0,0 +1,186 @@
+package com.universite.courses.jobs;
+
+import com.universite.courses.repository.AcademicSummaryRepository;
+import com.universite.courses.repository.AcademicSummaryRepository.Correction;
+import com.universite.courses.repository.AcademicSummaryRepository.Stored;
+import com.universite.courses.repository.AcademicSummaryRepository.Totals;
+import com.universite.courses.util.AppConfig;
+import com.universite.courses.util.DatabaseManager;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recomputes every student's academic summary from their completed
+ * enrollments once a night, at {@code academic.recompute.at}, and corrects
+ * the summaries that drifted from them. The students are split into ranges
+ * of about {@code academic.recompute.partition-size}, which a fork-join pool
+ * halves down to single ranges and works through in parallel. Each range is
+ * streamed from {@code student_courses} through a cursor and corrected in one
+ * short transaction, so memory stays bounded by the range and completions
+ * are never blocked for long. The first run also creates the summaries of
+ * students who completed courses before summaries were kept.
+ */
+@Slf4j
+public class AcademicSummaryRecomputer implements Closeable {
+
+    private final LocalTime runAt;
+    private final int partitionSize;
+    private final int fetchSize;
+    private final int parallelism;
+    private final ScheduledExecutorService scheduler;
+    private final ForkJoinPool pool;
+
+    public AcademicSummaryRecomputer() {
+        this.runAt = LocalTime.parse(AppConfig.get("academic.recompute.at", "02:30"));
+        this.partitionSize = Math.max(1, AppConfig.getInt("academic.recompute.partition-size", 5_000));
+        this.fetchSize = Math.max(1, AppConfig.getInt("academic.recompute.fetch-size", 1_000));
+        this.parallelism = Math.max(1, AppConfig.getInt("academic.recompute.parallelism", 4));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "academic-recomputer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("academic-recomputer-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    /** Returns null when the nightly recomputation is disabled on this node. */
+    public static AcademicSummaryRecomputer fromConfig() {
+        if (!AppConfig.getBoolean("academic.recompute.enabled", true)) {
+            log.info("Nightly academic summary recomputation disabled");
+            return null;
+        }
+        return new AcademicSummaryRecomputer();
+    }
+
+    public void start() {
+        scheduleNext();
+    }
+
+    private void scheduleNext() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(runAt);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        scheduler.schedule(() -> {
+            runQuietly();
+            scheduleNext();
+        }, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Academic summaries recomputed next at {} ({} ranges at a time)", next, parallelism);
+    }
+
+    /** How many students were recomputed, corrected, and left for the next run. */
+    public record Report(int ranges, int students, int corrected, int skipped, long elapsedMs) {
+    }
+
+    private record Partition(int students, int corrected, int skipped) {
+        Partition plus(Partition other) {
+            return new Partition(students + other.students, corrected + other.corrected, skipped + other.skipped);
+        }
+    }
+
+    /** Recomputes every student once. */
+    public Report run() {
+        long start = System.nanoTime();
+        List<long[]> ranges = DatabaseManager.withEntityManager(em ->
+            new AcademicSummaryRepository(em).findStudentRanges(partitionSize, fetchSize));
+        Partition total = ranges.isEmpty() ? new Partition(0, 0, 0) : pool.invoke(new RangeTask(ranges));
+        Report report = new Report(ranges.size(), total.students(), total.corrected(), total.skipped(),
+            (System.nanoTime() - start) / 1_000_000);
+
+        if (report.corrected() == 0 && report.skipped() == 0) {
+            log.info("Academic summaries: {} students in {} ranges recomputed in {} ms, no drift",
+                report.students(), report.ranges(), report.elapsedMs());
+        } else {
+            log.warn("Academic summaries: {} students in {} ranges recomputed in {} ms, {} corrected or created, " +
+                "{} left for the next run", report.students(), report.ranges(), report.elapsedMs(),
+                report.corrected(), report.skipped());
+        }
+        return report;
+    }
+
+    /** Splits its ranges in half until one is left, which it recomputes. */
+    private class RangeTask extends RecursiveTask<Partition> {
+
+        private final List<long[]> ranges;
+
+        RangeTask(List<long[]> ranges) {
+            this.ranges = ranges;
+        }
+
+        @Override
+        protected Partition compute() {
+            if (ranges.size() == 1) {
+                return recompute(ranges.get(0)[0], ranges.get(0)[1]);
+            }
+            int middle = ranges.size() / 2;
+            RangeTask first = new RangeTask(ranges.subList(0, middle));
+            first.fork();
+            Partition second = new RangeTask(ranges.subList(middle, ranges.size())).compute();
+            return first.join().plus(second);
+        }
+    }
+
+    /**
+     * Reads the stored summaries first, then the enrollments: a completion
+     * committed in between bumps the stored version and the summary is left
+     * alone. A student whose first summary is created meanwhile makes the
+     * range's inserts collide; the range is then read again once.
+     */
+    private Partition recompute(long from, long to) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Map<Long, Stored> stored = DatabaseManager.withEntityManager(em ->
+                    new AcademicSummaryRepository(em).findStored(from, to));
+                Map<Long, Totals> computed = DatabaseManager.withEntityManager(em ->
+                    new AcademicSummaryRepository(em).computeTotals(from, to, fetchSize));
+                LocalDateTime now = LocalDateTime.now();
+                Correction correction = DatabaseManager.inTransaction(em ->
+                    new AcademicSummaryRepository(em).correct(computed, stored, now));
+                return new Partition(computed.size(), correction.corrected(),
+                    correction.drifted() - correction.corrected());
+            } catch (RuntimeException e) {
+                if (attempt == 1 && AcademicSummaryRepository.isUniqueViolation(e)) {
+                    continue;
+                }
+                log.warn("Recomputing academic summaries of students {} to {} failed: {}", from, to, e.getMessage());
+                return new Partition(0, 0, 0);
+            }
+        }
+    }
+
+    private void runQuietly() {
+        try {
+            run();
+        } catch (RuntimeException e) {
+            log.error("Academic summary recomputation failed, will retry tomorrow: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        pool.shutdownNow();
+        try {
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
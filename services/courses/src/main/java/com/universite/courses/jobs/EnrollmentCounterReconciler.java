@@ -0,0 +1,202 @@
+package com.universite.courses.jobs;
+
+import com.universite.courses.dto.CounterReconciliationDTO;
+import com.universite.courses.events.CacheInvalidationChannel;
+import com.universite.courses.events.CourseChangeFeed;
+import com.universite.courses.repository.EnrollmentCounterRepository;
+import com.universite.courses.repository.EnrollmentCounterRepository.CourseCount;
+import com.universite.courses.util.AppConfig;
+import com.universite.courses.util.DatabaseManager;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recomputes every course's enrollment counter from its enrollments and
+ * repairs the ones that drifted. Departments are counted in parallel, each
+ * with one grouped query on the primary (a lagging replica would report
+ * drift that is not there). Repairs go out in short batched transactions that
+ * only touch drifted courses, and only while the course version is still the
+ * counted one, so live enrollments are never blocked for long and never
+ * overwritten. Each repair writes a COUNTER_REPAIRED event to the outbox in
+ * its batch's transaction, which the enrollment statistics apply. Repaired
+ * counters are not listed on the course change feed; its clients are asked
+ * to resync instead, on every node.
+ */
+@Slf4j
+public class EnrollmentCounterReconciler implements Closeable {
+
+    private static final int MAX_REPORTED_DRIFTS = 20;
+
+    private final int parallelism;
+    private final int batchSize;
+    private final boolean repair;
+    private final long initialDelayMillis;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService workers;
+    private final CourseChangeFeed changeFeed;
+    private final CacheInvalidationChannel invalidations;
+
+    private volatile CounterReconciliationDTO lastReport = new CounterReconciliationDTO();
+
+    /**
+     * @param changeFeed    the feed to send back to a resync after repairs, or null
+     * @param invalidations where to tell the other nodes' feeds the same, or null
+     */
+    public EnrollmentCounterReconciler(CourseChangeFeed changeFeed, CacheInvalidationChannel invalidations) {
+        this.changeFeed = changeFeed;
+        this.invalidations = invalidations;
+        this.parallelism = Math.max(1, AppConfig.getInt("reconcile.parallelism", 3));
+        this.batchSize = Math.max(1, AppConfig.getInt("reconcile.batch-size", 500));
+        this.repair = AppConfig.getBoolean("reconcile.repair", true);
+        this.initialDelayMillis = AppConfig.getLong("reconcile.initial-delay-ms", 60_000);
+        this.intervalMillis = AppConfig.getLong("reconcile.interval-ms", 3_600_000);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "counter-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "counter-reconciler-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Returns null when reconciliation is disabled on this node. */
+    public static EnrollmentCounterReconciler fromConfig(CourseChangeFeed changeFeed,
+                                                         CacheInvalidationChannel invalidations) {
+        if (!AppConfig.getBoolean("reconcile.enabled", true)) {
+            log.info("Enrollment counter reconciliation disabled");
+            return null;
+        }
+        return new EnrollmentCounterReconciler(changeFeed, invalidations);
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::runQuietly, initialDelayMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Enrollment counter reconciliation scheduled (every {} ms, {} departments at a time, repair {})",
+            intervalMillis, parallelism, repair ? "on" : "off");
+    }
+
+    /** The report of the last completed run; empty before the first one. */
+    public CounterReconciliationDTO getLastReport() {
+        return lastReport;
+    }
+
+    /** Checks every department once, repairing drift unless {@code reconcile.repair=false}. */
+    public CounterReconciliationDTO run() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+
+        List<String> departments = DatabaseManager.withEntityManager(em ->
+            new EnrollmentCounterRepository(em).findDepartments());
+        List<Future<Partition>> partitions = new ArrayList<>(departments.size());
+        for (String department : departments) {
+            partitions.add(workers.submit(() -> reconcile(department)));
+        }
+
+        CounterReconciliationDTO report = new CounterReconciliationDTO();
+        report.setStartedAt(startedAt);
+        report.setDepartments(departments.size());
+        List<CourseCount> drifted = new ArrayList<>();
+        for (Future<Partition> future : partitions) {
+            Partition partition = join(future);
+            report.setCoursesChecked(report.getCoursesChecked() + partition.checked());
+            report.setCoursesRepaired(report.getCoursesRepaired() + partition.repaired());
+            drifted.addAll(partition.drifted());
+        }
+        report.setCoursesDrifted(drifted.size());
+        report.setCoursesSkipped(repair ? drifted.size() - report.getCoursesRepaired() : 0);
+        report.setTotalDrift(drifted.stream().mapToLong(count -> Math.abs(count.counter() - count.actual())).sum());
+        drifted.stream()
+            .sorted(Comparator.comparingInt((CourseCount count) -> Math.abs(count.counter() - count.actual())).reversed())
+            .limit(MAX_REPORTED_DRIFTS)
+            .forEach(count -> report.getLargestDrifts().add(String.format("%s (%s): counter %d, enrollments %d",
+                count.code(), count.semester(), count.counter(), count.actual())));
+        report.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+        lastReport = report;
+        if (report.getCoursesRepaired() > 0) {
+            String reason = report.getCoursesRepaired() + " enrollment counters repaired";
+            if (changeFeed != null) {
+                changeFeed.requireResync(reason);
+            }
+            if (invalidations != null) {
+                invalidations.publish(CacheInvalidationChannel.Kind.RESYNC, reason);
+            }
+        }
+
+        if (drifted.isEmpty()) {
+            log.info("Enrollment counters: {} courses in {} departments checked in {} ms, no drift",
+                report.getCoursesChecked(), report.getDepartments(), report.getElapsedMs());
+        } else {
+            log.warn("Enrollment counters: {} of {} courses drifted by {} seats in total, {} repaired, {} skipped " +
+                    "({} ms); largest: {}", report.getCoursesDrifted(), report.getCoursesChecked(),
+                report.getTotalDrift(), report.getCoursesRepaired(), report.getCoursesSkipped(),
+                report.getElapsedMs(), report.getLargestDrifts().subList(0, Math.min(5, drifted.size())));
+        }
+        return report;
+    }
+
+    private record Partition(int checked, List<CourseCount> drifted, int repaired) {
+    }
+
+    private Partition reconcile(String department) {
+        List<CourseCount> counts = DatabaseManager.withEntityManager(em ->
+            new EnrollmentCounterRepository(em).countByDepartment(department));
+        List<CourseCount> drifted = counts.stream().filter(CourseCount::drifted).toList();
+
+        int repaired = 0;
+        if (repair) {
+            LocalDateTime now = LocalDateTime.now();
+            for (int from = 0; from < drifted.size(); from += batchSize) {
+                List<CourseCount> batch = drifted.subList(from, Math.min(from + batchSize, drifted.size()));
+                repaired += DatabaseManager.inTransaction(em -> new EnrollmentCounterRepository(em).repair(batch, now));
+            }
+        }
+        return new Partition(counts.size(), drifted, repaired);
+    }
+
+    private static Partition join(Future<Partition> partition) {
+        try {
+            return partition.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reconciling enrollment counters", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Reconciling a department failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void runQuietly() {
+        try {
+            run();
+        } catch (RuntimeException e) {
+            log.error("Enrollment counter reconciliation failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
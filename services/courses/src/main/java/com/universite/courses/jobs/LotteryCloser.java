@@ -0,0 +1,79 @@
+package com.universite.courses.jobs;
+
+import com.universite.courses.repository.LotteryRepository;
+import com.universite.courses.util.AppConfig;
+import com.universite.courses.util.DatabaseManager;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Draws lottery windows once their closing time has passed. Several nodes
+ * may run it: the draw locks the window and refuses one that is no longer
+ * open, so each window is drawn once and the other nodes just log that.
+ */
+@Slf4j
+public class LotteryCloser implements Closeable {
+
+    private final long intervalMillis;
+    private final Consumer<String> draw;
+    private final ScheduledExecutorService scheduler;
+
+    /** @param draw draws the given semester's window, e.g. {@code CourseServiceImpl::closeLottery} */
+    public LotteryCloser(Consumer<String> draw) {
+        this.draw = draw;
+        this.intervalMillis = AppConfig.getLong("lottery.poll-interval-ms", 30_000);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lottery-closer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Returns null when lottery windows are not closed automatically on this node. */
+    public static LotteryCloser fromConfig(Consumer<String> draw) {
+        if (!AppConfig.getBoolean("lottery.auto-close", true)) {
+            log.info("Automatic lottery draws disabled");
+            return null;
+        }
+        return new LotteryCloser(draw);
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::runQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Lottery windows checked for closing every {} ms", intervalMillis);
+    }
+
+    /** Draws every window that is due; returns how many were attempted. */
+    public int run() {
+        List<String> due = DatabaseManager.withEntityManager(em ->
+            new LotteryRepository(em).findDueSemesters(LocalDateTime.now()));
+        for (String semester : due) {
+            try {
+                draw.accept(semester);
+            } catch (RuntimeException e) {
+                log.warn("Could not draw the {} lottery: {}", semester, e.getMessage());
+            }
+        }
+        return due.size();
+    }
+
+    private void runQuietly() {
+        try {
+            run();
+        } catch (RuntimeException e) {
+            log.error("Checking lottery windows failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
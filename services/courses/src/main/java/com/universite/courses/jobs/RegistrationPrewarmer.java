@@ -0,0 +1,69 @@
+package com.universite.courses.jobs;
+
+import com.universite.courses.util.AppConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Warms the service {@code registration.prewarm-lead-ms} before the
+ * registration period opens. The lead must stay below the pool's idle
+ * timeout, or the connections opened for the burst are closed again before
+ * it arrives.
+ */
+@Slf4j
+public class RegistrationPrewarmer implements Closeable {
+
+    private final LocalDateTime opensAt;
+    private final long leadMillis;
+    private final Runnable warmUp;
+    private final ScheduledExecutorService scheduler;
+
+    /** @param warmUp the warm-up, e.g. {@code CourseServiceImpl::prewarmRegistration} */
+    public RegistrationPrewarmer(LocalDateTime opensAt, Runnable warmUp) {
+        this.opensAt = opensAt;
+        this.warmUp = warmUp;
+        this.leadMillis = AppConfig.getLong("registration.prewarm-lead-ms", 20_000);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "registration-prewarmer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Returns null when disabled, or when the period has no start or already started. */
+    public static RegistrationPrewarmer fromConfig(LocalDateTime opensAt, Runnable warmUp) {
+        if (!AppConfig.getBoolean("registration.prewarm.enabled", true)) {
+            log.info("Registration prewarming disabled");
+            return null;
+        }
+        if (opensAt == null || !opensAt.isAfter(LocalDateTime.now())) {
+            return null;
+        }
+        return new RegistrationPrewarmer(opensAt, warmUp);
+    }
+
+    public void start() {
+        long delay = Math.max(0, Duration.between(LocalDateTime.now(), opensAt).toMillis() - leadMillis);
+        scheduler.schedule(this::runQuietly, delay, TimeUnit.MILLISECONDS);
+        log.info("Registration opens at {}, prewarming in {} s", opensAt, delay / 1000);
+    }
+
+    private void runQuietly() {
+        try {
+            warmUp.run();
+        } catch (RuntimeException e) {
+            log.error("Registration prewarming failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
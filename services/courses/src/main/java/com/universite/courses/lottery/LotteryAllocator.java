@@ -0,0 +1,128 @@
+package com.universite.courses.lottery;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Assigns a lottery's seats. Every course is drawn on its own: requests that
+ * ranked it first are served before those that ranked it second, and so on;
+ * requests of the same rank are served in a random order from a generator
+ * seeded with the lottery seed, the course and the rank. Students lacking a
+ * prerequisite are passed over, and once the seats run out the remaining
+ * requests are turned down.
+ *
+ * <p>No course's draw depends on another's, so courses are drawn in parallel
+ * and the result is the same for any number of threads.
+ */
+public final class LotteryAllocator {
+
+    /** A student's request for a seat in a course, at the rank they gave it. */
+    public record Request(long studentId, long courseId, int rank) {
+    }
+
+    /** A course's free seats and the codes of the courses it requires. */
+    public record Seats(long courseId, int free, Set<String> prerequisiteCodes) {
+    }
+
+    /** The granted requests and how many were turned down, and why. */
+    public record Outcome(List<Request> assigned, int rejectedFull, int rejectedPrerequisites) {
+    }
+
+    private static final Comparator<Request> DRAW_ORDER = Comparator
+        .comparingInt(Request::rank)
+        .thenComparingLong(Request::studentId);
+
+    private LotteryAllocator() {
+    }
+
+    /**
+     * @param passedCodes codes of the courses each student passed, for the
+     *                    prerequisite check; students without any are absent
+     */
+    public static Outcome allocate(Map<Long, Seats> courses, List<Request> requests,
+                                   Map<Long, Set<String>> passedCodes, long seed, ExecutorService workers) {
+        Map<Long, List<Request>> byCourse = new HashMap<>();
+        for (Request request : requests) {
+            byCourse.computeIfAbsent(request.courseId(), id -> new ArrayList<>()).add(request);
+        }
+
+        List<Future<Outcome>> draws = new ArrayList<>(byCourse.size());
+        for (Map.Entry<Long, List<Request>> course : byCourse.entrySet()) {
+            Seats seats = courses.get(course.getKey());
+            draws.add(workers.submit(() -> draw(seats, course.getValue(), passedCodes, seed)));
+        }
+
+        List<Request> assigned = new ArrayList<>();
+        int rejectedFull = 0;
+        int rejectedPrerequisites = 0;
+        for (Future<Outcome> draw : draws) {
+            Outcome outcome = join(draw);
+            assigned.addAll(outcome.assigned());
+            rejectedFull += outcome.rejectedFull();
+            rejectedPrerequisites += outcome.rejectedPrerequisites();
+        }
+        assigned.sort(Comparator.comparingLong(Request::courseId).thenComparingLong(Request::studentId));
+        return new Outcome(assigned, rejectedFull, rejectedPrerequisites);
+    }
+
+    private static Outcome draw(Seats seats, List<Request> requests, Map<Long, Set<String>> passedCodes, long seed) {
+        requests.sort(DRAW_ORDER);
+        List<Request> assigned = new ArrayList<>();
+        int free = seats.free();
+        int rejectedFull = 0;
+        int rejectedPrerequisites = 0;
+
+        for (int from = 0; from < requests.size(); ) {
+            int rank = requests.get(from).rank();
+            int to = from;
+            while (to < requests.size() && requests.get(to).rank() == rank) {
+                to++;
+            }
+            List<Request> tier = requests.subList(from, to);
+            shuffle(tier, new SplittableRandom(mix(seed, seats.courseId(), rank)));
+            for (Request request : tier) {
+                if (!seats.prerequisiteCodes().isEmpty() && !passedCodes.getOrDefault(request.studentId(), Set.of())
+                        .containsAll(seats.prerequisiteCodes())) {
+                    rejectedPrerequisites++;
+                } else if (free > 0) {
+                    assigned.add(request);
+                    free--;
+                } else {
+                    rejectedFull++;
+                }
+            }
+            from = to;
+        }
+        return new Outcome(assigned, rejectedFull, rejectedPrerequisites);
+    }
+
+    private static void shuffle(List<Request> requests, SplittableRandom random) {
+        for (int i = requests.size() - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            requests.set(i, requests.set(j, requests.get(i)));
+        }
+    }
+
+    private static long mix(long seed, long courseId, int rank) {
+        return seed ^ (courseId * 0x9E3779B97F4A7C15L) ^ (rank * 0xC2B2AE3D27D4EB4FL);
+    }
+
+    private static Outcome join(Future<Outcome> draw) {
+        try {
+            return draw.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while drawing the lottery", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Drawing a course failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.universite.courses.lottery;
+
+import com.universite.courses.entity.LotteryWindow;
+import com.universite.courses.lottery.LotteryAllocator.Outcome;
+import com.universite.courses.lottery.LotteryAllocator.Request;
+import com.universite.courses.lottery.LotteryAllocator.Seats;
+import com.universite.courses.repository.LotteryRepository;
+import com.universite.courses.repository.LotteryRepository.LockedCourse;
+import com.universite.courses.util.AppConfig;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closes a lottery window and assigns its seats in the caller's transaction:
+ * the window and the semester's courses are locked, every student's latest
+ * preferences are read once, the allocator runs in memory on
+ * {@code lottery.parallelism} threads, and the enrollments go out as JDBC
+ * batches. Nothing is written unless the whole draw commits.
+ */
+@Slf4j
+public class LotteryDraw {
+
+    private final ExecutorService workers;
+
+    public LotteryDraw() {
+        int parallelism = Math.max(1, AppConfig.getInt("lottery.parallelism", 4));
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "lottery-draw-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Draws the semester's open window and returns it with the results. */
+    public LotteryWindow draw(EntityManager em, String semester) {
+        long start = System.nanoTime();
+        LotteryRepository repository = new LotteryRepository(em);
+        LotteryWindow window = repository.lockWindow(semester)
+            .orElseThrow(() -> new IllegalArgumentException("No lottery for semester: " + semester));
+        if (!window.isOpen()) {
+            throw new IllegalArgumentException("The " + semester + " lottery was already drawn");
+        }
+
+        Map<Long, LockedCourse> courses = repository.lockCoursesInSemester(semester);
+        List<Request> requests = repository.findLatestRequests(semester);
+        Map<String, String> statuses = repository.findEnrollmentStatuses(semester);
+
+        // Requests for a course the student already holds or completed are
+        // settled; one with a dropped row takes that row back
+        List<Request> open = new ArrayList<>(requests.size());
+        Set<String> reenrolled = new HashSet<>();
+        Set<Long> students = new HashSet<>();
+        int alreadyEnrolled = 0;
+        for (Request request : requests) {
+            students.add(request.studentId());
+            String key = request.studentId() + ":" + request.courseId();
+            String status = statuses.get(key);
+            if ("ENROLLED".equals(status) || "COMPLETED".equals(status)) {
+                alreadyEnrolled++;
+                continue;
+            }
+            if (status != null) {
+                reenrolled.add(key);
+            }
+            open.add(request);
+        }
+
+        Map<Long, Seats> seats = seats(repository, courses, open);
+        Set<String> prerequisiteCodes = new HashSet<>();
+        seats.values().forEach(course -> prerequisiteCodes.addAll(course.prerequisiteCodes()));
+        Map<Long, Set<String>> passed = repository.findPassedCodes(semester, prerequisiteCodes);
+
+        Outcome outcome = LotteryAllocator.allocate(seats, open, passed, window.getSeed(), workers);
+        LocalDateTime now = LocalDateTime.now();
+        repository.enroll(outcome.assigned(), reenrolled, courses, now);
+
+        window.setStatus(LotteryWindow.ALLOCATED);
+        window.setClosedAt(now);
+        window.setStudents(students.size());
+        window.setRequests(requests.size());
+        window.setSeatsAssigned(outcome.assigned().size());
+        window.setRejectedFull(outcome.rejectedFull());
+        window.setRejectedPrerequisites(outcome.rejectedPrerequisites());
+        window.setAlreadyEnrolled(alreadyEnrolled);
+        window.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+
+        log.info("Drew the {} lottery: {} students, {} requests, {} seats assigned, {} full, {} missing " +
+                "prerequisites, {} already enrolled in {} ms", semester, window.getStudents(), window.getRequests(),
+            window.getSeatsAssigned(), window.getRejectedFull(), window.getRejectedPrerequisites(),
+            window.getAlreadyEnrolled(), window.getElapsedMs());
+        return window;
+    }
+
+    /**
+     * Free seats and prerequisite codes of the requested courses. Requests
+     * for a course that left the semester since they were submitted get no
+     * seats and count as turned down for lack of room.
+     */
+    private static Map<Long, Seats> seats(LotteryRepository repository, Map<Long, LockedCourse> courses,
+                                          List<Request> requests) {
+        Map<Long, List<Long>> prerequisites = new HashMap<>();
+        Set<Long> prerequisiteIds = new HashSet<>();
+        for (Request request : requests) {
+            LockedCourse course = courses.get(request.courseId());
+            if (course != null && !prerequisites.containsKey(course.id())) {
+                List<Long> ids = parseIds(course.prerequisiteCourseIds());
+                prerequisites.put(course.id(), ids);
+                prerequisiteIds.addAll(ids);
+            }
+        }
+        Map<Long, String> codes = repository.findCodes(prerequisiteIds);
+
+        Map<Long, Seats> seats = new HashMap<>(prerequisites.size() * 2);
+        for (Request request : requests) {
+            seats.computeIfAbsent(request.courseId(), id -> {
+                LockedCourse course = courses.get(id);
+                if (course == null) {
+                    return new Seats(id, 0, Set.of());
+                }
+                Set<String> required = new HashSet<>();
+                for (Long prerequisite : prerequisites.get(id)) {
+                    // A deleted course never had enrollments, so nobody could pass it
+                    if (codes.containsKey(prerequisite)) {
+                        required.add(codes.get(prerequisite));
+                    }
+                }
+                return new Seats(id, Math.max(0, course.capacity() - course.enrolled()), required);
+            });
+        }
+        return seats;
+    }
+
+    private static List<Long> parseIds(String ids) {
+        if (ids == null || ids.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(ids.split(","))
+            .map(String::trim)
+            .filter(id -> !id.isEmpty())
+            .map(Long::valueOf)
+            .toList();
+    }
+}
@@ -0,0 +1,144 @@
+package com.universite.courses.registration;
+
+import com.universite.courses.repository.StudentCourseRepository;
+import com.universite.courses.util.AppConfig;
+import com.universite.courses.util.DatabaseManager;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Which students may have an enrollment row in each course, as one Bloom
+ * filter per course: 2048 bits and five probes, 256 bytes a course. At the
+ * 100-student capacity limit fewer than one in a thousand absent students
+ * look present; dropped and completed rows count too, so a course with a
+ * long history stays under 1% at 200 rows.
+ *
+ * <p>A student the filter does not know in the course has no row for it, so
+ * {@code enrollStudent} skips the duplicate probe; a possible member is
+ * confirmed against the database. Rows are only ever added (a drop keeps its
+ * row, and the unique constraint on student and course counts it), so the
+ * filters never need to forget. They are loaded in the background at startup
+ * and after bulk enrollments; until a load finishes, every student is a
+ * possible member. A load installs empty filters before it reads, so an
+ * enrollment that commits while it runs is either read or added, never lost.
+ */
+@Slf4j
+public class EnrollmentMembershipFilter implements Closeable {
+
+    private static final int WORDS = 32;
+    private static final int BITS = WORDS * 64;
+    private static final int PROBES = 5;
+
+    private final boolean enabled;
+    private final int fetchSize;
+    private final ExecutorService loader;
+
+    /** The filters by course, and whether they were loaded; replaced as a whole, so both are read together. */
+    private record Filters(Map<Long, AtomicLongArray> courses, boolean ready) {
+    }
+
+    private final AtomicReference<Filters> filters = new AtomicReference<>(new Filters(new ConcurrentHashMap<>(), false));
+
+    public EnrollmentMembershipFilter() {
+        this.enabled = AppConfig.getBoolean("enrollment.membership-filter.enabled", true);
+        this.fetchSize = Math.max(1, AppConfig.getInt("enrollment.membership-filter.fetch-size", 10_000));
+        this.loader = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "membership-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Whether the student may have a row for the course; false is certain. */
+    public boolean mightContain(long courseId, long studentId) {
+        Filters current = filters.get();
+        if (!current.ready()) {
+            return true;
+        }
+        AtomicLongArray bits = current.courses().get(courseId);
+        if (bits == null) {
+            return false;
+        }
+        long hash = mix(studentId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < PROBES; i++) {
+            int bit = (h1 + i * h2) & (BITS - 1);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records a row for the student. Call it once the row has committed: a
+     * row that may still roll back must not be added, and a concurrent
+     * duplicate that has not committed yet is caught by the unique constraint.
+     */
+    public void add(long courseId, long studentId) {
+        add(filters.get().courses(), courseId, studentId);
+    }
+
+    /** Reloads every filter in the background, after enrollments were written in bulk or may have been missed. */
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        Filters loading = new Filters(new ConcurrentHashMap<>(), false);
+        filters.set(loading);
+        loader.execute(() -> load(loading));
+    }
+
+    private void load(Filters loading) {
+        try {
+            long start = System.nanoTime();
+            Map<Long, AtomicLongArray> courses = loading.courses();
+            long rows = DatabaseManager.withEntityManager(em -> new StudentCourseRepository(em)
+                .streamMemberships(fetchSize, (courseId, studentId) -> add(courses, courseId, studentId)));
+            // Fails when a newer load replaced these filters while this one ran
+            if (filters.compareAndSet(loading, new Filters(courses, true))) {
+                log.info("Enrollment membership filters loaded: {} rows over {} courses in {} ms",
+                    rows, courses.size(), (System.nanoTime() - start) / 1_000_000);
+            }
+        } catch (RuntimeException e) {
+            log.error("Loading enrollment membership filters failed, duplicate checks use the database: {}",
+                e.getMessage());
+        }
+    }
+
+    private static void add(Map<Long, AtomicLongArray> courses, long courseId, long studentId) {
+        AtomicLongArray bits = courses.computeIfAbsent(courseId, id -> new AtomicLongArray(WORDS));
+        long hash = mix(studentId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < PROBES; i++) {
+            int bit = (h1 + i * h2) & (BITS - 1);
+            long mask = 1L << bit;
+            long word = bits.get(bit >>> 6);
+            while ((word & mask) == 0 && !bits.compareAndSet(bit >>> 6, word, word | mask)) {
+                word = bits.get(bit >>> 6);
+            }
+        }
+    }
+
+    /** SplitMix64 finalizer: student IDs are sequential, their bits must not be. */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public void close() {
+        loader.shutdownNow();
+    }
+}
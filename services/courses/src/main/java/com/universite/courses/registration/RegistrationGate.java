@@ -0,0 +1,162 @@
+package com.universite.courses.registration;
+
+import com.universite.courses.dto.RegistrationStatusDTO;
+import com.universite.courses.util.AppConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for enrollment writes. Enrollment is only accepted
+ * between {@code enrollment.period.start} and {@code enrollment.period.end},
+ * and at most {@code registration.max-concurrent} enrollments and drops run
+ * at once, which keeps the rest of the connection pool free for catalog reads.
+ *
+ * <p>Requests over the limit wait in first-come, first-served order. A
+ * request that would find {@code registration.max-queue} others waiting, or
+ * that waited {@code registration.max-wait-ms} without being admitted, is
+ * turned away at once with its queue position and a retry-after estimated
+ * from recent service times, instead of holding a server thread until the
+ * client times out. A student has one request in the gate at a time, so
+ * retrying clients cannot take more than their share of the queue.
+ */
+@Slf4j
+public class RegistrationGate {
+
+    private final LocalDateTime opensAt;
+    private final LocalDateTime closesAt;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long maxWaitMillis;
+    private final Clock clock;
+
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Set<Long> studentsInGate = ConcurrentHashMap.newKeySet();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong turnedAway = new AtomicLong();
+    private volatile double averageServiceMillis = 50;
+
+    public RegistrationGate() {
+        this(parse("enrollment.period.start", false), parse("enrollment.period.end", true),
+            AppConfig.getInt("registration.max-concurrent", 8), AppConfig.getInt("registration.max-queue", 1000),
+            AppConfig.getLong("registration.max-wait-ms", 5000), Clock.systemDefaultZone());
+    }
+
+    RegistrationGate(LocalDateTime opensAt, LocalDateTime closesAt, int maxConcurrent, int maxQueue,
+                     long maxWaitMillis, Clock clock) {
+        this.opensAt = opensAt;
+        this.closesAt = closesAt;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWaitMillis = maxWaitMillis;
+        this.clock = clock;
+        this.permits = new Semaphore(this.maxConcurrent, true);
+    }
+
+    public LocalDateTime getOpensAt() {
+        return opensAt;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /** Rejects enrollment outside the registration period. */
+    public void checkOpen() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (opensAt != null && now.isBefore(opensAt)) {
+            throw new IllegalArgumentException("Registration opens at " + opensAt);
+        }
+        if (closesAt != null && !now.isBefore(closesAt)) {
+            throw new IllegalArgumentException("Registration closed at " + closesAt);
+        }
+    }
+
+    /** Runs the student's enrollment write once admitted, or turns it away. */
+    public <T> T admit(Long studentId, Supplier<T> work) {
+        if (!studentsInGate.add(studentId)) {
+            turnedAway.incrementAndGet();
+            throw new IllegalStateException("Student " + studentId + " already has a registration request in progress");
+        }
+        try {
+            int position = queued.incrementAndGet();
+            boolean acquired = false;
+            try {
+                if (position > maxQueue && permits.availablePermits() == 0) {
+                    throw busy(position);
+                }
+                acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for registration", e);
+            } finally {
+                queued.decrementAndGet();
+            }
+            if (!acquired) {
+                throw busy(queued.get());
+            }
+
+            admitted.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                return work.get();
+            } finally {
+                permits.release();
+                // Moving average over roughly the last hundred requests; a racing update only loses a sample
+                double millis = (System.nanoTime() - start) / 1e6;
+                averageServiceMillis += (millis - averageServiceMillis) / 100;
+            }
+        } finally {
+            studentsInGate.remove(studentId);
+        }
+    }
+
+    public RegistrationStatusDTO getStatus() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        boolean open = (opensAt == null || !now.isBefore(opensAt)) && (closesAt == null || now.isBefore(closesAt));
+        int waiting = queued.get();
+        return new RegistrationStatusDTO(open, opensAt, closesAt, maxConcurrent,
+            maxConcurrent - permits.availablePermits(), waiting, maxQueue, retryAfterSeconds(waiting),
+            admitted.get(), turnedAway.get());
+    }
+
+    private IllegalStateException busy(int position) {
+        turnedAway.incrementAndGet();
+        return new IllegalStateException("Registration is busy, queue position " + position +
+            ", retry after " + retryAfterSeconds(position) + " s");
+    }
+
+    /** Time for the requests ahead to be served at the current pace, at least a second. */
+    private long retryAfterSeconds(int ahead) {
+        return Math.max(1, (long) Math.ceil(ahead * averageServiceMillis / maxConcurrent / 1000));
+    }
+
+    /** An ISO date or date and time; a date ends the period at the end of that day. */
+    private static LocalDateTime parse(String key, boolean end) {
+        String value = AppConfig.get(key, null);
+        if (value == null) {
+            return null;
+        }
+        try {
+            if (value.contains("T")) {
+                return LocalDateTime.parse(value);
+            }
+            LocalDate date = LocalDate.parse(value);
+            return end ? date.plusDays(1).atStartOfDay() : date.atStartOfDay();
+        } catch (DateTimeParseException e) {
+            log.warn("Invalid date for {}: {}, leaving it unbounded", key, value);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.universite.courses.repository;
+
+import com.universite.courses.repository.CompletionRepository.Completion;
+import com.universite.courses.util.GradeScale;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.Session;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-student credits and grade points in {@code student_academic_summaries}.
+ * Completions add to a student's row in the transaction that completes the
+ * enrollments; the nightly recomputation rebuilds the rows of a range of
+ * students from {@code student_courses} and corrects the ones that differ.
+ * Rows are written as JDBC batches in student order, so two transactions
+ * touching the same students lock them in the same order.
+ */
+public class AcademicSummaryRepository {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    /** What completed enrollments add up to for one student. */
+    public static final class Totals {
+        private int completed;
+        private int incomplete;
+        private int attempted;
+        private int earned;
+        private double points;
+
+        /** Counts one completed enrollment; a null letter or credits count as none. */
+        public void add(Integer credits, String gradeLetter) {
+            completed++;
+            Double gradePoints = GradeScale.pointsFor(gradeLetter);
+            if (gradePoints == null) {
+                incomplete++;
+                return;
+            }
+            int courseCredits = credits == null ? 0 : credits;
+            attempted += courseCredits;
+            points += courseCredits * gradePoints;
+            if (gradePoints > 0) {
+                earned += courseCredits;
+            }
+        }
+
+        boolean matches(Totals other) {
+            return completed == other.completed && incomplete == other.incomplete &&
+                attempted == other.attempted && earned == other.earned && Math.abs(points - other.points) < 1e-6;
+        }
+    }
+
+    /** A stored summary as read before a recomputation, with the version that guards its correction. */
+    public record Stored(long version, Totals totals) {
+    }
+
+    /** Summaries that were missing or differed from the enrollments, and how many of them were written. */
+    public record Correction(int drifted, int corrected) {
+    }
+
+    private final EntityManager entityManager;
+
+    public AcademicSummaryRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Adds the completions to their students' summaries, creating the ones
+     * that do not exist yet. Two transactions creating the same student's
+     * summary at once collide on its key; the loser fails with an
+     * {@link OptimisticLockException} so its write is retried and adds to the
+     * row the winner created.
+     */
+    public void addCompletions(List<Completion> completions, LocalDateTime now) {
+        Map<Long, Totals> deltas = new TreeMap<>();
+        for (Completion completion : completions) {
+            deltas.computeIfAbsent(completion.studentId(), id -> new Totals())
+                .add(completion.course().getCredits(), completion.gradeLetter());
+        }
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            List<Long> students = new ArrayList<>(deltas.keySet());
+            List<Long> missing = new ArrayList<>();
+            Timestamp updatedAt = Timestamp.valueOf(now);
+            try (PreparedStatement update = connection.prepareStatement(
+                    "UPDATE student_academic_summaries SET courses_completed = courses_completed + ?, " +
+                    "courses_incomplete = courses_incomplete + ?, credits_attempted = credits_attempted + ?, " +
+                    "credits_earned = credits_earned + ?, grade_points = grade_points + ?, updated_at = ?, " +
+                    "version = version + 1 WHERE student_id = ?")) {
+                for (int start = 0; start < students.size(); start += BATCH_SIZE) {
+                    List<Long> batch = students.subList(start, Math.min(start + BATCH_SIZE, students.size()));
+                    for (Long studentId : batch) {
+                        Totals delta = deltas.get(studentId);
+                        update.setInt(1, delta.completed);
+                        update.setInt(2, delta.incomplete);
+                        update.setInt(3, delta.attempted);
+                        update.setInt(4, delta.earned);
+                        update.setDouble(5, delta.points);
+                        update.setTimestamp(6, updatedAt);
+                        update.setLong(7, studentId);
+                        update.addBatch();
+                    }
+                    int[] updated = update.executeBatch();
+                    for (int i = 0; i < updated.length; i++) {
+                        if (updated[i] == 0) {
+                            missing.add(batch.get(i));
+                        }
+                    }
+                }
+            }
+            Map<Long, Totals> created = new TreeMap<>();
+            for (Long studentId : missing) {
+                created.put(studentId, deltas.get(studentId));
+            }
+            try {
+                insert(connection, created, updatedAt);
+            } catch (SQLException e) {
+                if (isUniqueViolation(e)) {
+                    throw new OptimisticLockException("Academic summary created concurrently for one of " +
+                        missing.size() + " students");
+                }
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Splits the students with completed enrollments into ranges of about
+     * {@code studentsPerRange} students each, reading their IDs in order
+     * through a cursor. The first range starts at 0 and the last one is
+     * open-ended, so students completing a course meanwhile fall in one.
+     *
+     * @return inclusive ranges of student IDs, as {from, to}
+     */
+    public List<long[]> findStudentRanges(int studentsPerRange, int fetchSize) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            List<Long> starts = new ArrayList<>();
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT DISTINCT student_id FROM student_courses WHERE enrollment_status = 'COMPLETED' " +
+                    "ORDER BY student_id", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                select.setFetchSize(fetchSize);
+                long students = 0;
+                try (ResultSet row = select.executeQuery()) {
+                    while (row.next()) {
+                        if (students++ % studentsPerRange == 0) {
+                            starts.add(row.getLong(1));
+                        }
+                    }
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+            List<long[]> ranges = new ArrayList<>(starts.size());
+            for (int i = 0; i < starts.size(); i++) {
+                long from = i == 0 ? 0 : starts.get(i);
+                long to = i + 1 < starts.size() ? starts.get(i + 1) - 1 : Long.MAX_VALUE;
+                ranges.add(new long[] {from, to});
+            }
+            return ranges;
+        });
+    }
+
+    /** The stored summaries of the students in the range, by student ID. */
+    @SuppressWarnings("unchecked")
+    public Map<Long, Stored> findStored(long from, long to) {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT student_id, version, courses_completed, courses_incomplete, credits_attempted, " +
+                "credits_earned, grade_points FROM student_academic_summaries WHERE student_id BETWEEN :from AND :to")
+            .setParameter("from", from)
+            .setParameter("to", to)
+            .getResultList();
+        Map<Long, Stored> stored = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            Totals totals = new Totals();
+            totals.completed = ((Number) row[2]).intValue();
+            totals.incomplete = ((Number) row[3]).intValue();
+            totals.attempted = ((Number) row[4]).intValue();
+            totals.earned = ((Number) row[5]).intValue();
+            totals.points = ((Number) row[6]).doubleValue();
+            stored.put(((Number) row[0]).longValue(), new Stored(((Number) row[1]).longValue(), totals));
+        }
+        return stored;
+    }
+
+    /**
+     * Adds up the completed enrollments of the students in the range,
+     * streamed in student order through a cursor, {@code fetchSize} rows per
+     * round trip, with autocommit off like the roster export.
+     */
+    public Map<Long, Totals> computeTotals(long from, long to, int fetchSize) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            Map<Long, Totals> totals = new TreeMap<>();
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT sc.student_id, c.credits, sc.grade_letter FROM student_courses sc " +
+                    "JOIN courses c ON c.id = sc.course_id " +
+                    "WHERE sc.student_id BETWEEN ? AND ? AND sc.enrollment_status = 'COMPLETED' " +
+                    "ORDER BY sc.student_id", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                select.setFetchSize(fetchSize);
+                select.setLong(1, from);
+                select.setLong(2, to);
+                try (ResultSet row = select.executeQuery()) {
+                    Totals current = null;
+                    long currentStudent = 0;
+                    while (row.next()) {
+                        long studentId = row.getLong(1);
+                        if (current == null || studentId != currentStudent) {
+                            current = new Totals();
+                            currentStudent = studentId;
+                            totals.put(studentId, current);
+                        }
+                        int credits = row.getInt(2);
+                        current.add(row.wasNull() ? null : credits, row.getString(3));
+                    }
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+            return totals;
+        });
+    }
+
+    /**
+     * Replaces the stored summaries that do not match the computed totals and
+     * creates the missing ones. A stored summary is only replaced while its
+     * version is still the one read before the totals were computed: a
+     * completion since then already added to it.
+     *
+     * @return how many summaries were missing or differed, and how many were written
+     */
+    public Correction correct(Map<Long, Totals> computed, Map<Long, Stored> stored, LocalDateTime now) {
+        Map<Long, Totals> missing = new TreeMap<>();
+        List<Long> drifted = new ArrayList<>();
+        for (Map.Entry<Long, Totals> entry : computed.entrySet()) {
+            Stored summary = stored.get(entry.getKey());
+            if (summary == null) {
+                missing.put(entry.getKey(), entry.getValue());
+            } else if (!summary.totals().matches(entry.getValue())) {
+                drifted.add(entry.getKey());
+            }
+        }
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            Timestamp updatedAt = Timestamp.valueOf(now);
+            int corrected = 0;
+            try (PreparedStatement update = connection.prepareStatement(
+                    "UPDATE student_academic_summaries SET courses_completed = ?, courses_incomplete = ?, " +
+                    "credits_attempted = ?, credits_earned = ?, grade_points = ?, updated_at = ?, " +
+                    "version = version + 1 WHERE student_id = ? AND version = ?")) {
+                for (int start = 0; start < drifted.size(); start += BATCH_SIZE) {
+                    for (Long studentId : drifted.subList(start, Math.min(start + BATCH_SIZE, drifted.size()))) {
+                        Totals totals = computed.get(studentId);
+                        update.setInt(1, totals.completed);
+                        update.setInt(2, totals.incomplete);
+                        update.setInt(3, totals.attempted);
+                        update.setInt(4, totals.earned);
+                        update.setDouble(5, totals.points);
+                        update.setTimestamp(6, updatedAt);
+                        update.setLong(7, studentId);
+                        update.setLong(8, stored.get(studentId).version());
+                        update.addBatch();
+                    }
+                    for (int updated : update.executeBatch()) {
+                        // SUCCESS_NO_INFO means the driver did not count, not that nothing matched
+                        if (updated != 0) {
+                            corrected++;
+                        }
+                    }
+                }
+            }
+            insert(connection, missing, updatedAt);
+            return new Correction(drifted.size() + missing.size(), corrected + missing.size());
+        });
+    }
+
+    private static void insert(Connection connection, Map<Long, Totals> summaries, Timestamp updatedAt)
+            throws SQLException {
+        if (summaries.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO student_academic_summaries (student_id, courses_completed, courses_incomplete, " +
+                "credits_attempted, credits_earned, grade_points, updated_at, version) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, 0)")) {
+            int pending = 0;
+            for (Map.Entry<Long, Totals> entry : summaries.entrySet()) {
+                Totals totals = entry.getValue();
+                insert.setLong(1, entry.getKey());
+                insert.setInt(2, totals.completed);
+                insert.setInt(3, totals.incomplete);
+                insert.setInt(4, totals.attempted);
+                insert.setInt(5, totals.earned);
+                insert.setDouble(6, totals.points);
+                insert.setTimestamp(7, updatedAt);
+                insert.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    insert.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                insert.executeBatch();
+            }
+        }
+    }
+
+    /** PostgreSQL and H2 both report a duplicate key as SQLSTATE 23505, on the batch or its next exception. */
+    public static boolean isUniqueViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql) {
+                for (SQLException next = sql; next != null; next = next.getNextException()) {
+                    if (UNIQUE_VIOLATION.equals(next.getSQLState())) {
+                        return true;
+                    }
+                }
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+}
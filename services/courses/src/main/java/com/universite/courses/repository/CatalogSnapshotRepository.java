@@ -0,0 +1,121 @@
+package com.universite.courses.repository;
+
+import com.universite.courses.entity.Course;
+import com.universite.courses.entity.Schedule;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+/**
+ * Courses with their schedules read through a server-side cursor for the
+ * catalog snapshot, in ID order and one course at a time, so the whole
+ * catalog is exported in constant memory. Courses and schedules come from one
+ * joined statement, so they are read as of the same moment. The courses
+ * handed out are detached copies, not managed entities.
+ */
+public class CatalogSnapshotRepository {
+
+    private final EntityManager entityManager;
+
+    public CatalogSnapshotRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Hands every course, or those among {@code ids} when not null, to the
+     * consumer in ascending ID order, {@code fetchSize} rows per round trip.
+     *
+     * @return how many courses were read
+     */
+    public long streamCourses(Collection<Long> ids, int fetchSize, Consumer<Course> consumer) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT c.id, c.code, c.name, c.description, c.credits, c.semester, c.capacity, c.enrolled, " +
+                    "c.department, c.level, c.prerequisite_course_ids, c.active, c.version, c.created_at, " +
+                    "c.updated_at, s.id, s.day_of_week, s.start_time, s.end_time, s.room, s.building, " +
+                    "s.schedule_type " +
+                    "FROM courses c LEFT JOIN schedules s ON s.course_id = c.id" +
+                    (ids == null ? ""
+                        : " WHERE c.id IN (" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")") +
+                    " ORDER BY c.id, s.id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                select.setFetchSize(fetchSize);
+                if (ids != null) {
+                    int parameter = 1;
+                    for (Long id : ids) {
+                        select.setLong(parameter++, id);
+                    }
+                }
+                long courses = 0;
+                try (ResultSet row = select.executeQuery()) {
+                    Course course = null;
+                    while (row.next()) {
+                        if (course == null || course.getId() != row.getLong(1)) {
+                            if (course != null) {
+                                consumer.accept(course);
+                                courses++;
+                            }
+                            course = toCourse(row);
+                        }
+                        row.getLong(16);
+                        if (!row.wasNull()) {
+                            course.getSchedules().add(toSchedule(row, course));
+                        }
+                    }
+                    if (course != null) {
+                        consumer.accept(course);
+                        courses++;
+                    }
+                }
+                return courses;
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    private static Course toCourse(ResultSet row) throws SQLException {
+        Course course = new Course();
+        course.setId(row.getLong(1));
+        course.setCode(row.getString(2));
+        course.setName(row.getString(3));
+        course.setDescription(row.getString(4));
+        course.setCredits(row.getInt(5));
+        course.setSemester(row.getString(6));
+        course.setCapacity(row.getInt(7));
+        course.setEnrolled(row.getInt(8));
+        course.setDepartment(row.getString(9));
+        course.setLevel(row.getString(10));
+        course.setPrerequisiteCourseIds(row.getString(11));
+        course.setActive(row.getBoolean(12));
+        course.setVersion(row.getLong(13));
+        course.setCreatedAt(row.getObject(14, LocalDateTime.class));
+        course.setUpdatedAt(row.getObject(15, LocalDateTime.class));
+        return course;
+    }
+
+    private static Schedule toSchedule(ResultSet row, Course course) throws SQLException {
+        Schedule schedule = new Schedule();
+        schedule.setId(row.getLong(16));
+        schedule.setCourse(course);
+        schedule.setDayOfWeek(DayOfWeek.valueOf(row.getString(17)));
+        schedule.setStartTime(row.getObject(18, LocalTime.class));
+        schedule.setEndTime(row.getObject(19, LocalTime.class));
+        schedule.setRoom(row.getString(20));
+        schedule.setBuilding(row.getString(21));
+        schedule.setScheduleType(row.getString(22));
+        return schedule;
+    }
+}
@@ -0,0 +1,96 @@
+package com.universite.courses.repository;
+
+import com.universite.courses.repository.StudentCourseRepository.MembershipConsumer;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * The inputs of the related-courses table and of exam timetables: the
+ * courses, and the seat-holding enrollments in student order, so the
+ * students' course lists come out one after the other and never have to be
+ * grouped in memory.
+ */
+public class CoEnrollmentRepository {
+
+    private final EntityManager entityManager;
+
+    public CoEnrollmentRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /** Rows of ID, code and name of every course, by ID. */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findCourseCodes() {
+        return entityManager.createNativeQuery("SELECT id, code, name FROM courses ORDER BY id").getResultList();
+    }
+
+    /** Rows of ID and code of the semester's courses, by ID. */
+    @SuppressWarnings("unchecked")
+    public List<Object[]> findSemesterCourses(String semester) {
+        return entityManager.createNativeQuery("SELECT id, code FROM courses WHERE semester = ?1 ORDER BY id")
+            .setParameter(1, semester)
+            .getResultList();
+    }
+
+    /**
+     * Hands the course and student of every enrolled or completed enrollment
+     * to the consumer by student ID, through a server-side cursor,
+     * {@code fetchSize} rows per round trip.
+     *
+     * @return how many rows were read
+     */
+    public long streamSeatHoldersByStudent(int fetchSize, MembershipConsumer consumer) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT course_id, student_id FROM student_courses WHERE enrollment_status IN (" +
+                    EnrollmentCounterRepository.SEAT_HOLDING_STATUSES + ") ORDER BY student_id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                select.setFetchSize(fetchSize);
+                long rows = 0;
+                try (ResultSet row = select.executeQuery()) {
+                    while (row.next()) {
+                        consumer.accept(row.getLong(1), row.getLong(2));
+                        rows++;
+                    }
+                }
+                return rows;
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    /** The same as {@link #streamSeatHoldersByStudent}, for the semester's courses only. */
+    public long streamSeatHoldersBySemester(String semester, int fetchSize, MembershipConsumer consumer) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT sc.course_id, sc.student_id FROM student_courses sc JOIN courses c ON c.id = sc.course_id " +
+                    "WHERE c.semester = ? AND sc.enrollment_status IN (" +
+                    EnrollmentCounterRepository.SEAT_HOLDING_STATUSES + ") ORDER BY sc.student_id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                select.setString(1, semester);
+                select.setFetchSize(fetchSize);
+                long rows = 0;
+                try (ResultSet row = select.executeQuery()) {
+                    while (row.next()) {
+                        consumer.accept(row.getLong(1), row.getLong(2));
+                        rows++;
+                    }
+                }
+                return rows;
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+}
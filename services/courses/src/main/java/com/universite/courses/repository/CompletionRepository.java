@@ -0,0 +1,157 @@
+package com.universite.courses.repository;
+
+import com.universite.courses.entity.Course;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Grade posting and completion for a whole course or semester. Enrollments
+ * are never loaded as entities: grades and statuses go out as JDBC batches of
+ * a thousand rows, each row with its outbox event. Every update bumps the row
+ * version, so an optimistic-locked drop racing with it retries and sees the
+ * completion. The students' academic summaries are updated in the same
+ * transaction.
+ */
+public class CompletionRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    /** One enrollment to complete; grade and letter are null for none. */
+    public record Completion(long studentId, Course course, Double grade, String gradeLetter) {
+    }
+
+    private final EntityManager entityManager;
+
+    public CompletionRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /** Enrollment status by student, for every enrollment of the course. */
+    @SuppressWarnings("unchecked")
+    public Map<Long, String> findStatusesByCourse(Long courseId) {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT student_id, enrollment_status FROM student_courses WHERE course_id = :course")
+            .setParameter("course", courseId)
+            .getResultList();
+        Map<Long, String> statuses = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            statuses.put(((Number) row[0]).longValue(), (String) row[1]);
+        }
+        return statuses;
+    }
+
+    /**
+     * Enrollments of the semester that are still ENROLLED, locked so they can
+     * neither be dropped nor completed by someone else until the close-out
+     * commits. Enrollments made after this point are not part of it.
+     *
+     * @return rows of student ID and course ID, by enrollment ID
+     */
+    @SuppressWarnings("unchecked")
+    public List<long[]> lockEnrolledInSemester(String semester) {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT sc.id, sc.student_id, sc.course_id FROM student_courses sc " +
+                "WHERE sc.enrollment_status = 'ENROLLED' " +
+                "AND sc.course_id IN (SELECT id FROM courses WHERE semester = :semester) " +
+                "ORDER BY sc.id FOR UPDATE")
+            .setParameter("semester", semester)
+            .getResultList();
+        List<long[]> enrollments = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            enrollments.add(new long[] {((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
+        }
+        return enrollments;
+    }
+
+    /**
+     * Completes the enrollments with their grade and letter and appends a
+     * COMPLETED outbox event for each, snapshotting the course like
+     * {@code OutboxEvent.of} does. The completed ones are added to their
+     * students' academic summaries.
+     *
+     * @return the completions whose enrollment was no longer ENROLLED
+     */
+    public List<Completion> complete(List<Completion> completions, LocalDateTime now) {
+        List<Completion> missed = updateEnrollments(completions, now);
+        Set<Completion> skipped = Collections.newSetFromMap(new IdentityHashMap<>());
+        skipped.addAll(missed);
+        new AcademicSummaryRepository(entityManager).addCompletions(
+            completions.stream().filter(completion -> !skipped.contains(completion)).toList(), now);
+        return missed;
+    }
+
+    private List<Completion> updateEnrollments(List<Completion> completions, LocalDateTime now) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            List<Completion> missed = new ArrayList<>();
+            try (PreparedStatement update = connection.prepareStatement(
+                    "UPDATE student_courses SET enrollment_status = 'COMPLETED', grade = ?, grade_letter = ?, " +
+                    "version = version + 1 WHERE student_id = ? AND course_id = ? AND enrollment_status = 'ENROLLED'");
+                 PreparedStatement event = connection.prepareStatement(
+                    "INSERT INTO outbox_events (event_type, student_id, course_id, course_code, department, level, " +
+                    "semester, capacity, grade, occurred_at) VALUES ('COMPLETED', ?, ?, ?, ?, ?, ?, NULL, ?, ?)")) {
+                Timestamp occurredAt = Timestamp.valueOf(now);
+                for (int start = 0; start < completions.size(); start += BATCH_SIZE) {
+                    List<Completion> batch = completions.subList(start, Math.min(start + BATCH_SIZE, completions.size()));
+                    for (Completion completion : batch) {
+                        Course course = completion.course();
+                        update.setObject(1, completion.grade(), Types.DOUBLE);
+                        update.setString(2, completion.gradeLetter());
+                        update.setLong(3, completion.studentId());
+                        update.setLong(4, course.getId());
+                        update.addBatch();
+
+                        event.setLong(1, completion.studentId());
+                        event.setLong(2, course.getId());
+                        event.setString(3, course.getCode());
+                        event.setString(4, course.getDepartment());
+                        event.setString(5, course.getLevel());
+                        event.setString(6, course.getSemester());
+                        event.setObject(7, completion.grade(), Types.DOUBLE);
+                        event.setTimestamp(8, occurredAt);
+                        event.addBatch();
+                    }
+                    int[] updated = update.executeBatch();
+                    for (int i = 0; i < updated.length; i++) {
+                        // SUCCESS_NO_INFO means the driver did not count, not that nothing matched
+                        if (updated[i] == 0) {
+                            missed.add(batch.get(i));
+                        }
+                    }
+                    event.executeBatch();
+                }
+            }
+            return missed;
+        });
+    }
+
+    /** Completed enrollments of the course by letter: letter, count, sum of grades, graded count. */
+    public List<Object[]> gradeDistributionByCourse(Long courseId) {
+        return gradeDistribution("sc.course_id = :scope", courseId);
+    }
+
+    public List<Object[]> gradeDistributionBySemester(String semester) {
+        return gradeDistribution("sc.course_id IN (SELECT id FROM courses WHERE semester = :scope)", semester);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> gradeDistribution(String scope, Object value) {
+        return entityManager.createNativeQuery(
+                "SELECT sc.grade_letter, COUNT(*), SUM(sc.grade), COUNT(sc.grade) FROM student_courses sc " +
+                "WHERE sc.enrollment_status = 'COMPLETED' AND " + scope + " " +
+                "GROUP BY sc.grade_letter ORDER BY MAX(sc.grade) DESC NULLS LAST, sc.grade_letter")
+            .setParameter("scope", value)
+            .getResultList();
+    }
+}
@@ -1,10 +1,11 @@
-package main.java.com.universite.courses.repository;
+package com.universite.courses.repository;
 
 import com.universite.courses.entity.Course;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,18 +19,23 @@ public class CourseRepository {
     }
     
     public Course save(Course course) {
+        boolean ownsTransaction = !entityManager.getTransaction().isActive();
         try {
-            entityManager.getTransaction().begin();
+            if (ownsTransaction) {
+                entityManager.getTransaction().begin();
+            }
             if (course.getId() == null) {
                 entityManager.persist(course);
             } else {
                 course = entityManager.merge(course);
             }
-            entityManager.getTransaction().commit();
+            if (ownsTransaction) {
+                entityManager.getTransaction().commit();
+            }
             log.info("Course saved: {}", course.getCode());
             return course;
         } catch (Exception e) {
-            if (entityManager.getTransaction().isActive()) {
+            if (ownsTransaction && entityManager.getTransaction().isActive()) {
                 entityManager.getTransaction().rollback();
             }
             log.error("Error saving course: {}", e.getMessage());
@@ -43,20 +49,33 @@ public class CourseRepository {
             return Optional.ofNullable(course);
         } catch (Exception e) {
             log.error("Error finding course by ID {}: {}", id, e.getMessage());
-            return Optional.empty();
+            throw new RuntimeException("Failed to find course by ID", e);
+        }
+    }
+    
+    /** The courses among the IDs that still exist, in no particular order. */
+    public List<Course> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        TypedQuery<Course> query = entityManager.createQuery(
+            "SELECT c FROM Course c WHERE c.id IN :ids", Course.class);
+        query.setParameter("ids", ids);
+        return query.getResultList();
     }
     
+    /** The most recently created offering of the code; codes repeat every semester. */
     public Optional<Course> findByCode(String code) {
         try {
             TypedQuery<Course> query = entityManager.createQuery(
-                "SELECT c FROM Course c WHERE c.code = :code", Course.class);
+                "SELECT c FROM Course c WHERE c.code = :code ORDER BY c.id DESC", Course.class);
             query.setParameter("code", code);
+            query.setMaxResults(1);
             List<Course> results = query.getResultList();
             return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
         } catch (Exception e) {
             log.error("Error finding course by code {}: {}", code, e.getMessage());
-            return Optional.empty();
+            throw new RuntimeException("Failed to find course by code", e);
         }
     }
     
@@ -71,6 +90,13 @@ public class CourseRepository {
         }
     }
     
+    /** Rows of ID, code, name, semester and version of every course, for the suggestion index. */
+    public List<Object[]> findCodesAndNames() {
+        return entityManager.createQuery(
+                "SELECT c.id, c.code, c.name, c.semester, c.version FROM Course c", Object[].class)
+            .getResultList();
+    }
+    
     public List<Course> findBySemester(String semester) {
         try {
             TypedQuery<Course> query = entityManager.createQuery(
@@ -79,7 +105,7 @@ public class CourseRepository {
             return query.getResultList();
         } catch (Exception e) {
             log.error("Error finding courses by semester {}: {}", semester, e.getMessage());
-            return List.of();
+            throw new RuntimeException("Failed to find courses by semester", e);
         }
     }
     
@@ -91,7 +117,7 @@ public class CourseRepository {
             return query.getResultList();
         } catch (Exception e) {
             log.error("Error finding courses by department {}: {}", department, e.getMessage());
-            return List.of();
+            throw new RuntimeException("Failed to find courses by department", e);
         }
     }
     
@@ -102,21 +128,26 @@ public class CourseRepository {
             return query.getResultList();
         } catch (Exception e) {
             log.error("Error finding available courses: {}", e.getMessage());
-            return List.of();
+            throw new RuntimeException("Failed to find available courses", e);
         }
     }
     
     public void delete(Course course) {
+        boolean ownsTransaction = !entityManager.getTransaction().isActive();
         try {
-            entityManager.getTransaction().begin();
+            if (ownsTransaction) {
+                entityManager.getTransaction().begin();
+            }
             if (!entityManager.contains(course)) {
                 course = entityManager.merge(course);
             }
             entityManager.remove(course);
-            entityManager.getTransaction().commit();
+            if (ownsTransaction) {
+                entityManager.getTransaction().commit();
+            }
             log.info("Course deleted: {}", course.getCode());
         } catch (Exception e) {
-            if (entityManager.getTransaction().isActive()) {
+            if (ownsTransaction && entityManager.getTransaction().isActive()) {
                 entityManager.getTransaction().rollback();
             }
             log.error("Error deleting course: {}", e.getMessage());
@@ -135,4 +166,17 @@ public class CourseRepository {
             return false;
         }
     }
+    
+    public boolean existsByCodeAndSemester(String code, String semester) {
+        try {
+            TypedQuery<Long> query = entityManager.createQuery(
+                "SELECT COUNT(c) FROM Course c WHERE c.code = :code AND c.semester = :semester", Long.class);
+            query.setParameter("code", code);
+            query.setParameter("semester", semester);
+            return query.getSingleResult() > 0;
+        } catch (Exception e) {
+            log.error("Error checking if course exists: {}", e.getMessage());
+            return false;
+        }
+    }
 }
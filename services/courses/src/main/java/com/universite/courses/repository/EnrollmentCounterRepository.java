@@ -0,0 +1,115 @@
+package com.universite.courses.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code courses.enrolled} counter against the enrollments behind it.
+ * Enrolled and completed students both hold a seat; dropped and withdrawn
+ * ones do not.
+ */
+public class EnrollmentCounterRepository {
+
+    public static final String SEAT_HOLDING_STATUSES = "'ENROLLED', 'COMPLETED'";
+
+    private final EntityManager entityManager;
+
+    /** A course's counter and version next to the count of its seat-holding enrollments, from one snapshot. */
+    public record CourseCount(long courseId, String code, String department, String level, String semester,
+                              int counter, long version, int actual) {
+        public boolean drifted() {
+            return counter != actual;
+        }
+    }
+
+    public EnrollmentCounterRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /** Departments to partition the courses by; null stands for courses without one. */
+    @SuppressWarnings("unchecked")
+    public List<String> findDepartments() {
+        return entityManager.createNativeQuery("SELECT DISTINCT department FROM courses").getResultList();
+    }
+
+    /** Every course of the department with its true count, in one grouped query. */
+    @SuppressWarnings("unchecked")
+    public List<CourseCount> countByDepartment(String department) {
+        Query query = entityManager.createNativeQuery(
+                "SELECT c.id, c.code, c.department, c.level, c.semester, c.enrolled, c.version, COUNT(sc.id) " +
+                "FROM courses c LEFT JOIN student_courses sc " +
+                "ON sc.course_id = c.id AND sc.enrollment_status IN (" + SEAT_HOLDING_STATUSES + ") " +
+                "WHERE " + (department == null ? "c.department IS NULL" : "c.department = :department") + " " +
+                "GROUP BY c.id, c.code, c.department, c.level, c.semester, c.enrolled, c.version");
+        if (department != null) {
+            query.setParameter("department", department);
+        }
+        List<Object[]> rows = query.getResultList();
+        List<CourseCount> counts = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            counts.add(new CourseCount(((Number) row[0]).longValue(), (String) row[1], (String) row[2],
+                (String) row[3], (String) row[4], ((Number) row[5]).intValue(), ((Number) row[6]).longValue(),
+                ((Number) row[7]).intValue()));
+        }
+        return counts;
+    }
+
+    /**
+     * Sets the counters to their true counts as one JDBC batch. A course is
+     * only repaired while its version is still the one that was counted: any
+     * enrollment or drop since then bumped it and may have moved the count.
+     * Each repaired course gets a COUNTER_REPAIRED outbox event with its new
+     * counter, in the caller's transaction, so the event log's consumers
+     * correct their own counts with it.
+     *
+     * @return how many of the courses were repaired
+     */
+    public int repair(List<CourseCount> drifted, LocalDateTime now) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement update = connection.prepareStatement(
+                    "UPDATE courses SET enrolled = ?, version = version + 1, updated_at = ? " +
+                    "WHERE id = ? AND version = ?");
+                 PreparedStatement event = connection.prepareStatement(
+                    "INSERT INTO outbox_events (event_type, course_id, course_code, department, level, semester, " +
+                    "enrolled, occurred_at) VALUES ('COUNTER_REPAIRED', ?, ?, ?, ?, ?, ?, ?)")) {
+                Timestamp updatedAt = Timestamp.valueOf(now);
+                for (CourseCount count : drifted) {
+                    update.setInt(1, count.actual());
+                    update.setTimestamp(2, updatedAt);
+                    update.setLong(3, count.courseId());
+                    update.setLong(4, count.version());
+                    update.addBatch();
+                }
+                int[] updated = update.executeBatch();
+                int repaired = 0;
+                for (int i = 0; i < updated.length; i++) {
+                    // SUCCESS_NO_INFO means the driver did not count, not that nothing matched
+                    if (updated[i] == 0) {
+                        continue;
+                    }
+                    CourseCount count = drifted.get(i);
+                    event.setLong(1, count.courseId());
+                    event.setString(2, count.code());
+                    event.setString(3, count.department());
+                    event.setString(4, count.level());
+                    event.setString(5, count.semester());
+                    event.setInt(6, count.actual());
+                    event.setTimestamp(7, updatedAt);
+                    event.addBatch();
+                    repaired++;
+                }
+                if (repaired > 0) {
+                    event.executeBatch();
+                }
+                return repaired;
+            }
+        });
+    }
+}
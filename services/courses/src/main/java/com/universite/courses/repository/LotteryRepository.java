@@ -0,0 +1,283 @@
+package com.universite.courses.repository;
+
+import com.universite.courses.entity.LotterySubmission;
+import com.universite.courses.entity.LotteryWindow;
+import com.universite.courses.lottery.LotteryAllocator.Request;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Lottery windows, submissions and the draw's reads and writes. Preferences
+ * and the draw's enrollments go out as JDBC batches of a thousand rows; the
+ * draw never loads enrollments as entities.
+ */
+public class LotteryRepository {
+
+    private static final int BATCH_SIZE = 1000;
+
+    /** A requested course as the draw sees it, locked until the draw commits. */
+    public record LockedCourse(long id, String code, String department, String level, String semester,
+                               int capacity, int enrolled, String prerequisiteCourseIds) {
+    }
+
+    private final EntityManager entityManager;
+
+    public LotteryRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public Optional<LotteryWindow> findWindow(String semester) {
+        return Optional.ofNullable(entityManager.find(LotteryWindow.class, semester));
+    }
+
+    /** Whether the semester is in lottery registration, its seats not drawn yet. */
+    public boolean isOpen(String semester) {
+        return findWindow(semester).filter(LotteryWindow::isOpen).isPresent();
+    }
+
+    /** The window, locked so only one draw runs and no submission slips in after it. */
+    public Optional<LotteryWindow> lockWindow(String semester) {
+        return Optional.ofNullable(entityManager.find(LotteryWindow.class, semester, LockModeType.PESSIMISTIC_WRITE));
+    }
+
+    /**
+     * The window, share-locked: submissions do not wait for each other, but a
+     * draw waits for those in flight and they cannot start while it runs.
+     */
+    public Optional<LotteryWindow> findWindowForSubmission(String semester) {
+        return Optional.ofNullable(entityManager.find(LotteryWindow.class, semester, LockModeType.PESSIMISTIC_READ));
+    }
+
+    public void saveWindow(LotteryWindow window) {
+        entityManager.persist(window);
+    }
+
+    /** Semesters whose window is open and due to be drawn at {@code now}. */
+    public List<String> findDueSemesters(LocalDateTime now) {
+        return entityManager.createQuery(
+                "SELECT w.semester FROM LotteryWindow w WHERE w.status = :status AND w.closesAt <= :now " +
+                "ORDER BY w.closesAt", String.class)
+            .setParameter("status", LotteryWindow.OPEN)
+            .setParameter("now", now)
+            .getResultList();
+    }
+
+    public int countStudents(String semester) {
+        return entityManager.createQuery(
+                "SELECT COUNT(DISTINCT s.studentId) FROM LotterySubmission s WHERE s.semester = :semester", Long.class)
+            .setParameter("semester", semester)
+            .getSingleResult()
+            .intValue();
+    }
+
+    /** IDs among {@code courseIds} of active courses offered in the semester. */
+    public Set<Long> findActiveCourseIds(Collection<Long> courseIds, String semester) {
+        return new HashSet<>(entityManager.createQuery(
+                "SELECT c.id FROM Course c WHERE c.id IN :ids AND c.semester = :semester AND c.active = true",
+                Long.class)
+            .setParameter("ids", courseIds)
+            .setParameter("semester", semester)
+            .getResultList());
+    }
+
+    /** Appends a submission, its courses ranked in the given order. */
+    public LotterySubmission appendSubmission(String semester, Long studentId, List<Long> courseIds,
+                                              LocalDateTime now) {
+        LotterySubmission submission = new LotterySubmission(null, semester, studentId, now);
+        entityManager.persist(submission);
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO lottery_preferences (submission_id, course_id, preference_rank) VALUES (?, ?, ?)")) {
+                for (int i = 0; i < courseIds.size(); i++) {
+                    insert.setLong(1, submission.getId());
+                    insert.setLong(2, courseIds.get(i));
+                    insert.setInt(3, i + 1);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        });
+        return submission;
+    }
+
+    /** The preferences of every student's latest submission for the semester. */
+    @SuppressWarnings("unchecked")
+    public List<Request> findLatestRequests(String semester) {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT s.student_id, p.course_id, p.preference_rank FROM lottery_preferences p " +
+                "JOIN lottery_submissions s ON s.id = p.submission_id " +
+                "WHERE s.id IN (SELECT MAX(id) FROM lottery_submissions WHERE semester = :semester " +
+                "GROUP BY student_id)")
+            .setParameter("semester", semester)
+            .getResultList();
+        List<Request> requests = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            requests.add(new Request(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                ((Number) row[2]).intValue()));
+        }
+        return requests;
+    }
+
+    /**
+     * The semester's courses, locked so that enrollments and drops wait for
+     * the draw instead of racing it for seats.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Long, LockedCourse> lockCoursesInSemester(String semester) {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT id, code, department, level, semester, capacity, enrolled, prerequisite_course_ids " +
+                "FROM courses WHERE semester = :semester FOR UPDATE")
+            .setParameter("semester", semester)
+            .getResultList();
+        Map<Long, LockedCourse> courses = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            long id = ((Number) row[0]).longValue();
+            courses.put(id, new LockedCourse(id, (String) row[1], (String) row[2], (String) row[3], (String) row[4],
+                ((Number) row[5]).intValue(), ((Number) row[6]).intValue(), (String) row[7]));
+        }
+        return courses;
+    }
+
+    /** Course codes by ID. */
+    @SuppressWarnings("unchecked")
+    public Map<Long, String> findCodes(Collection<Long> courseIds) {
+        Map<Long, String> codes = new HashMap<>(courseIds.size() * 2);
+        if (courseIds.isEmpty()) {
+            return codes;
+        }
+        List<Object[]> rows = entityManager.createNativeQuery("SELECT id, code FROM courses WHERE id IN (:ids)")
+            .setParameter("ids", courseIds)
+            .getResultList();
+        for (Object[] row : rows) {
+            codes.put(((Number) row[0]).longValue(), (String) row[1]);
+        }
+        return codes;
+    }
+
+    /**
+     * Codes among {@code codes} of the courses each of the semester's lottery
+     * students passed, in whatever semester they took them. A completion
+     * without a letter counts as passed, F and I do not.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Long, Set<String>> findPassedCodes(String semester, Collection<String> codes) {
+        Map<Long, Set<String>> passed = new HashMap<>();
+        if (codes.isEmpty()) {
+            return passed;
+        }
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT DISTINCT sc.student_id, c.code FROM student_courses sc JOIN courses c ON c.id = sc.course_id " +
+                "WHERE sc.enrollment_status = 'COMPLETED' " +
+                "AND (sc.grade_letter IS NULL OR sc.grade_letter NOT IN ('F', 'I')) AND c.code IN (:codes) " +
+                "AND sc.student_id IN (SELECT student_id FROM lottery_submissions WHERE semester = :semester)")
+            .setParameter("codes", codes)
+            .setParameter("semester", semester)
+            .getResultList();
+        for (Object[] row : rows) {
+            passed.computeIfAbsent(((Number) row[0]).longValue(), id -> new HashSet<>()).add((String) row[1]);
+        }
+        return passed;
+    }
+
+    /**
+     * Enrollment status by student and course for the semester's courses and
+     * lottery students; the key is {@code studentId + ":" + courseId}.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, String> findEnrollmentStatuses(String semester) {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT sc.student_id, sc.course_id, sc.enrollment_status FROM student_courses sc " +
+                "WHERE sc.course_id IN (SELECT id FROM courses WHERE semester = :semester) " +
+                "AND sc.student_id IN (SELECT student_id FROM lottery_submissions WHERE semester = :semester)")
+            .setParameter("semester", semester)
+            .getResultList();
+        Map<String, String> statuses = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            statuses.put(((Number) row[0]).longValue() + ":" + ((Number) row[1]).longValue(), (String) row[2]);
+        }
+        return statuses;
+    }
+
+    /**
+     * Enrolls the drawn students: a new row, or the student's dropped row
+     * back to ENROLLED, plus an ENROLLED outbox event for each, snapshotting
+     * the course like {@code OutboxEvent.of} does. Course counters go up by
+     * what each course was given and their versions are bumped, so a stale
+     * enrollment attempt re-runs.
+     *
+     * @param reenrolled keys ({@code studentId + ":" + courseId}) of requests that have a dropped row
+     */
+    public void enroll(List<Request> assigned, Set<String> reenrolled, Map<Long, LockedCourse> courses,
+                       LocalDateTime now) {
+        Map<Long, Integer> seatsTaken = new HashMap<>();
+        for (Request request : assigned) {
+            seatsTaken.merge(request.courseId(), 1, Integer::sum);
+        }
+
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO student_courses (student_id, course_id, enrollment_status, enrolled_at, version) " +
+                    "VALUES (?, ?, 'ENROLLED', ?, 0)");
+                 PreparedStatement reenroll = connection.prepareStatement(
+                    "UPDATE student_courses SET enrollment_status = 'ENROLLED', enrolled_at = ?, dropped_at = NULL, " +
+                    "grade = NULL, grade_letter = NULL, version = version + 1 WHERE student_id = ? AND course_id = ?");
+                 PreparedStatement event = connection.prepareStatement(
+                    "INSERT INTO outbox_events (event_type, student_id, course_id, course_code, department, level, " +
+                    "semester, capacity, grade, occurred_at) VALUES ('ENROLLED', ?, ?, ?, ?, ?, ?, NULL, NULL, ?)");
+                 PreparedStatement counter = connection.prepareStatement(
+                    "UPDATE courses SET enrolled = enrolled + ?, version = version + 1, updated_at = ? WHERE id = ?")) {
+                Timestamp timestamp = Timestamp.valueOf(now);
+                for (int start = 0; start < assigned.size(); start += BATCH_SIZE) {
+                    List<Request> batch = assigned.subList(start, Math.min(start + BATCH_SIZE, assigned.size()));
+                    for (Request request : batch) {
+                        if (reenrolled.contains(request.studentId() + ":" + request.courseId())) {
+                            reenroll.setTimestamp(1, timestamp);
+                            reenroll.setLong(2, request.studentId());
+                            reenroll.setLong(3, request.courseId());
+                            reenroll.addBatch();
+                        } else {
+                            insert.setLong(1, request.studentId());
+                            insert.setLong(2, request.courseId());
+                            insert.setTimestamp(3, timestamp);
+                            insert.addBatch();
+                        }
+
+                        LockedCourse course = courses.get(request.courseId());
+                        event.setLong(1, request.studentId());
+                        event.setLong(2, course.id());
+                        event.setString(3, course.code());
+                        event.setString(4, course.department());
+                        event.setString(5, course.level());
+                        event.setString(6, course.semester());
+                        event.setTimestamp(7, timestamp);
+                        event.addBatch();
+                    }
+                    insert.executeBatch();
+                    reenroll.executeBatch();
+                    event.executeBatch();
+                }
+
+                for (Map.Entry<Long, Integer> taken : seatsTaken.entrySet()) {
+                    counter.setInt(1, taken.getValue());
+                    counter.setTimestamp(2, timestamp);
+                    counter.setLong(3, taken.getKey());
+                    counter.addBatch();
+                }
+                counter.executeBatch();
+            }
+        });
+    }
+}
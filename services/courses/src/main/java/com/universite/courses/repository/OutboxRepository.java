@@ -0,0 +1,45 @@
+package com.universite.courses.repository;
+
+import com.universite.courses.entity.OutboxEvent;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.LockMode;
+import org.hibernate.Session;
+
+import java.util.List;
+
+@Slf4j
+public class OutboxRepository {
+    
+    private final EntityManager entityManager;
+    
+    public OutboxRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+    
+    /** Must be called inside the transaction that makes the change. */
+    public void append(OutboxEvent event) {
+        entityManager.persist(event);
+    }
+    
+    /**
+     * Oldest pending events, locked so a second relay skips them instead of
+     * publishing them twice.
+     */
+    public List<OutboxEvent> lockPending(int limit) {
+        return entityManager.unwrap(Session.class).createSelectionQuery(
+                "SELECT e FROM OutboxEvent e ORDER BY e.id", OutboxEvent.class)
+            .setMaxResults(limit)
+            .setHibernateLockMode(LockMode.UPGRADE_SKIPLOCKED)
+            .getResultList();
+    }
+    
+    public int deleteByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return entityManager.createQuery("DELETE FROM OutboxEvent e WHERE e.id IN :ids")
+            .setParameter("ids", ids)
+            .executeUpdate();
+    }
+}
@@ -0,0 +1,74 @@
+package com.universite.courses.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * A course's enrollments read through a server-side cursor, one row at a
+ * time, so a roster of any size is exported in constant memory. PostgreSQL
+ * only opens a cursor for a fetch size inside a transaction, so the rows are
+ * read with autocommit off and the read-only transaction is ended after.
+ */
+public class RosterExportRepository {
+
+    /** One enrollment of the roster; timestamps and grades are null when not set. */
+    public record RosterRow(long studentId, String enrollmentStatus, LocalDateTime enrolledAt,
+                            LocalDateTime droppedAt, Double grade, String gradeLetter) {
+    }
+
+    private final EntityManager entityManager;
+
+    public RosterExportRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Hands every enrollment of the course, by student ID, to the consumer as
+     * it is fetched, {@code fetchSize} rows per round trip. A null status
+     * includes every status.
+     *
+     * @return how many rows were read
+     */
+    public long streamByCourse(Long courseId, String status, int fetchSize, Consumer<RosterRow> consumer) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT student_id, enrollment_status, enrolled_at, dropped_at, grade, grade_letter " +
+                    "FROM student_courses WHERE course_id = ?" +
+                    (status == null ? "" : " AND enrollment_status = ?") + " ORDER BY student_id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                select.setFetchSize(fetchSize);
+                select.setLong(1, courseId);
+                if (status != null) {
+                    select.setString(2, status);
+                }
+                long rows = 0;
+                try (ResultSet row = select.executeQuery()) {
+                    while (row.next()) {
+                        double grade = row.getDouble(5);
+                        Double graded = row.wasNull() ? null : grade;
+                        consumer.accept(new RosterRow(row.getLong(1), row.getString(2),
+                            toLocalDateTime(row.getTimestamp(3)), toLocalDateTime(row.getTimestamp(4)),
+                            graded, row.getString(6)));
+                        rows++;
+                    }
+                }
+                return rows;
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -1,4 +1,4 @@
-package main.java.com.universite.courses.repository;
+package com.universite.courses.repository;
 
 import com.universite.courses.entity.Course;
 import com.universite.courses.entity.Schedule;
@@ -20,18 +20,23 @@ public class ScheduleRepository {
     }
     
     public Schedule save(Schedule schedule) {
+        boolean ownsTransaction = !entityManager.getTransaction().isActive();
         try {
-            entityManager.getTransaction().begin();
+            if (ownsTransaction) {
+                entityManager.getTransaction().begin();
+            }
             if (schedule.getId() == null) {
                 entityManager.persist(schedule);
             } else {
                 schedule = entityManager.merge(schedule);
             }
-            entityManager.getTransaction().commit();
+            if (ownsTransaction) {
+                entityManager.getTransaction().commit();
+            }
             log.info("Schedule saved for course: {}", schedule.getCourse().getCode());
             return schedule;
         } catch (Exception e) {
-            if (entityManager.getTransaction().isActive()) {
+            if (ownsTransaction && entityManager.getTransaction().isActive()) {
                 entityManager.getTransaction().rollback();
             }
             log.error("Error saving schedule: {}", e.getMessage());
@@ -45,7 +50,7 @@ public class ScheduleRepository {
             return Optional.ofNullable(schedule);
         } catch (Exception e) {
             log.error("Error finding schedule by ID {}: {}", id, e.getMessage());
-            return Optional.empty();
+            throw new RuntimeException("Failed to find schedule by ID", e);
         }
     }
     
@@ -58,7 +63,7 @@ public class ScheduleRepository {
             return query.getResultList();
         } catch (Exception e) {
             log.error("Error finding schedules for course: {}", e.getMessage());
-            return List.of();
+            throw new RuntimeException("Failed to find schedules for course", e);
         }
     }
     
@@ -71,7 +76,7 @@ public class ScheduleRepository {
             return query.getResultList();
         } catch (Exception e) {
             log.error("Error finding schedules for course ID {}: {}", courseId, e.getMessage());
-            return List.of();
+            throw new RuntimeException("Failed to find schedules for course ID", e);
         }
     }
     
@@ -84,7 +89,7 @@ public class ScheduleRepository {
             return query.getResultList();
         } catch (Exception e) {
             log.error("Error finding schedules for day {}: {}", dayOfWeek, e.getMessage());
-            return List.of();
+            throw new RuntimeException("Failed to find schedules for day", e);
         }
     }
     
@@ -97,21 +102,72 @@ public class ScheduleRepository {
             return query.getResultList();
         } catch (Exception e) {
             log.error("Error finding schedules for room {}: {}", room, e.getMessage());
-            return List.of();
+            throw new RuntimeException("Failed to find schedules for room", e);
+        }
+    }
+    
+    /**
+     * Schedules in the room of the building held by courses of the semester,
+     * for conflict checks; a null building matches rooms without one.
+     */
+    public List<Schedule> findByRoomAndSemester(String building, String room, String semester) {
+        try {
+            TypedQuery<Schedule> query = entityManager.createQuery(
+                "SELECT s FROM Schedule s WHERE s.room = :room AND s.course.semester = :semester AND " +
+                (building == null ? "s.building IS NULL " : "s.building = :building ") +
+                "ORDER BY s.dayOfWeek, s.startTime", 
+                Schedule.class);
+            query.setParameter("room", room);
+            query.setParameter("semester", semester);
+            if (building != null) {
+                query.setParameter("building", building);
+            }
+            return query.getResultList();
+        } catch (Exception e) {
+            log.error("Error finding schedules for room {} {} in {}: {}", building, room, semester, e.getMessage());
+            throw new RuntimeException("Failed to find schedules for room", e);
         }
     }
     
+    /**
+     * Every schedule of the semester's courses as rows of schedule ID,
+     * building, room, day of week, start time and end time.
+     */
+    public List<Object[]> findRoomSlotsBySemester(String semester) {
+        return entityManager.createQuery(
+                "SELECT s.id, s.building, s.room, s.dayOfWeek, s.startTime, s.endTime FROM Schedule s " +
+                "WHERE s.course.semester = :semester", Object[].class)
+            .setParameter("semester", semester)
+            .getResultList();
+    }
+    
+    /**
+     * Every room any course was ever scheduled in, as rows of building, room
+     * and the largest capacity among those courses.
+     */
+    public List<Object[]> findRoomsWithLargestCapacity() {
+        return entityManager.createQuery(
+                "SELECT s.building, s.room, MAX(c.capacity) FROM Schedule s JOIN s.course c " +
+                "GROUP BY s.building, s.room", Object[].class)
+            .getResultList();
+    }
+    
     public void delete(Schedule schedule) {
+        boolean ownsTransaction = !entityManager.getTransaction().isActive();
         try {
-            entityManager.getTransaction().begin();
+            if (ownsTransaction) {
+                entityManager.getTransaction().begin();
+            }
             if (!entityManager.contains(schedule)) {
                 schedule = entityManager.merge(schedule);
             }
             entityManager.remove(schedule);
-            entityManager.getTransaction().commit();
+            if (ownsTransaction) {
+                entityManager.getTransaction().commit();
+            }
             log.info("Schedule deleted for course: {}", schedule.getCourse().getCode());
         } catch (Exception e) {
-            if (entityManager.getTransaction().isActive()) {
+            if (ownsTransaction && entityManager.getTransaction().isActive()) {
                 entityManager.getTransaction().rollback();
             }
             log.error("Error deleting schedule: {}", e.getMessage());
@@ -0,0 +1,152 @@
+package com.universite.courses.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Set-based copy of one semester's catalog into another. Each step is a single
+ * statement over the whole catalog; all of them must run in one transaction.
+ *
+ * <p>Courses created by a copy are told apart from the ones already offered
+ * in the target by id: they are the target courses above the watermark taken
+ * before the copy (codes are unique per semester, so nobody else can add the
+ * same code meanwhile).
+ */
+public class SemesterRolloverRepository {
+
+    private static final String NOT_IN_TARGET =
+        " AND NOT EXISTS (SELECT 1 FROM courses t WHERE t.code = c.code AND t.semester = :to)";
+
+    private final EntityManager entityManager;
+    private final String department;
+
+    /** @param department only copy this department's courses, or null for all */
+    public SemesterRolloverRepository(EntityManager entityManager, String department) {
+        this.entityManager = entityManager;
+        this.department = department;
+    }
+
+    public long courseIdWatermark() {
+        Object max = entityManager.createNativeQuery("SELECT COALESCE(MAX(id), 0) FROM courses").getSingleResult();
+        return ((Number) max).longValue();
+    }
+
+    public long countSourceCourses(String from) {
+        Object count = bind("SELECT COUNT(*) FROM courses c WHERE " + sourceCourses(), from, null).getSingleResult();
+        return ((Number) count).longValue();
+    }
+
+    /** Codes of the source that the target semester already offers. */
+    @SuppressWarnings("unchecked")
+    public List<String> findCodesInTarget(String from, String to) {
+        return bind("SELECT c.code FROM courses c WHERE " + sourceCourses() +
+                " AND EXISTS (SELECT 1 FROM courses t WHERE t.code = c.code AND t.semester = :to) ORDER BY c.code",
+                from, to)
+            .getResultList();
+    }
+
+    /**
+     * Source schedules that would overlap a schedule already in the target
+     * semester in the same room. Overlap follows {@code Schedule.conflictsWith}:
+     * same day, and touching time ranges count.
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> findRoomConflicts(String from, String to, int limit) {
+        List<Object[]> rows = bind(
+                "SELECT c.code, s.day_of_week, s.start_time, s.end_time, s.room, o.code " +
+                "FROM courses c " +
+                "JOIN schedules s ON s.course_id = c.id " +
+                "JOIN schedules ts ON ts.room = s.room AND ts.day_of_week = s.day_of_week " +
+                "    AND ts.start_time <= s.end_time AND s.start_time <= ts.end_time " +
+                "JOIN courses o ON o.id = ts.course_id AND o.semester = :to " +
+                "WHERE " + sourceCourses() + NOT_IN_TARGET +
+                " ORDER BY c.code, s.day_of_week, s.start_time",
+                from, to)
+            .setMaxResults(limit)
+            .getResultList();
+
+        List<String> conflicts = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            conflicts.add(String.format("%s %s %s-%s in room %s overlaps %s",
+                row[0], row[1], row[2], row[3], row[4], row[5]));
+        }
+        return conflicts;
+    }
+
+    /** Copies the source courses the target does not offer yet, with no enrollments. */
+    public int copyCourses(String from, String to, LocalDateTime now) {
+        return bind(
+                "INSERT INTO courses (code, name, description, credits, semester, capacity, enrolled, " +
+                "    department, level, prerequisite_course_ids, active, version, created_at) " +
+                "SELECT c.code, c.name, c.description, c.credits, :to, c.capacity, 0, " +
+                "    c.department, c.level, c.prerequisite_course_ids, TRUE, 0, :now " +
+                "FROM courses c WHERE " + sourceCourses() + NOT_IN_TARGET + " ORDER BY c.code",
+                from, to)
+            .setParameter("now", now)
+            .executeUpdate();
+    }
+
+    public int copySchedules(String from, String to, long watermark) {
+        return entityManager.createNativeQuery(
+                "INSERT INTO schedules (course_id, day_of_week, start_time, end_time, room, building, schedule_type) " +
+                "SELECT t.id, s.day_of_week, s.start_time, s.end_time, s.room, s.building, s.schedule_type " +
+                "FROM courses t " +
+                "JOIN courses c ON c.code = t.code AND c.semester = :from " +
+                "JOIN schedules s ON s.course_id = c.id " +
+                "WHERE t.semester = :to AND t.id > :watermark")
+            .setParameter("from", from)
+            .setParameter("to", to)
+            .setParameter("watermark", watermark)
+            .executeUpdate();
+    }
+
+    /** Copies the active teacher assignments. */
+    public int copyTeacherAssignments(String from, String to, long watermark, LocalDateTime now) {
+        return entityManager.createNativeQuery(
+                "INSERT INTO teacher_courses (teacher_id, course_id, role, assigned_at, active, version) " +
+                "SELECT a.teacher_id, t.id, a.role, :now, TRUE, 0 " +
+                "FROM courses t " +
+                "JOIN courses c ON c.code = t.code AND c.semester = :from " +
+                "JOIN teacher_courses a ON a.course_id = c.id AND a.active = TRUE " +
+                "WHERE t.semester = :to AND t.id > :watermark")
+            .setParameter("from", from)
+            .setParameter("to", to)
+            .setParameter("watermark", watermark)
+            .setParameter("now", now)
+            .executeUpdate();
+    }
+
+    /** One COURSE_UPSERTED outbox event per copied course, like createCourse writes. */
+    public int appendCourseEvents(String to, long watermark, LocalDateTime now) {
+        return entityManager.createNativeQuery(
+                "INSERT INTO outbox_events (event_type, course_id, course_code, department, level, semester, " +
+                "    capacity, occurred_at) " +
+                "SELECT 'COURSE_UPSERTED', t.id, t.code, t.department, t.level, t.semester, t.capacity, :now " +
+                "FROM courses t WHERE t.semester = :to AND t.id > :watermark ORDER BY t.id")
+            .setParameter("to", to)
+            .setParameter("watermark", watermark)
+            .setParameter("now", now)
+            .executeUpdate();
+    }
+
+    /** Active courses of the source semester, of one department when filtered. */
+    private String sourceCourses() {
+        return "c.semester = :from AND c.active = TRUE" + (department != null ? " AND c.department = :department" : "");
+    }
+
+    private Query bind(String sql, String from, String to) {
+        Query query = entityManager.createNativeQuery(sql);
+        query.setParameter("from", from);
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        if (department != null) {
+            query.setParameter("department", department);
+        }
+        return query;
+    }
+}
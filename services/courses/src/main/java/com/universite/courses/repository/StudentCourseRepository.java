@@ -1,11 +1,14 @@
-package main.java.com.universite.courses.repository;
+package com.universite.courses.repository;
 
 import com.universite.courses.entity.Course;
 import com.universite.courses.entity.StudentCourse;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,19 +22,24 @@ public class StudentCourseRepository {
     }
     
     public StudentCourse save(StudentCourse studentCourse) {
+        boolean ownsTransaction = !entityManager.getTransaction().isActive();
         try {
-            entityManager.getTransaction().begin();
+            if (ownsTransaction) {
+                entityManager.getTransaction().begin();
+            }
             if (studentCourse.getId() == null) {
                 entityManager.persist(studentCourse);
             } else {
                 studentCourse = entityManager.merge(studentCourse);
             }
-            entityManager.getTransaction().commit();
+            if (ownsTransaction) {
+                entityManager.getTransaction().commit();
+            }
             log.info("Student {} enrolled in course {}", 
                 studentCourse.getStudentId(), studentCourse.getCourse().getCode());
             return studentCourse;
         } catch (Exception e) {
-            if (entityManager.getTransaction().isActive()) {
+            if (ownsTransaction && entityManager.getTransaction().isActive()) {
                 entityManager.getTransaction().rollback();
             }
             log.error("Error saving student course enrollment: {}", e.getMessage());
@@ -45,7 +53,7 @@ public class StudentCourseRepository {
             return Optional.ofNullable(studentCourse);
         } catch (Exception e) {
             log.error("Error finding student course by ID {}: {}", id, e.getMessage());
-            return Optional.empty();
+            throw new RuntimeException("Failed to find student course by ID", e);
         }
     }
     
@@ -60,7 +68,7 @@ public class StudentCourseRepository {
             return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
         } catch (Exception e) {
             log.error("Error finding student course enrollment: {}", e.getMessage());
-            return Optional.empty();
+            throw new RuntimeException("Failed to find student course enrollment", e);
         }
     }
     
@@ -73,7 +81,7 @@ public class StudentCourseRepository {
             return query.getResultList();
         } catch (Exception e) {
             log.error("Error finding courses for student {}: {}", studentId, e.getMessage());
-            return List.of();
+            throw new RuntimeException("Failed to find courses for student", e);
         }
     }
     
@@ -86,7 +94,7 @@ public class StudentCourseRepository {
             return query.getResultList();
         } catch (Exception e) {
             log.error("Error finding students for course: {}", e.getMessage());
-            return List.of();
+            throw new RuntimeException("Failed to find students for course", e);
         }
     }
     
@@ -99,35 +107,95 @@ public class StudentCourseRepository {
             return query.getResultList();
         } catch (Exception e) {
             log.error("Error finding active courses for student {}: {}", studentId, e.getMessage());
-            return List.of();
+            throw new RuntimeException("Failed to find active courses for student", e);
         }
     }
     
+    /**
+     * The student's enrolled and completed courses of the semester with their
+     * schedules, in one query: rows of course ID, code, name, credits, day of
+     * week, start time, end time, room, building and schedule type. A course
+     * without schedules has one row with nulls from the day of week on.
+     */
+    public List<Object[]> findTimetable(Long studentId, String semester) {
+        return entityManager.createQuery(
+                "SELECT c.id, c.code, c.name, c.credits, s.dayOfWeek, s.startTime, s.endTime, s.room, s.building, " +
+                "s.scheduleType FROM StudentCourse sc JOIN sc.course c LEFT JOIN Schedule s ON s.course = c " +
+                "WHERE sc.studentId = :studentId AND sc.enrollmentStatus IN ('ENROLLED', 'COMPLETED') " +
+                "AND c.semester = :semester", Object[].class)
+            .setParameter("studentId", studentId)
+            .setParameter("semester", semester)
+            .getResultList();
+    }
+    
+    /** Probes the (student_id, course_id) unique index for an ENROLLED row. */
     public boolean isStudentEnrolled(Long studentId, Long courseId) {
         try {
             TypedQuery<Long> query = entityManager.createQuery(
-                "SELECT COUNT(sc) FROM StudentCourse sc WHERE sc.studentId = :studentId AND sc.course.id = :courseId AND sc.enrollmentStatus = 'ENROLLED'", 
+                "SELECT sc.id FROM StudentCourse sc WHERE sc.studentId = :studentId AND sc.course.id = :courseId AND sc.enrollmentStatus = 'ENROLLED'", 
                 Long.class);
             query.setParameter("studentId", studentId);
             query.setParameter("courseId", courseId);
-            return query.getSingleResult() > 0;
+            query.setMaxResults(1);
+            return !query.getResultList().isEmpty();
         } catch (Exception e) {
             log.error("Error checking student enrollment: {}", e.getMessage());
             return false;
         }
     }
     
+    /** Receives one (course, student) pair of a streamed read of the enrollments. */
+    @FunctionalInterface
+    public interface MembershipConsumer {
+        void accept(long courseId, long studentId);
+    }
+    
+    /**
+     * Hands every enrollment row's course and student, whatever its status, to
+     * the consumer through a server-side cursor, {@code fetchSize} rows per
+     * round trip, like {@code RosterExportRepository} does for one course.
+     *
+     * @return how many rows were read
+     */
+    public long streamMemberships(int fetchSize, MembershipConsumer consumer) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT course_id, student_id FROM student_courses",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                select.setFetchSize(fetchSize);
+                long rows = 0;
+                try (ResultSet row = select.executeQuery()) {
+                    while (row.next()) {
+                        consumer.accept(row.getLong(1), row.getLong(2));
+                        rows++;
+                    }
+                }
+                return rows;
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+    
     public void delete(StudentCourse studentCourse) {
+        boolean ownsTransaction = !entityManager.getTransaction().isActive();
         try {
-            entityManager.getTransaction().begin();
+            if (ownsTransaction) {
+                entityManager.getTransaction().begin();
+            }
             if (!entityManager.contains(studentCourse)) {
                 studentCourse = entityManager.merge(studentCourse);
             }
             entityManager.remove(studentCourse);
-            entityManager.getTransaction().commit();
+            if (ownsTransaction) {
+                entityManager.getTransaction().commit();
+            }
             log.info("Student course enrollment deleted");
         } catch (Exception e) {
-            if (entityManager.getTransaction().isActive()) {
+            if (ownsTransaction && entityManager.getTransaction().isActive()) {
                 entityManager.getTransaction().rollback();
             }
             log.error("Error deleting student course enrollment: {}", e.getMessage());
@@ -1,4 +1,4 @@
-package main.java.com.universite.courses.repository;
+package com.universite.courses.repository;
 
 import com.universite.courses.entity.Course;
 import com.universite.courses.entity.TeacherCourse;
@@ -19,19 +19,24 @@ public class TeacherCourseRepository {
     }
     
     public TeacherCourse save(TeacherCourse teacherCourse) {
+        boolean ownsTransaction = !entityManager.getTransaction().isActive();
         try {
-            entityManager.getTransaction().begin();
+            if (ownsTransaction) {
+                entityManager.getTransaction().begin();
+            }
             if (teacherCourse.getId() == null) {
                 entityManager.persist(teacherCourse);
             } else {
                 teacherCourse = entityManager.merge(teacherCourse);
             }
-            entityManager.getTransaction().commit();
+            if (ownsTransaction) {
+                entityManager.getTransaction().commit();
+            }
             log.info("Teacher {} assigned to course {}", 
                 teacherCourse.getTeacherId(), teacherCourse.getCourse().getCode());
             return teacherCourse;
         } catch (Exception e) {
-            if (entityManager.getTransaction().isActive()) {
+            if (ownsTransaction && entityManager.getTransaction().isActive()) {
                 entityManager.getTransaction().rollback();
             }
             log.error("Error saving teacher course assignment: {}", e.getMessage());
@@ -45,7 +50,7 @@ public class TeacherCourseRepository {
             return Optional.ofNullable(teacherCourse);
         } catch (Exception e) {
             log.error("Error finding teacher course by ID {}: {}", id, e.getMessage());
-            return Optional.empty();
+            throw new RuntimeException("Failed to find teacher course by ID", e);
         }
     }
     
@@ -58,7 +63,7 @@ public class TeacherCourseRepository {
             return query.getResultList();
         } catch (Exception e) {
             log.error("Error finding courses for teacher {}: {}", teacherId, e.getMessage());
-            return List.of();
+            throw new RuntimeException("Failed to find courses for teacher", e);
         }
     }
     
@@ -71,21 +76,26 @@ public class TeacherCourseRepository {
             return query.getResultList();
         } catch (Exception e) {
             log.error("Error finding teachers for course: {}", e.getMessage());
-            return List.of();
+            throw new RuntimeException("Failed to find teachers for course", e);
         }
     }
     
     public void delete(TeacherCourse teacherCourse) {
+        boolean ownsTransaction = !entityManager.getTransaction().isActive();
         try {
-            entityManager.getTransaction().begin();
+            if (ownsTransaction) {
+                entityManager.getTransaction().begin();
+            }
             if (!entityManager.contains(teacherCourse)) {
                 teacherCourse = entityManager.merge(teacherCourse);
             }
             entityManager.remove(teacherCourse);
-            entityManager.getTransaction().commit();
+            if (ownsTransaction) {
+                entityManager.getTransaction().commit();
+            }
             log.info("Teacher course assignment deleted");
         } catch (Exception e) {
-            if (entityManager.getTransaction().isActive()) {
+            if (ownsTransaction && entityManager.getTransaction().isActive()) {
                 entityManager.getTransaction().rollback();
             }
             log.error("Error deleting teacher course assignment: {}", e.getMessage());
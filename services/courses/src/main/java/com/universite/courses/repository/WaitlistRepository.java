@@ -0,0 +1,21 @@
+package com.universite.courses.repository;
+
+import com.universite.courses.entity.WaitlistRequest;
+import jakarta.persistence.EntityManager;
+
+import java.time.LocalDateTime;
+
+/** Enrollment attempts turned away by a full course, i.e. waitlist demand. */
+public class WaitlistRepository {
+    
+    private final EntityManager entityManager;
+    
+    public WaitlistRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+    
+    /** Must be called inside the transaction that writes the WAITLISTED event. */
+    public void append(Long studentId, Long courseId) {
+        entityManager.persist(new WaitlistRequest(null, courseId, studentId, LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,565 @@
+package com.universite.courses.scheduling;
+
+import com.universite.courses.repository.CoEnrollmentRepository;
+import com.universite.courses.repository.ScheduleRepository;
+import com.universite.courses.util.AppConfig;
+import com.universite.courses.util.DatabaseManager;
+import com.universite.courses.util.StudentRows;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Final exam timetables: the semester's exams in as few slots as possible,
+ * such that no student has two exams in one slot and every slot's exams fit
+ * in the rooms.
+ *
+ * <p>Two courses conflict when they share an enrolled or completed student.
+ * The conflict graph is one adjacency bitset per course, built from the
+ * enrollments streamed in student order into CSR rows, split over
+ * {@code exams.parallelism} workers that each fill their own bitsets, which
+ * are then ORed together. Slots are colors: each of {@code exams.attempts}
+ * attempts colors the graph with DSATUR (the exam with the most distinct
+ * slots among its neighbours goes next, into the lowest slot it fits in),
+ * breaking the remaining ties with its own order seeded from
+ * {@code exams.seed}, then tries to empty its smallest slots by moving their
+ * exams elsewhere, if need be moving one conflicting exam out of the way
+ * first. The attempts run in parallel and the one with the fewest slots wins,
+ * the lowest attempt on ties, so the same data always gives the same
+ * timetable.
+ *
+ * <p>Rooms have no recorded size; as for free rooms, a room seats as many as
+ * the largest course ever scheduled in it. An exam takes the smallest free
+ * room it fits in, or the largest free rooms until it is seated. Exams too
+ * large for all rooms together are left unplaced.
+ */
+@Slf4j
+public class ExamTimetabler {
+
+    /** An exam, in its slot (from 1, or 0 when unplaced) and rooms. */
+    public record Exam(long courseId, String code, int students, int slot, List<String> rooms) {
+    }
+
+    public record Timetable(String semester, int slots, int students, List<Exam> exams, int attempts,
+                            long elapsedMs) {
+    }
+
+    /** Exam rooms, smallest first, and their labels. */
+    record Rooms(int[] capacities, String[] labels, long totalCapacity) {
+    }
+
+    private static final int UNCOLORED = -1;
+    private static final int UNPLACED = -2;
+
+    private final int parallelism;
+    private final int attempts;
+    private final long seed;
+    private final int localSearchRounds;
+    private final int fetchSize;
+    private final ExecutorService workers;
+
+    public ExamTimetabler() {
+        this(AppConfig.getInt("exams.parallelism", 4), AppConfig.getInt("exams.attempts", 8),
+            AppConfig.getLong("exams.seed", 1), AppConfig.getInt("exams.local-search-rounds", 200),
+            AppConfig.getInt("exams.fetch-size", 10_000));
+    }
+
+    ExamTimetabler(int parallelism, int attempts, long seed, int localSearchRounds, int fetchSize) {
+        this.parallelism = Math.max(1, parallelism);
+        this.attempts = Math.max(1, attempts);
+        this.seed = seed;
+        this.localSearchRounds = Math.max(0, localSearchRounds);
+        this.fetchSize = Math.max(1, fetchSize);
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "exam-timetabler-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** The semester's timetable, read from the primary. */
+    public Timetable generate(String semester) {
+        long start = System.nanoTime();
+
+        List<Object[]> courses = DatabaseManager.withEntityManager(em ->
+            new CoEnrollmentRepository(em).findSemesterCourses(semester));
+        long[] courseIds = new long[courses.size()];
+        String[] codes = new String[courses.size()];
+        for (int i = 0; i < courses.size(); i++) {
+            courseIds[i] = ((Number) courses.get(i)[0]).longValue();
+            codes[i] = (String) courses.get(i)[1];
+        }
+        Rooms rooms = rooms(DatabaseManager.withEntityManager(em ->
+            new ScheduleRepository(em).findRoomsWithLargestCapacity()));
+
+        StudentRows rows = new StudentRows(courseIds, course -> course, courseIds.length);
+        long enrollments = DatabaseManager.withEntityManager(em ->
+            new CoEnrollmentRepository(em).streamSeatHoldersBySemester(semester, fetchSize, rows::accept));
+        rows.endStudent();
+
+        Timetable timetable = timetable(semester, courseIds, codes, rooms, rows, start);
+        long unplaced = timetable.exams().stream().filter(exam -> exam.slot() == 0).count();
+        log.info("Exam timetable for {}: {} exams of {} students ({} enrollments) in {} slots, {} unplaced, {} ms",
+            semester, timetable.exams().size(), timetable.students(), enrollments, timetable.slots(), unplaced,
+            timetable.elapsedMs());
+        return timetable;
+    }
+
+    /** The timetable of the courses, sorted by ID, whose students are in the rows. */
+    Timetable timetable(String semester, long[] courseIds, String[] codes, Rooms rooms, StudentRows rows,
+                        long start) {
+        long[][] adjacency = conflicts(rows, courseIds.length);
+        int[] seats = rows.columnStudents();
+
+        // Every attempt in parallel; the winner does not depend on which finishes first
+        List<Future<int[]>> colorings = new ArrayList<>(attempts);
+        for (int a = 0; a < attempts; a++) {
+            int attempt = a;
+            colorings.add(workers.submit(() -> new Coloring(adjacency, seats, rooms, order(seats.length, attempt))
+                .dsatur()
+                .improve(localSearchRounds)
+                .slotOf));
+        }
+        int[] best = null;
+        int bestSlots = Integer.MAX_VALUE;
+        for (Future<int[]> coloring : colorings) {
+            int[] slotOf = join(coloring);
+            int slots = Arrays.stream(slotOf).filter(s -> s >= 0).max().orElse(-1) + 1;
+            if (slots < bestSlots) {
+                best = slotOf;
+                bestSlots = slots;
+            }
+        }
+
+        List<Exam> exams = exams(best, bestSlots, courseIds, codes, seats, rooms);
+        return new Timetable(semester, bestSlots, rows.studentCount(), exams, attempts,
+            (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** The rooms from rows of building, room and the largest course scheduled in it. */
+    static Rooms rooms(List<Object[]> found) {
+        record Room(String label, int capacity) {
+        }
+        List<Room> rooms = new ArrayList<>();
+        for (Object[] row : found) {
+            String label = row[0] == null ? (String) row[1] : row[0] + " " + row[1];
+            rooms.add(new Room(label, ((Number) row[2]).intValue()));
+        }
+        rooms.sort(Comparator.comparingInt(Room::capacity).thenComparing(Room::label));
+        return new Rooms(rooms.stream().mapToInt(Room::capacity).toArray(),
+            rooms.stream().map(Room::label).toArray(String[]::new),
+            rooms.stream().mapToLong(Room::capacity).sum());
+    }
+
+    /**
+     * The conflict graph: bit {@code j} of {@code adjacency[i]} is set when
+     * courses {@code i} and {@code j} share a student. Each worker sets the
+     * pairs of a contiguous share of the students in its own bitsets.
+     */
+    private long[][] conflicts(StudentRows rows, int courseCount) {
+        int words = (courseCount + 63) >>> 6;
+        int[] rowStart = rows.rowStart();
+        int[] columns = rows.columns();
+        int shares = Math.min(parallelism, Math.max(1, rows.rowCount()));
+        List<Future<long[][]>> tasks = new ArrayList<>(shares);
+        for (int w = 0; w < shares; w++) {
+            int from = (int) ((long) rows.rowCount() * w / shares);
+            int to = (int) ((long) rows.rowCount() * (w + 1) / shares);
+            tasks.add(workers.submit(() -> {
+                long[][] adjacency = new long[courseCount][words];
+                for (int r = from; r < to; r++) {
+                    for (int i = rowStart[r]; i < rowStart[r + 1]; i++) {
+                        long[] row = adjacency[columns[i]];
+                        for (int j = rowStart[r]; j < rowStart[r + 1]; j++) {
+                            if (j != i) {
+                                row[columns[j] >>> 6] |= 1L << columns[j];
+                            }
+                        }
+                    }
+                }
+                return adjacency;
+            }));
+        }
+        long[][] adjacency = join(tasks.get(0));
+        for (int w = 1; w < shares; w++) {
+            long[][] share = join(tasks.get(w));
+            for (int c = 0; c < courseCount; c++) {
+                for (int k = 0; k < words; k++) {
+                    adjacency[c][k] |= share[c][k];
+                }
+            }
+        }
+        return adjacency;
+    }
+
+    /** Attempt 0 breaks ties by course ID; the others in an order drawn from the seed. */
+    private int[] order(int courseCount, int attempt) {
+        int[] rank = new int[courseCount];
+        for (int i = 0; i < courseCount; i++) {
+            rank[i] = i;
+        }
+        if (attempt > 0) {
+            SplittableRandom random = new SplittableRandom(seed + attempt);
+            for (int i = courseCount - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swapped = rank[i];
+                rank[i] = rank[j];
+                rank[j] = swapped;
+            }
+        }
+        return rank;
+    }
+
+    private static List<Exam> exams(int[] slotOf, int slots, long[] courseIds, String[] codes, int[] seats,
+                                    Rooms rooms) {
+        List<List<Integer>> bySlot = new ArrayList<>();
+        for (int s = 0; s < slots; s++) {
+            bySlot.add(new ArrayList<>());
+        }
+        List<Exam> exams = new ArrayList<>();
+        for (int c = 0; c < slotOf.length; c++) {
+            if (slotOf[c] >= 0) {
+                bySlot.get(slotOf[c]).add(c);
+            } else if (seats[c] > 0) {
+                exams.add(new Exam(courseIds[c], codes[c], seats[c], 0, List.of()));
+            }
+        }
+        for (int s = 0; s < slots; s++) {
+            List<Integer> slot = bySlot.get(s);
+            int[][] allocated = allocate(slot.stream().mapToInt(c -> seats[c]).toArray(), rooms.capacities());
+            for (int i = 0; i < slot.size(); i++) {
+                int c = slot.get(i);
+                List<String> labels = new ArrayList<>(allocated[i].length);
+                for (int room : allocated[i]) {
+                    labels.add(rooms.labels()[room]);
+                }
+                exams.add(new Exam(courseIds[c], codes[c], seats[c], s + 1, labels));
+            }
+        }
+        exams.sort(Comparator.comparingInt(Exam::slot).thenComparing(Exam::code).thenComparingLong(Exam::courseId));
+        return exams;
+    }
+
+    /**
+     * Seats the exams of a slot, largest first: each takes the smallest free
+     * room it fits in or, when none is large enough, the largest free room
+     * and goes on with the rest of its students. Returns the rooms of every
+     * exam, or null when they run out.
+     */
+    static int[][] allocate(int[] students, int[] capacities) {
+        Integer[] largestFirst = new Integer[students.length];
+        for (int i = 0; i < students.length; i++) {
+            largestFirst[i] = i;
+        }
+        Arrays.sort(largestFirst, (a, b) -> students[a] != students[b] ? Integer.compare(students[b], students[a])
+            : Integer.compare(a, b));
+
+        boolean[] taken = new boolean[capacities.length];
+        int[][] allocated = new int[students.length][];
+        int[] picked = new int[capacities.length];
+        for (int exam : largestFirst) {
+            int remaining = students[exam];
+            int count = 0;
+            while (remaining > 0) {
+                int room = smallestFreeFitting(capacities, taken, remaining);
+                if (room < 0) {
+                    room = largestFree(capacities, taken);
+                    if (room < 0) {
+                        return null;
+                    }
+                }
+                taken[room] = true;
+                picked[count++] = room;
+                remaining -= capacities[room];
+            }
+            allocated[exam] = Arrays.copyOf(picked, count);
+        }
+        return allocated;
+    }
+
+    private static int smallestFreeFitting(int[] capacities, boolean[] taken, int students) {
+        int from = Arrays.binarySearch(capacities, students);
+        if (from < 0) {
+            from = -from - 1;
+        } else {
+            while (from > 0 && capacities[from - 1] == students) {
+                from--;
+            }
+        }
+        for (int room = from; room < capacities.length; room++) {
+            if (!taken[room]) {
+                return room;
+            }
+        }
+        return -1;
+    }
+
+    private static int largestFree(int[] capacities, boolean[] taken) {
+        for (int room = capacities.length - 1; room >= 0; room--) {
+            if (!taken[room]) {
+                return room;
+            }
+        }
+        return -1;
+    }
+
+    /** One attempt: the slot of every course, with each slot's members as a bitset. */
+    private static final class Coloring {
+
+        private final long[][] adjacency;
+        private final int[] seats;
+        private final Rooms rooms;
+        private final int[] rank;
+        private final int words;
+        private final int[] slotOf;
+        private final List<long[]> members = new ArrayList<>();
+        private final List<int[]> load = new ArrayList<>();    // exams and seats of each slot
+
+        Coloring(long[][] adjacency, int[] seats, Rooms rooms, int[] rank) {
+            this.adjacency = adjacency;
+            this.seats = seats;
+            this.rooms = rooms;
+            this.rank = rank;
+            this.words = (seats.length + 63) >>> 6;
+            this.slotOf = new int[seats.length];
+        }
+
+        /**
+         * Colors the exams by saturation, then degree, then rank. Courses
+         * nobody holds a seat in have no exam.
+         */
+        Coloring dsatur() {
+            int count = seats.length;
+            int[] degree = new int[count];
+            for (int c = 0; c < count; c++) {
+                for (long word : adjacency[c]) {
+                    degree[c] += Long.bitCount(word);
+                }
+            }
+            long[][] neighbourSlots = new long[count][words];
+            int[] saturation = new int[count];
+            int uncolored = 0;
+            for (int c = 0; c < count; c++) {
+                boolean seatable = seats[c] > 0 && allocate(new int[]{seats[c]}, rooms.capacities()) != null;
+                slotOf[c] = seatable ? UNCOLORED : UNPLACED;
+                if (seatable) {
+                    uncolored++;
+                }
+            }
+
+            for (; uncolored > 0; uncolored--) {
+                int next = -1;
+                for (int c = 0; c < count; c++) {
+                    if (slotOf[c] == UNCOLORED && (next < 0 || saturation[c] > saturation[next]
+                            || saturation[c] == saturation[next] && (degree[c] > degree[next]
+                            || degree[c] == degree[next] && rank[c] < rank[next]))) {
+                        next = c;
+                    }
+                }
+                int slot = 0;
+                while (slot < members.size() && (isSet(neighbourSlots[next], slot) || !fits(slot, next, -1))) {
+                    slot++;
+                }
+                place(next, slot);
+                long[] neighbours = adjacency[next];
+                for (int k = 0; k < words; k++) {
+                    for (long word = neighbours[k]; word != 0; word &= word - 1) {
+                        int neighbour = (k << 6) + Long.numberOfTrailingZeros(word);
+                        if (slotOf[neighbour] == UNCOLORED && !isSet(neighbourSlots[neighbour], slot)) {
+                            neighbourSlots[neighbour][slot >>> 6] |= 1L << slot;
+                            saturation[neighbour]++;
+                        }
+                    }
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Tries to empty the slots with the fewest exams, one at a time,
+         * removing each slot emptied, until no slot can be emptied or the
+         * rounds run out.
+         */
+        Coloring improve(int rounds) {
+            for (int round = 0; round < rounds; round++) {
+                Integer[] smallestFirst = new Integer[members.size()];
+                for (int s = 0; s < smallestFirst.length; s++) {
+                    smallestFirst[s] = s;
+                }
+                Arrays.sort(smallestFirst, Comparator.comparingInt((Integer s) -> load.get(s)[0])
+                    .thenComparingInt(s -> s));
+                boolean emptied = false;
+                for (int slot : smallestFirst) {
+                    if (empty(slot)) {
+                        removeSlot(slot);
+                        emptied = true;
+                        break;
+                    }
+                }
+                if (!emptied) {
+                    break;
+                }
+            }
+            return this;
+        }
+
+        /** Moves every exam out of the slot, or leaves everything as it was. */
+        private boolean empty(int slot) {
+            int[] savedSlots = slotOf.clone();
+            List<long[]> savedMembers = new ArrayList<>(members.size());
+            List<int[]> savedLoad = new ArrayList<>(load.size());
+            for (int s = 0; s < members.size(); s++) {
+                savedMembers.add(members.get(s).clone());
+                savedLoad.add(load.get(s).clone());
+            }
+
+            long[] exams = members.get(slot).clone();
+            for (int k = 0; k < words; k++) {
+                for (long word = exams[k]; word != 0; word &= word - 1) {
+                    int exam = (k << 6) + Long.numberOfTrailingZeros(word);
+                    if (!moveOut(exam, slot)) {
+                        System.arraycopy(savedSlots, 0, slotOf, 0, slotOf.length);
+                        for (int s = 0; s < members.size(); s++) {
+                            members.set(s, savedMembers.get(s));
+                            load.set(s, savedLoad.get(s));
+                        }
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Moves the exam to the lowest other slot without a conflict that
+         * still fits, or else to one where a single conflicting exam can
+         * itself be moved to a third slot.
+         */
+        private boolean moveOut(int exam, int from) {
+            for (int slot = 0; slot < members.size(); slot++) {
+                if (slot != from && conflictsIn(exam, slot) == 0 && fits(slot, exam, -1)) {
+                    move(exam, slot);
+                    return true;
+                }
+            }
+            for (int slot = 0; slot < members.size(); slot++) {
+                if (slot == from || conflictsIn(exam, slot) != 1) {
+                    continue;
+                }
+                int blocker = firstConflictIn(exam, slot);
+                if (!fits(slot, exam, blocker)) {
+                    continue;
+                }
+                for (int other = 0; other < members.size(); other++) {
+                    if (other != from && other != slot && conflictsIn(blocker, other) == 0
+                            && fits(other, blocker, -1)) {
+                        move(blocker, other);
+                        move(exam, slot);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private int conflictsIn(int exam, int slot) {
+            long[] neighbours = adjacency[exam];
+            long[] slotMembers = members.get(slot);
+            int conflicts = 0;
+            for (int k = 0; k < words; k++) {
+                conflicts += Long.bitCount(neighbours[k] & slotMembers[k]);
+            }
+            return conflicts;
+        }
+
+        private int firstConflictIn(int exam, int slot) {
+            long[] neighbours = adjacency[exam];
+            long[] slotMembers = members.get(slot);
+            for (int k = 0; k < words; k++) {
+                long both = neighbours[k] & slotMembers[k];
+                if (both != 0) {
+                    return (k << 6) + Long.numberOfTrailingZeros(both);
+                }
+            }
+            return -1;
+        }
+
+        /** Whether the slot's exams, with {@code exam} and without {@code leaving}, fit in the rooms. */
+        private boolean fits(int slot, int exam, int leaving) {
+            int[] slotLoad = load.get(slot);
+            int exams = slotLoad[0] + 1 - (leaving >= 0 ? 1 : 0);
+            long students = (long) slotLoad[1] + seats[exam] - (leaving >= 0 ? seats[leaving] : 0);
+            if (exams > rooms.capacities().length || students > rooms.totalCapacity()) {
+                return false;
+            }
+            int[] sizes = new int[exams];
+            int i = 0;
+            long[] slotMembers = members.get(slot);
+            for (int k = 0; k < words; k++) {
+                for (long word = slotMembers[k]; word != 0; word &= word - 1) {
+                    int member = (k << 6) + Long.numberOfTrailingZeros(word);
+                    if (member != leaving) {
+                        sizes[i++] = seats[member];
+                    }
+                }
+            }
+            sizes[i] = seats[exam];
+            return allocate(sizes, rooms.capacities()) != null;
+        }
+
+        private void place(int exam, int slot) {
+            if (slot == members.size()) {
+                members.add(new long[words]);
+                load.add(new int[2]);
+            }
+            members.get(slot)[exam >>> 6] |= 1L << exam;
+            load.get(slot)[0]++;
+            load.get(slot)[1] += seats[exam];
+            slotOf[exam] = slot;
+        }
+
+        private void move(int exam, int slot) {
+            int from = slotOf[exam];
+            members.get(from)[exam >>> 6] &= ~(1L << exam);
+            load.get(from)[0]--;
+            load.get(from)[1] -= seats[exam];
+            place(exam, slot);
+        }
+
+        private void removeSlot(int slot) {
+            members.remove(slot);
+            load.remove(slot);
+            for (int c = 0; c < slotOf.length; c++) {
+                if (slotOf[c] > slot) {
+                    slotOf[c]--;
+                }
+            }
+        }
+
+        private static boolean isSet(long[] bits, int bit) {
+            return (bits[bit >>> 6] & (1L << bit)) != 0;
+        }
+    }
+
+    private static <T> T join(Future<T> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating an exam timetable", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Generating an exam timetable failed: " + e.getCause().getMessage(),
+                e.getCause());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.universite.courses.scheduling;
+
+import com.universite.courses.repository.ScheduleRepository;
+import com.universite.courses.util.AppConfig;
+import com.universite.courses.util.DatabaseManager;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which rooms are taken when, per semester, as one minute-of-week bitmap per
+ * room (7 x 1440 bits, 1.3 KB). Finding free rooms tests a few words of each
+ * room's bitmap instead of comparing schedules.
+ *
+ * <p>A semester is loaded from the database the first time it is asked for
+ * and again once it is older than {@code rooms.index.max-age-ms}, which bounds
+ * how long changes made on other nodes or by bulk SQL go unseen. Schedules
+ * added or deleted on this node are applied as they commit. Occupied minutes
+ * include both ends of a schedule, as {@code Schedule.conflictsWith} does, so
+ * a room is free for a slot exactly when adding the slot would not conflict.
+ */
+@Slf4j
+public class RoomOccupancyIndex {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int WORDS = (7 * MINUTES_PER_DAY + 63) / 64;
+
+    /** A room is identified by building and room; rooms without a building have a null one. */
+    public record Room(String building, String room) {
+    }
+
+    /** A room free for the whole slot; capacity is that of the largest course ever scheduled in it. */
+    public record FreeRoom(String building, String room, int largestCourseCapacity) {
+    }
+
+    private record Slot(Room room, int fromMinute, int toMinute) {
+    }
+
+    private record KnownRoom(Room room, FreeRoom free) {
+    }
+
+    private static final Comparator<Room> ROOM_ORDER = Comparator
+        .comparing(Room::building, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+        .thenComparing(Room::room, String.CASE_INSENSITIVE_ORDER);
+
+    private final long maxAgeMillis;
+    private final Map<String, SemesterRooms> semesters = new ConcurrentHashMap<>();
+    private volatile List<KnownRoom> knownRooms = List.of();    // in building and room order
+
+    public RoomOccupancyIndex() {
+        this.maxAgeMillis = AppConfig.getLong("rooms.index.max-age-ms", 300_000);
+    }
+
+    /**
+     * Rooms free from {@code start} to {@code end} on the day in the semester,
+     * in building and room order; {@code building} and {@code minCapacity} are
+     * optional filters.
+     */
+    public List<FreeRoom> findFreeRooms(String semester, DayOfWeek day, LocalTime start, LocalTime end,
+                                        String building, Integer minCapacity) {
+        int from = minuteOfWeek(day, start);
+        int to = minuteOfWeek(day, end);
+        SemesterRooms rooms = semesterRooms(semester);
+
+        List<FreeRoom> free = new ArrayList<>();
+        synchronized (rooms) {
+            for (KnownRoom known : knownRooms) {
+                if (building != null && !building.equalsIgnoreCase(known.room().building())) {
+                    continue;
+                }
+                if (minCapacity != null && known.free().largestCourseCapacity() < minCapacity) {
+                    continue;
+                }
+                long[] occupied = rooms.bitmaps.get(known.room());
+                if (occupied == null || !anySet(occupied, from, to)) {
+                    free.add(known.free());
+                }
+            }
+        }
+        return free;
+    }
+
+    /** Applies a committed schedule; semesters not loaded yet will read it from the database. */
+    public void occupy(String semester, long scheduleId, Room room, DayOfWeek day, LocalTime start, LocalTime end,
+                       int courseCapacity) {
+        learnRoom(room, courseCapacity);
+
+        SemesterRooms loaded = semesters.get(semester);
+        if (loaded == null) {
+            return;
+        }
+        synchronized (loaded) {
+            Slot slot = new Slot(room, minuteOfWeek(day, start), minuteOfWeek(day, end));
+            loaded.slots.put(scheduleId, slot);
+            set(loaded.bitmaps.computeIfAbsent(room, r -> new long[WORDS]), slot.fromMinute(), slot.toMinute());
+        }
+    }
+
+    /** Applies a committed schedule deletion; the room's bitmap is rebuilt from its remaining schedules. */
+    public void release(String semester, long scheduleId) {
+        SemesterRooms loaded = semesters.get(semester);
+        if (loaded == null) {
+            return;
+        }
+        synchronized (loaded) {
+            Slot removed = loaded.slots.remove(scheduleId);
+            if (removed == null) {
+                return;
+            }
+            long[] bitmap = new long[WORDS];
+            for (Slot slot : loaded.slots.values()) {
+                if (slot.room().equals(removed.room())) {
+                    set(bitmap, slot.fromMinute(), slot.toMinute());
+                }
+            }
+            loaded.bitmaps.put(removed.room(), bitmap);
+        }
+    }
+
+    /** Drops the semester, after a bulk change such as a rollover; the next lookup reloads it. */
+    public void invalidate(String semester) {
+        semesters.remove(semester);
+    }
+
+    /** Drops every semester, when changes may have been missed. */
+    public void invalidateAll() {
+        semesters.clear();
+    }
+
+    private static final class SemesterRooms {
+        private final Map<Long, Slot> slots = new HashMap<>();
+        private final Map<Room, long[]> bitmaps = new HashMap<>();
+        private long loadedAt;
+    }
+
+    /**
+     * The semester's rooms, loaded while holding their lock: a schedule that
+     * commits during the load is applied after it, so none is lost.
+     */
+    private SemesterRooms semesterRooms(String semester) {
+        SemesterRooms rooms = semesters.computeIfAbsent(semester, s -> new SemesterRooms());
+        synchronized (rooms) {
+            if (rooms.loadedAt == 0 || System.currentTimeMillis() - rooms.loadedAt > maxAgeMillis) {
+                load(semester, rooms);
+            }
+        }
+        return rooms;
+    }
+
+    private void load(String semester, SemesterRooms rooms) {
+        long start = System.nanoTime();
+        DatabaseManager.withEntityManager(em -> {
+            ScheduleRepository repository = new ScheduleRepository(em);
+            Map<Room, Integer> known = new HashMap<>();
+            for (Object[] row : repository.findRoomsWithLargestCapacity()) {
+                known.put(new Room((String) row[0], (String) row[1]), ((Number) row[2]).intValue());
+            }
+            setKnownRooms(known);
+
+            rooms.slots.clear();
+            rooms.bitmaps.clear();
+            for (Object[] row : repository.findRoomSlotsBySemester(semester)) {
+                DayOfWeek day = (DayOfWeek) row[3];
+                Slot slot = new Slot(new Room((String) row[1], (String) row[2]),
+                    minuteOfWeek(day, (LocalTime) row[4]), minuteOfWeek(day, (LocalTime) row[5]));
+                rooms.slots.put((Long) row[0], slot);
+                set(rooms.bitmaps.computeIfAbsent(slot.room(), r -> new long[WORDS]), slot.fromMinute(), slot.toMinute());
+            }
+            return null;
+        });
+        rooms.loadedAt = System.currentTimeMillis();
+        log.info("Loaded room occupancy for {}: {} schedules in {} of {} rooms ({} ms)", semester,
+            rooms.slots.size(), rooms.bitmaps.size(), knownRooms.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private synchronized void learnRoom(Room room, int courseCapacity) {
+        Map<Room, Integer> rooms = new HashMap<>();
+        for (KnownRoom known : knownRooms) {
+            rooms.put(known.room(), known.free().largestCourseCapacity());
+        }
+        rooms.merge(room, courseCapacity, Math::max);
+        setKnownRooms(rooms);
+    }
+
+    private synchronized void setKnownRooms(Map<Room, Integer> rooms) {
+        knownRooms = rooms.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey(ROOM_ORDER))
+            .map(known -> new KnownRoom(known.getKey(),
+                new FreeRoom(known.getKey().building(), known.getKey().room(), known.getValue())))
+            .toList();
+    }
+
+    private static int minuteOfWeek(DayOfWeek day, LocalTime time) {
+        return (day.getValue() - 1) * MINUTES_PER_DAY + time.getHour() * 60 + time.getMinute();
+    }
+
+    /** Sets minutes {@code from} to {@code to}, both included. */
+    private static void set(long[] bitmap, int from, int to) {
+        for (int word = from >>> 6; word <= to >>> 6; word++) {
+            bitmap[word] |= mask(word, from, to);
+        }
+    }
+
+    private static boolean anySet(long[] bitmap, int from, int to) {
+        for (int word = from >>> 6; word <= to >>> 6; word++) {
+            if ((bitmap[word] & mask(word, from, to)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** The bits of minutes {@code from} to {@code to} that fall in the word. */
+    private static long mask(int word, int from, int to) {
+        int first = Math.max(from, word << 6) & 63;
+        int last = Math.min(to, (word << 6) + 63) & 63;
+        return (-1L << first) & (-1L >>> (63 - last));
+    }
+}
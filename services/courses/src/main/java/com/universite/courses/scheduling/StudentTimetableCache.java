@@ -0,0 +1,164 @@
+package com.universite.courses.scheduling;
+
+import com.universite.courses.repository.StudentCourseRepository;
+import com.universite.courses.util.AppConfig;
+import com.universite.courses.util.DatabaseManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Weekly timetables of recently seen students, built with one query and kept
+ * as immutable lists until something changes them. Enrolling or dropping
+ * invalidates the student's timetables; a schedule or course change
+ * invalidates those of every cached student taking the course.
+ *
+ * <p>A timetable loaded while an invalidation that concerns it commits is
+ * returned but not cached: every load notes the invalidation counter of the
+ * student's stripe and the course change counter first, and only caches its
+ * result if neither moved. Timetables are loaded from the primary, so a
+ * student sees their own enrollment right away, and expire after
+ * {@code timetable.cache.ttl-ms} to bound how long a change made on another
+ * node goes unseen.
+ */
+public class StudentTimetableCache {
+
+    private static final int STRIPES = 1024;
+
+    /** One weekly meeting of a course; day and times are null for a course without schedules. */
+    public record Slot(long courseId, String courseCode, String courseName, Integer credits, DayOfWeek dayOfWeek,
+                       LocalTime startTime, LocalTime endTime, String room, String building, String scheduleType) {
+    }
+
+    /** The student's slots in the semester, by day and start time. */
+    public record Timetable(long studentId, String semester, List<Slot> slots, long builtAt) {
+    }
+
+    private static final Comparator<Slot> WEEK_ORDER = Comparator
+        .comparing(Slot::dayOfWeek, Comparator.nullsLast(Comparator.naturalOrder()))
+        .thenComparing(Slot::startTime, Comparator.nullsLast(Comparator.naturalOrder()))
+        .thenComparing(Slot::courseCode);
+
+    private final int maxStudents;
+    private final long ttlMillis;
+    private final AtomicLongArray studentInvalidations = new AtomicLongArray(STRIPES);
+    private final AtomicLong courseInvalidations = new AtomicLong();
+
+    // Guarded by this: timetables by student and semester in access order, and
+    // the cached students of each course
+    private final LinkedHashMap<Long, Map<String, Timetable>> students;
+    private final Map<Long, Set<Long>> studentsByCourse = new HashMap<>();
+
+    public StudentTimetableCache() {
+        this.maxStudents = Math.max(1, AppConfig.getInt("timetable.cache.max-students", 50_000));
+        this.ttlMillis = AppConfig.getLong("timetable.cache.ttl-ms", 60_000);
+        this.students = new LinkedHashMap<>(1024, 0.75f, true);
+    }
+
+    public Timetable get(long studentId, String semester) {
+        synchronized (this) {
+            Map<String, Timetable> cached = students.get(studentId);
+            Timetable timetable = cached == null ? null : cached.get(semester);
+            if (timetable != null && System.currentTimeMillis() - timetable.builtAt() <= ttlMillis) {
+                return timetable;
+            }
+        }
+
+        int stripe = stripe(studentId);
+        long studentStamp = studentInvalidations.get(stripe);
+        long courseStamp = courseInvalidations.get();
+        Timetable timetable = load(studentId, semester);
+        synchronized (this) {
+            if (studentInvalidations.get(stripe) == studentStamp && courseInvalidations.get() == courseStamp) {
+                put(timetable);
+            }
+        }
+        return timetable;
+    }
+
+    /** After the student enrolled or dropped; applies to every semester. */
+    public void invalidateStudent(long studentId) {
+        studentInvalidations.incrementAndGet(stripe(studentId));
+        synchronized (this) {
+            remove(studentId);
+        }
+    }
+
+    /** After the course's schedules, name or credits changed. */
+    public void invalidateCourse(long courseId) {
+        courseInvalidations.incrementAndGet();
+        synchronized (this) {
+            Set<Long> taking = studentsByCourse.remove(courseId);
+            if (taking != null) {
+                for (Long studentId : taking) {
+                    remove(studentId);
+                }
+            }
+        }
+    }
+
+    /** After a bulk change such as a lottery draw; drops every cached timetable. */
+    public void invalidateAll() {
+        courseInvalidations.incrementAndGet();
+        synchronized (this) {
+            students.clear();
+            studentsByCourse.clear();
+        }
+    }
+
+    private Timetable load(long studentId, String semester) {
+        List<Object[]> rows = DatabaseManager.withEntityManager(em ->
+            new StudentCourseRepository(em).findTimetable(studentId, semester));
+        List<Slot> slots = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            slots.add(new Slot(((Number) row[0]).longValue(), (String) row[1], (String) row[2], (Integer) row[3],
+                (DayOfWeek) row[4], (LocalTime) row[5], (LocalTime) row[6], (String) row[7], (String) row[8],
+                (String) row[9]));
+        }
+        slots.sort(WEEK_ORDER);
+        return new Timetable(studentId, semester, List.copyOf(slots), System.currentTimeMillis());
+    }
+
+    private void put(Timetable timetable) {
+        students.computeIfAbsent(timetable.studentId(), id -> new HashMap<>(2))
+            .put(timetable.semester(), timetable);
+        for (Slot slot : timetable.slots()) {
+            studentsByCourse.computeIfAbsent(slot.courseId(), id -> new HashSet<>()).add(timetable.studentId());
+        }
+        if (students.size() > maxStudents) {
+            remove(students.keySet().iterator().next());
+        }
+    }
+
+    private void remove(Long studentId) {
+        Map<String, Timetable> removed = students.remove(studentId);
+        if (removed == null) {
+            return;
+        }
+        for (Timetable timetable : removed.values()) {
+            for (Slot slot : timetable.slots()) {
+                Set<Long> taking = studentsByCourse.get(slot.courseId());
+                if (taking != null) {
+                    taking.remove(studentId);
+                    if (taking.isEmpty()) {
+                        studentsByCourse.remove(slot.courseId());
+                    }
+                }
+            }
+        }
+    }
+
+    private static int stripe(long studentId) {
+        return (int) Math.floorMod(studentId, (long) STRIPES);
+    }
+}
@@ -0,0 +1,296 @@
+package com.universite.courses.service;
+
+import com.universite.courses.catalog.CatalogReplica;
+import com.universite.courses.dto.AcademicSummaryDTO;
+import com.universite.courses.dto.CompletionResultDTO;
+import com.universite.courses.dto.CounterReconciliationDTO;
+import com.universite.courses.dto.CourseChangesDTO;
+import com.universite.courses.dto.CourseDTO;
+import com.universite.courses.dto.CourseSuggestionDTO;
+import com.universite.courses.dto.EnrollmentDTO;
+import com.universite.courses.dto.EnrollmentEventDTO;
+import com.universite.courses.dto.EnrollmentStatsDTO;
+import com.universite.courses.dto.ExamTimetableDTO;
+import com.universite.courses.dto.FreeRoomDTO;
+import com.universite.courses.dto.GradeDTO;
+import com.universite.courses.dto.LotterySubmissionDTO;
+import com.universite.courses.dto.LotteryWindowDTO;
+import com.universite.courses.dto.RegistrationStatusDTO;
+import com.universite.courses.dto.RelatedCourseDTO;
+import com.universite.courses.dto.RolloverOptionsDTO;
+import com.universite.courses.dto.RolloverResultDTO;
+import com.universite.courses.dto.ScheduleDTO;
+import com.universite.courses.dto.TimetableDTO;
+import com.universite.courses.dto.WriteConflictStatsDTO;
+import jakarta.jws.WebService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The course service of a catalog replica node: the course and schedule
+ * reads, answered from the {@link CatalogReplica} in memory, with the same
+ * results as the primary's. Everything else needs the database (writes,
+ * enrollments, lotteries, analytics) and fails with a fault naming the primary.
+ */
+@WebService(
+    serviceName = "CourseService",
+    portName = "CourseServicePort",
+    targetNamespace = "http://courses.universite.com/",
+    endpointInterface = "com.universite.courses.service.ICourseService",
+    wsdlLocation = "META-INF/wsdl/CourseService.wsdl"
+)
+@Slf4j
+public class CatalogReplicaService implements ICourseService {
+
+    private final CatalogReplica replica;
+    private final SoapResponseCache responseCache;
+
+    public CatalogReplicaService(CatalogReplica replica) {
+        this.replica = replica;
+        this.responseCache = new SoapResponseCache();
+        if (responseCache.isEnabled()) {
+            replica.addListener(responseCache);
+        }
+    }
+
+    public SoapResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    @Override
+    public CourseDTO getCourse(Long courseId) {
+        try {
+            log.info("Fetching course with ID: {}", courseId);
+
+            return (courseId == null ? Optional.<CourseDTO>empty() : replica.getCourse(courseId))
+                .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
+
+        } catch (Exception e) {
+            log.error("Error fetching course: {}", e.getMessage());
+            throw new RuntimeException("Failed to fetch course: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public CourseDTO getCourseByCode(String code) {
+        try {
+            log.info("Fetching course with code: {}", code);
+
+            return replica.getCourseByCode(code)
+                .orElseThrow(() -> new IllegalArgumentException("Course not found with code: " + code));
+
+        } catch (Exception e) {
+            log.error("Error fetching course by code: {}", e.getMessage());
+            throw new RuntimeException("Failed to fetch course: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<CourseDTO> listCourses() {
+        log.info("Fetching all courses");
+        return replica.listCourses();
+    }
+
+    @Override
+    public List<CourseDTO> listCoursesBySemester(String semester) {
+        log.info("Fetching courses for semester: {}", semester);
+        return replica.listCoursesBySemester(semester);
+    }
+
+    @Override
+    public List<CourseDTO> listCoursesByDepartment(String department) {
+        log.info("Fetching courses for department: {}", department);
+        return replica.listCoursesByDepartment(department);
+    }
+
+    @Override
+    public List<CourseDTO> listAvailableCourses() {
+        log.info("Fetching available courses");
+        return replica.listAvailableCourses();
+    }
+
+    /** In the primary's order: by day, which it stores and sorts by name, then start time. */
+    @Override
+    public List<ScheduleDTO> getScheduleByCourse(Long courseId) {
+        log.info("Fetching schedules for course ID: {}", courseId);
+        if (courseId == null) {
+            return List.of();
+        }
+        return replica.getCourse(courseId)
+            .map(course -> course.getSchedules().stream()
+                .sorted(Comparator.comparing((ScheduleDTO schedule) -> schedule.getDayOfWeek().name())
+                    .thenComparing(ScheduleDTO::getStartTime))
+                .collect(Collectors.toList()))
+            .orElse(List.of());
+    }
+
+    @Override
+    public String health() {
+        return "Courses Service catalog replica is running, at feed version " + replica.getVersion();
+    }
+
+    // Everything below needs the primary
+
+    @Override
+    public CourseDTO createCourse(String code, String name, String description, Integer credits, String semester,
+                                  Integer capacity, String department, String level) {
+        throw readOnly("createCourse");
+    }
+
+    @Override
+    public CourseDTO updateCourse(Long courseId, String name, String description, Integer credits,
+                                  Integer capacity) {
+        throw readOnly("updateCourse");
+    }
+
+    @Override
+    public boolean deleteCourse(Long courseId) {
+        throw readOnly("deleteCourse");
+    }
+
+    @Override
+    public List<RelatedCourseDTO> getRelatedCourses(Long courseId) {
+        throw readOnly("getRelatedCourses");
+    }
+
+    @Override
+    public List<CourseSuggestionDTO> suggestCourses(String prefix, Integer limit) {
+        throw readOnly("suggestCourses");
+    }
+
+    @Override
+    public ScheduleDTO addSchedule(Long courseId, String dayOfWeek, String startTime, String endTime, String room,
+                                   String building, String scheduleType) {
+        throw readOnly("addSchedule");
+    }
+
+    @Override
+    public boolean deleteSchedule(Long scheduleId) {
+        throw readOnly("deleteSchedule");
+    }
+
+    @Override
+    public List<FreeRoomDTO> findFreeRooms(String semester, String dayOfWeek, String startTime, String endTime,
+                                           String building, Integer minCapacity) {
+        throw readOnly("findFreeRooms");
+    }
+
+    @Override
+    public ExamTimetableDTO generateExamTimetable(String semester) {
+        throw readOnly("generateExamTimetable");
+    }
+
+    @Override
+    public EnrollmentDTO enrollStudent(Long studentId, Long courseId) {
+        throw readOnly("enrollStudent");
+    }
+
+    @Override
+    public boolean dropCourse(Long studentId, Long courseId) {
+        throw readOnly("dropCourse");
+    }
+
+    @Override
+    public RegistrationStatusDTO getRegistrationStatus() {
+        throw readOnly("getRegistrationStatus");
+    }
+
+    @Override
+    public List<EnrollmentDTO> getStudentCourses(Long studentId) {
+        throw readOnly("getStudentCourses");
+    }
+
+    @Override
+    public TimetableDTO getStudentTimetable(Long studentId, String semester) {
+        throw readOnly("getStudentTimetable");
+    }
+
+    @Override
+    public List<EnrollmentDTO> getCourseEnrollments(Long courseId) {
+        throw readOnly("getCourseEnrollments");
+    }
+
+    @Override
+    public AcademicSummaryDTO getStudentAcademicSummary(Long studentId) {
+        throw readOnly("getStudentAcademicSummary");
+    }
+
+    @Override
+    public LotteryWindowDTO openLottery(String semester, String closesAt) {
+        throw readOnly("openLottery");
+    }
+
+    @Override
+    public LotterySubmissionDTO submitLotteryPreferences(Long studentId, String semester, List<Long> courseIds) {
+        throw readOnly("submitLotteryPreferences");
+    }
+
+    @Override
+    public LotteryWindowDTO closeLottery(String semester) {
+        throw readOnly("closeLottery");
+    }
+
+    @Override
+    public LotteryWindowDTO getLottery(String semester) {
+        throw readOnly("getLottery");
+    }
+
+    @Override
+    public boolean assignTeacher(Long teacherId, Long courseId, String role) {
+        throw readOnly("assignTeacher");
+    }
+
+    @Override
+    public List<CourseDTO> getTeacherCourses(Long teacherId) {
+        throw readOnly("getTeacherCourses");
+    }
+
+    @Override
+    public RolloverResultDTO rolloverSemester(String fromSemester, String toSemester, RolloverOptionsDTO options) {
+        throw readOnly("rolloverSemester");
+    }
+
+    @Override
+    public CompletionResultDTO completeCourse(Long courseId, List<GradeDTO> grades) {
+        throw readOnly("completeCourse");
+    }
+
+    @Override
+    public CompletionResultDTO closeSemester(String semester) {
+        throw readOnly("closeSemester");
+    }
+
+    @Override
+    public List<EnrollmentEventDTO> getEnrollmentEventsSince(Long offset, Integer max) {
+        throw readOnly("getEnrollmentEventsSince");
+    }
+
+    @Override
+    public CourseChangesDTO getCourseChangesSince(Long version) {
+        throw readOnly("getCourseChangesSince");
+    }
+
+    @Override
+    public EnrollmentStatsDTO getEnrollmentStats(String department, String level, String semester) {
+        throw readOnly("getEnrollmentStats");
+    }
+
+    @Override
+    public WriteConflictStatsDTO getWriteConflictStats() {
+        throw readOnly("getWriteConflictStats");
+    }
+
+    @Override
+    public CounterReconciliationDTO getCounterReconciliation() {
+        throw readOnly("getCounterReconciliation");
+    }
+
+    private UnsupportedOperationException readOnly(String operation) {
+        return new UnsupportedOperationException(operation + " is not served by a catalog replica, "
+            + "call the primary at " + replica.getPrimaryUrl());
+    }
+}
@@ -1,41 +1,255 @@
-package main.java.com.universite.courses.service;
+package com.universite.courses.service;
 
+import com.universite.courses.dto.AcademicSummaryDTO;
+import com.universite.courses.dto.CompletionResultDTO;
+import com.universite.courses.dto.CounterReconciliationDTO;
+import com.universite.courses.dto.CourseChangeDTO;
+import com.universite.courses.dto.CourseChangesDTO;
 import com.universite.courses.dto.CourseDTO;
+import com.universite.courses.dto.CourseSuggestionDTO;
 import com.universite.courses.dto.EnrollmentDTO;
+import com.universite.courses.dto.EnrollmentEventDTO;
+import com.universite.courses.dto.EnrollmentStatsDTO;
+import com.universite.courses.dto.ExamDTO;
+import com.universite.courses.dto.ExamTimetableDTO;
+import com.universite.courses.dto.FreeRoomDTO;
+import com.universite.courses.dto.GradeCountDTO;
+import com.universite.courses.dto.GradeDTO;
+import com.universite.courses.dto.LotterySubmissionDTO;
+import com.universite.courses.dto.LotteryWindowDTO;
+import com.universite.courses.dto.RegistrationStatusDTO;
+import com.universite.courses.dto.RelatedCourseDTO;
+import com.universite.courses.dto.RolloverOptionsDTO;
+import com.universite.courses.dto.RolloverResultDTO;
 import com.universite.courses.dto.ScheduleDTO;
+import com.universite.courses.dto.TimetableDTO;
+import com.universite.courses.dto.TimetableSlotDTO;
+import com.universite.courses.dto.WriteConflictStatsDTO;
+import com.universite.courses.analytics.CoEnrollmentIndex;
+import com.universite.courses.analytics.EnrollmentStatsAggregator;
+import com.universite.courses.catalog.CourseSuggestionIndex;
 import com.universite.courses.entity.*;
+import com.universite.courses.events.CacheInvalidationChannel;
+import com.universite.courses.events.CacheInvalidationChannel.Kind;
+import com.universite.courses.events.CourseChangeFeed;
+import com.universite.courses.events.EnrollmentEvent;
+import com.universite.courses.events.EnrollmentEventPipeline;
+import com.universite.courses.jobs.EnrollmentCounterReconciler;
+import com.universite.courses.lottery.LotteryDraw;
+import com.universite.courses.registration.EnrollmentMembershipFilter;
+import com.universite.courses.registration.RegistrationGate;
 import com.universite.courses.repository.*;
+import com.universite.courses.repository.CompletionRepository.Completion;
+import com.universite.courses.scheduling.ExamTimetabler;
+import com.universite.courses.scheduling.RoomOccupancyIndex;
+import com.universite.courses.scheduling.StudentTimetableCache;
+import com.universite.courses.util.AppConfig;
+import com.universite.courses.util.DatabaseManager;
 import com.universite.courses.util.EntityMapper;
+import com.universite.courses.util.GradeScale;
+import com.universite.courses.util.RetryPolicy;
 import jakarta.jws.WebService;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
 import lombok.extern.slf4j.Slf4j;
 
 import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @WebService(
     serviceName = "CourseService",
     portName = "CourseServicePort",
     targetNamespace = "http://courses.universite.com/",
-    endpointInterface = "com.universite.courses.service.ICourseService"
+    endpointInterface = "com.universite.courses.service.ICourseService",
+    // Generated by wsgen at build time instead of by the runtime at startup
+    wsdlLocation = "META-INF/wsdl/CourseService.wsdl"
 )
 @Slf4j
 public class CourseServiceImpl implements ICourseService {
     
-    private final CourseRepository courseRepository;
-    private final ScheduleRepository scheduleRepository;
-    private final StudentCourseRepository studentCourseRepository;
-    private final TeacherCourseRepository teacherCourseRepository;
+    private static final int MAX_EVENTS_PER_CALL = 1000;
+    private static final int MAX_CHANGES_PER_CALL = 1000;
+    private static final int MAX_ROLLOVER_CONFLICTS = 100;
+    private static final int DEFAULT_SUGGESTIONS = 10;
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final String SEMESTER_FORMAT = "^(Fall|Spring|Summer)\\s\\d{4}$";
+    
     private final EntityMapper entityMapper;
+    private final RetryPolicy retryPolicy;
+    private final EnrollmentEventPipeline events;
+    private final EnrollmentCounterReconciler reconciler;
+    private final CourseChangeFeed changeFeed;
+    private final CacheInvalidationChannel invalidations;
+    private final RoomOccupancyIndex roomIndex;
+    private final StudentTimetableCache timetables;
+    private final ExamTimetabler examTimetabler;
+    private final LotteryDraw lotteryDraw;
+    private final RegistrationGate registrationGate;
+    private final EnrollmentMembershipFilter membership;
+    private final CoEnrollmentIndex relatedCourses;
+    private final CourseSuggestionIndex suggestions;
+    private final SoapResponseCache responseCache;
+    private final int maxLotteryPreferences;
+    private final int degreeCredits;
+    
+    public CourseServiceImpl() {
+        this(null, null, new CourseChangeFeed());
+    }
     
-    public CourseServiceImpl(EntityManager entityManager) {
-        this.courseRepository = new CourseRepository(entityManager);
-        this.scheduleRepository = new ScheduleRepository(entityManager);
-        this.studentCourseRepository = new StudentCourseRepository(entityManager);
-        this.teacherCourseRepository = new TeacherCourseRepository(entityManager);
+    public CourseServiceImpl(EnrollmentEventPipeline events) {
+        this(events, null, new CourseChangeFeed());
+    }
+    
+    /**
+     * @param events     enrollment event log and its consumers, served by
+     *                   getEnrollmentEventsSince and getEnrollmentStats, or null
+     *                   when this node does not host them
+     * @param reconciler enrollment counter reconciliation reported by
+     *                   getCounterReconciliation, or null when it does not run here
+     * @param changeFeed recent course changes served by getCourseChangesSince;
+     *                   the reconciler should share it, since its repairs
+     *                   change seat counts too
+     */
+    public CourseServiceImpl(EnrollmentEventPipeline events, EnrollmentCounterReconciler reconciler,
+                             CourseChangeFeed changeFeed) {
+        this(events, reconciler, changeFeed, null);
+    }
+    
+    /**
+     * @param invalidations channel to the other nodes of the service, which
+     *                      this node's writes are published on and whose
+     *                      writes {@link #applyInvalidations} applies here,
+     *                      or null when it runs alone
+     */
+    public CourseServiceImpl(EnrollmentEventPipeline events, EnrollmentCounterReconciler reconciler,
+                             CourseChangeFeed changeFeed, CacheInvalidationChannel invalidations) {
         this.entityMapper = new EntityMapper();
+        this.retryPolicy = RetryPolicy.fromConfig();
+        this.events = events;
+        this.reconciler = reconciler;
+        this.changeFeed = changeFeed;
+        this.invalidations = invalidations;
+        this.roomIndex = new RoomOccupancyIndex();
+        this.timetables = new StudentTimetableCache();
+        this.examTimetabler = new ExamTimetabler();
+        this.lotteryDraw = new LotteryDraw();
+        this.registrationGate = new RegistrationGate();
+        this.membership = new EnrollmentMembershipFilter();
+        this.membership.reload();
+        this.relatedCourses = new CoEnrollmentIndex();
+        this.relatedCourses.start();
+        this.suggestions = new CourseSuggestionIndex();
+        this.suggestions.reload();
+        this.responseCache = new SoapResponseCache();
+        if (responseCache.isEnabled()) {
+            changeFeed.addListener(responseCache);
+        }
+        this.maxLotteryPreferences = Math.max(1, AppConfig.getInt("lottery.max-preferences", 10));
+        this.degreeCredits = Math.max(1, AppConfig.getInt("academic.degree-credits", 120));
+    }
+    
+    /**
+     * Every SOAP call gets its own EntityManager: they are not thread-safe and
+     * a long-lived one would serve stale entities to concurrent requests.
+     * Reads go to the read replica when one is configured and fresh enough.
+     */
+    private <T> T read(Function<EntityManager, T> work) {
+        return DatabaseManager.withReadEntityManager(work);
+    }
+    
+    /**
+     * Publishes the course's state to the change feed and the suggestion
+     * index once the transaction commits; the version Hibernate bumps on
+     * flush orders concurrent changes. {@code details} when more than its
+     * seats changed.
+     */
+    private void publishChange(EntityManager em, Course course, boolean details) {
+        DatabaseManager.afterCommit(em, () -> {
+            changeFeed.publish(course, details);
+            suggestions.put(course);
+            invalidateOnOtherNodes(Kind.SEATS, course.getId());
+        });
+    }
+    
+    /** Tells the other nodes, if any, what to drop from their caches; call it once the change committed. */
+    private void invalidateOnOtherNodes(Kind kind, Object key) {
+        if (invalidations != null) {
+            invalidations.publish(kind, key);
+        }
+    }
+    
+    /**
+     * Applies other nodes' writes to this node's caches. Courses they changed
+     * are reloaded from the primary with one query and published to the
+     * change feed, so it lists changes made on every node.
+     */
+    public void applyInvalidations(List<CacheInvalidationChannel.Message> messages) {
+        Set<Long> changedCourses = new HashSet<>();
+        Set<Long> changedDetails = new HashSet<>();
+        for (CacheInvalidationChannel.Message message : messages) {
+            switch (message.kind()) {
+                case COURSE -> {
+                    timetables.invalidateCourse(message.id());
+                    changedCourses.add(message.id());
+                    changedDetails.add(message.id());
+                }
+                case SEATS -> changedCourses.add(message.id());
+                case STUDENT -> timetables.invalidateStudent(message.id());
+                case ENROLLMENT -> {
+                    String[] ids = message.key().split(":");
+                    membership.add(Long.parseLong(ids[0]), Long.parseLong(ids[1]));
+                }
+                case ROOMS -> roomIndex.invalidate(message.key());
+                case RESYNC -> {
+                    changeFeed.requireResync(message.key() + " on another node");
+                    suggestions.reload();
+                }
+                case BULK_ENROLLMENTS -> {
+                    timetables.invalidateAll();
+                    membership.reload();
+                }
+                case ALL -> {
+                    timetables.invalidateAll();
+                    membership.reload();
+                    roomIndex.invalidateAll();
+                    suggestions.reload();
+                    changeFeed.requireResync(message.key());
+                }
+            }
+        }
+        if (!changedCourses.isEmpty()) {
+            List<Course> courses = DatabaseManager.withEntityManager(em ->
+                new CourseRepository(em).findByIds(changedCourses));
+            courses.forEach(course -> changeFeed.publish(course, changedDetails.contains(course.getId())));
+            courses.forEach(suggestions::put);
+            if (courses.size() < changedCourses.size()) {
+                courses.forEach(course -> changedCourses.remove(course.getId()));
+                changedCourses.forEach(suggestions::remove);
+                changeFeed.requireResync("courses removed on another node");
+            }
+        }
+    }
+    
+    /**
+     * Runs a write in a single transaction, retried when a versioned entity
+     * was changed concurrently. The work must be safe to re-run from scratch.
+     */
+    private <T> T write(String operation, Function<EntityManager, T> work) {
+        return retryPolicy.execute(operation, () -> DatabaseManager.inTransaction(work));
     }
     
     @Override
@@ -45,33 +259,40 @@ public class CourseServiceImpl implements ICourseService {
         try {
             log.info("Creating course: {}", code);
             
-            // Validation
-            if (courseRepository.existsByCode(code)) {
-                throw new IllegalArgumentException("Course with code " + code + " already exists");
-            }
-            
-            if (capacity < 10 || capacity > 100) {
-                throw new IllegalArgumentException("Capacity must be between 10 and 100");
-            }
-            
-            // Create course entity
-            Course course = new Course();
-            course.setCode(code);
-            course.setName(name);
-            course.setDescription(description);
-            course.setCredits(credits);
-            course.setSemester(semester);
-            course.setCapacity(capacity);
-            course.setDepartment(department);
-            course.setLevel(level);
-            course.setActive(true);
-            course.setEnrolled(0);
-            
-            // Save course
-            course = courseRepository.save(course);
+            CourseDTO created = write("createCourse", em -> {
+                CourseRepository courseRepository = new CourseRepository(em);
+                
+                // Validation
+                if (courseRepository.existsByCodeAndSemester(code, semester)) {
+                    throw new IllegalArgumentException("Course with code " + code + " already exists in " + semester);
+                }
+                
+                if (capacity < 10 || capacity > 100) {
+                    throw new IllegalArgumentException("Capacity must be between 10 and 100");
+                }
+                
+                // Create course entity
+                Course course = new Course();
+                course.setCode(code);
+                course.setName(name);
+                course.setDescription(description);
+                course.setCredits(credits);
+                course.setSemester(semester);
+                course.setCapacity(capacity);
+                course.setDepartment(department);
+                course.setLevel(level);
+                course.setActive(true);
+                course.setEnrolled(0);
+                
+                // Save course
+                course = courseRepository.save(course);
+                new OutboxRepository(em).append(OutboxEvent.forCourse("COURSE_UPSERTED", course));
+                publishChange(em, course, true);
+                return entityMapper.toDTO(course);
+            });
             
             log.info("Course created successfully: {}", code);
-            return entityMapper.toDTO(course);
+            return created;
             
         } catch (Exception e) {
             log.error("Error creating course: {}", e.getMessage());
@@ -84,10 +305,12 @@ public class CourseServiceImpl implements ICourseService {
         try {
             log.info("Fetching course with ID: {}", courseId);
             
-            Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
-            
-            return entityMapper.toDTO(course);
+            return read(em -> {
+                Course course = new CourseRepository(em).findById(courseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
+                
+                return entityMapper.toDTO(course);
+            });
             
         } catch (Exception e) {
             log.error("Error fetching course: {}", e.getMessage());
@@ -100,10 +323,12 @@ public class CourseServiceImpl implements ICourseService {
         try {
             log.info("Fetching course with code: {}", code);
             
-            Course course = courseRepository.findByCode(code)
-                .orElseThrow(() -> new IllegalArgumentException("Course not found with code: " + code));
-            
-            return entityMapper.toDTO(course);
+            return read(em -> {
+                Course course = new CourseRepository(em).findByCode(code)
+                    .orElseThrow(() -> new IllegalArgumentException("Course not found with code: " + code));
+                
+                return entityMapper.toDTO(course);
+            });
             
         } catch (Exception e) {
             log.error("Error fetching course by code: {}", e.getMessage());
@@ -117,32 +342,43 @@ public class CourseServiceImpl implements ICourseService {
         try {
             log.info("Updating course with ID: {}", courseId);
             
-            Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
-            
-            if (name != null && !name.trim().isEmpty()) {
-                course.setName(name);
-            }
-            if (description != null) {
-                course.setDescription(description);
-            }
-            if (credits != null && credits > 0 && credits <= 10) {
-                course.setCredits(credits);
-            }
-            if (capacity != null) {
-                if (capacity < course.getEnrolled()) {
-                    throw new IllegalArgumentException("Cannot reduce capacity below current enrollment");
+            CourseDTO updated = write("updateCourse", em -> {
+                CourseRepository courseRepository = new CourseRepository(em);
+                
+                Course course = courseRepository.findById(courseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
+                
+                if (name != null && !name.trim().isEmpty()) {
+                    course.setName(name);
                 }
-                if (capacity < 10 || capacity > 100) {
-                    throw new IllegalArgumentException("Capacity must be between 10 and 100");
+                if (description != null) {
+                    course.setDescription(description);
                 }
-                course.setCapacity(capacity);
-            }
-            
-            course = courseRepository.save(course);
+                if (credits != null && credits > 0 && credits <= 10) {
+                    course.setCredits(credits);
+                }
+                if (capacity != null) {
+                    if (capacity < course.getEnrolled()) {
+                        throw new IllegalArgumentException("Cannot reduce capacity below current enrollment");
+                    }
+                    if (capacity < 10 || capacity > 100) {
+                        throw new IllegalArgumentException("Capacity must be between 10 and 100");
+                    }
+                    course.setCapacity(capacity);
+                }
+                
+                course = courseRepository.save(course);
+                new OutboxRepository(em).append(OutboxEvent.forCourse("COURSE_UPSERTED", course));
+                publishChange(em, course, true);
+                DatabaseManager.afterCommit(em, () -> {
+                    timetables.invalidateCourse(courseId);
+                    invalidateOnOtherNodes(Kind.COURSE, courseId);
+                });
+                return entityMapper.toDTO(course);
+            });
             
-            log.info("Course updated successfully: {}", course.getCode());
-            return entityMapper.toDTO(course);
+            log.info("Course updated successfully: {}", updated.getCode());
+            return updated;
             
         } catch (Exception e) {
             log.error("Error updating course: {}", e.getMessage());
@@ -155,17 +391,28 @@ public class CourseServiceImpl implements ICourseService {
         try {
             log.info("Deleting course with ID: {}", courseId);
             
-            Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
-            
-            // Check if course has enrollments
-            if (course.getEnrolled() > 0) {
-                throw new IllegalArgumentException("Cannot delete course with active enrollments");
-            }
-            
-            courseRepository.delete(course);
+            String code = write("deleteCourse", em -> {
+                CourseRepository courseRepository = new CourseRepository(em);
+                
+                Course course = courseRepository.findById(courseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
+                
+                // Check if course has enrollments
+                if (course.getEnrolled() > 0) {
+                    throw new IllegalArgumentException("Cannot delete course with active enrollments");
+                }
+                
+                courseRepository.delete(course);
+                new OutboxRepository(em).append(OutboxEvent.forCourse("COURSE_REMOVED", course));
+                DatabaseManager.afterCommit(em, () -> {
+                    changeFeed.publishRemoval(course);
+                    suggestions.remove(courseId);
+                    invalidateOnOtherNodes(Kind.COURSE, courseId);
+                });
+                return course.getCode();
+            });
             
-            log.info("Course deleted successfully: {}", course.getCode());
+            log.info("Course deleted successfully: {}", code);
             return true;
             
         } catch (Exception e) {
@@ -179,10 +426,9 @@ public class CourseServiceImpl implements ICourseService {
         try {
             log.info("Fetching all courses");
             
-            List<Course> courses = courseRepository.findAll();
-            return courses.stream()
+            return read(em -> new CourseRepository(em).findAll().stream()
                 .map(entityMapper::toDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
                 
         } catch (Exception e) {
             log.error("Error listing courses: {}", e.getMessage());
@@ -195,10 +441,9 @@ public class CourseServiceImpl implements ICourseService {
         try {
             log.info("Fetching courses for semester: {}", semester);
             
-            List<Course> courses = courseRepository.findBySemester(semester);
-            return courses.stream()
+            return read(em -> new CourseRepository(em).findBySemester(semester).stream()
                 .map(entityMapper::toDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
                 
         } catch (Exception e) {
             log.error("Error listing courses by semester: {}", e.getMessage());
@@ -211,10 +456,9 @@ public class CourseServiceImpl implements ICourseService {
         try {
             log.info("Fetching courses for department: {}", department);
             
-            List<Course> courses = courseRepository.findByDepartment(department);
-            return courses.stream()
+            return read(em -> new CourseRepository(em).findByDepartment(department).stream()
                 .map(entityMapper::toDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
                 
         } catch (Exception e) {
             log.error("Error listing courses by department: {}", e.getMessage());
@@ -222,15 +466,40 @@ public class CourseServiceImpl implements ICourseService {
         }
     }
     
+    /**
+     * Courses whose code, then a word of whose name, starts with the prefix,
+     * for search boxes that ask on every keystroke; answered from memory.
+     */
+    @Override
+    public List<CourseSuggestionDTO> suggestCourses(String prefix, Integer limit) {
+        try {
+            log.debug("Suggesting courses for: {}", prefix);
+            
+            if (prefix == null) {
+                throw new IllegalArgumentException("Prefix is required");
+            }
+            if (limit != null && (limit < 1 || limit > MAX_SUGGESTIONS)) {
+                throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SUGGESTIONS);
+            }
+            return suggestions.suggest(prefix, limit != null ? limit : DEFAULT_SUGGESTIONS).stream()
+                .map(suggestion -> new CourseSuggestionDTO(suggestion.courseId(), suggestion.code(), suggestion.name(),
+                    suggestion.semester(), suggestion.matchedCode()))
+                .collect(Collectors.toList());
+            
+        } catch (Exception e) {
+            log.error("Error suggesting courses: {}", e.getMessage());
+            throw new RuntimeException("Failed to suggest courses: " + e.getMessage());
+        }
+    }
+    
     @Override
     public List<CourseDTO> listAvailableCourses() {
         try {
             log.info("Fetching available courses");
             
-            List<Course> courses = courseRepository.findAvailableCourses();
-            return courses.stream()
+            return read(em -> new CourseRepository(em).findAvailableCourses().stream()
                 .map(entityMapper::toDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
                 
         } catch (Exception e) {
             log.error("Error listing available courses: {}", e.getMessage());
@@ -238,37 +507,79 @@ public class CourseServiceImpl implements ICourseService {
         }
     }
     
+    /**
+     * Courses most often taken by students of the given course, from the
+     * table built in the background; empty until it is first built.
+     */
+    @Override
+    public List<RelatedCourseDTO> getRelatedCourses(Long courseId) {
+        try {
+            log.info("Fetching related courses for course ID: {}", courseId);
+            
+            if (courseId == null) {
+                throw new IllegalArgumentException("Course ID is required");
+            }
+            if (!relatedCourses.isEnabled()) {
+                throw new IllegalStateException("Related courses are not enabled on this node");
+            }
+            return relatedCourses.related(courseId).stream()
+                .map(related -> new RelatedCourseDTO(related.courseId(), related.code(), related.name(),
+                    related.students(), related.share()))
+                .collect(Collectors.toList());
+            
+        } catch (Exception e) {
+            log.error("Error fetching related courses: {}", e.getMessage());
+            throw new RuntimeException("Failed to fetch related courses: " + e.getMessage());
+        }
+    }
+    
     @Override
     public ScheduleDTO addSchedule(Long courseId, String dayOfWeek, String startTime, 
                                    String endTime, String room, String building, String scheduleType) {
         try {
             log.info("Adding schedule for course ID: {}", courseId);
             
-            Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
-            
-            // Create schedule
-            Schedule schedule = new Schedule();
-            schedule.setCourse(course);
-            schedule.setDayOfWeek(DayOfWeek.valueOf(dayOfWeek.toUpperCase()));
-            schedule.setStartTime(LocalTime.parse(startTime));
-            schedule.setEndTime(LocalTime.parse(endTime));
-            schedule.setRoom(room);
-            schedule.setBuilding(building);
-            schedule.setScheduleType(scheduleType);
-            
-            // Check for schedule conflicts
-            List<Schedule> existingSchedules = scheduleRepository.findByRoom(room);
-            for (Schedule existing : existingSchedules) {
-                if (schedule.conflictsWith(existing)) {
-                    throw new IllegalArgumentException("Schedule conflicts with existing schedule in room " + room);
+            ScheduleDTO added = write("addSchedule", em -> {
+                ScheduleRepository scheduleRepository = new ScheduleRepository(em);
+                
+                Course course = new CourseRepository(em).findById(courseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
+                
+                // Create schedule
+                Schedule schedule = new Schedule();
+                schedule.setCourse(course);
+                schedule.setDayOfWeek(DayOfWeek.valueOf(dayOfWeek.toUpperCase()));
+                schedule.setStartTime(LocalTime.parse(startTime));
+                schedule.setEndTime(LocalTime.parse(endTime));
+                schedule.setRoom(room);
+                schedule.setBuilding(building);
+                schedule.setScheduleType(scheduleType);
+                
+                // Check for schedule conflicts; the room of that building is only taken in the course's semester
+                List<Schedule> existingSchedules =
+                    scheduleRepository.findByRoomAndSemester(building, room, course.getSemester());
+                for (Schedule existing : existingSchedules) {
+                    if (schedule.conflictsWith(existing)) {
+                        throw new IllegalArgumentException("Schedule conflicts with existing schedule in room " + room);
+                    }
                 }
-            }
-            
-            schedule = scheduleRepository.save(schedule);
+                
+                schedule = scheduleRepository.save(schedule);
+                Schedule saved = schedule;
+                DatabaseManager.afterCommit(em, () -> roomIndex.occupy(course.getSemester(), saved.getId(),
+                    new RoomOccupancyIndex.Room(saved.getBuilding(), saved.getRoom()), saved.getDayOfWeek(),
+                    saved.getStartTime(), saved.getEndTime(), course.getCapacity()));
+                DatabaseManager.afterCommit(em, () -> {
+                    timetables.invalidateCourse(courseId);
+                    changeFeed.publish(course, true);
+                    invalidateOnOtherNodes(Kind.ROOMS, course.getSemester());
+                    invalidateOnOtherNodes(Kind.COURSE, courseId);
+                });
+                return entityMapper.toDTO(schedule);
+            });
             
-            log.info("Schedule added successfully for course: {}", course.getCode());
-            return entityMapper.toDTO(schedule);
+            log.info("Schedule added successfully for course: {}", added.getCourseCode());
+            return added;
             
         } catch (Exception e) {
             log.error("Error adding schedule: {}", e.getMessage());
@@ -281,10 +592,9 @@ public class CourseServiceImpl implements ICourseService {
         try {
             log.info("Fetching schedules for course ID: {}", courseId);
             
-            List<Schedule> schedules = scheduleRepository.findByCourseId(courseId);
-            return schedules.stream()
+            return read(em -> new ScheduleRepository(em).findByCourseId(courseId).stream()
                 .map(entityMapper::toDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
                 
         } catch (Exception e) {
             log.error("Error fetching schedules: {}", e.getMessage());
@@ -297,10 +607,25 @@ public class CourseServiceImpl implements ICourseService {
         try {
             log.info("Deleting schedule with ID: {}", scheduleId);
             
-            Schedule schedule = scheduleRepository.findById(scheduleId)
-                .orElseThrow(() -> new IllegalArgumentException("Schedule not found with ID: " + scheduleId));
-            
-            scheduleRepository.delete(schedule);
+            write("deleteSchedule", em -> {
+                ScheduleRepository scheduleRepository = new ScheduleRepository(em);
+                
+                Schedule schedule = scheduleRepository.findById(scheduleId)
+                    .orElseThrow(() -> new IllegalArgumentException("Schedule not found with ID: " + scheduleId));
+                
+                scheduleRepository.delete(schedule);
+                Course course = schedule.getCourse();
+                String semester = course.getSemester();
+                Long courseId = course.getId();
+                DatabaseManager.afterCommit(em, () -> {
+                    roomIndex.release(semester, scheduleId);
+                    timetables.invalidateCourse(courseId);
+                    changeFeed.publish(course, true);
+                    invalidateOnOtherNodes(Kind.ROOMS, semester);
+                    invalidateOnOtherNodes(Kind.COURSE, courseId);
+                });
+                return schedule.getId();
+            });
             
             log.info("Schedule deleted successfully");
             return true;
@@ -312,37 +637,128 @@ public class CourseServiceImpl implements ICourseService {
     }
     
     @Override
-    public EnrollmentDTO enrollStudent(Long studentId, Long courseId) {
+    public List<FreeRoomDTO> findFreeRooms(String semester, String dayOfWeek, String startTime, String endTime,
+                                           String building, Integer minCapacity) {
         try {
-            log.info("Enrolling student {} in course {}", studentId, courseId);
-            
-            Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
+            log.info("Finding free rooms in {} on {} {}-{}", semester, dayOfWeek, startTime, endTime);
             
-            // Check if course is full
-            if (course.isFull()) {
-                throw new IllegalArgumentException("Course is full");
+            if (semester == null || dayOfWeek == null || startTime == null || endTime == null) {
+                throw new IllegalArgumentException("Semester, day of week, start and end time are required");
+            }
+            LocalTime start = LocalTime.parse(startTime);
+            LocalTime end = LocalTime.parse(endTime);
+            if (end.isBefore(start)) {
+                throw new IllegalArgumentException("End time must be after start time");
             }
             
-            // Check if student is already enrolled
-            if (studentCourseRepository.isStudentEnrolled(studentId, courseId)) {
-                throw new IllegalArgumentException("Student is already enrolled in this course");
+            return roomIndex.findFreeRooms(semester, DayOfWeek.valueOf(dayOfWeek.toUpperCase()), start, end,
+                    building, minCapacity).stream()
+                .map(room -> new FreeRoomDTO(room.building(), room.room(), room.largestCourseCapacity()))
+                .collect(Collectors.toList());
+            
+        } catch (Exception e) {
+            log.error("Error finding free rooms: {}", e.getMessage());
+            throw new RuntimeException("Failed to find free rooms: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Final exam slots for the semester, computed from its current
+     * enrollments on every call; no two exams of a student share a slot.
+     */
+    @Override
+    public ExamTimetableDTO generateExamTimetable(String semester) {
+        try {
+            log.info("Generating the {} exam timetable", semester);
+            
+            if (semester == null || !semester.matches(SEMESTER_FORMAT)) {
+                throw new IllegalArgumentException("Semester format: Fall 2024, Spring 2024, or Summer 2024");
             }
             
-            // Create enrollment
-            StudentCourse enrollment = new StudentCourse();
-            enrollment.setStudentId(studentId);
-            enrollment.setCourse(course);
-            enrollment.setEnrollmentStatus("ENROLLED");
+            ExamTimetabler.Timetable timetable = examTimetabler.generate(semester);
+            List<ExamDTO> exams = timetable.exams().stream()
+                .map(exam -> new ExamDTO(exam.courseId(), exam.code(), exam.students(), exam.slot(),
+                    new ArrayList<>(exam.rooms())))
+                .collect(Collectors.toList());
+            int unplaced = (int) exams.stream().filter(exam -> exam.getSlot() == 0).count();
+            return new ExamTimetableDTO(timetable.semester(), timetable.slots(), timetable.students(), unplaced,
+                timetable.elapsedMs(), exams);
+            
+        } catch (Exception e) {
+            log.error("Error generating exam timetable: {}", e.getMessage());
+            throw new RuntimeException("Failed to generate exam timetable: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public EnrollmentDTO enrollStudent(Long studentId, Long courseId) {
+        try {
+            log.info("Enrolling student {} in course {}", studentId, courseId);
+            
+            registrationGate.checkOpen();
             
-            enrollment = studentCourseRepository.save(enrollment);
+            // The seat check, the enrollment row and the counter update commit
+            // together; a concurrent enrollment bumps the course version and
+            // forces this attempt to re-run against the new seat count.
+            EnrollmentDTO enrolled = registrationGate.admit(studentId, () -> write("enrollStudent", em -> {
+                CourseRepository courseRepository = new CourseRepository(em);
+                StudentCourseRepository studentCourseRepository = new StudentCourseRepository(em);
+                
+                Course course = courseRepository.findById(courseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
+                
+                // Seats of a semester in lottery registration are only given out by the draw
+                if (new LotteryRepository(em).isOpen(course.getSemester())) {
+                    throw new IllegalArgumentException("Registration for " + course.getSemester() +
+                        " is by lottery until it is drawn, submit preferences instead");
+                }
+                
+                // Check if course is full; the rejection is recorded as waitlist
+                // demand, so this transaction commits and the caller reports it
+                if (course.isFull()) {
+                    new WaitlistRepository(em).append(studentId, courseId);
+                    new OutboxRepository(em).append(OutboxEvent.of("WAITLISTED", studentId, course));
+                    return null;
+                }
+                
+                // Check if student is already enrolled; a student the membership
+                // filter has never seen in the course cannot be, only possible
+                // members cost a database probe
+                if (membership.mightContain(courseId, studentId)
+                        && studentCourseRepository.isStudentEnrolled(studentId, courseId)) {
+                    throw new IllegalArgumentException("Student is already enrolled in this course");
+                }
+                
+                // Create enrollment
+                StudentCourse enrollment = new StudentCourse();
+                enrollment.setStudentId(studentId);
+                enrollment.setCourse(course);
+                enrollment.setEnrollmentStatus("ENROLLED");
+                
+                enrollment = studentCourseRepository.save(enrollment);
+                
+                // Update course enrollment count
+                course.incrementEnrollment();
+                courseRepository.save(course);
+                publishChange(em, course, false);
+                
+                new OutboxRepository(em).append(OutboxEvent.of("ENROLLED", enrollment));
+                DatabaseManager.afterCommit(em, () -> {
+                    membership.add(courseId, studentId);
+                    timetables.invalidateStudent(studentId);
+                    invalidateOnOtherNodes(Kind.STUDENT, studentId);
+                    invalidateOnOtherNodes(Kind.ENROLLMENT, courseId + ":" + studentId);
+                });
+                
+                return entityMapper.toEnrollmentDTO(enrollment);
+            }));
             
-            // Update course enrollment count
-            course.incrementEnrollment();
-            courseRepository.save(course);
+            if (enrolled == null) {
+                throw new IllegalArgumentException("Course is full");
+            }
             
-            log.info("Student {} enrolled successfully in course {}", studentId, course.getCode());
-            return entityMapper.toEnrollmentDTO(enrollment);
+            log.info("Student {} enrolled successfully in course {}", studentId, enrolled.getCourseCode());
+            return enrolled;
             
         } catch (Exception e) {
             log.error("Error enrolling student: {}", e.getMessage());
@@ -355,20 +771,32 @@ public class CourseServiceImpl implements ICourseService {
         try {
             log.info("Student {} dropping course {}", studentId, courseId);
             
-            StudentCourse enrollment = studentCourseRepository.findByStudentAndCourse(studentId, courseId)
-                .orElseThrow(() -> new IllegalArgumentException("Enrollment not found"));
-            
-            if (!"ENROLLED".equals(enrollment.getEnrollmentStatus())) {
-                throw new IllegalArgumentException("Student is not currently enrolled in this course");
-            }
-            
-            enrollment.drop();
-            studentCourseRepository.save(enrollment);
-            
-            // Update course enrollment count
-            Course course = enrollment.getCourse();
-            course.decrementEnrollment();
-            courseRepository.save(course);
+            registrationGate.admit(studentId, () -> write("dropCourse", em -> {
+                StudentCourseRepository studentCourseRepository = new StudentCourseRepository(em);
+                
+                StudentCourse enrollment = studentCourseRepository.findByStudentAndCourse(studentId, courseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Enrollment not found"));
+                
+                if (!"ENROLLED".equals(enrollment.getEnrollmentStatus())) {
+                    throw new IllegalArgumentException("Student is not currently enrolled in this course");
+                }
+                
+                enrollment.drop();
+                studentCourseRepository.save(enrollment);
+                
+                // Update course enrollment count
+                Course course = enrollment.getCourse();
+                course.decrementEnrollment();
+                new CourseRepository(em).save(course);
+                publishChange(em, course, false);
+                
+                new OutboxRepository(em).append(OutboxEvent.of("DROPPED", enrollment));
+                DatabaseManager.afterCommit(em, () -> {
+                    timetables.invalidateStudent(studentId);
+                    invalidateOnOtherNodes(Kind.STUDENT, studentId);
+                });
+                return enrollment.getId();
+            }));
             
             log.info("Student {} dropped course {} successfully", studentId, courseId);
             return true;
@@ -379,15 +807,44 @@ public class CourseServiceImpl implements ICourseService {
         }
     }
     
+    @Override
+    public RegistrationStatusDTO getRegistrationStatus() {
+        return registrationGate.getStatus();
+    }
+    
+    /** Cached catalog responses, which the endpoint's HTTP handler serves when enabled. */
+    public SoapResponseCache getResponseCache() {
+        return responseCache;
+    }
+    
+    /** When the registration period opens, or null when it has no start. */
+    public LocalDateTime getRegistrationOpensAt() {
+        return registrationGate.getOpensAt();
+    }
+    
+    /**
+     * Gets ready for the opening burst of the registration period: opens a
+     * pooled connection for every request the gate admits at once, and reads
+     * the catalog on the primary, where enrollments run, and on the replica,
+     * where catalog reads go, so its pages are cached and its queries planned.
+     */
+    public void prewarmRegistration() {
+        long start = System.nanoTime();
+        DatabaseManager.warmPool(registrationGate.getMaxConcurrent());
+        int courses = DatabaseManager.withEntityManager(em -> new CourseRepository(em).findAvailableCourses().size());
+        read(em -> new CourseRepository(em).findAvailableCourses().size());
+        log.info("Prewarmed registration: {} connections, {} available courses in {} ms",
+            registrationGate.getMaxConcurrent(), courses, (System.nanoTime() - start) / 1_000_000);
+    }
+    
     @Override
     public List<EnrollmentDTO> getStudentCourses(Long studentId) {
         try {
             log.info("Fetching courses for student: {}", studentId);
             
-            List<StudentCourse> enrollments = studentCourseRepository.findByStudent(studentId);
-            return enrollments.stream()
+            return read(em -> new StudentCourseRepository(em).findByStudent(studentId).stream()
                 .map(entityMapper::toEnrollmentDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
                 
         } catch (Exception e) {
             log.error("Error fetching student courses: {}", e.getMessage());
@@ -395,18 +852,49 @@ public class CourseServiceImpl implements ICourseService {
         }
     }
     
+    @Override
+    public TimetableDTO getStudentTimetable(Long studentId, String semester) {
+        try {
+            log.info("Fetching timetable for student {} in {}", studentId, semester);
+            
+            if (studentId == null || semester == null) {
+                throw new IllegalArgumentException("Student ID and semester are required");
+            }
+            StudentTimetableCache.Timetable timetable = timetables.get(studentId, semester);
+            
+            TimetableDTO dto = new TimetableDTO();
+            dto.setStudentId(studentId);
+            dto.setSemester(semester);
+            Map<Long, Integer> credits = new HashMap<>();
+            for (StudentTimetableCache.Slot slot : timetable.slots()) {
+                credits.put(slot.courseId(), slot.credits() == null ? 0 : slot.credits());
+                dto.getSlots().add(new TimetableSlotDTO(slot.courseId(), slot.courseCode(), slot.courseName(),
+                    slot.credits(), slot.dayOfWeek(), slot.startTime(), slot.endTime(), slot.room(),
+                    slot.building(), slot.scheduleType()));
+            }
+            dto.setCourses(credits.size());
+            dto.setTotalCredits(credits.values().stream().mapToInt(Integer::intValue).sum());
+            return dto;
+            
+        } catch (Exception e) {
+            log.error("Error fetching student timetable: {}", e.getMessage());
+            throw new RuntimeException("Failed to fetch student timetable: " + e.getMessage());
+        }
+    }
+    
     @Override
     public List<EnrollmentDTO> getCourseEnrollments(Long courseId) {
         try {
             log.info("Fetching enrollments for course: {}", courseId);
             
-            Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
-            
-            List<StudentCourse> enrollments = studentCourseRepository.findByCourse(course);
-            return enrollments.stream()
-                .map(entityMapper::toEnrollmentDTO)
-                .collect(Collectors.toList());
+            return read(em -> {
+                Course course = new CourseRepository(em).findById(courseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
+                
+                return new StudentCourseRepository(em).findByCourse(course).stream()
+                    .map(entityMapper::toEnrollmentDTO)
+                    .collect(Collectors.toList());
+            });
                 
         } catch (Exception e) {
             log.error("Error fetching course enrollments: {}", e.getMessage());
@@ -414,23 +902,193 @@ public class CourseServiceImpl implements ICourseService {
         }
     }
     
+    /**
+     * Credits, GPA and degree progress from the student's summary, which
+     * completions keep current and the nightly recomputation corrects. A
+     * student without completed courses gets an empty summary.
+     */
     @Override
-    public boolean assignTeacher(Long teacherId, Long courseId, String role) {
+    public AcademicSummaryDTO getStudentAcademicSummary(Long studentId) {
         try {
-            log.info("Assigning teacher {} to course {}", teacherId, courseId);
+            log.info("Fetching academic summary for student {}", studentId);
+            
+            if (studentId == null) {
+                throw new IllegalArgumentException("Student ID is required");
+            }
+            StudentAcademicSummary summary = read(em -> em.find(StudentAcademicSummary.class, studentId));
+            
+            AcademicSummaryDTO dto = new AcademicSummaryDTO();
+            dto.setStudentId(studentId);
+            dto.setDegreeCredits(degreeCredits);
+            if (summary != null) {
+                dto.setCoursesCompleted(summary.getCoursesCompleted());
+                dto.setCoursesIncomplete(summary.getCoursesIncomplete());
+                dto.setCreditsAttempted(summary.getCreditsAttempted());
+                dto.setCreditsEarned(summary.getCreditsEarned());
+                dto.setGpa(summary.getGpa() == null ? null : Math.round(summary.getGpa() * 100) / 100.0);
+                dto.setDegreeProgress(Math.min(100.0,
+                    Math.round(summary.getCreditsEarned() * 1000.0 / degreeCredits) / 10.0));
+                dto.setUpdatedAt(summary.getUpdatedAt());
+            }
+            return dto;
+            
+        } catch (Exception e) {
+            log.error("Error fetching academic summary: {}", e.getMessage());
+            throw new RuntimeException("Failed to fetch academic summary: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public LotteryWindowDTO openLottery(String semester, String closesAt) {
+        try {
+            log.info("Opening the {} lottery (closes at: {})", semester, closesAt);
+            
+            if (semester == null || !semester.matches(SEMESTER_FORMAT)) {
+                throw new IllegalArgumentException("Semester format: Fall 2024, Spring 2024, or Summer 2024");
+            }
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime closing = closesAt == null || closesAt.isBlank() ? null : parseDateTime(closesAt);
+            if (closing != null && !closing.isAfter(now)) {
+                throw new IllegalArgumentException("The lottery must close in the future");
+            }
+            
+            LotteryWindowDTO opened = write("openLottery", em -> {
+                LotteryRepository lotteryRepository = new LotteryRepository(em);
+                if (lotteryRepository.findWindow(semester).isPresent()) {
+                    throw new IllegalArgumentException("A lottery already exists for " + semester);
+                }
+                LotteryWindow window = new LotteryWindow(semester, LotteryWindow.OPEN,
+                    ThreadLocalRandom.current().nextLong(), now, closing, null, 0, 0, 0, 0, 0, 0, 0);
+                lotteryRepository.saveWindow(window);
+                return entityMapper.toDTO(window);
+            });
+            
+            log.info("Lottery opened for {}", semester);
+            return opened;
+            
+        } catch (Exception e) {
+            log.error("Error opening lottery: {}", e.getMessage());
+            throw new RuntimeException("Failed to open lottery: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public LotterySubmissionDTO submitLotteryPreferences(Long studentId, String semester, List<Long> courseIds) {
+        try {
+            log.info("Student {} submitting {} lottery preferences for {}", studentId,
+                courseIds == null ? 0 : courseIds.size(), semester);
+            
+            if (studentId == null) {
+                throw new IllegalArgumentException("Student ID is required");
+            }
+            if (courseIds == null || courseIds.isEmpty() || courseIds.size() > maxLotteryPreferences) {
+                throw new IllegalArgumentException("Rank between 1 and " + maxLotteryPreferences + " courses");
+            }
+            if (courseIds.stream().anyMatch(Objects::isNull) || new HashSet<>(courseIds).size() != courseIds.size()) {
+                throw new IllegalArgumentException("Every course may be ranked only once");
+            }
+            
+            return write("submitLotteryPreferences", em -> {
+                LotteryRepository lotteryRepository = new LotteryRepository(em);
+                LotteryWindow window = lotteryRepository.findWindowForSubmission(semester)
+                    .orElseThrow(() -> new IllegalArgumentException("No lottery for semester: " + semester));
+                LocalDateTime now = LocalDateTime.now();
+                if (!window.isOpen() || (window.getClosesAt() != null && !window.getClosesAt().isAfter(now))) {
+                    throw new IllegalArgumentException("The " + semester + " lottery is closed");
+                }
+                
+                Set<Long> offered = lotteryRepository.findActiveCourseIds(courseIds, semester);
+                List<Long> notOffered = courseIds.stream().filter(id -> !offered.contains(id)).toList();
+                if (!notOffered.isEmpty()) {
+                    throw new IllegalArgumentException("Not offered in " + semester + ": " + notOffered);
+                }
+                
+                LotterySubmission submission = lotteryRepository.appendSubmission(semester, studentId, courseIds, now);
+                return new LotterySubmissionDTO(submission.getId(), studentId, semester, new ArrayList<>(courseIds),
+                    submission.getSubmittedAt());
+            });
             
-            Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
+        } catch (Exception e) {
+            log.error("Error submitting lottery preferences: {}", e.getMessage());
+            throw new RuntimeException("Failed to submit lottery preferences: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Draws the lottery in one transaction. The enrollments are written with
+     * plain SQL, so the change feed, the cached timetables and the membership
+     * filters cannot follow them one by one and are reset instead.
+     */
+    @Override
+    public LotteryWindowDTO closeLottery(String semester) {
+        try {
+            log.info("Closing the {} lottery", semester);
+            
+            LotteryWindowDTO drawn = write("closeLottery", em -> entityMapper.toDTO(lotteryDraw.draw(em, semester)));
+            changeFeed.requireResync("drew the " + semester + " lottery");
+            timetables.invalidateAll();
+            membership.reload();
+            invalidateOnOtherNodes(Kind.RESYNC, "drew the " + semester + " lottery");
+            invalidateOnOtherNodes(Kind.BULK_ENROLLMENTS, semester);
             
-            TeacherCourse teacherCourse = new TeacherCourse();
-            teacherCourse.setTeacherId(teacherId);
-            teacherCourse.setCourse(course);
-            teacherCourse.setRole(role);
-            teacherCourse.setActive(true);
+            log.info("Lottery for {} drawn: {} of {} requests granted in {} ms",
+                semester, drawn.getSeatsAssigned(), drawn.getRequests(), drawn.getElapsedMs());
+            return drawn;
             
-            teacherCourseRepository.save(teacherCourse);
+        } catch (Exception e) {
+            log.error("Error closing lottery: {}", e.getMessage());
+            throw new RuntimeException("Failed to close lottery: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public LotteryWindowDTO getLottery(String semester) {
+        try {
+            return read(em -> {
+                LotteryRepository lotteryRepository = new LotteryRepository(em);
+                LotteryWindow window = lotteryRepository.findWindow(semester)
+                    .orElseThrow(() -> new IllegalArgumentException("No lottery for semester: " + semester));
+                LotteryWindowDTO dto = entityMapper.toDTO(window);
+                if (window.isOpen()) {
+                    dto.setStudents(lotteryRepository.countStudents(semester));
+                }
+                return dto;
+            });
             
-            log.info("Teacher {} assigned to course {} successfully", teacherId, course.getCode());
+        } catch (Exception e) {
+            log.error("Error fetching lottery: {}", e.getMessage());
+            throw new RuntimeException("Failed to fetch lottery: " + e.getMessage());
+        }
+    }
+    
+    private static LocalDateTime parseDateTime(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Expected an ISO date and time such as 2024-08-20T09:00: " + value);
+        }
+    }
+    
+    @Override
+    public boolean assignTeacher(Long teacherId, Long courseId, String role) {
+        try {
+            log.info("Assigning teacher {} to course {}", teacherId, courseId);
+            
+            String code = write("assignTeacher", em -> {
+                Course course = new CourseRepository(em).findById(courseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
+                
+                TeacherCourse teacherCourse = new TeacherCourse();
+                teacherCourse.setTeacherId(teacherId);
+                teacherCourse.setCourse(course);
+                teacherCourse.setRole(role);
+                teacherCourse.setActive(true);
+                
+                new TeacherCourseRepository(em).save(teacherCourse);
+                return course.getCode();
+            });
+            
+            log.info("Teacher {} assigned to course {} successfully", teacherId, code);
             return true;
             
         } catch (Exception e) {
@@ -444,10 +1102,9 @@ public class CourseServiceImpl implements ICourseService {
         try {
             log.info("Fetching courses for teacher: {}", teacherId);
             
-            List<TeacherCourse> teacherCourses = teacherCourseRepository.findByTeacher(teacherId);
-            return teacherCourses.stream()
+            return read(em -> new TeacherCourseRepository(em).findByTeacher(teacherId).stream()
                 .map(tc -> entityMapper.toDTO(tc.getCourse()))
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
                 
         } catch (Exception e) {
             log.error("Error fetching teacher courses: {}", e.getMessage());
@@ -455,6 +1112,313 @@ public class CourseServiceImpl implements ICourseService {
         }
     }
     
+    @Override
+    public RolloverResultDTO rolloverSemester(String fromSemester, String toSemester, RolloverOptionsDTO options) {
+        try {
+            RolloverOptionsDTO settings = options != null ? options : new RolloverOptionsDTO();
+            log.info("Rolling over {} to {} (department: {}, dry run: {})",
+                fromSemester, toSemester, settings.getDepartment(), settings.isDryRun());
+            
+            if (fromSemester == null || toSemester == null || fromSemester.equals(toSemester)) {
+                throw new IllegalArgumentException("Source and target semesters must be given and differ");
+            }
+            // The copy is plain SQL, so the entity's bean validation does not run
+            if (!toSemester.matches(SEMESTER_FORMAT)) {
+                throw new IllegalArgumentException("Semester format: Fall 2024, Spring 2024, or Summer 2024");
+            }
+            
+            long start = System.nanoTime();
+            Function<EntityManager, RolloverResultDTO> work = em -> rollover(em, fromSemester, toSemester, settings);
+            RolloverResultDTO result = settings.isDryRun()
+                ? DatabaseManager.inRolledBackTransaction(work)
+                : write("rolloverSemester", work);
+            if (!settings.isDryRun()) {
+                // Courses are copied with plain SQL, the feed cannot list them
+                changeFeed.requireResync("rolled over " + fromSemester + " to " + toSemester);
+                roomIndex.invalidate(toSemester);
+                suggestions.reload();
+                invalidateOnOtherNodes(Kind.RESYNC, "rolled over " + fromSemester + " to " + toSemester);
+                invalidateOnOtherNodes(Kind.ROOMS, toSemester);
+            }
+            result.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+            
+            log.info("Rolled over {} to {}: {} courses, {} schedules, {} teacher assignments in {} ms{}",
+                fromSemester, toSemester, result.getCoursesCopied(), result.getSchedulesCopied(),
+                result.getTeacherAssignmentsCopied(), result.getElapsedMs(), settings.isDryRun() ? " (dry run)" : "");
+            return result;
+            
+        } catch (Exception e) {
+            log.error("Error rolling over semester: {}", e.getMessage());
+            throw new RuntimeException("Failed to roll over semester: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Conflicts are checked for the whole catalog first, then every table is
+     * copied with one INSERT ... SELECT. A dry run copies too, inside a
+     * transaction that is rolled back, and reports conflicts instead of failing.
+     */
+    private RolloverResultDTO rollover(EntityManager em, String from, String to, RolloverOptionsDTO options) {
+        SemesterRolloverRepository rollover = new SemesterRolloverRepository(em, options.getDepartment());
+        if (rollover.countSourceCourses(from) == 0) {
+            throw new IllegalArgumentException("No active courses to copy in " + from);
+        }
+        
+        RolloverResultDTO result = new RolloverResultDTO();
+        result.setFromSemester(from);
+        result.setToSemester(to);
+        result.setDryRun(options.isDryRun());
+        
+        List<String> existing = rollover.findCodesInTarget(from, to);
+        if (!existing.isEmpty() && !options.isSkipExisting() && !options.isDryRun()) {
+            throw new IllegalArgumentException(existing.size() + " courses are already offered in " + to +
+                " (" + String.join(", ", existing.subList(0, Math.min(existing.size(), 10))) + ")");
+        }
+        result.setSkippedCodes(existing);
+        
+        if (options.isIncludeSchedules()) {
+            List<String> conflicts = rollover.findRoomConflicts(from, to, MAX_ROLLOVER_CONFLICTS);
+            if (!conflicts.isEmpty() && !options.isDryRun()) {
+                throw new IllegalArgumentException("Room conflicts with " + to + " schedules: " +
+                    String.join("; ", conflicts.subList(0, Math.min(conflicts.size(), 10))));
+            }
+            result.setConflicts(conflicts);
+        }
+        
+        long watermark = rollover.courseIdWatermark();
+        LocalDateTime now = LocalDateTime.now();
+        result.setCoursesCopied(rollover.copyCourses(from, to, now));
+        if (options.isIncludeSchedules()) {
+            result.setSchedulesCopied(rollover.copySchedules(from, to, watermark));
+        }
+        if (options.isIncludeTeachers()) {
+            result.setTeacherAssignmentsCopied(rollover.copyTeacherAssignments(from, to, watermark, now));
+        }
+        rollover.appendCourseEvents(to, watermark, now);
+        return result;
+    }
+    
+    @Override
+    public CompletionResultDTO completeCourse(Long courseId, List<GradeDTO> grades) {
+        try {
+            log.info("Completing course {} with {} grades", courseId, grades == null ? 0 : grades.size());
+            
+            if (grades == null || grades.isEmpty()) {
+                throw new IllegalArgumentException("No grades given");
+            }
+            
+            long start = System.nanoTime();
+            CompletionResultDTO result = write("completeCourse", em -> {
+                Course course = new CourseRepository(em).findById(courseId)
+                    .orElseThrow(() -> new IllegalArgumentException("Course not found with ID: " + courseId));
+                CompletionRepository completionRepository = new CompletionRepository(em);
+                
+                // Validate everything and compute the letters before writing anything
+                Map<Long, String> statuses = completionRepository.findStatusesByCourse(courseId);
+                Set<Long> graded = new HashSet<>();
+                List<Long> notEnrolled = new ArrayList<>();
+                List<Completion> completions = new ArrayList<>(grades.size());
+                for (GradeDTO grade : grades) {
+                    if (grade == null || grade.getStudentId() == null) {
+                        throw new IllegalArgumentException("Every grade needs a student ID");
+                    }
+                    if (!GradeScale.isValid(grade.getGrade())) {
+                        throw new IllegalArgumentException("Grade for student " + grade.getStudentId() +
+                            " must be between 0 and 100");
+                    }
+                    if (!graded.add(grade.getStudentId())) {
+                        throw new IllegalArgumentException("Student " + grade.getStudentId() + " is graded twice");
+                    }
+                    if (!"ENROLLED".equals(statuses.get(grade.getStudentId()))) {
+                        notEnrolled.add(grade.getStudentId());
+                    }
+                    completions.add(new Completion(grade.getStudentId(), course, grade.getGrade(),
+                        GradeScale.letterFor(grade.getGrade())));
+                }
+                if (!notEnrolled.isEmpty()) {
+                    throw new IllegalArgumentException(notEnrolled.size() + " graded students are not enrolled in " +
+                        course.getCode() + " " + notEnrolled.subList(0, Math.min(notEnrolled.size(), 10)));
+                }
+                
+                // Dropped since the status read: re-run, the validation will report it
+                if (!completionRepository.complete(completions, LocalDateTime.now()).isEmpty()) {
+                    throw new OptimisticLockException("Enrollments of course " + courseId + " changed while grading");
+                }
+                
+                CompletionResultDTO completed = new CompletionResultDTO();
+                completed.setCourseId(courseId);
+                completed.setSemester(course.getSemester());
+                completed.setCourses(1);
+                completed.setEnrollmentsCompleted(completions.size());
+                completed.setStillEnrolled((int) statuses.values().stream().filter("ENROLLED"::equals).count()
+                    - completions.size());
+                summarizeGrades(completed, completionRepository.gradeDistributionByCourse(courseId));
+                return completed;
+            });
+            result.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+            
+            log.info("Completed {} enrollments of course {} in {} ms, {} still enrolled",
+                result.getEnrollmentsCompleted(), courseId, result.getElapsedMs(), result.getStillEnrolled());
+            return result;
+            
+        } catch (Exception e) {
+            log.error("Error completing course: {}", e.getMessage());
+            throw new RuntimeException("Failed to complete course: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Completes every enrollment of the semester that is still ENROLLED. Those
+     * are the students who never got a grade through completeCourse, so they
+     * are closed as incomplete.
+     */
+    @Override
+    public CompletionResultDTO closeSemester(String semester) {
+        try {
+            log.info("Closing semester: {}", semester);
+            
+            long start = System.nanoTime();
+            CompletionResultDTO result = write("closeSemester", em -> {
+                List<Course> courses = new CourseRepository(em).findBySemester(semester);
+                if (courses.isEmpty()) {
+                    throw new IllegalArgumentException("No courses in semester: " + semester);
+                }
+                Map<Long, Course> coursesById = new HashMap<>(courses.size() * 2);
+                for (Course course : courses) {
+                    coursesById.put(course.getId(), course);
+                }
+                CompletionRepository completionRepository = new CompletionRepository(em);
+                
+                List<long[]> enrolled = completionRepository.lockEnrolledInSemester(semester);
+                List<Completion> completions = new ArrayList<>(enrolled.size());
+                for (long[] enrollment : enrolled) {
+                    completions.add(new Completion(enrollment[0], coursesById.get(enrollment[1]), null,
+                        GradeScale.INCOMPLETE));
+                }
+                // The rows are locked, so every one of them is still ENROLLED
+                completionRepository.complete(completions, LocalDateTime.now());
+                
+                CompletionResultDTO closed = new CompletionResultDTO();
+                closed.setSemester(semester);
+                closed.setCourses(courses.size());
+                closed.setEnrollmentsCompleted(completions.size());
+                closed.setIncomplete(completions.size());
+                summarizeGrades(closed, completionRepository.gradeDistributionBySemester(semester));
+                return closed;
+            });
+            result.setElapsedMs((System.nanoTime() - start) / 1_000_000);
+            
+            log.info("Closed semester {}: {} courses, {} enrollments completed as incomplete in {} ms",
+                semester, result.getCourses(), result.getIncomplete(), result.getElapsedMs());
+            return result;
+            
+        } catch (Exception e) {
+            log.error("Error closing semester: {}", e.getMessage());
+            throw new RuntimeException("Failed to close semester: " + e.getMessage());
+        }
+    }
+    
+    /** Rows of letter, count, sum of grades and graded count, best letter first. */
+    private void summarizeGrades(CompletionResultDTO result, List<Object[]> distribution) {
+        double sum = 0;
+        long graded = 0;
+        for (Object[] row : distribution) {
+            result.getGradeDistribution().add(new GradeCountDTO((String) row[0], ((Number) row[1]).longValue()));
+            sum += row[2] == null ? 0 : ((Number) row[2]).doubleValue();
+            graded += ((Number) row[3]).longValue();
+        }
+        result.setAverageGrade(graded == 0 ? null : sum / graded);
+    }
+    
+    @Override
+    public List<EnrollmentEventDTO> getEnrollmentEventsSince(Long offset, Integer max) {
+        try {
+            if (events == null) {
+                throw new IllegalStateException("Enrollment event log is not enabled on this node");
+            }
+            long from = offset == null || offset < 0 ? 0 : offset;
+            int limit = max == null || max <= 0 ? 100 : Math.min(max, MAX_EVENTS_PER_CALL);
+            
+            return events.getEventLog().read(from, limit).stream()
+                .map(entry -> {
+                    EnrollmentEvent event = EnrollmentEvent.decode(entry.payload());
+                    LocalDateTime occurredAt = LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(event.getOccurredAtEpochMillis()), ZoneId.systemDefault());
+                    return new EnrollmentEventDTO(entry.offset(), event.getEventId(), event.getEventType(),
+                        event.getStudentId() == 0 ? null : event.getStudentId(), event.getCourseId(),
+                        event.getCourseCode(), event.getDepartment(), event.getLevel(), event.getSemester(),
+                        event.getCapacity(), event.getEnrolled(), event.getGrade(), occurredAt);
+                })
+                .collect(Collectors.toList());
+            
+        } catch (Exception e) {
+            log.error("Error reading enrollment events: {}", e.getMessage());
+            throw new RuntimeException("Failed to read enrollment events: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public CourseChangesDTO getCourseChangesSince(Long version) {
+        try {
+            CourseChangeFeed.Page page = changeFeed.since(version, MAX_CHANGES_PER_CALL);
+            if (page.resync()) {
+                log.info("Course changes since {}: resync at {}", version, page.latestVersion());
+            }
+            
+            List<CourseChangeDTO> changes = page.changes().stream()
+                .map(change -> new CourseChangeDTO(change.version(), change.courseId(), change.code(),
+                    change.semester(), change.department(), change.capacity(), change.enrolled(),
+                    Math.max(0, change.capacity() - change.enrolled()), change.active(), change.removed(),
+                    change.updatedAt(), change.changedAt(), change.details()))
+                .collect(Collectors.toList());
+            return new CourseChangesDTO(version, page.nextVersion(), page.latestVersion(), page.resync(),
+                page.hasMore(), changes);
+            
+        } catch (Exception e) {
+            log.error("Error reading course changes: {}", e.getMessage());
+            throw new RuntimeException("Failed to read course changes: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public EnrollmentStatsDTO getEnrollmentStats(String department, String level, String semester) {
+        try {
+            if (events == null) {
+                throw new IllegalStateException("Enrollment statistics are not enabled on this node");
+            }
+            EnrollmentStatsAggregator stats = events.getStats();
+            EnrollmentStatsAggregator.Totals totals = stats.get(department, level, semester);
+            double fillRate = totals.seats() == 0 ? 0.0 : (double) totals.enrolled() / totals.seats();
+            
+            return new EnrollmentStatsDTO(department, level, semester, totals.courses(), totals.seats(),
+                totals.enrolled(), totals.drops(), totals.waitlist(), fillRate, stats.getAppliedOffset());
+            
+        } catch (Exception e) {
+            log.error("Error fetching enrollment stats: {}", e.getMessage());
+            throw new RuntimeException("Failed to fetch enrollment stats: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public WriteConflictStatsDTO getWriteConflictStats() {
+        return new WriteConflictStatsDTO(
+            retryPolicy.getConflicts(), retryPolicy.getRetries(), retryPolicy.getExhausted());
+    }
+    
+    @Override
+    public CounterReconciliationDTO getCounterReconciliation() {
+        try {
+            if (reconciler == null) {
+                throw new IllegalStateException("Enrollment counter reconciliation is not enabled on this node");
+            }
+            return reconciler.getLastReport();
+            
+        } catch (Exception e) {
+            log.error("Error fetching counter reconciliation: {}", e.getMessage());
+            throw new RuntimeException("Failed to fetch counter reconciliation: " + e.getMessage());
+        }
+    }
+    
     @Override
     public String health() {
         return "Courses Service is running";
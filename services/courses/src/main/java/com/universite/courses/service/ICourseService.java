@@ -1,8 +1,26 @@
-package main.java.com.universite.courses.service;
+package com.universite.courses.service;
 
+import com.universite.courses.dto.AcademicSummaryDTO;
+import com.universite.courses.dto.CompletionResultDTO;
+import com.universite.courses.dto.CounterReconciliationDTO;
+import com.universite.courses.dto.CourseChangesDTO;
 import com.universite.courses.dto.CourseDTO;
+import com.universite.courses.dto.CourseSuggestionDTO;
 import com.universite.courses.dto.EnrollmentDTO;
+import com.universite.courses.dto.EnrollmentEventDTO;
+import com.universite.courses.dto.EnrollmentStatsDTO;
+import com.universite.courses.dto.ExamTimetableDTO;
+import com.universite.courses.dto.FreeRoomDTO;
+import com.universite.courses.dto.GradeDTO;
+import com.universite.courses.dto.LotterySubmissionDTO;
+import com.universite.courses.dto.LotteryWindowDTO;
+import com.universite.courses.dto.RegistrationStatusDTO;
+import com.universite.courses.dto.RelatedCourseDTO;
+import com.universite.courses.dto.RolloverOptionsDTO;
+import com.universite.courses.dto.RolloverResultDTO;
 import com.universite.courses.dto.ScheduleDTO;
+import com.universite.courses.dto.TimetableDTO;
+import com.universite.courses.dto.WriteConflictStatsDTO;
 import jakarta.jws.WebMethod;
 import jakarta.jws.WebParam;
 import jakarta.jws.WebService;
@@ -55,6 +73,15 @@ public interface ICourseService {
     @WebMethod
     List<CourseDTO> listAvailableCourses();
     
+    @WebMethod
+    List<RelatedCourseDTO> getRelatedCourses(@WebParam(name = "courseId") Long courseId);
+    
+    @WebMethod
+    List<CourseSuggestionDTO> suggestCourses(
+        @WebParam(name = "prefix") String prefix,
+        @WebParam(name = "limit") Integer limit
+    );
+    
     // Schedule Operations
     @WebMethod
     ScheduleDTO addSchedule(
@@ -73,6 +100,19 @@ public interface ICourseService {
     @WebMethod
     boolean deleteSchedule(@WebParam(name = "scheduleId") Long scheduleId);
     
+    @WebMethod
+    List<FreeRoomDTO> findFreeRooms(
+        @WebParam(name = "semester") String semester,
+        @WebParam(name = "dayOfWeek") String dayOfWeek,
+        @WebParam(name = "startTime") String startTime,
+        @WebParam(name = "endTime") String endTime,
+        @WebParam(name = "building") String building,
+        @WebParam(name = "minCapacity") Integer minCapacity
+    );
+    
+    @WebMethod
+    ExamTimetableDTO generateExamTimetable(@WebParam(name = "semester") String semester);
+    
     // Enrollment Operations
     @WebMethod
     EnrollmentDTO enrollStudent(
@@ -86,12 +126,44 @@ public interface ICourseService {
         @WebParam(name = "courseId") Long courseId
     );
     
+    @WebMethod
+    RegistrationStatusDTO getRegistrationStatus();
+    
     @WebMethod
     List<EnrollmentDTO> getStudentCourses(@WebParam(name = "studentId") Long studentId);
     
+    @WebMethod
+    TimetableDTO getStudentTimetable(
+        @WebParam(name = "studentId") Long studentId,
+        @WebParam(name = "semester") String semester
+    );
+    
     @WebMethod
     List<EnrollmentDTO> getCourseEnrollments(@WebParam(name = "courseId") Long courseId);
     
+    @WebMethod
+    AcademicSummaryDTO getStudentAcademicSummary(@WebParam(name = "studentId") Long studentId);
+    
+    // Lottery Registration
+    @WebMethod
+    LotteryWindowDTO openLottery(
+        @WebParam(name = "semester") String semester,
+        @WebParam(name = "closesAt") String closesAt
+    );
+    
+    @WebMethod
+    LotterySubmissionDTO submitLotteryPreferences(
+        @WebParam(name = "studentId") Long studentId,
+        @WebParam(name = "semester") String semester,
+        @WebParam(name = "courseIds") List<Long> courseIds
+    );
+    
+    @WebMethod
+    LotteryWindowDTO closeLottery(@WebParam(name = "semester") String semester);
+    
+    @WebMethod
+    LotteryWindowDTO getLottery(@WebParam(name = "semester") String semester);
+    
     // Teacher Assignment Operations
     @WebMethod
     boolean assignTeacher(
@@ -103,6 +175,48 @@ public interface ICourseService {
     @WebMethod
     List<CourseDTO> getTeacherCourses(@WebParam(name = "teacherId") Long teacherId);
     
+    // Semester Operations
+    @WebMethod
+    RolloverResultDTO rolloverSemester(
+        @WebParam(name = "fromSemester") String fromSemester,
+        @WebParam(name = "toSemester") String toSemester,
+        @WebParam(name = "options") RolloverOptionsDTO options
+    );
+    
+    @WebMethod
+    CompletionResultDTO completeCourse(
+        @WebParam(name = "courseId") Long courseId,
+        @WebParam(name = "grades") List<GradeDTO> grades
+    );
+    
+    @WebMethod
+    CompletionResultDTO closeSemester(@WebParam(name = "semester") String semester);
+    
+    // Change Stream
+    @WebMethod
+    List<EnrollmentEventDTO> getEnrollmentEventsSince(
+        @WebParam(name = "offset") Long offset,
+        @WebParam(name = "max") Integer max
+    );
+    
+    @WebMethod
+    CourseChangesDTO getCourseChangesSince(@WebParam(name = "version") Long version);
+    
+    // Analytics
+    @WebMethod
+    EnrollmentStatsDTO getEnrollmentStats(
+        @WebParam(name = "department") String department,
+        @WebParam(name = "level") String level,
+        @WebParam(name = "semester") String semester
+    );
+    
+    // Monitoring
+    @WebMethod
+    WriteConflictStatsDTO getWriteConflictStats();
+    
+    @WebMethod
+    CounterReconciliationDTO getCounterReconciliation();
+    
     // Health Check
     @WebMethod
     String health();
@@ -0,0 +1,324 @@
+package com.universite.courses.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.universite.courses.events.CourseChangeFeed;
+import com.universite.courses.util.AppConfig;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Whole SOAP responses of the hot catalog reads, kept as the bytes that were
+ * sent, so a repeated call skips the database, the mapping and the JAXB
+ * marshalling and is written straight back.
+ *
+ * <p>It wraps the endpoint's HTTP handler. A request is cacheable when its
+ * body names one of the catalog operations with plain arguments; the key is
+ * the SOAP version, the operation and the arguments. Each entry depends on
+ * one data key (the course, its code, semester or department, or the whole
+ * catalog) and remembers the clock when its request started. Every course
+ * change bumps the clock into the keys the course belongs to, so entries read
+ * before it no longer match; a resync invalidates everything. Changes arrive
+ * from the course change feed, which sees this node's writes, schedules
+ * included, the other nodes' and the reconciler's repairs.
+ *
+ * <p>Reads may come from the replica, which can lag a change committed just
+ * before the request; entries are therefore also dropped after
+ * {@code soap-cache.max-age-ms}. Entries are kept least recently used first
+ * within {@code soap-cache.max-entries} and {@code soap-cache.max-bytes}.
+ */
+public class SoapResponseCache implements CourseChangeFeed.Listener {
+
+    private static final int MAX_REQUEST_BYTES = 8192;
+    private static final String ALL = "all";
+
+    /** The catalog reads and the argument naming the data each depends on, or {@code all} for the whole catalog. */
+    private static final Map<String, String> OPERATIONS = Map.of(
+        "getCourse", "courseId",
+        "getCourseByCode", "code",
+        "listCoursesBySemester", "semester",
+        "listCoursesByDepartment", "department",
+        "listCourses", ALL,
+        "listAvailableCourses", ALL);
+
+    private static final Set<String> PER_COURSE = Set.of("courseId", "code", "semester", "department");
+
+    private record Request(String key, String dataKey) {
+    }
+
+    private record Entry(byte[] body, String contentType, long version, long storedAt) {
+    }
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final int maxEntryBytes;
+    private final long maxAgeMillis;
+    private final XMLInputFactory xml;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private volatile long floor;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);    // guarded by itself
+    private long bytes;                                                                             // guarded by entries
+
+    public SoapResponseCache() {
+        this(AppConfig.getBoolean("soap-cache.enabled", true),
+            AppConfig.getInt("soap-cache.max-entries", 10_000),
+            AppConfig.getLong("soap-cache.max-bytes", 64L * 1024 * 1024),
+            AppConfig.getInt("soap-cache.max-entry-bytes", 1024 * 1024),
+            AppConfig.getLong("soap-cache.max-age-ms", 5000));
+    }
+
+    SoapResponseCache(boolean enabled, int maxEntries, long maxBytes, int maxEntryBytes, long maxAgeMillis) {
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.maxEntryBytes = Math.max(1, maxEntryBytes);
+        this.maxAgeMillis = maxAgeMillis;
+        this.xml = XMLInputFactory.newFactory();
+        xml.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xml.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** The endpoint's handler, answering cacheable requests from the cache when it can. */
+    public HttpHandler wrap(HttpHandler endpoint) {
+        return exchange -> handle(exchange, endpoint);
+    }
+
+    @Override
+    public void changed(CourseChangeFeed.CourseChange change) {
+        courseChanged(change.courseId(), change.code(), change.semester(), change.department());
+    }
+
+    @Override
+    public void resyncRequired() {
+        invalidateAll();
+    }
+
+    /** Invalidates every entry that may include the course. */
+    public void courseChanged(long courseId, String code, String semester, String department) {
+        long version = clock.incrementAndGet();
+        bump("courseId:" + courseId, version);
+        bump("code:" + code, version);
+        bump("semester:" + semester, version);
+        bump("department:" + department, version);
+        bump(ALL, version);
+    }
+
+    public void invalidateAll() {
+        floor = clock.incrementAndGet();
+        synchronized (entries) {
+            entries.clear();
+            bytes = 0;
+        }
+    }
+
+    private void bump(String dataKey, long version) {
+        versions.merge(dataKey, version, Math::max);
+    }
+
+    private void handle(HttpExchange exchange, HttpHandler endpoint) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            endpoint.handle(exchange);
+            return;
+        }
+        InputStream in = exchange.getRequestBody();
+        byte[] body = in.readNBytes(MAX_REQUEST_BYTES + 1);
+        Request request = body.length > MAX_REQUEST_BYTES ? null
+            : parse(body, exchange.getRequestHeaders().getFirst("Content-Type"));
+        InputStream replayed = body.length > MAX_REQUEST_BYTES
+            ? new SequenceInputStream(new ByteArrayInputStream(body), in) : new ByteArrayInputStream(body);
+        if (request == null) {
+            exchange.setStreams(replayed, null);
+            endpoint.handle(exchange);
+            return;
+        }
+
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(request.key());
+        }
+        if (cached != null && isCurrent(cached, request.dataKey())) {
+            exchange.getResponseHeaders().set("Content-Type", cached.contentType());
+            exchange.sendResponseHeaders(200, cached.body().length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(cached.body());
+            }
+            return;
+        }
+
+        long version = clock.get();
+        Capture capture = new Capture(exchange.getResponseBody(), maxEntryBytes);
+        exchange.setStreams(replayed, capture);
+        endpoint.handle(exchange);
+        String contentType = exchange.getResponseHeaders().getFirst("Content-Type");
+        if (exchange.getResponseCode() == 200 && contentType != null && !capture.overflowed) {
+            store(request.key(), new Entry(capture.captured.toByteArray(), contentType, version,
+                System.currentTimeMillis()));
+        }
+    }
+
+    private boolean isCurrent(Entry entry, String dataKey) {
+        return entry.version() >= floor
+            && entry.version() >= versions.getOrDefault(dataKey, 0L)
+            && System.currentTimeMillis() - entry.storedAt() <= maxAgeMillis;
+    }
+
+    private void store(String key, Entry entry) {
+        synchronized (entries) {
+            Entry replaced = entries.put(key, entry);
+            bytes += entry.body().length - (replaced != null ? replaced.body().length : 0);
+            var eldest = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+                bytes -= eldest.next().getValue().body().length;
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * The cache key of a catalog read: the operation, the first element of
+     * the SOAP body, and its arguments, which must be plain text elements.
+     * Null for anything else.
+     */
+    private Request parse(byte[] body, String contentType) {
+        try {
+            XMLStreamReader reader = xml.createXMLStreamReader(new ByteArrayInputStream(body));
+            try {
+                int depth = 0;
+                int bodyDepth = -1;
+                String operation = null;
+                String dataKey = null;
+                StringBuilder key = new StringBuilder(contentType != null
+                    && contentType.startsWith("application/soap+xml") ? "1.2|" : "1.1|");
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        String name = reader.getLocalName();
+                        if (bodyDepth < 0) {
+                            if ("Body".equals(name)) {
+                                bodyDepth = depth;
+                            }
+                        } else if (depth == bodyDepth + 1) {
+                            if (operation != null || !OPERATIONS.containsKey(name)) {
+                                return null;
+                            }
+                            operation = name;
+                            key.append(name);
+                        } else if (depth == bodyDepth + 2) {
+                            String value = reader.getElementText();
+                            depth--;
+                            if (name.equals("courseId")) {
+                                value = canonicalId(value);
+                                if (value == null) {
+                                    return null;
+                                }
+                            }
+                            key.append('|').append(name).append('=').append(value);
+                            if (name.equals(OPERATIONS.get(operation)) && PER_COURSE.contains(name)) {
+                                dataKey = name + ":" + value;
+                            }
+                        } else {
+                            return null;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        depth--;
+                    }
+                }
+                if (operation == null) {
+                    return null;
+                }
+                if (ALL.equals(OPERATIONS.get(operation))) {
+                    dataKey = ALL;
+                }
+                return dataKey == null ? null : new Request(key.toString(), dataKey);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            return null;     // not ours to judge; the endpoint answers with a fault
+        }
+    }
+
+    /** The ID as the entity has it, so the entry matches the course's changes; null when it is not a number. */
+    private static String canonicalId(String value) {
+        try {
+            return Long.toString(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** Passes the response through, keeping a copy until it grows past the entry limit. */
+    private static final class Capture extends OutputStream {
+
+        private final OutputStream out;
+        private final int limit;
+        private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        private boolean overflowed;
+
+        Capture(OutputStream out, int limit) {
+            this.out = out;
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (!overflowed) {
+                keep(1);
+                if (!overflowed) {
+                    captured.write(b);
+                }
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (!overflowed) {
+                keep(len);
+                if (!overflowed) {
+                    captured.write(b, off, len);
+                }
+            }
+        }
+
+        private void keep(int len) {
+            if (captured.size() + len > limit) {
+                overflowed = true;
+                captured.reset();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
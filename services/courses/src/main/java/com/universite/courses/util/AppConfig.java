@@ -0,0 +1,78 @@
+package com.universite.courses.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Reads {@code application.properties}. Every key can be overridden by an
+ * environment variable named after it in upper case with dots and dashes
+ * replaced by underscores, e.g. {@code course.write.retry.max-attempts}
+ * becomes {@code COURSE_WRITE_RETRY_MAX_ATTEMPTS}.
+ */
+@Slf4j
+public final class AppConfig {
+    
+    private static final Properties properties = load();
+    
+    private AppConfig() {
+    }
+    
+    public static String get(String key, String defaultValue) {
+        String env = System.getenv(toEnvName(key));
+        if (env != null && !env.trim().isEmpty()) {
+            return env.trim();
+        }
+        String value = properties.getProperty(key);
+        return value != null && !value.trim().isEmpty() ? value.trim() : defaultValue;
+    }
+    
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid integer for {}: {}, using default {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+    
+    public static long getLong(String key, long defaultValue) {
+        String value = get(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            log.warn("Invalid number for {}: {}, using default {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+    
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+    
+    static String toEnvName(String key) {
+        return key.toUpperCase().replace('.', '_').replace('-', '_');
+    }
+    
+    private static Properties load() {
+        Properties loaded = new Properties();
+        try (InputStream in = AppConfig.class.getClassLoader().getResourceAsStream("application.properties")) {
+            if (in != null) {
+                loaded.load(in);
+            }
+        } catch (IOException e) {
+            log.warn("Could not read application.properties: {}", e.getMessage());
+        }
+        return loaded;
+    }
+}
@@ -1,21 +1,47 @@
-package main.java.com.universite.courses.util;
+package com.universite.courses.util;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.NoResultException;
+import jakarta.persistence.NonUniqueResultException;
 import jakarta.persistence.Persistence;
+import jakarta.persistence.PersistenceException;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @Slf4j
 public class DatabaseManager {
     
+    private static final String DEFAULT_PERSISTENCE_UNIT = "coursesPU";
+    
     private static EntityManagerFactory entityManagerFactory;
+    private static ReadReplicaRouter readReplicaRouter;
     
     public static void initialize() {
+        initialize(DEFAULT_PERSISTENCE_UNIT, Map.of());
+    }
+    
+    /**
+     * Initializes the factory for the given persistence unit. Explicit overrides
+     * win over the DB_* environment variables; tools such as the load simulator
+     * use this to point the service at {@code coursesPU-test}.
+     */
+    public static void initialize(String persistenceUnit, Map<String, String> overrides) {
         try {
-            log.info("Initializing database connection...");
+            log.info("Initializing database connection ({})...", persistenceUnit);
             
             Map<String, String> properties = new HashMap<>();
             
@@ -34,13 +60,21 @@ public class DatabaseManager {
                 properties.put("jakarta.persistence.jdbc.password", dbPassword);
             }
             
+            properties.putAll(overrides);
+            
             if (properties.isEmpty()) {
-                entityManagerFactory = Persistence.createEntityManagerFactory("coursesPU");
+                entityManagerFactory = Persistence.createEntityManagerFactory(persistenceUnit);
             } else {
-                entityManagerFactory = Persistence.createEntityManagerFactory("coursesPU", properties);
+                entityManagerFactory = Persistence.createEntityManagerFactory(persistenceUnit, properties);
             }
             
             log.info("Database connection initialized successfully");
+            StartupTimer.phase("persistence unit");
+            
+            SchemaMigrator.run(settings());
+            StartupTimer.phase("schema migrations");
+            
+            initializeReadReplica(persistenceUnit, properties);
             
         } catch (Exception e) {
             log.error("Failed to initialize database connection: {}", e.getMessage());
@@ -48,6 +82,42 @@ public class DatabaseManager {
         }
     }
     
+    /**
+     * Opens a second, read-only factory on DB_READ_URL when it is configured.
+     * It reuses the primary unit's mappings but never touches the schema.
+     */
+    private static void initializeReadReplica(String persistenceUnit, Map<String, String> primaryProperties) {
+        String readUrl = AppConfig.get("db.read.url", null);
+        if (readUrl == null) {
+            return;
+        }
+        try {
+            log.info("Initializing read replica connection...");
+            
+            Map<String, String> properties = new HashMap<>(primaryProperties);
+            properties.put("jakarta.persistence.jdbc.url", readUrl);
+            String readUser = AppConfig.get("db.read.user", null);
+            String readPassword = AppConfig.get("db.read.password", null);
+            if (readUser != null) {
+                properties.put("jakarta.persistence.jdbc.user", readUser);
+            }
+            if (readPassword != null) {
+                properties.put("jakarta.persistence.jdbc.password", readPassword);
+            }
+            properties.put("hibernate.hbm2ddl.auto", "none");
+            
+            EntityManagerFactory replica = Persistence.createEntityManagerFactory(persistenceUnit, properties);
+            readReplicaRouter = new ReadReplicaRouter(replica, readUrl);
+            
+            log.info("Read replica connection initialized");
+            StartupTimer.phase("read replica");
+            
+        } catch (Exception e) {
+            // The primary can serve everything, a missing replica is not fatal
+            log.error("Failed to initialize read replica, reads will use the primary: {}", e.getMessage());
+        }
+    }
+    
     public static EntityManager getEntityManager() {
         if (entityManagerFactory == null) {
             initialize();
@@ -55,7 +125,200 @@ public class DatabaseManager {
         return entityManagerFactory.createEntityManager();
     }
     
+    /**
+     * Runs the work in one transaction on a fresh EntityManager, committing on
+     * success and rolling back on any exception. Repository saves called from
+     * inside join this transaction instead of starting their own.
+     */
+    public static <T> T inTransaction(Function<EntityManager, T> work) {
+        EntityManager entityManager = getEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            T result = work.apply(entityManager);
+            entityManager.getTransaction().commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            entityManager.close();
+        }
+    }
+    
+    /**
+     * Runs the action once the entity manager's transaction has committed, and
+     * never if it rolls back, so an attempt that is retried publishes nothing.
+     * A failing action is logged; the commit it follows stands.
+     */
+    public static void afterCommit(EntityManager entityManager, Runnable action) {
+        entityManager.unwrap(Session.class).getTransaction().registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != Status.STATUS_COMMITTED) {
+                    return;
+                }
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    log.error("After-commit action failed: {}", e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs the work in a transaction that is always rolled back, to report what
+     * a write would do without keeping it.
+     */
+    public static <T> T inRolledBackTransaction(Function<EntityManager, T> work) {
+        EntityManager entityManager = getEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            return work.apply(entityManager);
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+        }
+    }
+    
+    /**
+     * Runs read-only work on a fresh EntityManager that is closed afterwards.
+     * Lazy associations must be mapped to DTOs inside the work.
+     */
+    public static <T> T withEntityManager(Function<EntityManager, T> work) {
+        EntityManager entityManager = getEntityManager();
+        try {
+            return work.apply(entityManager);
+        } finally {
+            entityManager.close();
+        }
+    }
+    
+    /**
+     * Runs read-only work on the replica when one is configured and within its
+     * staleness budget, falling back to the primary otherwise or when the
+     * replica fails mid-read. Repositories wrap database errors, so a failure
+     * is any exception caused by one; others, such as a rejected argument,
+     * are the work's own and propagate. Sessions are read-only, so Hibernate
+     * keeps no dirty-checking snapshots for the loaded entities.
+     */
+    public static <T> T withReadEntityManager(Function<EntityManager, T> work) {
+        ReadReplicaRouter router = readReplicaRouter;
+        EntityManager replica = router == null ? null : router.replicaEntityManagerOrNull();
+        if (replica != null) {
+            try {
+                replica.unwrap(Session.class).setDefaultReadOnly(true);
+                return work.apply(replica);
+            } catch (RuntimeException e) {
+                if (!isDatabaseFailure(e)) {
+                    throw e;
+                }
+                router.reportFailure(e);
+                log.warn("Read on replica failed, retrying on the primary: {}", e.getMessage());
+            } finally {
+                replica.close();
+            }
+        }
+        
+        EntityManager entityManager = getEntityManager();
+        try {
+            entityManager.unwrap(Session.class).setDefaultReadOnly(true);
+            return work.apply(entityManager);
+        } finally {
+            entityManager.close();
+        }
+    }
+    
+    private static boolean isDatabaseFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof NoResultException || cause instanceof NonUniqueResultException) {
+                return false;
+            }
+            if (cause instanceof PersistenceException || cause instanceof SQLException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /** Replaces the read replica's router; tests use it to route reads to a local database. */
+    static void setReadReplicaRouter(ReadReplicaRouter router) {
+        if (readReplicaRouter != null) {
+            readReplicaRouter.close();
+        }
+        readReplicaRouter = router;
+    }
+    
+    /**
+     * Holds {@code connections} pooled connections at once and hands them
+     * back, so that a burst of requests finds them open instead of waiting
+     * for the pool to grow.
+     */
+    public static void warmPool(int connections) {
+        List<EntityManager> held = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                EntityManager entityManager = getEntityManager();
+                held.add(entityManager);
+                entityManager.getTransaction().begin();
+                entityManager.createNativeQuery("SELECT 1").getSingleResult();
+            }
+        } finally {
+            for (EntityManager entityManager : held) {
+                if (entityManager.getTransaction().isActive()) {
+                    entityManager.getTransaction().rollback();
+                }
+                entityManager.close();
+            }
+        }
+    }
+    
+    /** Whether the primary is a PostgreSQL database. */
+    public static boolean isPostgreSQL() {
+        if (entityManagerFactory == null) {
+            initialize();
+        }
+        Object url = settings().get("jakarta.persistence.jdbc.url");
+        return url != null && url.toString().startsWith("jdbc:postgresql:");
+    }
+    
+    /**
+     * Opens a connection to the primary outside the pool, for a background
+     * thread that keeps one for the life of the process. The caller closes it.
+     */
+    public static Connection openUnpooledConnection() throws SQLException {
+        if (entityManagerFactory == null) {
+            initialize();
+        }
+        Map<String, Object> settings = settings();
+        return DriverManager.getConnection((String) settings.get("jakarta.persistence.jdbc.url"),
+            (String) settings.get("jakarta.persistence.jdbc.user"),
+            (String) settings.get("jakarta.persistence.jdbc.password"));
+    }
+    
+    /** The primary's resolved settings; getProperties() masks credentials, the configuration service does not. */
+    private static Map<String, Object> settings() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry().getService(ConfigurationService.class).getSettings();
+    }
+    
+    public static ReadReplicaRouter getReadReplicaRouter() {
+        return readReplicaRouter;
+    }
+    
     public static void close() {
+        if (readReplicaRouter != null) {
+            readReplicaRouter.close();
+            readReplicaRouter = null;
+        }
         if (entityManagerFactory != null && entityManagerFactory.isOpen()) {
             log.info("Closing database connection...");
             entityManagerFactory.close();
@@ -1,9 +1,11 @@
-package main.java.com.universite.courses.util;
+package com.universite.courses.util;
 
 import com.universite.courses.dto.CourseDTO;
 import com.universite.courses.dto.EnrollmentDTO;
+import com.universite.courses.dto.LotteryWindowDTO;
 import com.universite.courses.dto.ScheduleDTO;
 import com.universite.courses.entity.Course;
+import com.universite.courses.entity.LotteryWindow;
 import com.universite.courses.entity.Schedule;
 import com.universite.courses.entity.StudentCourse;
 
@@ -75,4 +77,26 @@ public class EntityMapper {
         
         return dto;
     }
+    
+    public LotteryWindowDTO toDTO(LotteryWindow window) {
+        if (window == null) return null;
+        
+        LotteryWindowDTO dto = new LotteryWindowDTO();
+        dto.setSemester(window.getSemester());
+        dto.setStatus(window.getStatus());
+        dto.setOpenedAt(window.getOpenedAt());
+        dto.setClosesAt(window.getClosesAt());
+        dto.setClosedAt(window.getClosedAt());
+        // Known before the draw, the seed would let anyone holding the submissions predict it
+        dto.setSeed(window.isOpen() ? null : window.getSeed());
+        dto.setStudents(window.getStudents());
+        dto.setRequests(window.getRequests());
+        dto.setSeatsAssigned(window.getSeatsAssigned());
+        dto.setRejectedFull(window.getRejectedFull());
+        dto.setRejectedPrerequisites(window.getRejectedPrerequisites());
+        dto.setAlreadyEnrolled(window.getAlreadyEnrolled());
+        dto.setElapsedMs(window.getElapsedMs());
+        
+        return dto;
+    }
 }
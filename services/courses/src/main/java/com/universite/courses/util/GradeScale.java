@@ -0,0 +1,53 @@
+package com.universite.courses.util;
+
+/**
+ * Letter grades for percentage grades (0-100), A+ to F, plus the letter
+ * recorded for enrollments closed without a grade, and the grade points of
+ * each letter on the 4.0 scale GPAs are computed on.
+ */
+public final class GradeScale {
+
+    public static final double MIN_GRADE = 0.0;
+    public static final double MAX_GRADE = 100.0;
+
+    /** Enrollments still ENROLLED when their semester is closed. */
+    public static final String INCOMPLETE = "I";
+
+    // Lowest grade of each letter, best letter first
+    private static final double[] THRESHOLDS = {97, 93, 90, 87, 83, 80, 77, 73, 70, 67, 63, 60, 0};
+    private static final String[] LETTERS = {"A+", "A", "A-", "B+", "B", "B-", "C+", "C", "C-", "D+", "D", "D-", "F"};
+    private static final double[] POINTS = {4.0, 4.0, 3.7, 3.3, 3.0, 2.7, 2.3, 2.0, 1.7, 1.3, 1.0, 0.7, 0.0};
+
+    private GradeScale() {
+    }
+
+    public static boolean isValid(Double grade) {
+        return grade != null && grade >= MIN_GRADE && grade <= MAX_GRADE;
+    }
+
+    public static String letterFor(double grade) {
+        if (!isValid(grade)) {
+            throw new IllegalArgumentException("Grade must be between " + MIN_GRADE + " and " + MAX_GRADE + ": " + grade);
+        }
+        for (int i = 0; i < THRESHOLDS.length; i++) {
+            if (grade >= THRESHOLDS[i]) {
+                return LETTERS[i];
+            }
+        }
+        return LETTERS[LETTERS.length - 1];
+    }
+
+    /**
+     * Grade points of the letter; null for the incomplete letter, or none,
+     * which earn no credits and leave the GPA alone. Every letter but F earns
+     * the course's credits.
+     */
+    public static Double pointsFor(String letter) {
+        for (int i = 0; i < LETTERS.length; i++) {
+            if (LETTERS[i].equals(letter)) {
+                return POINTS[i];
+            }
+        }
+        return null;
+    }
+}
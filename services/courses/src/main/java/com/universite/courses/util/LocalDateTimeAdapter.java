@@ -0,0 +1,18 @@
+package com.universite.courses.util;
+
+import jakarta.xml.bind.annotation.adapters.XmlAdapter;
+
+import java.time.LocalDateTime;
+
+public class LocalDateTimeAdapter extends XmlAdapter<String, LocalDateTime> {
+    
+    @Override
+    public LocalDateTime unmarshal(String value) {
+        return value == null || value.isBlank() ? null : LocalDateTime.parse(value.trim());
+    }
+    
+    @Override
+    public String marshal(LocalDateTime value) {
+        return value == null ? null : value.toString();
+    }
+}
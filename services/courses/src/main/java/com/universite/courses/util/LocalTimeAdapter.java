@@ -0,0 +1,18 @@
+package com.universite.courses.util;
+
+import jakarta.xml.bind.annotation.adapters.XmlAdapter;
+
+import java.time.LocalTime;
+
+public class LocalTimeAdapter extends XmlAdapter<String, LocalTime> {
+    
+    @Override
+    public LocalTime unmarshal(String value) {
+        return value == null || value.isBlank() ? null : LocalTime.parse(value.trim());
+    }
+    
+    @Override
+    public String marshal(LocalTime value) {
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,144 @@
+package com.universite.courses.util;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether a read may go to the replica. A background probe measures
+ * replication lag; the replica is used only while it answers the probe and
+ * its lag stays within the staleness budget, otherwise reads go to the
+ * primary until the next successful probe.
+ */
+@Slf4j
+public class ReadReplicaRouter {
+
+    /**
+     * Lag in milliseconds on a PostgreSQL standby. A standby that has replayed
+     * everything it received reports 0 even if the primary has been idle.
+     */
+    static final String POSTGRES_LAG_QUERY =
+        "SELECT CASE WHEN NOT pg_is_in_recovery() " +
+        "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0) END";
+
+    private final EntityManagerFactory replica;
+    private final String lagQuery;
+    private final long maxStalenessMillis;
+    private final ScheduledExecutorService monitor;
+
+    private volatile boolean usable;
+    private volatile long lastLagMillis = -1;
+    private final AtomicLong replicaReads = new AtomicLong();
+    private final AtomicLong primaryFallbacks = new AtomicLong();
+
+    public ReadReplicaRouter(EntityManagerFactory replica, String replicaUrl) {
+        this(replica, lagQuery(replicaUrl), AppConfig.getLong("db.read.max-staleness-ms", 5000),
+            AppConfig.getLong("db.read.lag-check-interval-ms", 1000));
+    }
+
+    ReadReplicaRouter(EntityManagerFactory replica, String lagQuery, long maxStalenessMillis, long interval) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "read-replica-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        probe();
+        monitor.scheduleWithFixedDelay(this::probe, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns a replica EntityManager when the replica is within budget, or
+     * null when the caller should read from the primary.
+     */
+    public EntityManager replicaEntityManagerOrNull() {
+        if (!usable) {
+            primaryFallbacks.incrementAndGet();
+            return null;
+        }
+        try {
+            EntityManager entityManager = replica.createEntityManager();
+            replicaReads.incrementAndGet();
+            return entityManager;
+        } catch (RuntimeException e) {
+            markUnusable("could not open a session: " + e.getMessage());
+            primaryFallbacks.incrementAndGet();
+            return null;
+        }
+    }
+
+    /** Called when a read on the replica failed, so the next reads skip it. */
+    public void reportFailure(RuntimeException e) {
+        markUnusable("read failed: " + e.getMessage());
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    public long getLastLagMillis() {
+        return lastLagMillis;
+    }
+
+    public long getReplicaReads() {
+        return replicaReads.get();
+    }
+
+    public long getPrimaryFallbacks() {
+        return primaryFallbacks.get();
+    }
+
+    public void close() {
+        monitor.shutdownNow();
+        if (replica.isOpen()) {
+            replica.close();
+        }
+    }
+
+    private static String lagQuery(String replicaUrl) {
+        String configuredQuery = AppConfig.get("db.read.lag-query", null);
+        if (configuredQuery != null) {
+            return configuredQuery;
+        }
+        return replicaUrl.startsWith("jdbc:postgresql:") ? POSTGRES_LAG_QUERY : "SELECT 0";
+    }
+
+    private void probe() {
+        EntityManager entityManager = null;
+        try {
+            entityManager = replica.createEntityManager();
+            Object result = entityManager.createNativeQuery(lagQuery).getSingleResult();
+            long lag = result == null ? 0 : ((Number) result).longValue();
+            lastLagMillis = lag;
+            if (lag <= maxStalenessMillis) {
+                if (!usable) {
+                    log.info("Read replica available (lag {} ms), routing reads to it", lag);
+                }
+                usable = true;
+            } else {
+                markUnusable("lag " + lag + " ms exceeds budget of " + maxStalenessMillis + " ms");
+            }
+        } catch (RuntimeException e) {
+            markUnusable("probe failed: " + e.getMessage());
+        } finally {
+            if (entityManager != null) {
+                entityManager.close();
+            }
+        }
+    }
+
+    private void markUnusable(String reason) {
+        if (usable) {
+            log.warn("Read replica unavailable ({}), routing reads to the primary", reason);
+        }
+        usable = false;
+    }
+}
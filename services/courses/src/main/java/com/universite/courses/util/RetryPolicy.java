@@ -0,0 +1,98 @@
+package com.universite.courses.util;
+
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.StaleStateException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a unit of work that lost an optimistic-locking race. Each retry
+ * waits a random delay up to an exponentially growing cap ("full jitter") so
+ * that writers colliding on the same course spread out instead of colliding
+ * again in lockstep.
+ */
+@Slf4j
+public class RetryPolicy {
+    
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+    
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(1, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+    }
+    
+    public static RetryPolicy fromConfig() {
+        return new RetryPolicy(
+            AppConfig.getInt("course.write.retry.max-attempts", 5),
+            AppConfig.getLong("course.write.retry.base-delay-ms", 10),
+            AppConfig.getLong("course.write.retry.max-delay-ms", 200));
+    }
+    
+    public <T> T execute(String operation, Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.get();
+            } catch (RuntimeException e) {
+                if (!isOptimisticConflict(e)) {
+                    throw e;
+                }
+                conflicts.incrementAndGet();
+                if (attempt >= maxAttempts) {
+                    exhausted.incrementAndGet();
+                    log.warn("{} still conflicting after {} attempts, giving up", operation, attempt);
+                    throw new IllegalStateException(
+                        "Concurrent update conflict, please retry", e);
+                }
+                retries.incrementAndGet();
+                long delay = ThreadLocalRandom.current().nextLong(
+                    Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt, 20)) + 1);
+                log.debug("{} hit an optimistic lock conflict (attempt {}), retrying in {} ms",
+                    operation, attempt, delay);
+                sleep(delay);
+            }
+        }
+    }
+    
+    public long getConflicts() {
+        return conflicts.get();
+    }
+    
+    public long getRetries() {
+        return retries.get();
+    }
+    
+    public long getExhausted() {
+        return exhausted.get();
+    }
+    
+    static boolean isOptimisticConflict(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockException || cause instanceof StaleStateException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.universite.courses.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+
+import java.util.Map;
+
+/**
+ * Applies the versioned migrations in {@code db/migration} at startup.
+ * {@code db.migration.mode} is {@code migrate} (default), {@code validate}
+ * (fail when migrations are pending or were edited, never change the schema;
+ * meant for production, where one deploy step migrates) or {@code off}.
+ *
+ * <p>Persistence units that let Hibernate manage the schema themselves
+ * ({@code hibernate.hbm2ddl.auto} other than none/validate, like the H2 test
+ * unit) are left alone.
+ */
+@Slf4j
+public final class SchemaMigrator {
+
+    private SchemaMigrator() {
+    }
+
+    static void run(Map<String, Object> properties) {
+        String mode = AppConfig.get("db.migration.mode", "migrate").toLowerCase();
+        Object hbm2ddl = properties.get("hibernate.hbm2ddl.auto");
+        if ("off".equals(mode)) {
+            log.info("Schema migrations disabled");
+            return;
+        }
+        if (hbm2ddl != null && !"none".equals(hbm2ddl) && !"validate".equals(hbm2ddl)) {
+            log.info("Schema managed by hibernate.hbm2ddl.auto={}, skipping migrations", hbm2ddl);
+            return;
+        }
+
+        Flyway flyway = Flyway.configure()
+            .dataSource(
+                (String) properties.get("jakarta.persistence.jdbc.url"),
+                (String) properties.get("jakarta.persistence.jdbc.user"),
+                (String) properties.get("jakarta.persistence.jdbc.password"))
+            .locations("classpath:db/migration")
+            // Databases created by hbm2ddl before migrations existed match V1
+            .baselineOnMigrate(true)
+            .baselineVersion("1")
+            .load();
+
+        if ("validate".equals(mode)) {
+            flyway.validate();
+            log.info("Schema is at version {}", flyway.info().current().getVersion());
+        } else {
+            MigrateResult result = flyway.migrate();
+            log.info("Applied {} schema migrations, schema is at version {}",
+                result.migrationsExecuted, result.targetSchemaVersion != null
+                    ? result.targetSchemaVersion : flyway.info().current().getVersion());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.universite.courses.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Startup phase timings. Each {@link #phase} call closes the phase that began
+ * at the previous call; the first one also covers JVM boot and the class
+ * loading done before {@code main}. The breakdown is logged once the service
+ * listens, and the time to the first successful request once it is served.
+ */
+@Slf4j
+public final class StartupTimer {
+
+    private static final long processStart = ProcessHandle.current().info().startInstant()
+        .map(Instant::toEpochMilli)
+        .orElse(System.currentTimeMillis());
+
+    private static final Map<String, Long> phases = new LinkedHashMap<>();
+    private static final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+
+    private static long phaseStart = processStart;
+
+    private StartupTimer() {
+    }
+
+    public static synchronized void phase(String name) {
+        long now = System.currentTimeMillis();
+        phases.merge(name, now - phaseStart, Long::sum);
+        phaseStart = now;
+    }
+
+    public static synchronized void report() {
+        StringBuilder breakdown = new StringBuilder("Startup phases:");
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            breakdown.append(String.format("%n  %-22s %6d ms", phase.getKey(), phase.getValue()));
+        }
+        breakdown.append(String.format("%n  %-22s %6d ms", "total", System.currentTimeMillis() - processStart));
+        log.info("{}", breakdown);
+    }
+
+    /** Logs the time from process start to the first successful request; later calls are ignored. */
+    public static void requestSucceeded(String request) {
+        if (firstRequestSeen.compareAndSet(false, true)) {
+            log.info("First successful request ({}) {} ms after process start",
+                request, System.currentTimeMillis() - processStart);
+        }
+    }
+}
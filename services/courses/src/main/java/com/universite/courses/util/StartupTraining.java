@@ -0,0 +1,70 @@
+package com.universite.courses.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The requests of a class-data-sharing training run
+ * ({@code startup.training-run=true}): the service boots, fetches its own WSDL
+ * and answers a query and a fault, then exits so the JVM writes the archive
+ * given by {@code -XX:ArchiveClassesAtExit}. Everything loaded on the way to
+ * the first requests is then mapped from the archive on later starts.
+ */
+@Slf4j
+public final class StartupTraining {
+
+    private static final String ENVELOPE =
+        "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\" " +
+        "xmlns:cs=\"http://courses.universite.com/\"><soapenv:Body>%s</soapenv:Body></soapenv:Envelope>";
+
+    private StartupTraining() {
+    }
+
+    public static boolean isEnabled() {
+        return AppConfig.getBoolean("startup.training-run", false);
+    }
+
+    public static void run(int port, String path) {
+        String address = "http://localhost:" + port + path;
+        try {
+            request(address + "?wsdl", null);
+            // Reads nothing, but goes through JPA, the DTO mapping and the response marshalling
+            request(address, "<cs:listCoursesBySemester><semester>training-run</semester></cs:listCoursesBySemester>");
+            // SOAP fault path
+            request(address, "<cs:getCourse><courseId>-1</courseId></cs:getCourse>");
+            log.info("Training run finished");
+        } catch (IOException e) {
+            log.error("Training run failed: {}", e.getMessage());
+        }
+    }
+
+    private static void request(String address, String operation) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(address).openConnection();
+        try {
+            if (operation != null) {
+                connection.setRequestMethod("POST");
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "text/xml; charset=utf-8");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(String.format(ENVELOPE, operation).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            int status = connection.getResponseCode();
+            InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (body != null) {
+                try (body) {
+                    body.readAllBytes();
+                }
+            }
+            log.info("Training request {} -> {}", operation == null ? "GET ?wsdl" : "POST", status);
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
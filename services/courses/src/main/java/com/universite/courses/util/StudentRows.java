@@ -0,0 +1,107 @@
+package com.universite.courses.util;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Enrollments streamed in student order, as a CSR matrix of students by
+ * column: row {@code r} holds the distinct columns {@code columns()[i]} for
+ * {@code i} from {@code rowStart()[r]} up to {@code rowStart()[r + 1]}.
+ * A course maps to its column through the function given, by its index in
+ * the sorted course IDs, so several courses can share a column.
+ *
+ * <p>Only students with at least two columns get a row; the others cannot
+ * pair with anything and only count towards their column's students.
+ * Enrollments of courses missing from the IDs, created after they were
+ * read, are skipped. Call {@link #endStudent} once the stream ends.
+ */
+public final class StudentRows {
+
+    private final long[] courseIds;
+    private final IntUnaryOperator columnOfCourse;
+    private final int[] columnStudents;
+
+    private int[] columns = new int[1 << 16];
+    private int size;
+    private int[] rowStart = new int[1 << 12];
+    private int rowCount;
+    private int studentCount;
+    private long student = Long.MIN_VALUE;
+    private int studentStart;
+
+    /**
+     * @param courseIds      the courses, sorted by ID
+     * @param columnOfCourse the column of the course at each index of {@code courseIds}
+     * @param columnCount    how many columns there are
+     */
+    public StudentRows(long[] courseIds, IntUnaryOperator columnOfCourse, int columnCount) {
+        this.courseIds = courseIds;
+        this.columnOfCourse = columnOfCourse;
+        this.columnStudents = new int[columnCount];
+    }
+
+    public void accept(long courseId, long studentId) {
+        int course = Arrays.binarySearch(courseIds, courseId);
+        if (course < 0) {
+            return; // created after the courses were read
+        }
+        if (studentId != student) {
+            endStudent();
+            student = studentId;
+            studentCount++;
+        }
+        if (size == columns.length) {
+            columns = Arrays.copyOf(columns, size * 2);
+        }
+        columns[size++] = columnOfCourse.applyAsInt(course);
+    }
+
+    /** Sorts and deduplicates the current student's columns, then keeps or discards the row. */
+    public void endStudent() {
+        Arrays.sort(columns, studentStart, size);
+        int distinct = studentStart;
+        for (int i = studentStart; i < size; i++) {
+            if (i == studentStart || columns[i] != columns[i - 1]) {
+                columns[distinct++] = columns[i];
+                columnStudents[columns[i]]++;
+            }
+        }
+        size = distinct - studentStart >= 2 ? distinct : studentStart;
+        if (size > studentStart) {
+            if (rowCount + 2 > rowStart.length) {
+                rowStart = Arrays.copyOf(rowStart, rowStart.length * 2);
+            }
+            rowStart[rowCount + 1] = size;
+            rowCount++;
+        }
+        studentStart = size;
+    }
+
+    /** The column of every entry; only the first {@link #size} are used. */
+    public int[] columns() {
+        return columns;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Where each row starts, with the end of the last at {@code rowCount()}. */
+    public int[] rowStart() {
+        return rowStart;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /** Every student seen, with a row or not. */
+    public int studentCount() {
+        return studentCount;
+    }
+
+    /** How many students each column has, with a row or not. */
+    public int[] columnStudents() {
+        return columnStudents;
+    }
+}
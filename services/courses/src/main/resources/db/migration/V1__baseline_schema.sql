@@ -0,0 +1,54 @@
+-- Schema as previously created by hibernate.hbm2ddl.auto=update. Databases
+-- that already have these tables are baselined at this version instead.
+
+CREATE TABLE courses (
+    id                      BIGSERIAL PRIMARY KEY,
+    code                    VARCHAR(20)  NOT NULL UNIQUE,
+    name                    VARCHAR(200) NOT NULL,
+    description             TEXT,
+    credits                 INTEGER      NOT NULL,
+    semester                VARCHAR(50)  NOT NULL,
+    capacity                INTEGER      NOT NULL,
+    enrolled                INTEGER      NOT NULL,
+    department              VARCHAR(50),
+    level                   VARCHAR(20),
+    prerequisite_course_ids VARCHAR(255),
+    active                  BOOLEAN      NOT NULL,
+    created_at              TIMESTAMP(6) NOT NULL,
+    updated_at              TIMESTAMP(6)
+);
+
+CREATE TABLE schedules (
+    id            BIGSERIAL PRIMARY KEY,
+    course_id     BIGINT       NOT NULL REFERENCES courses (id),
+    day_of_week   VARCHAR(255) NOT NULL CHECK (day_of_week IN
+                      ('MONDAY', 'TUESDAY', 'WEDNESDAY', 'THURSDAY', 'FRIDAY', 'SATURDAY', 'SUNDAY')),
+    start_time    TIME(6)      NOT NULL,
+    end_time      TIME(6)      NOT NULL,
+    room          VARCHAR(50)  NOT NULL,
+    building      VARCHAR(100),
+    schedule_type VARCHAR(20),
+    UNIQUE (course_id, day_of_week, start_time, room)
+);
+
+CREATE TABLE student_courses (
+    id                BIGSERIAL PRIMARY KEY,
+    student_id        BIGINT       NOT NULL,
+    course_id         BIGINT       NOT NULL REFERENCES courses (id),
+    enrollment_status VARCHAR(20)  NOT NULL,
+    enrolled_at       TIMESTAMP(6) NOT NULL,
+    dropped_at        TIMESTAMP(6),
+    grade             FLOAT(53),
+    grade_letter      VARCHAR(2),
+    UNIQUE (student_id, course_id)
+);
+
+CREATE TABLE teacher_courses (
+    id          BIGSERIAL PRIMARY KEY,
+    teacher_id  BIGINT       NOT NULL,
+    course_id   BIGINT       NOT NULL REFERENCES courses (id),
+    role        VARCHAR(50),
+    assigned_at TIMESTAMP(6) NOT NULL,
+    active      BOOLEAN      NOT NULL,
+    UNIQUE (teacher_id, course_id)
+);
@@ -0,0 +1,21 @@
+-- Version columns for optimistic locking and the enrollment event outbox.
+-- Databases that ran hbm2ddl=update after these were mapped already have
+-- them and are baselined at V1 all the same, hence the guards.
+
+ALTER TABLE courses ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE student_courses ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE teacher_courses ADD COLUMN IF NOT EXISTS version BIGINT DEFAULT 0 NOT NULL;
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id          BIGSERIAL PRIMARY KEY,
+    event_type  VARCHAR(30)  NOT NULL,
+    student_id  BIGINT,
+    course_id   BIGINT       NOT NULL,
+    course_code VARCHAR(20),
+    department  VARCHAR(50),
+    level       VARCHAR(20),
+    semester    VARCHAR(50),
+    capacity    INTEGER,
+    grade       FLOAT(53),
+    occurred_at TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,39 @@
+-- Indexes for the repository queries. Unique constraints already cover
+-- courses(code), student_courses(student_id, course_id),
+-- teacher_courses(teacher_id, course_id) and schedules(course_id, ...).
+
+-- findActiveByStudent, findByStudent
+CREATE INDEX IF NOT EXISTS idx_student_courses_student_status
+    ON student_courses (student_id, enrollment_status);
+
+-- findByCourse, getCourseEnrollments, per-course status counts
+CREATE INDEX IF NOT EXISTS idx_student_courses_course_status
+    ON student_courses (course_id, enrollment_status);
+
+-- findByRoom, room conflict checks
+CREATE INDEX IF NOT EXISTS idx_schedules_room_day
+    ON schedules (room, day_of_week);
+
+-- findByDayOfWeek
+CREATE INDEX IF NOT EXISTS idx_schedules_day_start
+    ON schedules (day_of_week, start_time);
+
+-- findBySemester (ordered by code)
+CREATE INDEX IF NOT EXISTS idx_courses_semester_code
+    ON courses (semester, code);
+
+-- findByDepartment (ordered by code)
+CREATE INDEX IF NOT EXISTS idx_courses_department_code
+    ON courses (department, code);
+
+-- findAvailableCourses (ordered by code)
+CREATE INDEX IF NOT EXISTS idx_courses_active_code
+    ON courses (code) WHERE active;
+
+-- findByTeacher
+CREATE INDEX IF NOT EXISTS idx_teacher_courses_teacher_active
+    ON teacher_courses (teacher_id, active);
+
+-- TeacherCourseRepository.findByCourse
+CREATE INDEX IF NOT EXISTS idx_teacher_courses_course_active
+    ON teacher_courses (course_id, active);
@@ -0,0 +1,23 @@
+-- A course code is offered again every semester, so it is unique per
+-- semester instead of globally. The old constraint is looked up by its column:
+-- V1 names it courses_code_key, databases created by hbm2ddl have a generated
+-- uk_ name.
+DO $$
+DECLARE
+    code_constraint name;
+BEGIN
+    FOR code_constraint IN
+        SELECT con.conname
+        FROM pg_constraint con
+        JOIN pg_attribute att ON att.attrelid = con.conrelid AND att.attnum = con.conkey[1]
+        WHERE con.conrelid = 'courses'::regclass
+          AND con.contype = 'u'
+          AND array_length(con.conkey, 1) = 1
+          AND att.attname = 'code'
+    LOOP
+        EXECUTE format('ALTER TABLE courses DROP CONSTRAINT %I', code_constraint);
+    END LOOP;
+END $$;
+
+-- Leading code column: also serves lookups by code alone
+ALTER TABLE courses ADD CONSTRAINT uk_courses_code_semester UNIQUE (code, semester);
@@ -0,0 +1,40 @@
+-- Lottery registration: a window per semester, and the ranked course
+-- preferences students submit while it is open. Submissions are only ever
+-- appended; a student's latest one is the one that counts.
+
+CREATE TABLE lottery_windows (
+    semester               VARCHAR(50)  PRIMARY KEY,
+    status                 VARCHAR(20)  NOT NULL,
+    seed                   BIGINT       NOT NULL,
+    opened_at              TIMESTAMP(6) NOT NULL,
+    closes_at              TIMESTAMP(6),
+    closed_at              TIMESTAMP(6),
+    students               INTEGER      NOT NULL,
+    requests               INTEGER      NOT NULL,
+    seats_assigned         INTEGER      NOT NULL,
+    rejected_full          INTEGER      NOT NULL,
+    rejected_prerequisites INTEGER      NOT NULL,
+    already_enrolled       INTEGER      NOT NULL,
+    elapsed_ms             BIGINT       NOT NULL
+);
+
+CREATE TABLE lottery_submissions (
+    id           BIGSERIAL PRIMARY KEY,
+    semester     VARCHAR(50)  NOT NULL,
+    student_id   BIGINT       NOT NULL,
+    submitted_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE lottery_preferences (
+    id              BIGSERIAL PRIMARY KEY,
+    submission_id   BIGINT  NOT NULL REFERENCES lottery_submissions (id),
+    course_id       BIGINT  NOT NULL REFERENCES courses (id),
+    preference_rank INTEGER NOT NULL
+);
+
+-- Latest submission per student of a semester
+CREATE INDEX idx_lottery_submissions_semester_student
+    ON lottery_submissions (semester, student_id, id);
+
+CREATE INDEX idx_lottery_preferences_submission
+    ON lottery_preferences (submission_id);
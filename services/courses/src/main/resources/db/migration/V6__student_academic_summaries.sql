@@ -0,0 +1,14 @@
+-- Credits and grade points per student, kept up to date as enrollments are
+-- completed and recomputed from student_courses every night. The GPA is
+-- grade_points / credits_attempted.
+
+CREATE TABLE student_academic_summaries (
+    student_id         BIGINT       PRIMARY KEY,
+    courses_completed  INTEGER      NOT NULL,
+    courses_incomplete INTEGER      NOT NULL,
+    credits_attempted  INTEGER      NOT NULL,
+    credits_earned     INTEGER      NOT NULL,
+    grade_points       FLOAT(53)    NOT NULL,
+    updated_at         TIMESTAMP(6) NOT NULL,
+    version            BIGINT       DEFAULT 0 NOT NULL
+);
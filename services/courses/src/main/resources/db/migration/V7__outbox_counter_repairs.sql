@@ -0,0 +1,4 @@
+-- The enrollment counter a COUNTER_REPAIRED event sets the course to, so
+-- consumers that keep their own counts correct them with the repair.
+
+ALTER TABLE outbox_events ADD COLUMN enrolled INTEGER;
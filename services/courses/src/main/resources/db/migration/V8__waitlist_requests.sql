@@ -0,0 +1,12 @@
+-- Enrollment attempts rejected because the course was full, written with the
+-- WAITLISTED event so the enrollment statistics can recompute waitlist
+-- demand. Requests are only ever appended.
+
+CREATE TABLE waitlist_requests (
+    id           BIGSERIAL PRIMARY KEY,
+    course_id    BIGINT       NOT NULL,
+    student_id   BIGINT       NOT NULL,
+    requested_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX idx_waitlist_requests_course ON waitlist_requests (course_id);
@@ -0,0 +1,60 @@
+package com.universite.courses.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoEnrollmentIndexTest {
+
+    @Test
+    void testSelectTop_LargestCountsFirstLowestCodeOnTies() {
+        int[] counts = new int[10];
+        counts[7] = 5;
+        counts[2] = 9;
+        counts[4] = 5;
+        counts[9] = 12;
+        counts[1] = 5;
+        int[] touched = {7, 2, 4, 9, 1};
+
+        int[][] top = CoEnrollmentIndex.selectTop(counts, touched, touched.length, 10, 1);
+
+        assertArrayEquals(new int[]{9, 2, 1, 4, 7}, top[0]);
+        assertArrayEquals(new int[]{12, 9, 5, 5, 5}, top[1]);
+    }
+
+    @Test
+    void testSelectTop_KeepsOnlyTopK() {
+        int[] counts = new int[100];
+        int[] touched = new int[100];
+        for (int code = 0; code < 100; code++) {
+            // Counts rise and fall, so the largest are not touched in order
+            counts[code] = 1 + (code * 37) % 100;
+            touched[code] = code;
+        }
+
+        int[][] top = CoEnrollmentIndex.selectTop(counts, touched, touched.length, 3, 1);
+
+        assertArrayEquals(new int[]{27, 54, 81}, top[0]);
+        assertArrayEquals(new int[]{100, 99, 98}, top[1]);
+    }
+
+    @Test
+    void testSelectTop_DropsCodesBelowMinStudents() {
+        int[] counts = {0, 2, 3, 1, 4};
+        int[] touched = {1, 2, 3, 4};
+
+        int[][] top = CoEnrollmentIndex.selectTop(counts, touched, touched.length, 10, 3);
+
+        assertArrayEquals(new int[]{4, 2}, top[0]);
+        assertArrayEquals(new int[]{4, 3}, top[1]);
+    }
+
+    @Test
+    void testSelectTop_OnlyTheTouchedPrefixCounts() {
+        int[] counts = {0, 6, 8};
+        int[] touched = {1, 2};
+
+        assertArrayEquals(new int[]{1}, CoEnrollmentIndex.selectTop(counts, touched, 1, 10, 1)[0]);
+        assertEquals(0, CoEnrollmentIndex.selectTop(counts, touched, 0, 10, 1)[0].length);
+    }
+}
@@ -0,0 +1,198 @@
+package com.universite.courses.analytics;
+
+import com.universite.courses.entity.Course;
+import com.universite.courses.entity.OutboxEvent;
+import com.universite.courses.entity.StudentCourse;
+import com.universite.courses.events.OutboxRelay;
+import com.universite.courses.events.SegmentedLog;
+import com.universite.courses.jobs.EnrollmentCounterReconciler;
+import com.universite.courses.repository.OutboxRepository;
+import com.universite.courses.repository.WaitlistRepository;
+import com.universite.courses.util.DatabaseManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnrollmentStatsAggregatorTest {
+
+    @TempDir
+    Path directory;
+
+    private SegmentedLog eventLog;
+    private OutboxRelay relay;
+    private Long courseId;
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.initialize("coursesPU-test", Map.of(
+            "jakarta.persistence.jdbc.url", "jdbc:h2:mem:stats;DB_CLOSE_DELAY=-1",
+            "jakarta.persistence.jdbc.user", "sa",
+            "jakarta.persistence.jdbc.password", ""));
+        eventLog = new SegmentedLog(directory.resolve("log"), 1 << 20);
+        relay = new OutboxRelay(eventLog);
+        courseId = DatabaseManager.inTransaction(em -> {
+            Course course = new Course();
+            course.setCode("CS101");
+            course.setName("Programming");
+            course.setCredits(3);
+            course.setSemester("Fall 2026");
+            course.setDepartment("CS");
+            course.setLevel("Undergraduate");
+            course.setCapacity(10);
+            em.persist(course);
+            return course.getId();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventLog.close();
+        DatabaseManager.close();
+    }
+
+    @Test
+    void testRecompute_CountsEveryEnrollmentOnce() throws InterruptedException {
+        enroll(1L);
+        relay.drain();
+        // Committed before the snapshot, still in the outbox
+        enroll(2L);
+
+        EnrollmentStatsAggregator stats = new EnrollmentStatsAggregator(eventLog, directory.resolve("stats.ckpt"));
+        stats.afterSnapshot = () -> {
+            // Committed after the snapshot, then logged and deleted before the counters are read
+            enroll(3L);
+            relay.drain();
+            // Committed after the snapshot and still in the outbox
+            enroll(4L);
+        };
+        stats.start();
+        relay.drain();
+        awaitApplied(stats);
+
+        assertEquals(4, stats.get("CS", null, null).enrolled());
+        assertEquals(4, stats.get(null, null, "Fall 2026").enrolled());
+        assertEquals(1, stats.get(null, null, null).courses());
+        assertEquals(10, stats.get(null, null, null).seats());
+        stats.close();
+    }
+
+    @Test
+    void testCheckpoint_KeepsPendingOutboxEvents() throws InterruptedException {
+        enroll(1L);
+
+        EnrollmentStatsAggregator stats = new EnrollmentStatsAggregator(eventLog, directory.resolve("stats.ckpt"));
+        stats.start();
+        stats.close();
+
+        // The event reflected by the recompute reaches the log only after the checkpoint
+        relay.drain();
+        enroll(2L);
+        relay.drain();
+
+        EnrollmentStatsAggregator reopened = new EnrollmentStatsAggregator(eventLog, directory.resolve("stats.ckpt"));
+        reopened.start();
+        awaitApplied(reopened);
+
+        assertEquals(2, reopened.get("CS", "Undergraduate", "Fall 2026").enrolled());
+        assertTrue(reopened.getCheckpointedOffset() <= reopened.getAppliedOffset());
+        reopened.close();
+    }
+
+    @Test
+    void testRecompute_KeepsWaitlistDemand() throws InterruptedException {
+        waitlist(1L);
+        waitlist(2L);
+        relay.drain();
+        // Committed before the snapshot, still in the outbox
+        waitlist(1L);
+
+        EnrollmentStatsAggregator stats = new EnrollmentStatsAggregator(eventLog, directory.resolve("stats.ckpt"));
+        stats.start();
+        waitlist(3L);
+        relay.drain();
+        awaitApplied(stats);
+
+        assertEquals(4, stats.get("CS", null, null).waitlist());
+        stats.close();
+    }
+
+    @Test
+    void testRecompute_StopsWaitingForEventsThatNeverReachTheLog() throws InterruptedException {
+        enroll(1L);
+        EnrollmentStatsAggregator stats = new EnrollmentStatsAggregator(eventLog, directory.resolve("stats.ckpt"));
+        stats.start();
+        // Taken out of the outbox without reaching the log, like a dead letter
+        DatabaseManager.inTransaction(em -> em.createQuery("DELETE FROM OutboxEvent").executeUpdate());
+
+        enroll(2L);
+        relay.drain();
+        awaitApplied(stats);
+        stats.close();
+
+        assertEquals(0, stats.getPendingReflectedEvents());
+        assertEquals(2, stats.get("CS", null, null).enrolled());
+    }
+
+    @Test
+    void testCounterRepair_CorrectsTheEnrolledTotals() throws InterruptedException {
+        enroll(1L);
+        enroll(2L);
+        enroll(3L);
+        relay.drain();
+        EnrollmentStatsAggregator stats = new EnrollmentStatsAggregator(eventLog, directory.resolve("stats.ckpt"));
+        stats.start();
+        // An enrollment removed behind the counter's back, without an event
+        DatabaseManager.inTransaction(em -> em.createQuery("DELETE FROM StudentCourse sc WHERE sc.studentId = 2")
+            .executeUpdate());
+
+        EnrollmentCounterReconciler reconciler = new EnrollmentCounterReconciler(null, null);
+        assertEquals(1, reconciler.run().getCoursesRepaired());
+        reconciler.close();
+        enroll(4L);
+        relay.drain();
+        awaitApplied(stats);
+
+        assertEquals(3, stats.get("CS", "Undergraduate", "Fall 2026").enrolled());
+        Integer counter = DatabaseManager.withEntityManager(em -> em.find(Course.class, courseId).getEnrolled());
+        assertEquals(3, counter);
+        stats.close();
+    }
+
+    private void enroll(Long studentId) {
+        DatabaseManager.inTransaction(em -> {
+            Course course = em.find(Course.class, courseId);
+            StudentCourse enrollment = new StudentCourse();
+            enrollment.setStudentId(studentId);
+            enrollment.setCourse(course);
+            enrollment.setEnrollmentStatus("ENROLLED");
+            em.persist(enrollment);
+            course.incrementEnrollment();
+            new OutboxRepository(em).append(OutboxEvent.of("ENROLLED", enrollment));
+            return enrollment;
+        });
+    }
+
+    /** What enrollStudent records for a full course. */
+    private void waitlist(Long studentId) {
+        DatabaseManager.inTransaction(em -> {
+            Course course = em.find(Course.class, courseId);
+            new WaitlistRepository(em).append(studentId, courseId);
+            new OutboxRepository(em).append(OutboxEvent.of("WAITLISTED", studentId, course));
+            return null;
+        });
+    }
+
+    private void awaitApplied(EnrollmentStatsAggregator stats) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (stats.getAppliedOffset() < eventLog.nextOffset() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(eventLog.nextOffset(), stats.getAppliedOffset());
+    }
+}
@@ -0,0 +1,176 @@
+package com.universite.courses.catalog;
+
+import com.universite.courses.dto.CourseDTO;
+import com.universite.courses.dto.ScheduleDTO;
+import com.universite.courses.entity.Course;
+import com.universite.courses.entity.Schedule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testWriteRead_EveryFieldRoundTrips() throws IOException {
+        Course programming = course(3L, "CS101", "Introduction à la programmation", "Fall 2026", "CS");
+        programming.setDescription("Variables, boucles, fonctions");
+        programming.setPrerequisiteCourseIds("1,2");
+        programming.setEnrolled(12);
+        programming.setCreatedAt(LocalDateTime.of(2026, 3, 1, 9, 30, 15, 123_456_789));
+        programming.setUpdatedAt(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 500));
+        programming.getSchedules().add(schedule(21L, programming, DayOfWeek.TUESDAY, "14:00", "15:30", "B12", "Lab"));
+        programming.getSchedules().add(schedule(20L, programming, DayOfWeek.MONDAY, "09:00", "10:30", "A1", "Lecture"));
+        Course bare = course(7L, "MATH200", "Algebra", "Spring 2027", null);
+        bare.setActive(false);
+        bare.setLevel(null);
+
+        CatalogSnapshot snapshot = CatalogSnapshot.read(write(42L, programming, bare));
+
+        assertEquals(42L, snapshot.feedVersion());
+        assertEquals(2, snapshot.size());
+        CourseDTO first = snapshot.course(snapshot.indexOf(3L));
+        assertEquals(3L, first.getId());
+        assertEquals("CS101", first.getCode());
+        assertEquals("Introduction à la programmation", first.getName());
+        assertEquals("Variables, boucles, fonctions", first.getDescription());
+        assertEquals("1,2", first.getPrerequisiteCourseIds());
+        assertEquals("Fall 2026", first.getSemester());
+        assertEquals("CS", first.getDepartment());
+        assertEquals("Undergraduate", first.getLevel());
+        assertEquals(4, first.getCredits());
+        assertEquals(30, first.getCapacity());
+        assertEquals(12, first.getEnrolled());
+        assertEquals(18, first.getAvailableSeats());
+        assertTrue(first.getActive());
+        assertEquals(programming.getCreatedAt(), first.getCreatedAt());
+        assertEquals(programming.getUpdatedAt(), first.getUpdatedAt());
+
+        List<ScheduleDTO> schedules = first.getSchedules();
+        assertEquals(List.of(20L, 21L), schedules.stream().map(ScheduleDTO::getId).toList());
+        ScheduleDTO tuesday = schedules.get(1);
+        assertEquals(3L, tuesday.getCourseId());
+        assertEquals("CS101", tuesday.getCourseCode());
+        assertEquals(DayOfWeek.TUESDAY, tuesday.getDayOfWeek());
+        assertEquals(LocalTime.of(14, 0), tuesday.getStartTime());
+        assertEquals(LocalTime.of(15, 30), tuesday.getEndTime());
+        assertEquals("B12", tuesday.getRoom());
+        assertEquals("Main", tuesday.getBuilding());
+        assertEquals("Lab", tuesday.getScheduleType());
+
+        CourseDTO second = snapshot.course(snapshot.indexOf(7L));
+        assertNull(second.getDepartment());
+        assertNull(second.getLevel());
+        assertNull(second.getDescription());
+        assertNull(second.getCreatedAt());
+        assertFalse(second.getActive());
+        assertTrue(second.getSchedules().isEmpty());
+    }
+
+    @Test
+    void testWriteRead_LookupsWithoutDecoding() throws IOException {
+        CatalogSnapshot snapshot = CatalogSnapshot.read(write(1L,
+            course(2L, "PHY101", "Physics", "Fall 2026", "PHY"),
+            course(5L, "CS101", "Programming", "Fall 2026", "CS"),
+            course(9L, "CS101", "Programming", "Spring 2027", "CS"),
+            course(11L, "BIO101", "Biology", "Spring 2027", "BIO")));
+
+        assertEquals(-1, snapshot.indexOf(3L));
+        assertEquals(3, snapshot.indexOf(11L));
+        long[] byCode = new long[snapshot.size()];
+        for (int rank = 0; rank < snapshot.size(); rank++) {
+            byCode[rank] = snapshot.id(snapshot.byCode(rank));
+        }
+        assertArrayEquals(new long[]{11L, 5L, 9L, 2L}, byCode);
+        assertEquals(1, snapshot.firstRankOf("CS101"));
+        assertEquals(3, snapshot.firstRankOf("MATH"));
+        assertEquals(4, snapshot.firstRankOf("ZZZ"));
+
+        int fall = snapshot.ref("Fall 2026");
+        assertEquals(fall, snapshot.semesterRef(snapshot.indexOf(2L)));
+        assertEquals(fall, snapshot.semesterRef(snapshot.indexOf(5L)));
+        assertNotEquals(fall, snapshot.semesterRef(snapshot.indexOf(9L)));
+        assertEquals(snapshot.ref("CS"), snapshot.departmentRef(snapshot.indexOf(9L)));
+        assertEquals(-1, snapshot.ref("Fall 1999"));
+        assertEquals(30, snapshot.capacity(0));
+        assertEquals(0, snapshot.enrolled(0));
+        assertTrue(snapshot.active(0));
+    }
+
+    @Test
+    void testOpen_MapsTheFileAndRejectsATruncatedOne() throws IOException {
+        byte[] bytes = write(8L, course(1L, "CS101", "Programming", "Fall 2026", "CS"));
+        Path file = directory.resolve("catalog.snapshot");
+        Files.write(file, bytes);
+
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+        assertEquals(8L, snapshot.feedVersion());
+        assertEquals("CS101", snapshot.course(0).getCode());
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> CatalogSnapshot.open(file));
+        assertThrows(IOException.class, () -> CatalogSnapshot.read(new byte[64]));
+    }
+
+    @Test
+    void testWriter_EmptyCatalogAndIdOrder() throws IOException {
+        assertEquals(0, CatalogSnapshot.read(write(5L)).size());
+
+        CatalogSnapshot.Writer writer = new CatalogSnapshot.Writer(new ByteArrayOutputStream(), 1L);
+        writer.add(course(4L, "CS101", "Programming", "Fall 2026", "CS"));
+        assertThrows(IllegalArgumentException.class,
+            () -> writer.add(course(4L, "CS102", "Data", "Fall 2026", "CS")));
+    }
+
+    private static byte[] write(long feedVersion, Course... courses) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CatalogSnapshot.Writer writer = new CatalogSnapshot.Writer(bytes, feedVersion);
+        for (Course course : courses) {
+            writer.add(course);
+        }
+        writer.finish();
+        assertEquals(courses.length, writer.size());
+        return bytes.toByteArray();
+    }
+
+    private static Course course(long id, String code, String name, String semester, String department) {
+        Course course = new Course();
+        course.setId(id);
+        course.setCode(code);
+        course.setName(name);
+        course.setCredits(4);
+        course.setSemester(semester);
+        course.setDepartment(department);
+        course.setLevel("Undergraduate");
+        course.setCapacity(30);
+        course.setEnrolled(0);
+        return course;
+    }
+
+    private static Schedule schedule(long id, Course course, DayOfWeek day, String start, String end, String room,
+                                     String type) {
+        Schedule schedule = new Schedule();
+        schedule.setId(id);
+        schedule.setCourse(course);
+        schedule.setDayOfWeek(day);
+        schedule.setStartTime(LocalTime.parse(start));
+        schedule.setEndTime(LocalTime.parse(end));
+        schedule.setRoom(room);
+        schedule.setBuilding("Main");
+        schedule.setScheduleType(type);
+        return schedule;
+    }
+}
@@ -0,0 +1,140 @@
+package com.universite.courses.catalog;
+
+import com.universite.courses.catalog.CourseSuggestionIndex.Suggestion;
+import com.universite.courses.entity.Course;
+import com.universite.courses.util.DatabaseManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseSuggestionIndexTest {
+
+    private final CourseSuggestionIndex index = new CourseSuggestionIndex();
+
+    private long cs101;
+    private long cs102;
+    private long bio101;
+    private long ee210;
+    private long data300;
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.initialize("coursesPU-test", Map.of(
+            "jakarta.persistence.jdbc.url", "jdbc:h2:mem:suggestions;DB_CLOSE_DELAY=-1",
+            "jakarta.persistence.jdbc.user", "sa",
+            "jakarta.persistence.jdbc.password", ""));
+        cs101 = persist("CS101", "Introduction to Programming");
+        cs102 = persist("CS-102", "Programming Languages");
+        bio101 = persist("BIO101", "Introduction to Biology");
+        ee210 = persist("EE210", "Électricité et Magnétisme");
+        data300 = persist("DATA300", "Big Data Systems");
+    }
+
+    @AfterEach
+    void tearDown() {
+        DatabaseManager.close();
+    }
+
+    @Test
+    void testSuggest_CodeIgnoresPunctuationAndCase() {
+        assertEquals(List.of(cs101, cs102), ids(index.suggest("cs 1", 10)));
+        assertEquals(List.of(cs102), ids(index.suggest("Cs-102", 10)));
+        assertTrue(index.suggest("cs 1", 10).stream().allMatch(Suggestion::matchedCode));
+    }
+
+    @Test
+    void testSuggest_NameNeedsAPrefixOfEveryWord() {
+        assertEquals(List.of(bio101, cs101), ids(index.suggest("intro", 10)));
+        assertEquals(List.of(cs101), ids(index.suggest("prog intro", 10)));
+        assertEquals(List.of(), ids(index.suggest("intro chem", 10)));
+    }
+
+    @Test
+    void testSuggest_AccentsDoNotMatter() {
+        assertEquals(List.of(ee210), ids(index.suggest("electricite", 10)));
+        assertEquals(List.of(ee210), ids(index.suggest("MAGNÉT", 10)));
+    }
+
+    @Test
+    void testSuggest_CodeMatchesFirstAndOnce() {
+        long dataStructures = persist("CS201", "Data Structures");
+        index.reload();
+
+        List<Suggestion> suggestions = index.suggest("data", 10);
+
+        assertEquals(List.of(data300, dataStructures), ids(suggestions));
+        assertTrue(suggestions.get(0).matchedCode());
+        assertFalse(suggestions.get(1).matchedCode());
+        assertEquals(1, index.suggest("data", 1).size());
+    }
+
+    @Test
+    void testPut_RenamedCourseIsFoundByItsNewTextOnly() {
+        index.reload();
+
+        index.put(course(cs101, "CS111", "Functional Programming", 1L));
+
+        assertEquals(List.of(cs101), ids(index.suggest("cs111", 10)));
+        assertEquals(List.of(cs101), ids(index.suggest("functional", 10)));
+        assertEquals(List.of(cs102), ids(index.suggest("cs10", 10)));
+        assertEquals(List.of(bio101), ids(index.suggest("introduction", 10)));
+        assertEquals(List.of(cs102, cs101), ids(index.suggest("programming", 10)));
+    }
+
+    @Test
+    void testPut_OlderVersionIsIgnored() {
+        index.reload();
+        index.put(course(bio101, "BIO101", "Molecular Biology", 3L));
+
+        index.put(course(bio101, "BIO101", "Introduction to Biology", 2L));
+
+        assertEquals(List.of(bio101), ids(index.suggest("molecular", 10)));
+        assertEquals(List.of(cs101), ids(index.suggest("introduction", 10)));
+    }
+
+    @Test
+    void testPut_NewCourseAndRemove() {
+        index.reload();
+
+        index.put(course(9_999L, "CS100", "Computing Basics", 0L));
+        assertEquals(List.of(9_999L, cs101, cs102), ids(index.suggest("cs1", 10)));
+
+        index.remove(cs101);
+        assertEquals(List.of(9_999L, cs102), ids(index.suggest("cs1", 10)));
+        assertEquals(List.of(bio101), ids(index.suggest("introduction", 10)));
+    }
+
+    private long persist(String code, String name) {
+        return DatabaseManager.inTransaction(em -> {
+            Course course = new Course();
+            course.setCode(code);
+            course.setName(name);
+            course.setCredits(3);
+            course.setSemester("Fall 2026");
+            course.setDepartment("CS");
+            course.setLevel("Undergraduate");
+            course.setCapacity(30);
+            em.persist(course);
+            return course.getId();
+        });
+    }
+
+    private static Course course(long id, String code, String name, long version) {
+        Course course = new Course();
+        course.setId(id);
+        course.setCode(code);
+        course.setName(name);
+        course.setSemester("Fall 2026");
+        course.setVersion(version);
+        return course;
+    }
+
+    private static List<Long> ids(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::courseId).toList();
+    }
+}
@@ -0,0 +1,113 @@
+package com.universite.courses.events;
+
+import com.universite.courses.events.CacheInvalidationChannel.Kind;
+import com.universite.courses.events.CacheInvalidationChannel.Message;
+import com.universite.courses.util.DatabaseManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheInvalidationChannelTest {
+
+    private final CacheInvalidationChannel node = new CacheInvalidationChannel();
+    private final CacheInvalidationChannel otherNode = new CacheInvalidationChannel();
+
+    @Test
+    void testPayloads_ReachOtherNodesWithoutDuplicates() {
+        List<Message> batch = List.of(
+            new Message(Kind.COURSE, "1"),
+            new Message(Kind.SEATS, "2"),
+            new Message(Kind.COURSE, "1"),
+            new Message(Kind.ENROLLMENT, "2:77"),
+            new Message(Kind.ROOMS, "Fall 2026"));
+
+        List<String> payloads = node.payloads(batch);
+        List<Message> received = new ArrayList<>();
+        for (String payload : payloads) {
+            otherNode.parse(payload, received);
+        }
+
+        assertEquals(1, payloads.size());
+        assertEquals(List.of(
+            new Message(Kind.COURSE, "1"),
+            new Message(Kind.SEATS, "2"),
+            new Message(Kind.ENROLLMENT, "2:77"),
+            new Message(Kind.ROOMS, "Fall 2026")), received);
+    }
+
+    @Test
+    void testParse_SkipsOwnMessages() {
+        List<Message> received = new ArrayList<>();
+        for (String payload : node.payloads(List.of(new Message(Kind.STUDENT, "5")))) {
+            node.parse(payload, received);
+        }
+
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void testPayloads_SplitUnderTheNotifyLimit() {
+        List<Message> batch = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            batch.add(new Message(Kind.ENROLLMENT, i + ":" + (1_000_000 + i)));
+        }
+
+        List<String> payloads = node.payloads(batch);
+        List<Message> received = new ArrayList<>();
+        for (String payload : payloads) {
+            assertTrue(payload.getBytes(StandardCharsets.UTF_8).length < 8000);
+            otherNode.parse(payload, received);
+        }
+
+        assertTrue(payloads.size() > 1);
+        assertEquals(batch, received);
+    }
+
+    @Test
+    void testParse_IgnoresUnknownKinds() {
+        List<Message> received = new ArrayList<>();
+        otherNode.parse("abcdefgh\nREINDEX 1\nSEATS 3", received);
+
+        assertEquals(List.of(new Message(Kind.SEATS, "3")), received);
+    }
+
+    /** Two nodes on one PostgreSQL database, e.g. DB_URL=jdbc:postgresql://localhost:5432/courses_db. */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "DB_URL", matches = "jdbc:postgresql:.*")
+    void testTwoNodes_ExchangeOverPostgres() throws InterruptedException {
+        DatabaseManager.initialize();
+        BlockingQueue<Message> first = new LinkedBlockingQueue<>();
+        BlockingQueue<Message> second = new LinkedBlockingQueue<>();
+        try {
+            node.start(first::addAll);
+            otherNode.start(second::addAll);
+            // LISTEN is issued on the listener threads
+            Thread.sleep(1000);
+
+            node.publish(Kind.COURSE, 41);
+            node.publish(Kind.SEATS, 42);
+            otherNode.publish(Kind.STUDENT, 43);
+
+            Set<Message> atSecond = new HashSet<>();
+            atSecond.add(second.poll(5, TimeUnit.SECONDS));
+            atSecond.add(second.poll(5, TimeUnit.SECONDS));
+            assertEquals(Set.of(new Message(Kind.COURSE, "41"), new Message(Kind.SEATS, "42")), atSecond);
+            assertEquals(new Message(Kind.STUDENT, "43"), first.poll(5, TimeUnit.SECONDS));
+            assertNull(first.poll(500, TimeUnit.MILLISECONDS), "a node does not hear its own messages");
+        } finally {
+            node.close();
+            otherNode.close();
+            DatabaseManager.close();
+        }
+    }
+}
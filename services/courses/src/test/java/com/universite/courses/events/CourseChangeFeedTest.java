@@ -0,0 +1,150 @@
+package com.universite.courses.events;
+
+import com.universite.courses.entity.Course;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseChangeFeedTest {
+
+    private final CourseChangeFeed feed = new CourseChangeFeed(5);
+
+    @Test
+    void testSince_NullVersionAsksForResync() {
+        feed.publish(course(1L, 0L, 3), false);
+
+        CourseChangeFeed.Page page = feed.since(null, 100);
+
+        assertTrue(page.resync());
+        assertEquals(feed.getLatestVersion(), page.nextVersion());
+        assertTrue(page.changes().isEmpty());
+    }
+
+    @Test
+    void testSince_PagesThroughChanges() {
+        long start = feed.getLatestVersion();
+        feed.publish(course(1L, 0L, 1), false);
+        feed.publish(course(2L, 0L, 1), false);
+        feed.publish(course(3L, 0L, 1), false);
+
+        CourseChangeFeed.Page first = feed.since(start, 2);
+        assertFalse(first.resync());
+        assertTrue(first.hasMore());
+        assertEquals(List.of(1L, 2L), courseIds(first));
+        assertEquals(start + 2, first.nextVersion());
+
+        CourseChangeFeed.Page second = feed.since(first.nextVersion(), 2);
+        assertFalse(second.hasMore());
+        assertEquals(List.of(3L), courseIds(second));
+        assertEquals(feed.getLatestVersion(), second.nextVersion());
+
+        CourseChangeFeed.Page caughtUp = feed.since(second.nextVersion(), 2);
+        assertFalse(caughtUp.resync());
+        assertTrue(caughtUp.changes().isEmpty());
+    }
+
+    @Test
+    void testSince_CollapsesRepeatedChangesToTheLatestState() {
+        long start = feed.getLatestVersion();
+        feed.publish(course(1L, 1L, 1), true);
+        feed.publish(course(2L, 0L, 1), false);
+        feed.publish(course(1L, 2L, 2), false);
+
+        CourseChangeFeed.Page page = feed.since(start, 100);
+
+        assertEquals(List.of(2L, 1L), courseIds(page));
+        CourseChangeFeed.CourseChange latest = page.changes().get(1);
+        assertEquals(2, latest.enrolled());
+        assertTrue(latest.details(), "a collapsed change keeps details from any change it stands for");
+        assertFalse(page.changes().get(0).details());
+    }
+
+    @Test
+    void testPublish_DropsStatesOlderThanThePublishedOne() {
+        long start = feed.getLatestVersion();
+        feed.publish(course(1L, 2L, 5), false);
+        feed.publish(course(1L, 1L, 4), false);
+        feed.publish(course(1L, 2L, 5), false);
+        // Schedules change without a new entity version
+        feed.publish(course(1L, 2L, 5), true);
+
+        assertEquals(start + 2, feed.getLatestVersion());
+        CourseChangeFeed.Page page = feed.since(start, 100);
+        assertEquals(5, page.changes().get(0).enrolled());
+        assertTrue(page.changes().get(0).details());
+    }
+
+    @Test
+    void testPublishRemoval_WinsOverLaterStates() {
+        long start = feed.getLatestVersion();
+        feed.publishRemoval(course(1L, 3L, 0));
+        feed.publish(course(1L, 3L, 0), true);
+
+        CourseChangeFeed.Page page = feed.since(start, 100);
+        assertEquals(1, page.changes().size());
+        assertTrue(page.changes().get(0).removed());
+        assertFalse(page.changes().get(0).active());
+    }
+
+    @Test
+    void testSince_VersionOlderThanTheRingAsksForResync() {
+        long start = feed.getLatestVersion();
+        for (long id = 1; id <= 6; id++) {
+            feed.publish(course(id, 0L, 0), false);
+        }
+
+        assertTrue(feed.since(start, 100).resync());
+        CourseChangeFeed.Page page = feed.since(start + 1, 100);
+        assertFalse(page.resync());
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L), courseIds(page));
+    }
+
+    @Test
+    void testSince_UnknownVersionAsksForResync() {
+        assertTrue(feed.since(feed.getLatestVersion() + 1, 100).resync());
+        assertTrue(feed.since(0L, 100).resync());
+    }
+
+    @Test
+    void testRequireResync_SendsEarlierVersionsBackToAListing() {
+        List<String> heard = new ArrayList<>();
+        feed.addListener(new CourseChangeFeed.Listener() {
+            @Override
+            public void changed(CourseChangeFeed.CourseChange change) {
+                heard.add("changed " + change.courseId());
+            }
+
+            @Override
+            public void resyncRequired() {
+                heard.add("resync");
+            }
+        });
+        long start = feed.getLatestVersion();
+        feed.publish(course(1L, 0L, 0), false);
+        feed.requireResync("rollover");
+        feed.publish(course(2L, 0L, 0), false);
+
+        assertTrue(feed.since(start, 100).resync());
+        CourseChangeFeed.Page resynced = feed.since(null, 100);
+        assertEquals(List.of(2L), courseIds(feed.since(resynced.nextVersion() - 1, 100)));
+        assertEquals(List.of("changed 1", "resync", "changed 2"), heard);
+    }
+
+    private static List<Long> courseIds(CourseChangeFeed.Page page) {
+        return page.changes().stream().map(CourseChangeFeed.CourseChange::courseId).toList();
+    }
+
+    private static Course course(Long id, Long version, int enrolled) {
+        Course course = new Course();
+        course.setId(id);
+        course.setVersion(version);
+        course.setCode("C" + id);
+        course.setSemester("Fall 2026");
+        course.setCapacity(30);
+        course.setEnrolled(enrolled);
+        return course;
+    }
+}
@@ -0,0 +1,192 @@
+package com.universite.courses.events;
+
+import com.universite.courses.CoursesServiceApplication;
+import com.universite.courses.dto.CourseChangesDTO;
+import com.universite.courses.dto.CourseDTO;
+import com.universite.courses.dto.ScheduleDTO;
+import com.universite.courses.dto.TimetableDTO;
+import com.universite.courses.service.ICourseService;
+import jakarta.xml.ws.Service;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Read-your-writes across nodes: two nodes on one PostgreSQL database, e.g.
+ * DB_URL=jdbc:postgresql://localhost:5432/courses_db. Writes go to one node
+ * and are read back from the other, whose timetables, free rooms, change feed
+ * and catalog responses were cached before the write; each read must show
+ * the write within a second, long before those caches expire.
+ */
+@EnabledIfEnvironmentVariable(named = "DB_URL", matches = "jdbc:postgresql:.*")
+class MultiNodeReadYourWritesTest {
+
+    private static final QName SERVICE_NAME = new QName("http://courses.universite.com/", "CourseService");
+    private static final QName PORT_NAME = new QName("http://courses.universite.com/", "CourseServicePort");
+    private static final String SEMESTER = "Fall 2039";
+    private static final long MAX_LAG_MILLIS = 1000;
+
+    @TempDir
+    static Path directory;
+
+    private static final List<Process> nodes = new ArrayList<>();
+    private static ICourseService writer;
+    private static ICourseService reader;
+
+    @BeforeAll
+    static void startNodes() throws Exception {
+        List<ICourseService> ports = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            int port = freePort();
+            nodes.add(startNode(port, i == 0));
+            ports.add(Service.create(new URL("http://localhost:" + port + "/CourseService?wsdl"), SERVICE_NAME)
+                .getPort(PORT_NAME, ICourseService.class));
+        }
+        writer = ports.get(0);
+        reader = ports.get(1);
+    }
+
+    @AfterAll
+    static void stopNodes() throws InterruptedException {
+        for (Process node : nodes) {
+            node.destroy();
+            node.waitFor(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testWrites_VisibleOnTheOtherNodeWithinMaxLag() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long studentId = 900_000_000L + random.nextInt(1_000_000);
+        String code = "INV" + random.nextInt(1000, 10_000);
+        String room = "R" + code;
+
+        CourseDTO course = writer.createCourse(code, "Invalidation check", null, 3, SEMESTER, 30, "CS", "Undergraduate");
+        long courseId = course.getId();
+        List<ScheduleDTO> schedules = new ArrayList<>();
+        try {
+            // The room is known, and free on Monday, before the second node caches the semester
+            schedules.add(writer.addSchedule(courseId, "TUESDAY", "08:00", "09:30", room, code, "Lecture"));
+            reader.getStudentTimetable(studentId, SEMESTER);
+            assertTrue(reader.findFreeRooms(SEMESTER, "MONDAY", "08:00", "09:30", code, null).stream()
+                .anyMatch(free -> room.equals(free.getRoom())), "free rooms before addSchedule");
+            long feedVersion = reader.getCourseChangesSince(null).getNextVersion();
+            reader.getCourse(courseId);
+            reader.listCoursesBySemester(SEMESTER);
+
+            schedules.add(writer.addSchedule(courseId, "MONDAY", "08:00", "09:30", room, code, "Lecture"));
+            awaitFresh("free rooms after addSchedule", () ->
+                reader.findFreeRooms(SEMESTER, "MONDAY", "08:00", "09:30", code, null).stream()
+                    .noneMatch(free -> room.equals(free.getRoom())));
+            awaitFresh("course after addSchedule", () -> reader.getCourse(courseId).getSchedules().size() == 2);
+
+            writer.enrollStudent(studentId, courseId);
+            awaitFresh("timetable after enrollStudent", () ->
+                slots(reader.getStudentTimetable(studentId, SEMESTER)).contains(courseId + " Invalidation check"));
+            awaitFresh("change feed after enrollStudent", () -> {
+                CourseChangesDTO changes = reader.getCourseChangesSince(feedVersion);
+                return changes.getChanges().stream()
+                    .anyMatch(change -> change.getCourseId() == courseId && change.getEnrolled() == 1);
+            });
+            awaitFresh("course after enrollStudent", () -> reader.getCourse(courseId).getEnrolled() == 1);
+
+            writer.updateCourse(courseId, "Invalidation check renamed", null, null, null);
+            awaitFresh("timetable after updateCourse", () ->
+                slots(reader.getStudentTimetable(studentId, SEMESTER)).contains(courseId + " Invalidation check renamed"));
+            awaitFresh("semester courses after updateCourse", () ->
+                reader.listCoursesBySemester(SEMESTER).stream()
+                    .anyMatch(listed -> listed.getId() == courseId && "Invalidation check renamed".equals(listed.getName())));
+
+            writer.dropCourse(studentId, courseId);
+            awaitFresh("timetable after dropCourse", () ->
+                reader.getStudentTimetable(studentId, SEMESTER).getSlots().isEmpty());
+        } finally {
+            for (ScheduleDTO schedule : schedules) {
+                writer.deleteSchedule(schedule.getId());
+            }
+            writer.deleteCourse(courseId);
+        }
+    }
+
+    /** Polls the other node until the read shows the write. */
+    private static void awaitFresh(String what, BooleanSupplier fresh) {
+        long deadline = System.nanoTime() + MAX_LAG_MILLIS * 1_000_000;
+        while (!fresh.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, what + ": still stale after " + MAX_LAG_MILLIS + " ms");
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static String slots(TimetableDTO timetable) {
+        return timetable.getSlots().stream()
+            .map(slot -> slot.getCourseId() + " " + slot.getCourseName())
+            .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Starts the application in a child JVM with the test classpath and
+     * environment. Only the first node relays the outbox, and neither runs the
+     * background jobs, which would only add noise.
+     */
+    private static Process startNode(int port, boolean relay) throws Exception {
+        Path data = Files.createDirectories(directory.resolve("node-" + port));
+        ProcessBuilder builder = new ProcessBuilder(
+            Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp", System.getProperty("java.class.path"), CoursesServiceApplication.class.getName());
+        Map<String, String> env = builder.environment();
+        env.put("PORT", String.valueOf(port));
+        env.put("EVENTS_LOG_DIR", data.resolve("enrollment-events").toString());
+        env.put("OUTBOX_RELAY_ENABLED", String.valueOf(relay));
+        env.put("RECONCILE_ENABLED", "false");
+        env.put("ACADEMIC_RECOMPUTE_ENABLED", "false");
+        env.put("RELATED_COURSES_ENABLED", "false");
+        env.put("LOTTERY_AUTO_CLOSE", "false");
+        env.put("REGISTRATION_PREWARM_ENABLED", "false");
+        builder.redirectErrorStream(true).redirectOutput(data.resolve("node.log").toFile()).directory(data.toFile());
+        Process node = builder.start();
+
+        URL wsdl = new URL("http://localhost:" + port + "/CourseService?wsdl");
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (true) {
+            try (InputStream in = wsdl.openStream()) {
+                return node;
+            } catch (IOException e) {
+                if (!node.isAlive() || System.currentTimeMillis() > deadline) {
+                    node.destroy();
+                    fail("Node on port " + port + " did not start:\n" + Files.readString(data.resolve("node.log")));
+                }
+                Thread.sleep(200);
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.universite.courses.events;
+
+import com.universite.courses.entity.Course;
+import com.universite.courses.entity.OutboxEvent;
+import com.universite.courses.repository.OutboxRepository;
+import com.universite.courses.util.DatabaseManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OutboxRelayTest {
+
+    // Records of up to 108 bytes: an event with short names is 81, with a 50-character department 129
+    private static final int SEGMENT_BYTES = 128;
+
+    @TempDir
+    Path directory;
+
+    private SegmentedLog eventLog;
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.initialize("coursesPU-test", Map.of(
+            "jakarta.persistence.jdbc.url", "jdbc:h2:mem:outbox-relay;DB_CLOSE_DELAY=-1",
+            "jakarta.persistence.jdbc.user", "sa",
+            "jakarta.persistence.jdbc.password", ""));
+        eventLog = new SegmentedLog(directory.resolve("log"), SEGMENT_BYTES);
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventLog.close();
+        DatabaseManager.close();
+    }
+
+    @Test
+    void testDrain_DeadLettersEventsTooLargeForTheLog() throws IOException {
+        long first = append(1L, "CS");
+        long oversize = append(2L, "X".repeat(50));
+        long last = append(3L, "CS");
+
+        new OutboxRelay(eventLog).drain();
+
+        List<SegmentedLog.Entry> logged = eventLog.read(0, 10);
+        assertEquals(List.of(first, last), logged.stream()
+            .map(entry -> EnrollmentEvent.decode(entry.payload()).getEventId()).toList());
+        Path deadLetter = directory.resolve("log").resolve("dead-letters").resolve(oversize + ".event");
+        EnrollmentEvent event = EnrollmentEvent.decode(Files.readAllBytes(deadLetter));
+        assertEquals(2L, event.getStudentId());
+        assertEquals("X".repeat(50), event.getDepartment());
+        assertEquals(0L, (long) DatabaseManager.withEntityManager(em ->
+            em.createQuery("SELECT COUNT(e) FROM OutboxEvent e", Long.class).getSingleResult()));
+    }
+
+    private long append(Long studentId, String department) {
+        Course course = new Course();
+        course.setId(1L);
+        course.setCode("CS101");
+        course.setDepartment(department);
+        course.setSemester("Fall 2026");
+        OutboxEvent event = OutboxEvent.of("ENROLLED", studentId, course);
+        DatabaseManager.inTransaction(em -> {
+            new OutboxRepository(em).append(event);
+            return null;
+        });
+        return event.getId();
+    }
+}
@@ -0,0 +1,169 @@
+package com.universite.courses.events;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedLogTest {
+
+    // Header of 16 bytes plus a 20-byte payload: seven records per segment
+    private static final int SEGMENT_BYTES = 256;
+    private static final int RECORD_BYTES = 36;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReopen_RecoversEveryRecordAcrossSegments() throws IOException {
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_BYTES)) {
+            assertEquals(0, log.append(payloads(0, 10)));
+            assertEquals(10, log.append(payloads(10, 10)));
+        }
+        assertEquals(3, segmentFiles().size());
+
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_BYTES)) {
+            assertEquals(0, log.firstOffset());
+            assertEquals(20, log.nextOffset());
+            assertRecords(log.read(0, 100), 0, 20);
+            assertRecords(log.read(13, 4), 13, 4);
+            assertEquals(20, log.append(payloads(20, 1)));
+        }
+    }
+
+    @Test
+    void testReopen_DropsTornRecordAndAppendsOverIt() throws IOException {
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_BYTES)) {
+            log.append(payloads(0, 3));
+        }
+        // A record whose length made it to disk but whose payload did not
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(16).putInt(20).putLong(3).putInt(12345).flip();
+            channel.write(torn, 3 * RECORD_BYTES);
+        }
+
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_BYTES)) {
+            assertEquals(3, log.nextOffset());
+            assertRecords(log.read(0, 100), 0, 3);
+            assertEquals(3, log.append(payloads(3, 2)));
+        }
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_BYTES)) {
+            assertRecords(log.read(0, 100), 0, 5);
+        }
+    }
+
+    @Test
+    void testReopen_StopsAtCorruptRecord() throws IOException {
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_BYTES)) {
+            log.append(payloads(0, 5));
+        }
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), 2 * RECORD_BYTES + 16);
+        }
+
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_BYTES)) {
+            assertEquals(2, log.nextOffset());
+            assertRecords(log.read(0, 100), 0, 2);
+        }
+    }
+
+    @Test
+    void testAppend_RejectsRecordLargerThanSegment() {
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_BYTES)) {
+            assertThrows(IllegalArgumentException.class, () -> log.append(List.of(new byte[SEGMENT_BYTES])));
+            assertEquals(0, log.nextOffset());
+        }
+    }
+
+    @Test
+    void testAppend_OversizeRecordRejectsTheWholeBatch() {
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_BYTES)) {
+            List<byte[]> batch = new ArrayList<>(payloads(0, 2));
+            batch.add(new byte[log.maxRecordBytes() + 1]);
+            assertThrows(IllegalArgumentException.class, () -> log.append(batch));
+            assertEquals(0, log.nextOffset());
+
+            // The largest record fills a segment of its own
+            assertEquals(0, log.append(List.of(new byte[log.maxRecordBytes()])));
+            assertEquals(1, log.append(payloads(1, 1)));
+            assertEquals(log.maxRecordBytes(), log.read(0, 1).get(0).payload().length);
+            assertRecords(log.read(1, 100), 1, 1);
+        }
+    }
+
+    @Test
+    void testDeleteSegments_KeepsWhatConsumersStillNeed() throws IOException {
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_BYTES)) {
+            log.append(payloads(0, 30));
+            assertEquals(5, segmentFiles().size());
+
+            // Nothing consumed yet
+            assertEquals(0, log.deleteSegments(0, 1, 0));
+            // Only the first segment (offsets 0-6) is wholly consumed
+            assertEquals(1, log.deleteSegments(10, 1, 0));
+            assertEquals(7, log.firstOffset());
+            // Within the count limit, nothing more goes
+            assertEquals(0, log.deleteSegments(30, 4, 0));
+            // The active segment always stays
+            assertEquals(3, log.deleteSegments(30, 1, 0));
+            assertEquals(28, log.firstOffset());
+            assertEquals(1, segmentFiles().size());
+
+            // A reader behind retention continues from the oldest retained record
+            assertRecords(log.read(0, 100), 28, 2);
+        }
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_BYTES)) {
+            assertEquals(28, log.firstOffset());
+            assertEquals(30, log.nextOffset());
+            assertRecords(log.read(0, 100), 28, 2);
+        }
+    }
+
+    @Test
+    void testDeleteSegments_ByAge() throws IOException {
+        try (SegmentedLog log = new SegmentedLog(directory, SEGMENT_BYTES)) {
+            log.append(payloads(0, 20));
+            assertEquals(0, log.deleteSegments(20, 0, 60_000));
+            for (Path file : segmentFiles()) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+            }
+            assertEquals(2, log.deleteSegments(20, 0, 60_000));
+            assertEquals(14, log.firstOffset());
+        }
+    }
+
+    private static List<byte[]> payloads(int first, int count) {
+        List<byte[]> payloads = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            payloads.add(String.format("record-%013d", i).getBytes(StandardCharsets.US_ASCII));
+        }
+        return payloads;
+    }
+
+    private static void assertRecords(List<SegmentedLog.Entry> entries, long first, int count) {
+        assertEquals(count, entries.size());
+        for (int i = 0; i < count; i++) {
+            SegmentedLog.Entry entry = entries.get(i);
+            assertEquals(first + i, entry.offset());
+            assertEquals(String.format("record-%013d", first + i), new String(entry.payload(), StandardCharsets.US_ASCII));
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> listing = Files.list(directory)) {
+            return listing.filter(p -> p.toString().endsWith(".log")).sorted().toList();
+        }
+    }
+}
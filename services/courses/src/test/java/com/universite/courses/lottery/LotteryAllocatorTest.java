@@ -0,0 +1,118 @@
+package com.universite.courses.lottery;
+
+import com.universite.courses.lottery.LotteryAllocator.Outcome;
+import com.universite.courses.lottery.LotteryAllocator.Request;
+import com.universite.courses.lottery.LotteryAllocator.Seats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LotteryAllocatorTest {
+
+    private final ExecutorService single = Executors.newSingleThreadExecutor();
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        single.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testAllocate_SameSeedSameOutcomeForAnyThreadCountAndOrder() {
+        Map<Long, Seats> courses = courses(20, 5);
+        List<Request> requests = requests(300, 20, 3);
+        List<Request> shuffled = new ArrayList<>(requests);
+        Collections.shuffle(shuffled, new Random(7));
+
+        Outcome first = LotteryAllocator.allocate(courses, requests, Map.of(), 42L, single);
+        Outcome second = LotteryAllocator.allocate(courses, shuffled, Map.of(), 42L, pool);
+
+        assertEquals(first, second);
+        assertEquals(100, first.assigned().size());
+        assertEquals(requests.size() - 100, first.rejectedFull());
+    }
+
+    @Test
+    void testAllocate_SeedChangesTheDraw() {
+        Map<Long, Seats> courses = courses(20, 5);
+        List<Request> requests = requests(300, 20, 3);
+
+        Outcome first = LotteryAllocator.allocate(courses, requests, Map.of(), 42L, pool);
+        Outcome other = LotteryAllocator.allocate(courses, requests, Map.of(), 43L, pool);
+
+        assertNotEquals(first.assigned(), other.assigned());
+        assertEquals(first.assigned().size(), other.assigned().size());
+    }
+
+    @Test
+    void testAllocate_ServesHigherRanksFirst() {
+        Map<Long, Seats> courses = Map.of(1L, new Seats(1L, 2, Set.of()));
+        List<Request> requests = List.of(
+            new Request(10L, 1L, 2),
+            new Request(11L, 1L, 1),
+            new Request(12L, 1L, 3),
+            new Request(13L, 1L, 1));
+
+        Outcome outcome = LotteryAllocator.allocate(courses, requests, Map.of(), 1L, pool);
+
+        assertEquals(List.of(new Request(11L, 1L, 1), new Request(13L, 1L, 1)), outcome.assigned());
+        assertEquals(2, outcome.rejectedFull());
+    }
+
+    @Test
+    void testAllocate_PassesOverStudentsMissingAPrerequisite() {
+        Map<Long, Seats> courses = Map.of(2L, new Seats(2L, 5, Set.of("CS101", "MATH101")));
+        List<Request> requests = List.of(
+            new Request(20L, 2L, 1),
+            new Request(21L, 2L, 1),
+            new Request(22L, 2L, 2));
+        Map<Long, Set<String>> passed = Map.of(
+            20L, Set.of("CS101", "MATH101", "PHY101"),
+            21L, Set.of("CS101"));
+
+        Outcome outcome = LotteryAllocator.allocate(courses, requests, passed, 1L, pool);
+
+        assertEquals(List.of(new Request(20L, 2L, 1)), outcome.assigned());
+        assertEquals(2, outcome.rejectedPrerequisites());
+        assertEquals(0, outcome.rejectedFull());
+    }
+
+    private static Map<Long, Seats> courses(int count, int seats) {
+        Map<Long, Seats> courses = new HashMap<>();
+        for (long id = 1; id <= count; id++) {
+            courses.put(id, new Seats(id, seats, Set.of()));
+        }
+        return courses;
+    }
+
+    /** Each student ranks {@code perStudent} distinct courses. */
+    private static List<Request> requests(int students, int courses, int perStudent) {
+        Random random = new Random(1);
+        List<Request> requests = new ArrayList<>();
+        for (long student = 1; student <= students; student++) {
+            List<Long> picks = new ArrayList<>();
+            while (picks.size() < perStudent) {
+                long course = 1 + random.nextInt(courses);
+                if (!picks.contains(course)) {
+                    picks.add(course);
+                }
+            }
+            for (int rank = 1; rank <= perStudent; rank++) {
+                requests.add(new Request(student, picks.get(rank - 1), rank));
+            }
+        }
+        return requests;
+    }
+}
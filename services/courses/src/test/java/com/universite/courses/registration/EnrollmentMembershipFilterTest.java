@@ -0,0 +1,120 @@
+package com.universite.courses.registration;
+
+import com.universite.courses.entity.Course;
+import com.universite.courses.entity.StudentCourse;
+import com.universite.courses.util.DatabaseManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnrollmentMembershipFilterTest {
+
+    private static final long NO_ROWS_COURSE = 999_999L;
+
+    private EnrollmentMembershipFilter membership;
+    private Long courseId;
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.initialize("coursesPU-test", Map.of(
+            "jakarta.persistence.jdbc.url", "jdbc:h2:mem:membership;DB_CLOSE_DELAY=-1",
+            "jakarta.persistence.jdbc.user", "sa",
+            "jakarta.persistence.jdbc.password", ""));
+        courseId = DatabaseManager.inTransaction(em -> {
+            Course course = new Course();
+            course.setCode("CS101");
+            course.setName("Programming");
+            course.setCredits(3);
+            course.setSemester("Fall 2026");
+            course.setDepartment("CS");
+            course.setLevel("Undergraduate");
+            course.setCapacity(200);
+            em.persist(course);
+            return course.getId();
+        });
+        membership = new EnrollmentMembershipFilter();
+    }
+
+    @AfterEach
+    void tearDown() {
+        membership.close();
+        DatabaseManager.close();
+    }
+
+    @Test
+    void testMightContain_EveryStudentUntilLoaded() {
+        assertTrue(membership.mightContain(courseId, 1L));
+        assertTrue(membership.mightContain(NO_ROWS_COURSE, 1L));
+    }
+
+    @Test
+    void testReload_KnowsEveryRowAndFewOthers() throws InterruptedException {
+        for (long student = 1; student <= 100; student++) {
+            enroll(student);
+        }
+
+        membership.reload();
+        awaitLoaded();
+
+        for (long student = 1; student <= 100; student++) {
+            assertTrue(membership.mightContain(courseId, student), "student " + student);
+        }
+        int falsePositives = 0;
+        for (long student = 101; student <= 10_100; student++) {
+            if (membership.mightContain(courseId, student)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 100, falsePositives + " of 10000 absent students look enrolled");
+    }
+
+    @Test
+    void testAdd_CommittedRowIsKnownWithoutReload() throws InterruptedException {
+        membership.reload();
+        awaitLoaded();
+        assertFalse(membership.mightContain(courseId, 7L));
+
+        enroll(7L);
+        membership.add(courseId, 7L);
+
+        assertTrue(membership.mightContain(courseId, 7L));
+    }
+
+    @Test
+    void testReload_PicksUpBulkRows() throws InterruptedException {
+        membership.reload();
+        awaitLoaded();
+        enroll(8L);
+        assertFalse(membership.mightContain(courseId, 8L));
+
+        membership.reload();
+        assertTrue(membership.mightContain(courseId, 8L), "a reloading filter knows every student");
+        awaitLoaded();
+
+        assertTrue(membership.mightContain(courseId, 8L));
+    }
+
+    private void enroll(long studentId) {
+        DatabaseManager.inTransaction(em -> {
+            StudentCourse enrollment = new StudentCourse();
+            enrollment.setStudentId(studentId);
+            enrollment.setCourse(em.find(Course.class, courseId));
+            enrollment.setEnrollmentStatus("ENROLLED");
+            em.persist(enrollment);
+            return null;
+        });
+    }
+
+    /** A course without rows is unknown only once the filters are loaded. */
+    private void awaitLoaded() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (membership.mightContain(NO_ROWS_COURSE, 1L)) {
+            assertTrue(System.currentTimeMillis() < deadline, "filters not loaded");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.universite.courses.registration;
+
+import com.universite.courses.dto.RegistrationStatusDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegistrationGateTest {
+
+    private static final LocalDateTime OPENS = LocalDateTime.of(2026, 9, 1, 8, 0);
+    private static final LocalDateTime CLOSES = LocalDateTime.of(2026, 9, 15, 0, 0);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testCheckOpen_OnlyWithinThePeriod() {
+        RegistrationGate before = gate(OPENS.minusMinutes(1), 1, 10, 1_000);
+        IllegalArgumentException early = assertThrows(IllegalArgumentException.class, before::checkOpen);
+        assertEquals("Registration opens at " + OPENS, early.getMessage());
+        assertFalse(before.getStatus().isOpen());
+
+        gate(OPENS, 1, 10, 1_000).checkOpen();
+        gate(CLOSES.minusNanos(1), 1, 10, 1_000).checkOpen();
+        assertTrue(gate(OPENS, 1, 10, 1_000).getStatus().isOpen());
+
+        RegistrationGate after = gate(CLOSES, 1, 10, 1_000);
+        IllegalArgumentException late = assertThrows(IllegalArgumentException.class, after::checkOpen);
+        assertEquals("Registration closed at " + CLOSES, late.getMessage());
+        assertFalse(after.getStatus().isOpen());
+    }
+
+    @Test
+    void testCheckOpen_UnboundedPeriod() {
+        RegistrationGate gate = new RegistrationGate(null, null, 1, 10, 1_000, clockAt(OPENS.minusYears(10)));
+
+        gate.checkOpen();
+        assertTrue(gate.getStatus().isOpen());
+    }
+
+    @Test
+    void testAdmit_RunsTheWorkAndCountsIt() {
+        RegistrationGate gate = gate(OPENS, 2, 10, 1_000);
+
+        assertEquals("enrolled", gate.admit(1L, () -> "enrolled"));
+        assertThrows(IllegalArgumentException.class, () -> gate.admit(2L, () -> {
+            throw new IllegalArgumentException("Course is full");
+        }));
+
+        RegistrationStatusDTO status = gate.getStatus();
+        assertEquals(2, status.getAdmitted());
+        assertEquals(0, status.getInFlight());
+        assertEquals(0, status.getTurnedAway());
+    }
+
+    @Test
+    void testAdmit_FullQueueIsTurnedAwayWithItsPositionAndRetryAfter() throws Exception {
+        RegistrationGate gate = gate(OPENS, 1, 40, 30_000);
+        Future<String> holder = hold(gate, 1L);
+        awaitUntil(() -> gate.getStatus().getInFlight() == 1);
+        List<Future<String>> waiting = new ArrayList<>();
+        for (long student = 2; student <= 41; student++) {
+            waiting.add(hold(gate, student));
+        }
+        awaitUntil(() -> gate.getStatus().getQueued() == 40);
+
+        RegistrationStatusDTO status = gate.getStatus();
+        assertEquals(40, status.getMaxQueue());
+        // Forty requests ahead at the initial 50 ms each, through one permit
+        assertEquals(2, status.getRetryAfterSeconds());
+
+        long start = System.nanoTime();
+        IllegalStateException busy = assertThrows(IllegalStateException.class, () -> gate.admit(42L, () -> "late"));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "turned away at once");
+        assertEquals("Registration is busy, queue position 41, retry after 3 s", busy.getMessage());
+        assertEquals(1, gate.getStatus().getTurnedAway());
+
+        release.countDown();
+        assertEquals("done 1", holder.get(10, TimeUnit.SECONDS));
+        for (Future<String> request : waiting) {
+            assertTrue(request.get(10, TimeUnit.SECONDS).startsWith("done"));
+        }
+        assertEquals(41, gate.getStatus().getAdmitted());
+        assertEquals(0, gate.getStatus().getQueued());
+    }
+
+    @Test
+    void testAdmit_WaitingPastMaxWaitIsTurnedAway() throws Exception {
+        RegistrationGate gate = gate(OPENS, 1, 10, 200);
+        hold(gate, 1L);
+        awaitUntil(() -> gate.getStatus().getInFlight() == 1);
+
+        long start = System.nanoTime();
+        IllegalStateException busy = assertThrows(IllegalStateException.class, () -> gate.admit(2L, () -> "late"));
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(waitedMillis >= 190, "waited " + waitedMillis + " ms");
+        assertTrue(busy.getMessage().startsWith("Registration is busy"), busy.getMessage());
+        assertEquals(1, gate.getStatus().getTurnedAway());
+        assertEquals(0, gate.getStatus().getQueued());
+        // The student left the gate, so a later request is admitted
+        release.countDown();
+        awaitUntil(() -> gate.getStatus().getInFlight() == 0);
+        assertEquals("enrolled", gate.admit(2L, () -> "enrolled"));
+    }
+
+    @Test
+    void testAdmit_OneRequestPerStudent() throws Exception {
+        RegistrationGate gate = gate(OPENS, 4, 10, 1_000);
+        Future<String> first = hold(gate, 7L);
+        awaitUntil(() -> gate.getStatus().getInFlight() == 1);
+
+        IllegalStateException duplicate = assertThrows(IllegalStateException.class,
+            () -> gate.admit(7L, () -> "again"));
+        assertEquals("Student 7 already has a registration request in progress", duplicate.getMessage());
+        assertEquals("other", gate.admit(8L, () -> "other"));
+        assertEquals(1, gate.getStatus().getTurnedAway());
+
+        release.countDown();
+        assertEquals("done 7", first.get(10, TimeUnit.SECONDS));
+        assertEquals("again", gate.admit(7L, () -> "again"));
+    }
+
+    /** Admits the student on another thread with work that runs until the test releases it. */
+    private Future<String> hold(RegistrationGate gate, long studentId) {
+        return executor.submit(() -> gate.admit(studentId, () -> {
+            try {
+                assertTrue(release.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "done " + studentId;
+        }));
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached");
+            Thread.sleep(5);
+        }
+    }
+
+    private static RegistrationGate gate(LocalDateTime now, int maxConcurrent, int maxQueue, long maxWaitMillis) {
+        return new RegistrationGate(OPENS, CLOSES, maxConcurrent, maxQueue, maxWaitMillis, clockAt(now));
+    }
+
+    private static Clock clockAt(LocalDateTime now) {
+        return Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+    }
+}
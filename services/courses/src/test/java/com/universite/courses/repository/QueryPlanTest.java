@@ -0,0 +1,317 @@
+package com.universite.courses.repository;
+
+import com.universite.courses.entity.Course;
+import com.universite.courses.util.DatabaseManager;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every repository query can be answered from an index, on PostgreSQL, e.g.
+ * DB_URL=jdbc:postgresql://localhost:5432/courses_db. The migrations run
+ * into a schema of their own, which is filled with a few semesters of rows and
+ * analyzed, so the plans do not depend on what the database holds. Each
+ * finder runs once while Hibernate's SQL is captured; the SQL is then
+ * explained as a generic plan with sequential scans disabled. A plan that
+ * still contains a Seq Scan, or an index scan without a condition on the
+ * index's leading column (a walk of the whole index), has no usable index,
+ * and a new query needs one in a migration.
+ */
+@EnabledIfEnvironmentVariable(named = "DB_URL", matches = "jdbc:postgresql:.*")
+class QueryPlanTest {
+
+    private static final String SCHEMA = "query_plan_check";
+
+    /**
+     * Finders that read the whole table, or an ordered prefix of it, by design.
+     * The semester close-out and the counter reconciliation read every
+     * enrollment of a semester or a department, which the planner rightly
+     * joins in bulk when those are a large share of the table, and so does
+     * the lottery draw with the enrollments of every student who took part.
+     * The room occupancy index loads every room and a semester's schedules at
+     * once.
+     * There is one lottery window per semester, a handful of rows. The
+     * related-courses build maps every course to its code, and the course
+     * suggestion index holds every code and name.
+     */
+    private static final Set<String> FULL_SCANS = Set.of(
+        "CourseRepository.findAll", "OutboxRepository.lockPending",
+        "CompletionRepository.lockEnrolledInSemester", "CompletionRepository.gradeDistributionBySemester",
+        "EnrollmentCounterRepository.findDepartments", "EnrollmentCounterRepository.countByDepartment",
+        "ScheduleRepository.findRoomSlotsBySemester", "ScheduleRepository.findRoomsWithLargestCapacity",
+        "LotteryRepository.findDueSemesters", "LotteryRepository.findEnrollmentStatuses",
+        "CoEnrollmentRepository.findCourseCodes", "CourseRepository.findCodesAndNames");
+
+    /** Ten semesters of a thousand courses, twenty thousand students and their lottery submissions. */
+    private static final List<String> SEED = List.of(
+        "INSERT INTO courses (code, name, credits, semester, capacity, enrolled, department, level, active, " +
+            "created_at) " +
+            "SELECT 'C' || (g % 1000), 'Course ' || g, 3, 'S' || (g / 1000), 40, g % 45, 'D' || (g % 20), " +
+            "'Undergraduate', g % 10 <> 0, now() FROM generate_series(0, 9999) g",
+        "INSERT INTO schedules (course_id, day_of_week, start_time, end_time, room, building, schedule_type) " +
+            "SELECT c.id, (ARRAY['MONDAY', 'TUESDAY', 'WEDNESDAY', 'THURSDAY', 'FRIDAY'])[1 + (c.id + d) % 5], " +
+            "time '08:00' + (c.id % 8) * interval '1 hour', time '09:30' + (c.id % 8) * interval '1 hour', " +
+            "'R' || (c.id % 400), 'B' || (c.id % 10), 'Lecture' FROM courses c, generate_series(0, 1) d",
+        "INSERT INTO student_courses (student_id, course_id, enrollment_status, enrolled_at, grade) " +
+            "SELECT s, (s * 7 + k * 131) % 10000 + 1, " +
+            "(ARRAY['ENROLLED', 'COMPLETED', 'DROPPED'])[1 + (s + k) % 3], now(), " +
+            "CASE WHEN (s + k) % 3 = 1 THEN 12 + (s + k) % 8 END " +
+            "FROM generate_series(1, 20000) s, generate_series(0, 4) k",
+        "INSERT INTO teacher_courses (teacher_id, course_id, role, assigned_at, active) " +
+            "SELECT id % 500, id, 'Lecturer', now(), true FROM courses",
+        "INSERT INTO outbox_events (event_type, student_id, course_id, occurred_at) " +
+            "SELECT 'ENROLLED', g, g % 10000 + 1, now() FROM generate_series(1, 1000) g",
+        "INSERT INTO lottery_windows (semester, status, seed, opened_at, students, requests, seats_assigned, " +
+            "rejected_full, rejected_prerequisites, already_enrolled, elapsed_ms) " +
+            "SELECT 'S' || g, 'CLOSED', g, now(), 0, 0, 0, 0, 0, 0, 0 FROM generate_series(0, 9) g",
+        "INSERT INTO lottery_submissions (semester, student_id, submitted_at) " +
+            "SELECT 'S' || (g % 10), g / 2, now() FROM generate_series(1, 20000) g",
+        "INSERT INTO lottery_preferences (submission_id, course_id, preference_rank) " +
+            "SELECT s.id, (s.id * 3 + k) % 10000 + 1, k + 1 FROM lottery_submissions s, generate_series(0, 2) k",
+        "INSERT INTO student_academic_summaries (student_id, courses_completed, courses_incomplete, " +
+            "credits_attempted, credits_earned, grade_points, updated_at) " +
+            "SELECT g, 2, 0, 6, 6, 90, now() FROM generate_series(1, 20000) g");
+
+    private static final Pattern INDEX_SCAN = Pattern.compile("(?:Index Scan|Index Only Scan) (?:Backward )?using (\\S+)|Bitmap Index Scan on (\\S+)");
+
+    private static final List<String> captured = new ArrayList<>();
+
+    private record Plan(List<String> lines, boolean scansWholeTable) {
+    }
+
+    /** Registered through hibernate.session_factory.statement_inspector. */
+    public static class CapturingInspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            synchronized (captured) {
+                captured.add(sql);
+            }
+            return sql;
+        }
+    }
+
+    @BeforeAll
+    static void migrateAndSeed() throws SQLException {
+        String url = System.getenv("DB_URL");
+        try (Connection connection = DriverManager.getConnection(url, System.getenv("DB_USER"),
+                System.getenv("DB_PASSWORD"));
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+            statement.execute("CREATE SCHEMA " + SCHEMA);
+        }
+        DatabaseManager.initialize("coursesPU", Map.of(
+            "jakarta.persistence.jdbc.url", url + (url.contains("?") ? "&" : "?") + "currentSchema=" + SCHEMA,
+            "hibernate.session_factory.statement_inspector", CapturingInspector.class.getName(),
+            "hibernate.show_sql", "false"));
+        DatabaseManager.inTransaction(em -> {
+            for (String insert : SEED) {
+                em.createNativeQuery(insert).executeUpdate();
+            }
+            return null;
+        });
+        DatabaseManager.inTransaction(em -> em.unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE courses, schedules, student_courses, teacher_courses, outbox_events, " +
+                    "lottery_windows, lottery_submissions, lottery_preferences, student_academic_summaries");
+            }
+            return null;
+        }));
+    }
+
+    @AfterAll
+    static void dropSchema() throws SQLException {
+        DatabaseManager.close();
+        try (Connection connection = DriverManager.getConnection(System.getenv("DB_URL"), System.getenv("DB_USER"),
+                System.getenv("DB_PASSWORD"));
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        }
+    }
+
+    @Test
+    void testFinders_UseAnIndex() {
+        Map<String, Consumer<EntityManager>> finders = new LinkedHashMap<>();
+        finders.put("CourseRepository.findById", em -> new CourseRepository(em).findById(1L));
+        finders.put("CourseRepository.findByIds", em -> new CourseRepository(em).findByIds(List.of(1L, 2L)));
+        finders.put("CourseRepository.findByCode", em -> new CourseRepository(em).findByCode("CS1000"));
+        finders.put("CourseRepository.findAll", em -> new CourseRepository(em).findAll());
+        finders.put("CourseRepository.findCodesAndNames", em -> new CourseRepository(em).findCodesAndNames());
+        finders.put("CourseRepository.findBySemester", em -> new CourseRepository(em).findBySemester("Fall 2024"));
+        finders.put("CourseRepository.findByDepartment", em -> new CourseRepository(em).findByDepartment("CS"));
+        finders.put("CourseRepository.findAvailableCourses", em -> new CourseRepository(em).findAvailableCourses());
+        finders.put("CourseRepository.existsByCode", em -> new CourseRepository(em).existsByCode("CS1000"));
+        finders.put("CourseRepository.existsByCodeAndSemester", em -> new CourseRepository(em).existsByCodeAndSemester("CS1000", "Fall 2024"));
+        finders.put("ScheduleRepository.findById", em -> new ScheduleRepository(em).findById(1L));
+        finders.put("ScheduleRepository.findByCourse", em -> new ScheduleRepository(em).findByCourse(em.getReference(Course.class, 1L)));
+        finders.put("ScheduleRepository.findByCourseId", em -> new ScheduleRepository(em).findByCourseId(1L));
+        finders.put("ScheduleRepository.findByDayOfWeek", em -> new ScheduleRepository(em).findByDayOfWeek(DayOfWeek.MONDAY));
+        finders.put("ScheduleRepository.findByRoom", em -> new ScheduleRepository(em).findByRoom("A101"));
+        finders.put("ScheduleRepository.findByRoomAndSemester", em -> new ScheduleRepository(em).findByRoomAndSemester("Main", "A101", "Fall 2024"));
+        finders.put("ScheduleRepository.findRoomSlotsBySemester", em -> new ScheduleRepository(em).findRoomSlotsBySemester("Fall 2024"));
+        finders.put("ScheduleRepository.findRoomsWithLargestCapacity", em -> new ScheduleRepository(em).findRoomsWithLargestCapacity());
+        finders.put("StudentCourseRepository.findById", em -> new StudentCourseRepository(em).findById(1L));
+        finders.put("StudentCourseRepository.findByStudentAndCourse", em -> new StudentCourseRepository(em).findByStudentAndCourse(1L, 1L));
+        finders.put("StudentCourseRepository.findByStudent", em -> new StudentCourseRepository(em).findByStudent(1L));
+        finders.put("StudentCourseRepository.findByCourse", em -> new StudentCourseRepository(em).findByCourse(em.getReference(Course.class, 1L)));
+        finders.put("StudentCourseRepository.findActiveByStudent", em -> new StudentCourseRepository(em).findActiveByStudent(1L));
+        finders.put("StudentCourseRepository.findTimetable", em -> new StudentCourseRepository(em).findTimetable(1L, "Fall 2024"));
+        finders.put("StudentCourseRepository.isStudentEnrolled", em -> new StudentCourseRepository(em).isStudentEnrolled(1L, 1L));
+        finders.put("TeacherCourseRepository.findById", em -> new TeacherCourseRepository(em).findById(1L));
+        finders.put("TeacherCourseRepository.findByTeacher", em -> new TeacherCourseRepository(em).findByTeacher(1L));
+        finders.put("TeacherCourseRepository.findByCourse", em -> new TeacherCourseRepository(em).findByCourse(em.getReference(Course.class, 1L)));
+        finders.put("CompletionRepository.findStatusesByCourse", em -> new CompletionRepository(em).findStatusesByCourse(1L));
+        finders.put("CompletionRepository.lockEnrolledInSemester", em -> new CompletionRepository(em).lockEnrolledInSemester("Fall 2024"));
+        finders.put("CompletionRepository.gradeDistributionByCourse", em -> new CompletionRepository(em).gradeDistributionByCourse(1L));
+        finders.put("CompletionRepository.gradeDistributionBySemester", em -> new CompletionRepository(em).gradeDistributionBySemester("Fall 2024"));
+        finders.put("EnrollmentCounterRepository.findDepartments", em -> new EnrollmentCounterRepository(em).findDepartments());
+        finders.put("EnrollmentCounterRepository.countByDepartment", em -> new EnrollmentCounterRepository(em).countByDepartment("CS"));
+        finders.put("OutboxRepository.lockPending", em -> new OutboxRepository(em).lockPending(100));
+        finders.put("LotteryRepository.findWindow", em -> new LotteryRepository(em).findWindow("Fall 2024"));
+        finders.put("LotteryRepository.findDueSemesters", em -> new LotteryRepository(em).findDueSemesters(LocalDateTime.now()));
+        finders.put("LotteryRepository.countStudents", em -> new LotteryRepository(em).countStudents("Fall 2024"));
+        finders.put("LotteryRepository.findActiveCourseIds", em -> new LotteryRepository(em).findActiveCourseIds(List.of(1L, 2L), "Fall 2024"));
+        finders.put("LotteryRepository.findLatestRequests", em -> new LotteryRepository(em).findLatestRequests("Fall 2024"));
+        finders.put("LotteryRepository.lockCoursesInSemester", em -> new LotteryRepository(em).lockCoursesInSemester("Fall 2024"));
+        finders.put("LotteryRepository.findCodes", em -> new LotteryRepository(em).findCodes(List.of(1L, 2L)));
+        finders.put("LotteryRepository.findPassedCodes", em -> new LotteryRepository(em).findPassedCodes("Fall 2024", List.of("CS1000")));
+        finders.put("LotteryRepository.findEnrollmentStatuses", em -> new LotteryRepository(em).findEnrollmentStatuses("Fall 2024"));
+        finders.put("CoEnrollmentRepository.findCourseCodes", em -> new CoEnrollmentRepository(em).findCourseCodes());
+        finders.put("CoEnrollmentRepository.findSemesterCourses", em -> new CoEnrollmentRepository(em).findSemesterCourses("Fall 2024"));
+
+        List<String> fullScans = new ArrayList<>();
+        for (Map.Entry<String, Consumer<EntityManager>> finder : finders.entrySet()) {
+            List<String> statements = capture(finder.getValue());
+            assertFalse(statements.isEmpty(), finder.getKey() + " ran no statement");
+            for (String sql : statements) {
+                if (!sql.trim().toLowerCase().startsWith("select")) {
+                    continue;
+                }
+                Plan plan = explain(sql);
+                if (plan.scansWholeTable() && !FULL_SCANS.contains(finder.getKey())) {
+                    fullScans.add(finder.getKey() + ":\n  " + sql + "\n  " + String.join("\n  ", plan.lines()));
+                }
+            }
+        }
+        assertTrue(fullScans.isEmpty(), "Queries without a usable index:\n" + String.join("\n", fullScans));
+    }
+
+    /**
+     * True for a Seq Scan, or for an index scan whose condition does not
+     * constrain the index's leading column (PostgreSQL then walks the whole
+     * index and filters it). A partial index is constrained by its predicate.
+     */
+    private static boolean scansWholeTable(Connection connection, List<String> plan) throws SQLException {
+        for (int i = 0; i < plan.size(); i++) {
+            String node = plan.get(i);
+            if (node.contains("Seq Scan")) {
+                return true;
+            }
+            Matcher scan = INDEX_SCAN.matcher(node);
+            if (!scan.find()) {
+                continue;
+            }
+            String leading = leadingColumn(connection, scan.group(1) != null ? scan.group(1) : scan.group(2));
+            boolean constrained = leading == null;
+            for (int j = i + 1; j < plan.size() && !plan.get(j).contains("->"); j++) {
+                String detail = plan.get(j);
+                constrained |= detail.contains("Index Cond") && detail.matches(".*\\b" + leading + "\\b.*");
+            }
+            if (!constrained) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** The index's leading column, or null for a partial index. */
+    private static String leadingColumn(Connection connection, String index) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT a.attname, i.indpred IS NOT NULL FROM pg_index i " +
+                "JOIN pg_class c ON c.oid = i.indexrelid " +
+                "JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = i.indkey[0] " +
+                "WHERE c.relname = ? AND c.relnamespace = ?::regnamespace")) {
+            statement.setString(1, index);
+            statement.setString(2, SCHEMA);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    return index;
+                }
+                return rs.getBoolean(2) ? null : rs.getString(1);
+            }
+        }
+    }
+
+    private static List<String> capture(Consumer<EntityManager> finder) {
+        synchronized (captured) {
+            captured.clear();
+        }
+        DatabaseManager.inTransaction(em -> {
+            finder.accept(em);
+            return null;
+        });
+        synchronized (captured) {
+            return new ArrayList<>(captured);
+        }
+    }
+
+    /** Generic plan of the statement, so parameter values do not matter. */
+    private static Plan explain(String sql) {
+        return DatabaseManager.inTransaction(em -> em.unwrap(Session.class).doReturningWork(connection -> {
+            StringBuilder prepared = new StringBuilder();
+            int parameters = 0;
+            for (char c : sql.toCharArray()) {
+                if (c == '?') {
+                    prepared.append('$').append(++parameters);
+                } else {
+                    prepared.append(c);
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET LOCAL enable_seqscan = off");
+                statement.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+                statement.execute("PREPARE plan_check AS " + prepared);
+                try {
+                    String arguments = parameters == 0 ? "" : "(" + String.join(", ", Collections.nCopies(parameters, "NULL")) + ")";
+                    List<String> lines = lines(connection, "EXPLAIN EXECUTE plan_check" + arguments);
+                    return new Plan(lines, scansWholeTable(connection, lines));
+                } finally {
+                    statement.execute("DEALLOCATE plan_check");
+                }
+            }
+        }));
+    }
+
+    private static List<String> lines(Connection connection, String sql) throws SQLException {
+        List<String> lines = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                lines.add(rs.getString(1));
+            }
+        }
+        return lines;
+    }
+}
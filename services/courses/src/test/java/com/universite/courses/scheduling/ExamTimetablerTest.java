@@ -0,0 +1,129 @@
+package com.universite.courses.scheduling;
+
+import com.universite.courses.scheduling.ExamTimetabler.Exam;
+import com.universite.courses.scheduling.ExamTimetabler.Rooms;
+import com.universite.courses.scheduling.ExamTimetabler.Timetable;
+import com.universite.courses.util.StudentRows;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExamTimetablerTest {
+
+    private static final int COURSES = 40;
+    private static final int STUDENTS = 600;
+
+    private final long[] courseIds = new long[COURSES];
+    private final String[] codes = new String[COURSES];
+    /** Enrollments as course and student, in student order. */
+    private final List<long[]> enrollments = new ArrayList<>();
+
+    ExamTimetablerTest() {
+        for (int c = 0; c < COURSES; c++) {
+            courseIds[c] = 100 + c * 3;
+            codes[c] = String.format("C%03d", c);
+        }
+        Random random = new Random(5);
+        for (long student = 1; student <= STUDENTS; student++) {
+            int taken = 3 + random.nextInt(3);
+            for (int i = 0; i < taken; i++) {
+                // Repeats are allowed, as completed and enrolled rows of one course are
+                enrollments.add(new long[]{courseIds[random.nextInt(COURSES)], student});
+            }
+        }
+    }
+
+    @Test
+    void testTimetable_NoStudentHasTwoExamsInOneSlot() {
+        Timetable timetable = timetable(new ExamTimetabler(4, 8, 1, 200, 1_000), rooms());
+
+        Map<Long, Exam> byCourse = new HashMap<>();
+        for (Exam exam : timetable.exams()) {
+            byCourse.put(exam.courseId(), exam);
+            assertTrue(exam.slot() >= 1 && exam.slot() <= timetable.slots(), exam.code() + " in slot " + exam.slot());
+        }
+        assertEquals(COURSES, byCourse.size());
+        assertEquals(STUDENTS, timetable.students());
+
+        Map<Long, Set<Long>> coursesOfStudent = new HashMap<>();
+        for (long[] enrollment : enrollments) {
+            coursesOfStudent.computeIfAbsent(enrollment[1], s -> new HashSet<>()).add(enrollment[0]);
+        }
+        for (Map.Entry<Long, Set<Long>> student : coursesOfStudent.entrySet()) {
+            Set<Integer> slots = new HashSet<>();
+            for (long courseId : student.getValue()) {
+                assertTrue(slots.add(byCourse.get(courseId).slot()),
+                    "student " + student.getKey() + " has two exams in slot " + byCourse.get(courseId).slot());
+            }
+        }
+
+        Map<String, Integer> capacities = Map.of("A 1", 40, "A 2", 60, "B 1", 80, "B 2", 120, "C 1", 200);
+        Map<Integer, Set<String>> roomsOfSlot = new HashMap<>();
+        for (Exam exam : timetable.exams()) {
+            int seated = 0;
+            for (String room : exam.rooms()) {
+                assertTrue(roomsOfSlot.computeIfAbsent(exam.slot(), s -> new HashSet<>()).add(room),
+                    room + " used twice in slot " + exam.slot());
+                seated += capacities.get(room);
+            }
+            assertTrue(seated >= exam.students(), exam.code() + " seats " + seated + " of " + exam.students());
+        }
+    }
+
+    @Test
+    void testTimetable_SameForAnyParallelism() {
+        Timetable sequential = timetable(new ExamTimetabler(1, 8, 1, 200, 1_000), rooms());
+        Timetable parallel = timetable(new ExamTimetabler(4, 8, 1, 200, 1_000), rooms());
+        Timetable again = timetable(new ExamTimetabler(4, 8, 1, 200, 1_000), rooms());
+
+        assertEquals(sequential.slots(), parallel.slots());
+        assertEquals(sequential.exams(), parallel.exams());
+        assertEquals(parallel.exams(), again.exams());
+    }
+
+    @Test
+    void testTimetable_NoSlotsWhenNoExamFits() {
+        Timetable timetable = timetable(new ExamTimetabler(2, 2, 1, 10, 1_000), ExamTimetabler.rooms(List.of()));
+
+        assertEquals(0, timetable.slots());
+        assertEquals(COURSES, timetable.exams().size());
+        assertTrue(timetable.exams().stream().allMatch(exam -> exam.slot() == 0 && exam.rooms().isEmpty()));
+    }
+
+    @Test
+    void testAllocate_SmallestFittingRoomThenLargestFree() {
+        int[] capacities = {40, 60, 80, 120};
+
+        int[][] allocated = ExamTimetabler.allocate(new int[]{50, 150}, capacities);
+
+        assertArrayEquals(new int[]{1}, allocated[0]);
+        assertArrayEquals(new int[]{3, 0}, allocated[1]);
+        assertNull(ExamTimetabler.allocate(new int[]{100, 100, 100}, capacities));
+    }
+
+    private Timetable timetable(ExamTimetabler timetabler, Rooms rooms) {
+        StudentRows rows = new StudentRows(courseIds, course -> course, courseIds.length);
+        for (long[] enrollment : enrollments) {
+            rows.accept(enrollment[0], enrollment[1]);
+        }
+        rows.endStudent();
+        return timetabler.timetable("Fall 2026", courseIds, codes, rooms, rows, System.nanoTime());
+    }
+
+    private static Rooms rooms() {
+        return ExamTimetabler.rooms(List.of(
+            new Object[]{"B", "2", 120},
+            new Object[]{"A", "1", 40},
+            new Object[]{"C", "1", 200},
+            new Object[]{"A", "2", 60},
+            new Object[]{"B", "1", 80}));
+    }
+}
@@ -0,0 +1,163 @@
+package com.universite.courses.scheduling;
+
+import com.universite.courses.entity.Course;
+import com.universite.courses.entity.Schedule;
+import com.universite.courses.repository.ScheduleRepository;
+import com.universite.courses.scheduling.RoomOccupancyIndex.FreeRoom;
+import com.universite.courses.scheduling.RoomOccupancyIndex.Room;
+import com.universite.courses.util.DatabaseManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomOccupancyIndexTest {
+
+    private static final String FALL = "Fall 2026";
+    private static final String SPRING = "Spring 2027";
+
+    private final RoomOccupancyIndex index = new RoomOccupancyIndex();
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.initialize("coursesPU-test", Map.of(
+            "jakarta.persistence.jdbc.url", "jdbc:h2:mem:room-occupancy;DB_CLOSE_DELAY=-1",
+            "jakarta.persistence.jdbc.user", "sa",
+            "jakarta.persistence.jdbc.password", ""));
+        persist("CS101", FALL, 40, schedule("Main", "A101", DayOfWeek.MONDAY, "09:00", "10:30"));
+        persist("CS102", FALL, 25, schedule("Annex", "A101", DayOfWeek.MONDAY, "13:00", "14:00"));
+        persist("CS201", SPRING, 60, schedule("Main", "A101", DayOfWeek.MONDAY, "11:00", "12:00"),
+            schedule(null, "Lab 3", DayOfWeek.FRIDAY, "08:00", "10:00"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        DatabaseManager.close();
+    }
+
+    @Test
+    void testFindFreeRooms_EndMinuteIsOccupied() {
+        assertFalse(isFree(FALL, "Main", "A101", DayOfWeek.MONDAY, "10:30", "11:00"));
+        assertFalse(isFree(FALL, "Main", "A101", DayOfWeek.MONDAY, "08:00", "09:00"));
+        assertTrue(isFree(FALL, "Main", "A101", DayOfWeek.MONDAY, "10:31", "11:00"));
+        assertTrue(isFree(FALL, "Main", "A101", DayOfWeek.MONDAY, "08:00", "08:59"));
+        assertTrue(isFree(FALL, "Main", "A101", DayOfWeek.TUESDAY, "09:00", "10:30"));
+    }
+
+    @Test
+    void testFindFreeRooms_SemestersAreSeparate() {
+        assertTrue(isFree(SPRING, "Main", "A101", DayOfWeek.MONDAY, "09:00", "10:30"));
+        assertFalse(isFree(SPRING, "Main", "A101", DayOfWeek.MONDAY, "11:30", "11:45"));
+        assertTrue(isFree(FALL, "Main", "A101", DayOfWeek.MONDAY, "11:30", "11:45"));
+        assertFalse(isFree(SPRING, null, "Lab 3", DayOfWeek.FRIDAY, "09:00", "09:30"));
+        assertTrue(isFree(FALL, null, "Lab 3", DayOfWeek.FRIDAY, "09:00", "09:30"));
+    }
+
+    @Test
+    void testFindFreeRooms_BuildingsAndCapacityFilter() {
+        List<FreeRoom> free = index.findFreeRooms(FALL, DayOfWeek.MONDAY, LocalTime.parse("09:30"),
+            LocalTime.parse("13:30"), null, null);
+
+        assertEquals(List.of(new FreeRoom(null, "Lab 3", 60)), free);
+        assertEquals(List.of(new FreeRoom("Annex", "A101", 25)), index.findFreeRooms(FALL, DayOfWeek.MONDAY,
+            LocalTime.parse("09:30"), LocalTime.parse("10:00"), "annex", null));
+        assertEquals(List.of(new FreeRoom(null, "Lab 3", 60), new FreeRoom("Main", "A101", 60)),
+            index.findFreeRooms(FALL, DayOfWeek.MONDAY, LocalTime.parse("15:00"), LocalTime.parse("16:00"), null, 50));
+    }
+
+    @Test
+    void testOccupyRelease_RoundTrip() {
+        assertTrue(isFree(FALL, "Annex", "A101", DayOfWeek.TUESDAY, "14:00", "15:00"));
+
+        index.occupy(FALL, 1_001L, new Room("Annex", "A101"), DayOfWeek.TUESDAY, LocalTime.parse("14:00"),
+            LocalTime.parse("15:00"), 25);
+        index.occupy(FALL, 1_002L, new Room("Annex", "A101"), DayOfWeek.TUESDAY, LocalTime.parse("15:00"),
+            LocalTime.parse("16:00"), 25);
+        assertFalse(isFree(FALL, "Annex", "A101", DayOfWeek.TUESDAY, "14:30", "14:45"));
+        assertFalse(isFree(FALL, "Annex", "A101", DayOfWeek.TUESDAY, "15:30", "15:45"));
+        assertFalse(isFree(FALL, "Annex", "A101", DayOfWeek.MONDAY, "13:30", "13:45"));
+
+        index.release(FALL, 1_001L);
+        assertTrue(isFree(FALL, "Annex", "A101", DayOfWeek.TUESDAY, "14:00", "14:59"));
+        assertFalse(isFree(FALL, "Annex", "A101", DayOfWeek.TUESDAY, "15:30", "15:45"));
+        assertFalse(isFree(FALL, "Annex", "A101", DayOfWeek.MONDAY, "13:30", "13:45"));
+
+        index.release(FALL, 1_002L);
+        index.release(FALL, 1_002L);
+        assertTrue(isFree(FALL, "Annex", "A101", DayOfWeek.TUESDAY, "14:00", "16:00"));
+        assertFalse(isFree(FALL, "Annex", "A101", DayOfWeek.MONDAY, "13:30", "13:45"));
+    }
+
+    @Test
+    void testOccupy_NewRoomIsKnownAndUnloadedSemesterIsLeftToItsLoad() {
+        assertTrue(isFree(FALL, "Main", "A101", DayOfWeek.WEDNESDAY, "10:00", "11:00"));
+
+        index.occupy(SPRING, 1_003L, new Room("Main", "B12"), DayOfWeek.WEDNESDAY, LocalTime.parse("10:00"),
+            LocalTime.parse("11:00"), 90);
+
+        assertTrue(index.findFreeRooms(FALL, DayOfWeek.WEDNESDAY, LocalTime.parse("10:00"), LocalTime.parse("11:00"),
+            null, 90).contains(new FreeRoom("Main", "B12", 90)));
+        // Loading Spring reads the rooms from the database, where B12 was never saved
+        assertTrue(isFree(SPRING, "Main", "A101", DayOfWeek.WEDNESDAY, "10:00", "11:00"));
+        assertFalse(isFree(SPRING, "Main", "B12", DayOfWeek.WEDNESDAY, "10:00", "11:00"));
+    }
+
+    @Test
+    void testFindByRoomAndSemester_OnlyTheRoomOfThatBuilding() {
+        DatabaseManager.withEntityManager(em -> {
+            ScheduleRepository repository = new ScheduleRepository(em);
+            assertEquals(List.of("09:00"), starts(repository.findByRoomAndSemester("Main", "A101", FALL)));
+            assertEquals(List.of("13:00"), starts(repository.findByRoomAndSemester("Annex", "A101", FALL)));
+            assertEquals(List.of(), starts(repository.findByRoomAndSemester(null, "A101", FALL)));
+            assertEquals(List.of("08:00"), starts(repository.findByRoomAndSemester(null, "Lab 3", SPRING)));
+            assertEquals(List.of(), starts(repository.findByRoomAndSemester("Main", "Lab 3", SPRING)));
+            return null;
+        });
+    }
+
+    private boolean isFree(String semester, String building, String room, DayOfWeek day, String start, String end) {
+        return index.findFreeRooms(semester, day, LocalTime.parse(start), LocalTime.parse(end), null, null).stream()
+            .anyMatch(free -> free.room().equals(room) && Objects.equals(free.building(), building));
+    }
+
+    private void persist(String code, String semester, int capacity, Schedule... schedules) {
+        DatabaseManager.inTransaction(em -> {
+            Course course = new Course();
+            course.setCode(code);
+            course.setName("Course " + code);
+            course.setCredits(3);
+            course.setSemester(semester);
+            course.setDepartment("CS");
+            course.setLevel("Undergraduate");
+            course.setCapacity(capacity);
+            em.persist(course);
+            for (Schedule schedule : schedules) {
+                schedule.setCourse(course);
+                em.persist(schedule);
+            }
+            return null;
+        });
+    }
+
+    private static Schedule schedule(String building, String room, DayOfWeek day, String start, String end) {
+        Schedule schedule = new Schedule();
+        schedule.setDayOfWeek(day);
+        schedule.setStartTime(LocalTime.parse(start));
+        schedule.setEndTime(LocalTime.parse(end));
+        schedule.setRoom(room);
+        schedule.setBuilding(building);
+        schedule.setScheduleType("Lecture");
+        return schedule;
+    }
+
+    private static List<String> starts(List<Schedule> schedules) {
+        return schedules.stream().map(schedule -> schedule.getStartTime().toString()).toList();
+    }
+}
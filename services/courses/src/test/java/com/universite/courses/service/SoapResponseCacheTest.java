@@ -0,0 +1,195 @@
+package com.universite.courses.service;
+
+import com.sun.net.httpserver.HttpServer;
+import com.universite.courses.events.CourseChangeFeed.CourseChange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** The cache in front of a stub endpoint whose every response carries its call number. */
+class SoapResponseCacheTest {
+
+    private static final int RESPONSE_BYTES = 100;
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private HttpServer server;
+    private SoapResponseCache cache;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testKeys_OperationsAndArgumentsNeverShareAnEntry() throws Exception {
+        start(new SoapResponseCache(true, 100, 1_000_000, 10_000, 60_000));
+        String[] requests = {
+            call("getCourse", "courseId", "1"),
+            call("getCourse", "courseId", "2"),
+            call("getCourseByCode", "code", "1"),
+            call("listCoursesBySemester", "semester", "CS"),
+            call("listCoursesByDepartment", "department", "CS"),
+            call("listCourses", null, null),
+            call("listAvailableCourses", null, null)
+        };
+
+        int[] first = new int[requests.length];
+        for (int i = 0; i < requests.length; i++) {
+            first[i] = post(requests[i]);
+            assertEquals(i + 1, first[i], requests[i]);
+        }
+        for (int i = 0; i < requests.length; i++) {
+            assertEquals(first[i], post(requests[i]), requests[i]);
+        }
+
+        assertEquals(first[0], post(call("getCourse", "courseId", " 01 ")));
+        int soap12 = post(call("getCourse", "courseId", "1"), "application/soap+xml; charset=utf-8");
+        assertNotEquals(first[0], soap12);
+        assertEquals(soap12, post(call("getCourse", "courseId", "1"), "application/soap+xml; charset=utf-8"));
+
+        assertNotEquals(first[5], post(call("listCourses", "page", "2")));
+        String write = call("deleteCourse", "courseId", "1");
+        assertNotEquals(post(write), post(write));
+    }
+
+    @Test
+    void testCourseChange_EvictsOnlyTheResponsesThatMayIncludeIt() throws Exception {
+        start(new SoapResponseCache(true, 100, 1_000_000, 10_000, 60_000));
+        String course = call("getCourse", "courseId", "1");
+        String otherCourse = call("getCourse", "courseId", "2");
+        String byCode = call("getCourseByCode", "code", "CS101");
+        String otherCode = call("getCourseByCode", "code", "MATH200");
+        String semester = call("listCoursesBySemester", "semester", "Fall 2026");
+        String otherSemester = call("listCoursesBySemester", "semester", "Spring 2027");
+        String department = call("listCoursesByDepartment", "department", "CS");
+        String otherDepartment = call("listCoursesByDepartment", "department", "MATH");
+        String all = call("listCourses", null, null);
+        String[] dependent = {course, byCode, semester, department, all};
+        String[] independent = {otherCourse, otherCode, otherSemester, otherDepartment};
+        int[] before = new int[dependent.length];
+        int[] kept = new int[independent.length];
+        for (int i = 0; i < dependent.length; i++) {
+            before[i] = post(dependent[i]);
+        }
+        for (int i = 0; i < independent.length; i++) {
+            kept[i] = post(independent[i]);
+        }
+
+        cache.changed(new CourseChange(7L, 1L, "CS101", "Fall 2026", "CS", 30, 12, true, false, null, null, false));
+
+        for (int i = 0; i < dependent.length; i++) {
+            int after = post(dependent[i]);
+            assertNotEquals(before[i], after, dependent[i]);
+            assertEquals(after, post(dependent[i]), dependent[i]);
+        }
+        for (int i = 0; i < independent.length; i++) {
+            assertEquals(kept[i], post(independent[i]), independent[i]);
+        }
+    }
+
+    @Test
+    void testResyncRequired_FlushesEveryEntry() throws Exception {
+        start(new SoapResponseCache(true, 100, 1_000_000, 10_000, 60_000));
+        String course = call("getCourse", "courseId", "2");
+        String department = call("listCoursesByDepartment", "department", "MATH");
+        int courseBefore = post(course);
+        int departmentBefore = post(department);
+
+        cache.resyncRequired();
+
+        assertNotEquals(courseBefore, post(course));
+        assertNotEquals(departmentBefore, post(department));
+        assertEquals(4, calls.get());
+        post(course);
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    void testByteLimit_EvictsLeastRecentlyUsedFirst() throws Exception {
+        start(new SoapResponseCache(true, 100, 3 * RESPONSE_BYTES, 10_000, 60_000));
+        String a = call("getCourse", "courseId", "1");
+        String b = call("getCourse", "courseId", "2");
+        String c = call("getCourse", "courseId", "3");
+        String d = call("getCourse", "courseId", "4");
+        int first = post(a);
+        post(b);
+        post(c);
+        assertEquals(first, post(a));
+
+        post(d);
+
+        assertEquals(4, calls.get());
+        post(a);
+        post(c);
+        post(d);
+        assertEquals(4, calls.get());
+        post(b);
+        assertEquals(5, calls.get());
+        // Storing b again pushed out a, now the least recently used
+        post(a);
+        assertEquals(6, calls.get());
+    }
+
+    @Test
+    void testEntryLimit_LargerResponsesAreServedButNotKept() throws Exception {
+        start(new SoapResponseCache(true, 100, 1_000_000, RESPONSE_BYTES - 1, 60_000));
+        String course = call("getCourse", "courseId", "1");
+
+        assertEquals(1, post(course));
+        assertEquals(2, post(course));
+    }
+
+    private void start(SoapResponseCache cache) throws IOException {
+        this.cache = cache;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/CourseService", cache.wrap(exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = String.format("%-" + RESPONSE_BYTES + "s", calls.incrementAndGet())
+                .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }));
+        server.start();
+    }
+
+    private int post(String envelope) throws Exception {
+        return post(envelope, "text/xml; charset=utf-8");
+    }
+
+    /** The number of the endpoint call that produced the response. */
+    private int post(String envelope, String contentType) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/CourseService"))
+            .header("Content-Type", contentType)
+            .POST(HttpRequest.BodyPublishers.ofString(envelope))
+            .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals(RESPONSE_BYTES, response.body().length());
+        return Integer.parseInt(response.body().trim());
+    }
+
+    private static String call(String operation, String argument, String value) {
+        return "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\" "
+            + "xmlns:c=\"http://service.courses.universite.com/\"><soap:Body><c:" + operation + ">"
+            + (argument != null ? "<" + argument + ">" + value + "</" + argument + ">" : "")
+            + "</c:" + operation + "></soap:Body></soap:Envelope>";
+    }
+}
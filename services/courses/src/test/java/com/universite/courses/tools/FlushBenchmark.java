@@ -0,0 +1,182 @@
+package com.universite.courses.tools;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.universite.courses.entity.Course;
+import com.universite.courses.entity.Schedule;
+import com.universite.courses.repository.CourseRepository;
+import com.universite.courses.service.CourseServiceImpl;
+import com.universite.courses.util.DatabaseManager;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.ManagedEntity;
+import org.hibernate.engine.spi.PersistentAttributeInterceptable;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.hibernate.stat.Statistics;
+import org.slf4j.LoggerFactory;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Measures the Hibernate flush cost of the course write paths on the H2
+ * {@code coursesPU-test} unit, to compare builds with and without bytecode
+ * enhancement ({@code -DskipEnhance}).
+ *
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.universite.courses.tools.FlushBenchmark
+ * mvn -q clean test-compile exec:java -DskipEnhance -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.universite.courses.tools.FlushBenchmark
+ * </pre>
+ *
+ * Scenarios:
+ * <ul>
+ *   <li>{@code flush} - one persistence context holding every course, one
+ *       field changed per flush; isolates dirty checking</li>
+ *   <li>{@code updateCourse}, {@code enrollStudent}, {@code dropCourse} - the
+ *       service operations end to end, with statements per call</li>
+ * </ul>
+ *
+ * Options (all {@code --key=value}): {@code courses} (default 2000),
+ * {@code iterations} (default 2000), {@code warmup} (default 500).
+ */
+@Slf4j
+public class FlushBenchmark {
+
+    public static void main(String[] args) {
+        int courses = 2000;
+        int iterations = 2000;
+        int warmup = 500;
+        for (String arg : args) {
+            String key = arg.substring(2, arg.indexOf('='));
+            int value = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+            switch (key) {
+                case "courses" -> courses = value;
+                case "iterations" -> iterations = value;
+                case "warmup" -> warmup = value;
+                default -> throw new IllegalArgumentException("Unknown option: --" + key);
+            }
+        }
+
+        ((Logger) LoggerFactory.getLogger("com.universite.courses")).setLevel(Level.WARN);
+        ((Logger) LoggerFactory.getLogger("org.hibernate")).setLevel(Level.WARN);
+        ((Logger) LoggerFactory.getLogger("org.hibernate.SQL")).setLevel(Level.WARN);
+        ((Logger) LoggerFactory.getLogger("org.hibernate.type.descriptor.sql.BasicBinder")).setLevel(Level.WARN);
+
+        Map<String, String> overrides = new HashMap<>();
+        overrides.put("jakarta.persistence.jdbc.url", "jdbc:h2:mem:flush;DB_CLOSE_DELAY=-1");
+        overrides.put("hibernate.hbm2ddl.auto", "create");
+        overrides.put("hibernate.show_sql", "false");
+        overrides.put("hibernate.generate_statistics", "true");
+        DatabaseManager.initialize("coursesPU-test", overrides);
+
+        try {
+            log.warn("Entities enhanced: lazy loading={}, dirty tracking={}, managed={}",
+                PersistentAttributeInterceptable.class.isAssignableFrom(Course.class),
+                SelfDirtinessTracker.class.isAssignableFrom(Course.class),
+                ManagedEntity.class.isAssignableFrom(Course.class));
+
+            List<Long> ids = seed(courses);
+            CourseServiceImpl service = new CourseServiceImpl();
+
+            log.warn("{}", String.format("%-14s %10s %12s %12s", "scenario", "ops", "avg us", "stmts/op"));
+            flush(ids, warmup, false);
+            flush(ids, iterations, true);
+
+            run("updateCourse", warmup, iterations, i ->
+                service.updateCourse(ids.get(i % ids.size()), null, "Revision " + i, null, null));
+
+            // A new student per call, spread over the courses so none fills up
+            run("enrollStudent", warmup, iterations, i ->
+                service.enrollStudent(1_000_000L + i, ids.get(i % ids.size())));
+            run("dropCourse", warmup, iterations, i ->
+                service.dropCourse(1_000_000L + i, ids.get(i % ids.size())));
+        } finally {
+            DatabaseManager.close();
+        }
+    }
+
+    private static void flush(List<Long> ids, int iterations, boolean report) {
+        EntityManager em = DatabaseManager.getEntityManager();
+        try {
+            em.getTransaction().begin();
+            List<Course> all = new CourseRepository(em).findAll();
+            long elapsed = 0;
+            for (int i = 0; i < iterations; i++) {
+                all.get(i % all.size()).setDescription("Flush " + i + " " + report);
+                long start = System.nanoTime();
+                em.flush();
+                elapsed += System.nanoTime() - start;
+            }
+            em.getTransaction().rollback();
+            if (report) {
+                log.warn("{}", String.format("%-14s %10d %12.1f %12s   (%d managed courses)",
+                    "flush", iterations, elapsed / 1000.0 / iterations, "1.0", all.size()));
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void run(String name, int warmup, int iterations, IntConsumer operation) {
+        for (int i = 0; i < warmup; i++) {
+            operation.accept(i);
+        }
+        Statistics statistics = statistics();
+        long statements = statistics.getPrepareStatementCount();
+        long start = System.nanoTime();
+        for (int i = warmup; i < warmup + iterations; i++) {
+            operation.accept(i);
+        }
+        long elapsed = System.nanoTime() - start;
+        statements = statistics.getPrepareStatementCount() - statements;
+        log.warn("{}", String.format("%-14s %10d %12.1f %12.1f",
+            name, iterations, elapsed / 1000.0 / iterations, (double) statements / iterations));
+    }
+
+    private static Statistics statistics() {
+        return DatabaseManager.withEntityManager(em -> em.unwrap(Session.class).getSessionFactory().getStatistics());
+    }
+
+    private static List<Long> seed(int count) {
+        return DatabaseManager.inTransaction(em -> {
+            List<Long> ids = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Course course = new Course();
+                course.setCode("BENCH" + i);
+                course.setName("Benchmark course " + i);
+                course.setDescription("Seeded");
+                course.setCredits(3);
+                course.setSemester("Fall 2025");
+                course.setCapacity(100);
+                course.setEnrolled(0);
+                course.setDepartment("CS");
+                course.setLevel("Undergraduate");
+                course.setActive(true);
+                em.persist(course);
+
+                Schedule schedule = new Schedule();
+                schedule.setCourse(course);
+                schedule.setDayOfWeek(DayOfWeek.of(1 + i % 5));
+                schedule.setStartTime(LocalTime.of(8 + i % 10, 0));
+                schedule.setEndTime(LocalTime.of(9 + i % 10, 0));
+                schedule.setRoom("R" + i);
+                em.persist(schedule);
+
+                if (i % 500 == 499) {
+                    em.flush();
+                    em.clear();
+                }
+                ids.add(course.getId());
+            }
+            return ids;
+        });
+    }
+}
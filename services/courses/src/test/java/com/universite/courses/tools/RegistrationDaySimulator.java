@@ -0,0 +1,584 @@
+package com.universite.courses.tools;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.universite.courses.analytics.EnrollmentStatsAggregator;
+import com.universite.courses.dto.EnrollmentDTO;
+import com.universite.courses.entity.Course;
+import com.universite.courses.events.EnrollmentEvent;
+import com.universite.courses.events.EnrollmentEventPipeline;
+import com.universite.courses.events.SegmentedLog;
+import com.universite.courses.repository.EnrollmentCounterRepository;
+import com.universite.courses.service.CourseServiceImpl;
+import com.universite.courses.service.ICourseService;
+import com.universite.courses.util.DatabaseManager;
+import jakarta.persistence.EntityManager;
+import jakarta.xml.ws.BindingProvider;
+import jakarta.xml.ws.Endpoint;
+import jakarta.xml.ws.Service;
+import jakarta.xml.ws.soap.SOAPFaultException;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.namespace.QName;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registration-day rehearsal: seeds a synthetic university, drives a mix of
+ * enrollment and catalog operations through the SOAP endpoint from many
+ * concurrent clients, then checks that no course is overbooked.
+ *
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.universite.courses.tools.RegistrationDaySimulator \
+ *     -Dexec.args="--clients=2000 --duration=60 --mix=enroll=50,drop=15,available=15,student=20"
+ * </pre>
+ *
+ * Options (all {@code --key=value}):
+ * <ul>
+ *   <li>{@code pu} - persistence unit to seed and verify, {@code coursesPU-test} (H2, default) or {@code coursesPU}</li>
+ *   <li>{@code endpoint} - URL of a running service; when absent the service is published in-process</li>
+ *   <li>{@code port} - port of the in-process endpoint (default 18083)</li>
+ *   <li>{@code server-threads} - executor size of the in-process endpoint, 0 keeps the server default like the application does</li>
+ *   <li>{@code seed} - whether to seed the database (default true)</li>
+ *   <li>{@code courses}, {@code students}, {@code semester} - size of the synthetic university</li>
+ *   <li>{@code clients} - concurrent clients, each acting as one student (default 2000)</li>
+ *   <li>{@code duration} - seconds to run, or {@code requests} per client when set</li>
+ *   <li>{@code timeout} - per-request client timeout in milliseconds (default 10000)</li>
+ *   <li>{@code mix} - operation weights for enroll, drop, available and student</li>
+ *   <li>{@code random-seed} - seed for the workload so runs are repeatable</li>
+ * </ul>
+ *
+ * Clients run on virtual threads when the JVM provides them and on a
+ * thread-per-client pool otherwise. The process exits with status 1 when the
+ * verifier finds an overbooked or drifted course.
+ */
+@Slf4j
+public class RegistrationDaySimulator {
+
+    private static final QName SERVICE_NAME = new QName("http://courses.universite.com/", "CourseService");
+    private static final QName PORT_NAME = new QName("http://courses.universite.com/", "CourseServicePort");
+    private static final String[] DEPARTMENTS = {"CS", "MATH", "PHYS", "CHEM", "BIO", "ECON", "HIST", "LING"};
+    private static final String[] LEVELS = {"Undergraduate", "Graduate", "Doctoral"};
+
+    enum Operation { ENROLL, DROP, AVAILABLE, STUDENT }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        if (!options.verbose) {
+            // Per-request INFO logging and SQL tracing would dominate the measurement
+            ((Logger) LoggerFactory.getLogger("com.universite.courses")).setLevel(Level.WARN);
+            ((Logger) LoggerFactory.getLogger("org.hibernate")).setLevel(Level.WARN);
+            ((Logger) LoggerFactory.getLogger("org.hibernate.SQL")).setLevel(Level.WARN);
+            ((Logger) LoggerFactory.getLogger("org.hibernate.type.descriptor.sql.BasicBinder")).setLevel(Level.WARN);
+            java.util.logging.Logger.getLogger("jakarta.enterprise.resource.webservices.jaxws").setLevel(java.util.logging.Level.OFF);
+            java.util.logging.Logger.getLogger("org.glassfish.jaxb").setLevel(java.util.logging.Level.OFF);
+            log.warn("Service logging lowered to WARN for the run, pass --verbose=true to keep it");
+        }
+
+        Map<String, String> overrides = new HashMap<>();
+        overrides.put("hibernate.show_sql", "false");
+        if (options.persistenceUnit.endsWith("-test")) {
+            overrides.put("jakarta.persistence.jdbc.url", "jdbc:h2:mem:registration;DB_CLOSE_DELAY=-1");
+            overrides.put("hibernate.hbm2ddl.auto", "create");
+        }
+        DatabaseManager.initialize(options.persistenceUnit, overrides);
+
+        Endpoint endpoint = null;
+        ExecutorService serverExecutor = null;
+        EnrollmentEventPipeline events = null;
+        boolean consistent;
+        try {
+            List<Long> courseIds = options.seed ? seed(options) : loadCourseIds();
+            if (courseIds.isEmpty()) {
+                throw new IllegalStateException("No courses to run against, seed the database first");
+            }
+
+            String address = options.endpoint;
+            if (address == null) {
+                address = "http://localhost:" + options.port + "/CourseService";
+                events = new EnrollmentEventPipeline(Files.createTempDirectory("enrollment-events"));
+                endpoint = Endpoint.create(new CourseServiceImpl(events));
+                if (options.serverThreads > 0) {
+                    serverExecutor = Executors.newFixedThreadPool(options.serverThreads);
+                    endpoint.setExecutor(serverExecutor);
+                }
+                endpoint.publish(address);
+                log.warn("Published in-process endpoint at {}", address);
+            }
+
+            Report report = drive(options, address, courseIds);
+            report.print();
+
+            consistent = verify();
+            if (events != null) {
+                consistent &= verifyEvents(events);
+                consistent &= verifyStats(events);
+            }
+        } finally {
+            if (endpoint != null) {
+                endpoint.stop();
+            }
+            if (serverExecutor != null) {
+                serverExecutor.shutdownNow();
+            }
+            if (events != null) {
+                events.close();
+            }
+            DatabaseManager.close();
+        }
+        System.exit(consistent ? 0 : 1);
+    }
+
+    // ------------------------------------------------------------------
+    // Seeding
+    // ------------------------------------------------------------------
+
+    private static List<Long> seed(Options options) {
+        log.warn("Seeding {} courses for {} students into {}", options.courses, options.students, options.persistenceUnit);
+        Random random = new Random(options.randomSeed);
+        List<Long> ids = new ArrayList<>(options.courses);
+        EntityManager em = DatabaseManager.getEntityManager();
+        try {
+            em.getTransaction().begin();
+            List<Course> batch = new ArrayList<>();
+            for (int i = 0; i < options.courses; i++) {
+                String department = DEPARTMENTS[i % DEPARTMENTS.length];
+                Course course = new Course();
+                course.setCode(department + (1000 + i / DEPARTMENTS.length));
+                course.setName("Synthetic " + department + " course " + i);
+                course.setCredits(1 + random.nextInt(6));
+                course.setSemester(options.semester);
+                course.setCapacity(10 + random.nextInt(91));
+                course.setEnrolled(0);
+                course.setDepartment(department);
+                course.setLevel(LEVELS[random.nextInt(LEVELS.length)]);
+                course.setActive(true);
+                em.persist(course);
+                batch.add(course);
+
+                if (batch.size() == 500) {
+                    em.flush();
+                    batch.forEach(c -> ids.add(c.getId()));
+                    batch.clear();
+                    em.clear();
+                }
+            }
+            em.flush();
+            batch.forEach(c -> ids.add(c.getId()));
+            em.getTransaction().commit();
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+        return ids;
+    }
+
+    private static List<Long> loadCourseIds() {
+        EntityManager em = DatabaseManager.getEntityManager();
+        try {
+            return em.createQuery("SELECT c.id FROM Course c WHERE c.active = true", Long.class).getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Load generation
+    // ------------------------------------------------------------------
+
+    private static Report drive(Options options, String address, List<Long> courseIds) throws Exception {
+        Service service = Service.create(new URL(address + "?wsdl"), SERVICE_NAME);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService clients = newClientExecutor(options.clients);
+        List<Future<ClientStats>> futures = new ArrayList<>(options.clients);
+        for (int i = 0; i < options.clients; i++) {
+            long studentId = (i % options.students) + 1L;
+            Random random = new Random(options.randomSeed * 31 + i);
+            futures.add(clients.submit(() -> runClient(options, service, studentId, courseIds, random, deadline, start)));
+        }
+
+        log.warn("Driving {} clients against {}", options.clients, address);
+        long began = System.nanoTime();
+        start.countDown();
+
+        Report report = new Report();
+        for (Future<ClientStats> future : futures) {
+            report.add(future.get());
+        }
+        report.elapsedNanos = System.nanoTime() - began;
+        clients.shutdown();
+        return report;
+    }
+
+    private static ClientStats runClient(Options options, Service service, long studentId, List<Long> courseIds,
+                                         Random random, long deadline, CountDownLatch start) throws InterruptedException {
+        ICourseService port = service.getPort(PORT_NAME, ICourseService.class);
+        Map<String, Object> context = ((BindingProvider) port).getRequestContext();
+        context.put("com.sun.xml.ws.connect.timeout", options.timeoutMillis);
+        context.put("com.sun.xml.ws.request.timeout", options.timeoutMillis);
+        ClientStats stats = new ClientStats();
+        List<Long> enrolled = new ArrayList<>();
+        start.await();
+
+        int issued = 0;
+        while (options.requestsPerClient > 0 ? issued < options.requestsPerClient : System.nanoTime() < deadline) {
+            Operation operation = options.pick(random);
+            if (operation == Operation.DROP && enrolled.isEmpty()) {
+                operation = Operation.ENROLL;
+            }
+
+            long began = System.nanoTime();
+            try {
+                switch (operation) {
+                    case ENROLL -> {
+                        Long courseId = courseIds.get(random.nextInt(courseIds.size()));
+                        EnrollmentDTO enrollment = port.enrollStudent(studentId, courseId);
+                        enrolled.add(enrollment.getCourseId());
+                    }
+                    case DROP -> {
+                        Long courseId = enrolled.remove(random.nextInt(enrolled.size()));
+                        port.dropCourse(studentId, courseId);
+                    }
+                    case AVAILABLE -> port.listAvailableCourses();
+                    case STUDENT -> port.getStudentCourses(studentId);
+                }
+                stats.record(operation, System.nanoTime() - began, Outcome.OK);
+            } catch (SOAPFaultException e) {
+                // Business rejections such as "Course is full" come back as faults
+                stats.record(operation, System.nanoTime() - began, Outcome.REJECTED);
+            } catch (RuntimeException e) {
+                // Timeouts and transport errors, the service never answered
+                stats.record(operation, System.nanoTime() - began, Outcome.FAILED);
+            }
+            issued++;
+        }
+        return stats;
+    }
+
+    /**
+     * Virtual threads when the running JVM has them (21+), one platform thread
+     * per client otherwise. Looked up reflectively so the module still targets 17.
+     */
+    private static ExecutorService newClientExecutor(int clients) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads unavailable on this JVM, using {} platform threads", clients);
+            return Executors.newFixedThreadPool(clients);
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Verification
+    // ------------------------------------------------------------------
+
+    private static boolean verify() {
+        EntityManager em = DatabaseManager.getEntityManager();
+        try {
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = em.createNativeQuery(
+                "SELECT c.code, c.capacity, c.enrolled, COUNT(sc.id) " +
+                "FROM courses c LEFT JOIN student_courses sc " +
+                "ON sc.course_id = c.id AND sc.enrollment_status IN (" + EnrollmentCounterRepository.SEAT_HOLDING_STATUSES + ") " +
+                "GROUP BY c.id, c.code, c.capacity, c.enrolled").getResultList();
+
+            int overbooked = 0;
+            int drifted = 0;
+            for (Object[] row : rows) {
+                String code = (String) row[0];
+                int capacity = ((Number) row[1]).intValue();
+                int counter = ((Number) row[2]).intValue();
+                int actual = ((Number) row[3]).intValue();
+                if (counter > capacity || actual > capacity) {
+                    overbooked++;
+                    log.error("OVERBOOKED {}: capacity={}, enrolled={}, student_courses={}", code, capacity, counter, actual);
+                }
+                if (counter != actual) {
+                    drifted++;
+                    log.error("DRIFT {}: enrolled={}, student_courses={}", code, counter, actual);
+                }
+            }
+
+            if (overbooked == 0 && drifted == 0) {
+                log.warn("Verifier: {} courses checked, no overbooking, counters match student_courses", rows.size());
+                return true;
+            }
+            log.error("Verifier: {} courses checked, {} overbooked, {} with drifted counters", rows.size(), overbooked, drifted);
+            return false;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Replays the enrollment event log and checks that the net ENROLLED minus
+     * DROPPED per course matches the enrollment counters, i.e. the outbox
+     * captured every committed enrollment change exactly once after de-dup.
+     * A COUNTER_REPAIRED event resets the course to its repaired counter.
+     */
+    private static boolean verifyEvents(EnrollmentEventPipeline events) {
+        events.flush();
+        Map<Long, Integer> net = new HashMap<>();
+        Set<Long> seen = new HashSet<>();
+        long offset = 0;
+        List<SegmentedLog.Entry> batch;
+        while (!(batch = events.getEventLog().read(offset, 1000)).isEmpty()) {
+            for (SegmentedLog.Entry entry : batch) {
+                EnrollmentEvent event = EnrollmentEvent.decode(entry.payload());
+                if (!seen.add(event.getEventId())) {
+                    // a re-delivery
+                } else if ("COUNTER_REPAIRED".equals(event.getEventType())) {
+                    net.put(event.getCourseId(), event.getEnrolled());
+                } else {
+                    int delta = "ENROLLED".equals(event.getEventType()) ? 1 : "DROPPED".equals(event.getEventType()) ? -1 : 0;
+                    net.merge(event.getCourseId(), delta, Integer::sum);
+                }
+                offset = entry.offset() + 1;
+            }
+        }
+
+        EntityManager em = DatabaseManager.getEntityManager();
+        try {
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = em.createNativeQuery("SELECT id, code, enrolled FROM courses").getResultList();
+            int mismatched = 0;
+            for (Object[] row : rows) {
+                long courseId = ((Number) row[0]).longValue();
+                int counter = ((Number) row[2]).intValue();
+                int replayed = net.getOrDefault(courseId, 0);
+                if (counter != replayed) {
+                    mismatched++;
+                    log.error("EVENTS {}: enrolled={}, replayed from log={}", row[1], counter, replayed);
+                }
+            }
+            if (mismatched == 0) {
+                log.warn("Verifier: {} events replayed, every course matches its counter", seen.size());
+                return true;
+            }
+            log.error("Verifier: {} events replayed, {} courses do not match", seen.size(), mismatched);
+            return false;
+        } finally {
+            em.close();
+        }
+    }
+
+    /** Checks the incremental per-department aggregates against a full scan. */
+    private static boolean verifyStats(EnrollmentEventPipeline events) throws InterruptedException {
+        EnrollmentStatsAggregator stats = events.getStats();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (stats.getAppliedOffset() < events.getEventLog().nextOffset() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        EntityManager em = DatabaseManager.getEntityManager();
+        try {
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = em.createNativeQuery(
+                "SELECT c.department, SUM(c.capacity), SUM(c.enrolled), " +
+                "SUM((SELECT COUNT(*) FROM waitlist_requests w WHERE w.course_id = c.id)) " +
+                "FROM courses c GROUP BY c.department").getResultList();
+            int mismatched = 0;
+            for (Object[] row : rows) {
+                String department = (String) row[0];
+                long seats = ((Number) row[1]).longValue();
+                long enrolled = ((Number) row[2]).longValue();
+                long waitlist = ((Number) row[3]).longValue();
+                EnrollmentStatsAggregator.Totals totals = stats.get(department, null, null);
+                if (totals.seats() != seats || totals.enrolled() != enrolled || totals.waitlist() != waitlist) {
+                    mismatched++;
+                    log.error("STATS {}: seats={}/{}, enrolled={}/{}, waitlist={}/{} (aggregate/scan)",
+                        department, totals.seats(), seats, totals.enrolled(), enrolled, totals.waitlist(), waitlist);
+                }
+            }
+            EnrollmentStatsAggregator.Totals all = stats.get(null, null, null);
+            if (mismatched == 0) {
+                log.warn("Verifier: aggregates match for {} departments ({} enrolled, {} drops, {} waitlist demand)",
+                    rows.size(), all.enrolled(), all.drops(), all.waitlist());
+                return true;
+            }
+            log.error("Verifier: {} of {} department aggregates do not match", mismatched, rows.size());
+            return false;
+        } finally {
+            em.close();
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Statistics
+    // ------------------------------------------------------------------
+
+    enum Outcome { OK, REJECTED, FAILED }
+
+    /** Per-client samples, kept thread-confined and merged once the run is over. */
+    static class ClientStats {
+        final long[][] latencies = new long[Operation.values().length][64];
+        final int[] sizes = new int[Operation.values().length];
+        final long[][] outcomes = new long[Operation.values().length][Outcome.values().length];
+
+        void record(Operation operation, long nanos, Outcome outcome) {
+            int op = operation.ordinal();
+            if (sizes[op] == latencies[op].length) {
+                latencies[op] = Arrays.copyOf(latencies[op], sizes[op] * 2);
+            }
+            latencies[op][sizes[op]++] = nanos;
+            outcomes[op][outcome.ordinal()]++;
+        }
+    }
+
+    static class Report {
+        final List<long[]>[] samples;
+        final long[][] outcomes = new long[Operation.values().length][Outcome.values().length];
+        long elapsedNanos;
+
+        @SuppressWarnings("unchecked")
+        Report() {
+            samples = new List[Operation.values().length];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = new ArrayList<>();
+            }
+        }
+
+        void add(ClientStats stats) {
+            for (int op = 0; op < samples.length; op++) {
+                samples[op].add(Arrays.copyOf(stats.latencies[op], stats.sizes[op]));
+                for (int o = 0; o < Outcome.values().length; o++) {
+                    outcomes[op][o] += stats.outcomes[op][o];
+                }
+            }
+        }
+
+        void print() {
+            double seconds = elapsedNanos / 1e9;
+            long total = 0;
+            log.warn("========================================");
+            log.warn(String.format("%-10s %9s %9s %9s %10s %9s %9s %9s",
+                "operation", "ok", "rejected", "failed", "req/s", "p50 ms", "p99 ms", "p99.9 ms"));
+            for (Operation operation : Operation.values()) {
+                long[] merged = merge(samples[operation.ordinal()]);
+                long[] counts = outcomes[operation.ordinal()];
+                total += merged.length;
+                log.warn(String.format("%-10s %9d %9d %9d %10.1f %9.2f %9.2f %9.2f",
+                    operation.name().toLowerCase(), counts[0], counts[1], counts[2], merged.length / seconds,
+                    percentile(merged, 0.50), percentile(merged, 0.99), percentile(merged, 0.999)));
+            }
+            log.warn(String.format("total %d requests in %.1fs, %.1f req/s", total, seconds, total / seconds));
+            log.warn("========================================");
+        }
+
+        private static long[] merge(List<long[]> parts) {
+            long[] merged = new long[parts.stream().mapToInt(p -> p.length).sum()];
+            int at = 0;
+            for (long[] part : parts) {
+                System.arraycopy(part, 0, merged, at, part.length);
+                at += part.length;
+            }
+            Arrays.sort(merged);
+            return merged;
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Options
+    // ------------------------------------------------------------------
+
+    static class Options {
+        String persistenceUnit = "coursesPU-test";
+        String endpoint;
+        int port = 18083;
+        int serverThreads = 0;
+        boolean seed = true;
+        int courses = 2000;
+        int students = 20000;
+        String semester = "Fall 2025";
+        int clients = 2000;
+        int durationSeconds = 60;
+        int requestsPerClient = 0;
+        int timeoutMillis = 10000;
+        long randomSeed = 42;
+        boolean verbose = false;
+        final Map<Operation, Integer> mix = new LinkedHashMap<>();
+        int totalWeight;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            String mix = "enroll=50,drop=15,available=15,student=20";
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+                }
+                String key = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                switch (key) {
+                    case "pu" -> options.persistenceUnit = value;
+                    case "endpoint" -> options.endpoint = value;
+                    case "port" -> options.port = Integer.parseInt(value);
+                    case "server-threads" -> options.serverThreads = Integer.parseInt(value);
+                    case "seed" -> options.seed = Boolean.parseBoolean(value);
+                    case "courses" -> options.courses = Integer.parseInt(value);
+                    case "students" -> options.students = Integer.parseInt(value);
+                    case "semester" -> options.semester = value;
+                    case "clients" -> options.clients = Integer.parseInt(value);
+                    case "duration" -> options.durationSeconds = Integer.parseInt(value);
+                    case "requests" -> options.requestsPerClient = Integer.parseInt(value);
+                    case "timeout" -> options.timeoutMillis = Integer.parseInt(value);
+                    case "random-seed" -> options.randomSeed = Long.parseLong(value);
+                    case "verbose" -> options.verbose = Boolean.parseBoolean(value);
+                    case "mix" -> mix = value;
+                    default -> throw new IllegalArgumentException("Unknown option: --" + key);
+                }
+            }
+            for (String part : mix.split(",")) {
+                String[] kv = part.trim().split("=");
+                Operation operation = Operation.valueOf(kv[0].trim().toUpperCase());
+                int weight = Integer.parseInt(kv[1].trim());
+                options.mix.put(operation, weight);
+                options.totalWeight += weight;
+            }
+            if (options.totalWeight <= 0) {
+                throw new IllegalArgumentException("Operation mix must have a positive total weight");
+            }
+            return options;
+        }
+
+        Operation pick(Random random) {
+            int roll = random.nextInt(totalWeight);
+            for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+                roll -= entry.getValue();
+                if (roll < 0) {
+                    return entry.getKey();
+                }
+            }
+            return Operation.ENROLL;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.universite.courses.util;
+
+import com.universite.courses.entity.Course;
+import com.universite.courses.repository.CourseRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Reads routed to a second, local H2 database standing in for the replica, with the primary behind it. */
+class DatabaseManagerReadTest {
+
+    private EntityManagerFactory replica;
+    private ReadReplicaRouter router;
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.initialize("coursesPU-test", Map.of(
+            "jakarta.persistence.jdbc.url", "jdbc:h2:mem:read-primary;DB_CLOSE_DELAY=-1",
+            "jakarta.persistence.jdbc.user", "sa",
+            "jakarta.persistence.jdbc.password", ""));
+        DatabaseManager.inTransaction(em -> {
+            em.persist(course("PRI101"));
+            return null;
+        });
+
+        replica = Persistence.createEntityManagerFactory("coursesPU-test",
+            Map.of("jakarta.persistence.jdbc.url", "jdbc:h2:mem:read-replica;DB_CLOSE_DELAY=-1"));
+        EntityManager entityManager = replica.createEntityManager();
+        entityManager.getTransaction().begin();
+        entityManager.persist(course("REP101"));
+        entityManager.getTransaction().commit();
+        entityManager.close();
+
+        router = new ReadReplicaRouter(replica, "SELECT 0", 5000, 60_000);
+        DatabaseManager.setReadReplicaRouter(router);
+    }
+
+    @AfterEach
+    void tearDown() {
+        DatabaseManager.close();
+        if (replica.isOpen()) {
+            replica.close();
+        }
+    }
+
+    @Test
+    void testRead_ServedByReplica() {
+        List<String> codes = DatabaseManager.withReadEntityManager(em -> codes(new CourseRepository(em).findAll()));
+
+        assertEquals(List.of("REP101"), codes);
+        assertTrue(router.isUsable());
+        assertEquals(1, router.getReplicaReads());
+    }
+
+    @Test
+    void testBrokenReplica_FallsBackToPrimaryAndIsSkipped() {
+        breakReplica();
+
+        Optional<Course> found = DatabaseManager.withReadEntityManager(em -> new CourseRepository(em).findByCode("PRI101"));
+        List<String> codes = DatabaseManager.withReadEntityManager(em -> codes(new CourseRepository(em).findAll()));
+
+        assertTrue(found.isPresent());
+        assertEquals(List.of("PRI101"), codes);
+        assertFalse(router.isUsable());
+        assertEquals(1, router.getReplicaReads());
+        assertEquals(1, router.getPrimaryFallbacks());
+    }
+
+    @Test
+    void testBrokenReplica_EveryRoutedFinderFallsBack() {
+        breakReplica();
+        long id = DatabaseManager.withEntityManager(em -> new CourseRepository(em).findByCode("PRI101")).orElseThrow()
+            .getId();
+
+        assertTrue(DatabaseManager.withReadEntityManager(em -> new CourseRepository(em).findById(id)).isPresent());
+        // The first failure takes the replica out of the rotation
+        assertEquals(1, DatabaseManager.withReadEntityManager(em ->
+            new CourseRepository(em).findBySemester("Fall 2026")).size());
+        assertFalse(router.isUsable());
+    }
+
+    @Test
+    void testWorkException_PropagatesWithoutBlamingTheReplica() {
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () ->
+            DatabaseManager.withReadEntityManager(em -> new CourseRepository(em).findByCode("NONE")
+                .orElseThrow(() -> new IllegalArgumentException("Course not found"))));
+
+        assertEquals("Course not found", thrown.getMessage());
+        assertTrue(router.isUsable());
+    }
+
+    /** The replica still answers the lag probe, but its tables are gone. */
+    private void breakReplica() {
+        EntityManager entityManager = replica.createEntityManager();
+        entityManager.getTransaction().begin();
+        entityManager.createNativeQuery("DROP ALL OBJECTS").executeUpdate();
+        entityManager.getTransaction().commit();
+        entityManager.close();
+    }
+
+    private static Course course(String code) {
+        Course course = new Course();
+        course.setCode(code);
+        course.setName("Course " + code);
+        course.setCredits(3);
+        course.setSemester("Fall 2026");
+        course.setDepartment("CS");
+        course.setLevel("Undergraduate");
+        course.setCapacity(30);
+        return course;
+    }
+
+    private static List<String> codes(List<Course> courses) {
+        return courses.stream().map(Course::getCode).toList();
+    }
+}
@@ -0,0 +1,103 @@
+package com.universite.courses.util;
+
+import com.universite.courses.entity.Course;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Routes reads to a second, local H2 database standing in for the replica. */
+class ReadReplicaRouterTest {
+
+    private EntityManagerFactory replica;
+    private ReadReplicaRouter router;
+
+    @BeforeEach
+    void setUp() {
+        replica = Persistence.createEntityManagerFactory("coursesPU-test",
+            Map.of("jakarta.persistence.jdbc.url", "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1"));
+        EntityManager entityManager = replica.createEntityManager();
+        entityManager.getTransaction().begin();
+        Course course = new Course();
+        course.setCode("REP101");
+        course.setName("Replicated course");
+        course.setCredits(3);
+        course.setSemester("Fall 2026");
+        entityManager.persist(course);
+        entityManager.getTransaction().commit();
+        entityManager.close();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (router != null) {
+            router.close();
+        }
+        if (replica.isOpen()) {
+            replica.close();
+        }
+    }
+
+    @Test
+    void testReplicaWithinBudget_ServesReads() {
+        router = new ReadReplicaRouter(replica, "SELECT 0", 5000, 60_000);
+
+        assertTrue(router.isUsable());
+        assertEquals(0, router.getLastLagMillis());
+        EntityManager entityManager = router.replicaEntityManagerOrNull();
+        assertNotNull(entityManager);
+        try {
+            List<String> codes = entityManager.createQuery("SELECT c.code FROM Course c", String.class)
+                .getResultList();
+            assertEquals(List.of("REP101"), codes);
+        } finally {
+            entityManager.close();
+        }
+        assertEquals(1, router.getReplicaReads());
+        assertEquals(0, router.getPrimaryFallbacks());
+    }
+
+    @Test
+    void testReplicaOverBudget_FallsBackToPrimary() {
+        router = new ReadReplicaRouter(replica, "SELECT 9000", 5000, 60_000);
+
+        assertFalse(router.isUsable());
+        assertEquals(9000, router.getLastLagMillis());
+        assertNull(router.replicaEntityManagerOrNull());
+        assertEquals(1, router.getPrimaryFallbacks());
+    }
+
+    @Test
+    void testFailedRead_SkipsReplicaUntilNextProbe() throws InterruptedException {
+        router = new ReadReplicaRouter(replica, "SELECT 0", 5000, 50);
+        assertTrue(router.isUsable());
+
+        router.reportFailure(new IllegalStateException("connection reset"));
+        assertNull(router.replicaEntityManagerOrNull());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!router.isUsable() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(router.isUsable());
+    }
+
+    @Test
+    void testUnreachableReplica_FallsBackToPrimary() {
+        replica.close();
+        replica = Persistence.createEntityManagerFactory("coursesPU-test",
+            Map.of("jakarta.persistence.jdbc.url", "jdbc:h2:mem:replica-empty",
+                "hibernate.hbm2ddl.auto", "none"));
+        router = new ReadReplicaRouter(replica, "SELECT lag FROM missing_table", 5000, 60_000);
+
+        assertFalse(router.isUsable());
+        assertNull(router.replicaEntityManagerOrNull());
+    }
+}
@@ -0,0 +1,73 @@
+package com.universite.courses.util;
+
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.StaleStateException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPolicyTest {
+
+    private final RetryPolicy policy = new RetryPolicy(3, 1, 1);
+
+    @Test
+    void testExecute_RetriesConflictsUntilSuccess() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = policy.execute("update", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new OptimisticLockException("stale");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, calls.get());
+        assertEquals(2, policy.getConflicts());
+        assertEquals(2, policy.getRetries());
+        assertEquals(0, policy.getExhausted());
+    }
+
+    @Test
+    void testExecute_GivesUpAfterMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+            policy.execute("update", () -> {
+                calls.incrementAndGet();
+                throw new RuntimeException("commit failed", new StaleStateException("stale"));
+            }));
+
+        assertEquals("Concurrent update conflict, please retry", e.getMessage());
+        assertEquals(3, calls.get());
+        assertEquals(3, policy.getConflicts());
+        assertEquals(2, policy.getRetries());
+        assertEquals(1, policy.getExhausted());
+    }
+
+    @Test
+    void testExecute_OtherFailuresAreNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+        IllegalArgumentException failure = new IllegalArgumentException("Course is full");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+            policy.execute("enroll", () -> {
+                calls.incrementAndGet();
+                throw failure;
+            }));
+
+        assertSame(failure, e);
+        assertEquals(1, calls.get());
+        assertEquals(0, policy.getConflicts());
+    }
+
+    @Test
+    void testIsOptimisticConflict_FollowsCauses() {
+        assertTrue(RetryPolicy.isOptimisticConflict(new OptimisticLockException()));
+        assertTrue(RetryPolicy.isOptimisticConflict(
+            new RuntimeException(new IllegalStateException(new StaleStateException("stale")))));
+        assertFalse(RetryPolicy.isOptimisticConflict(new RuntimeException(new IllegalStateException())));
+    }
+}